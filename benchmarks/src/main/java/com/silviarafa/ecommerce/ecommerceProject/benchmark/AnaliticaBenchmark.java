@@ -0,0 +1,90 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.analitica.VentasColumnares;
+
+/**
+ * Rankings de ventas sobre el motor columnar en memoria, con líneas sintéticas (sin BD).
+ * <p>
+ * Las compras se reparten uniformemente en dos años, en orden de fecha como llegan de la BD, con
+ * 4 líneas de media y {@code articulos} artículos distintos. {@code topAnio} recorre la mitad de los
+ * segmentos y {@code topMes} solo los de un mes gracias a las zonas de fechas. Con 20M líneas el heap
+ * necesario es de unos 500 MB ({@code -Xmx1g}).
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class AnaliticaBenchmark {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+	private static final long DOS_ANIOS = 2L * 365 * 24 * 3600;
+
+	@Param({ "1000000", "20000000" })
+	public int lineas;
+
+	@Param({ "10000" })
+	public int articulos;
+
+	private VentasColumnares ventas;
+
+	@Setup
+	public void preparar() {
+		ventas = new VentasColumnares(null);
+		SplittableRandom r = new SplittableRandom(42);
+		long base = VentasColumnares.segundos(INICIO);
+		int compras = lineas / 4;
+		int escritas = 0;
+		for (int c = 1; escritas < lineas; c++) {
+			int n = Math.min(1 + r.nextInt(7), lineas - escritas);
+			int[] arts = new int[n];
+			int[] uds = new int[n];
+			long[] cts = new long[n];
+			for (int i = 0; i < n; i++) {
+				arts[i] = 1 + r.nextInt(articulos);
+				uds[i] = 1 + r.nextInt(5);
+				cts[i] = uds[i] * (100L + r.nextInt(10_000));
+			}
+			ventas.anadir(c, base + DOS_ANIOS * Math.min(c, compras) / compras, arts, uds, cts);
+			escritas += n;
+		}
+	}
+
+	@Benchmark
+	public List<VentasColumnares.Ranking> topTotal() {
+		return ventas.top(null, null, 10, VentasColumnares.Criterio.INGRESOS);
+	}
+
+	@Benchmark
+	public List<VentasColumnares.Ranking> topAnio() {
+		return ventas.top(INICIO.plusYears(1), INICIO.plusYears(2), 10, VentasColumnares.Criterio.INGRESOS);
+	}
+
+	@Benchmark
+	public List<VentasColumnares.Ranking> topMes() {
+		return ventas.top(INICIO.plusMonths(6), INICIO.plusMonths(7), 10, VentasColumnares.Criterio.UNIDADES);
+	}
+}
@@ -0,0 +1,198 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.time.Duration;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.archivo.ArchivadoCompras;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.HistorialCompras;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ReconstruccionAgregados;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ResumenCompra;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Historial de compras con parte de ellas archivadas ({@link ArchivadoCompras}).
+ * <p>
+ * Se crean {@value #COMPRAS} compras del cliente de prueba con fechas antiguas; una de cada cuatro queda
+ * pendiente y el resto entregadas. Antes de medir se archivan en lotes pequeños y se comprueba que solo se han
+ * movido las entregadas (con todas sus líneas), que el historial completo y paginado es el mismo que antes, que
+ * los agregados no cambian y que una segunda ejecución no mueve nada. Se mide la primera página del historial y
+ * el recorrido completo, que leen y mezclan la tabla caliente y la de archivo.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArchivadoBenchmark {
+
+	private static final int ARTICULOS = 20;
+	private static final int COMPRAS = 2000;
+	private static final int TAMANO_PAGINA = 20;
+
+	private EntityManagerFactory emf;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		emf = BaseDatosBench.crear("archivado", ARTICULOS);
+		crearCompras();
+		envejecerCompras();
+		// Los agregados guardan la fecha real de alta: se alinean con las fechas nuevas antes de archivar
+		new ReconstruccionAgregados(emf).reconstruir();
+		comprobarArchivado();
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		emf.close();
+	}
+
+	private void crearCompras() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			Cliente cliente = em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE);
+			List<Articulo> articulos = em.createQuery("SELECT a FROM Articulo a ORDER BY a.id", Articulo.class)
+					.getResultList();
+			em.clear();
+			for (int i = 0; i < COMPRAS; i++) {
+				Map<Articulo, Integer> carrito = new LinkedHashMap<>();
+				carrito.put(articulos.get(i % ARTICULOS), 1);
+				carrito.put(articulos.get((i + 1) % ARTICULOS), 2);
+				OperacionesCompra.crear(em, cliente, carrito);
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	/* Fechas de hace años, un minuto por compra; una de cada cuatro sigue pendiente (SQL de H2). */
+	private void envejecerCompras() {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			em.createNativeQuery("UPDATE compra SET fecha_compra = DATEADD('MINUTE', -id, TIMESTAMP '2020-01-01"
+					+ " 00:00:00'), estado = CASE WHEN MOD(id, 4) = 0 THEN 'PENDIENTE' ELSE 'entregado' END")
+					.executeUpdate();
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+	}
+
+	/* Falla si el archivado mueve algo de más o de menos o si cambia lo que ve el historial. */
+	private void comprobarArchivado() {
+		List<Integer> antes = historialCompleto();
+		long entregadas = contar("SELECT COUNT(c) FROM Compra c WHERE c.estado = 'entregado'");
+		long lineasEntregadas = contar("SELECT COUNT(l) FROM ArticuloCompra l WHERE l.compra.estado = 'entregado'");
+
+		ArchivadoCompras archivado = new ArchivadoCompras(emf, Period.ofYears(1), Set.of("entregado"), 150,
+				Duration.ZERO);
+		ArchivadoCompras.Informe informe = archivado.archivar();
+		System.err.println(informe);
+		if (informe.compras() != entregadas || informe.lineas() != lineasEntregadas || informe.lotesFallidos() > 0)
+			throw new IllegalStateException("Archivado incompleto: " + informe);
+		if (contar("SELECT COUNT(c) FROM Compra c") != antes.size() - entregadas
+				|| contar("SELECT COUNT(c) FROM CompraArchivada c") != entregadas
+				|| contar("SELECT COUNT(l) FROM ArticuloCompraArchivada l") != lineasEntregadas)
+			throw new IllegalStateException("Las tablas calientes y de archivo no cuadran tras archivar.");
+
+		if (!antes.equals(historialCompleto()))
+			throw new IllegalStateException("El historial completo ha cambiado al archivar.");
+		if (!antes.equals(historialPaginado()))
+			throw new IllegalStateException("El historial paginado ha cambiado al archivar.");
+		ReconstruccionAgregados.Informe agregados = new ReconstruccionAgregados(emf).reconstruir();
+		if (agregados.totalDesviaciones() != 0)
+			throw new IllegalStateException("Los agregados no cuentan las compras archivadas: " + agregados);
+		if (archivado.archivar().compras() != 0)
+			throw new IllegalStateException("Una segunda ejecución ha vuelto a archivar compras.");
+	}
+
+	private long contar(String jpql) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery(jpql, Long.class).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+
+	private List<Integer> historialCompleto() {
+		EntityManager em = emf.createEntityManager();
+		try (Stream<ResumenCompra> compras = HistorialCompras.stream(em, BaseDatosBench.NIF_CLIENTE)) {
+			return compras.map(ResumenCompra::id).toList();
+		} finally {
+			em.close();
+		}
+	}
+
+	private List<Integer> historialPaginado() {
+		List<Integer> ids = new ArrayList<>();
+		EntityManager em = emf.createEntityManager();
+		try {
+			HistorialCompras.Pagina pagina = HistorialCompras.primeraPagina(em, BaseDatosBench.NIF_CLIENTE, 7);
+			pagina.compras().forEach(c -> ids.add(c.id()));
+			while (pagina.hayMas()) {
+				pagina = HistorialCompras.pagina(em, BaseDatosBench.NIF_CLIENTE, pagina.siguiente(), 7);
+				pagina.compras().forEach(c -> ids.add(c.id()));
+			}
+			return ids;
+		} finally {
+			em.close();
+		}
+	}
+
+	@Benchmark
+	public HistorialCompras.Pagina primeraPagina() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return HistorialCompras.primeraPagina(em, BaseDatosBench.NIF_CLIENTE, TAMANO_PAGINA);
+		} finally {
+			em.close();
+		}
+	}
+
+	@Benchmark
+	public long recorrerHistorial() {
+		EntityManager em = emf.createEntityManager();
+		try (Stream<ResumenCompra> compras = HistorialCompras.stream(em, BaseDatosBench.NIF_CLIENTE)) {
+			return compras.count();
+		} finally {
+			em.close();
+		}
+	}
+}
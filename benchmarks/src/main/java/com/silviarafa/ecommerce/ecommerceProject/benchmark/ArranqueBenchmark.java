@@ -0,0 +1,159 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Tiempo hasta la primera consulta: arranque de la unidad de persistencia y primer {@code em.find(Cliente)},
+ * cada medida en una JVM nueva.
+ * <p>
+ * No es un benchmark JMH: lo que se mide es el arranque en frío (carga de clases, metadatos JDBC, validación
+ * del esquema), que solo ocurre una vez por JVM, y el esquema tiene que existir antes de que arranque la JVM
+ * medida para poder validarlo. Este proceso crea una BD H2 en fichero con el esquema y el cliente de prueba y
+ * lanza {@value #REPETICIONES_DEFECTO} JVM por modo (mismo ejecutable {@code java} y mismo classpath):
+ * </p>
+ * <ul>
+ *   <li><b>completo</b>: lee los metadatos JDBC y valida el esquema al arrancar (perfil dev).</li>
+ *   <li><b>rapido</b>: sin metadatos JDBC y con la validación en segundo plano (perfiles pre y pro).</li>
+ *   <li><b>rapido+cds</b>: como {@code rapido}, con un archivo AppCDS del classpath del benchmark generado
+ *       antes con una ejecución de entrenamiento ({@code -XX:ArchiveClassesAtExit}).</li>
+ * </ul>
+ * <p>
+ * Cada JVM hija informa del tiempo desde el inicio de la JVM y desde su {@code main} hasta tener el resultado
+ * de la primera consulta, espera a la validación diferida y falla si el esquema no es válido. Se imprimen
+ * mínimo, mediana y máximo por modo.
+ * </p>
+ * <p>
+ * Uso: {@code java -cp target/benchmarks.jar com.silviarafa.ecommerce.ecommerceProject.benchmark.ArranqueBenchmark [repeticiones]}
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ArranqueBenchmark {
+
+	private static final int REPETICIONES_DEFECTO = 7;
+	private static final String HIJA = "hija";
+	private static final String MARCA = "ARRANQUE ";
+
+	/** Modo: nombre y propiedades que sobrescribe sobre las de H2. */
+	private record Modo(String nombre, Map<String, Object> props) {
+	}
+
+	private static final List<Modo> MODOS = List.of(
+			new Modo("completo", Map.of("hibernate.boot.allow_jdbc_metadata_access", "true",
+					"hibernate.hbm2ddl.auto", "validate",
+					Arranque.PROPIEDAD_VALIDACION_DIFERIDA, "false")),
+			new Modo("rapido", Map.of("hibernate.boot.allow_jdbc_metadata_access", "false",
+					"hibernate.hbm2ddl.auto", "none",
+					Arranque.PROPIEDAD_VALIDACION_DIFERIDA, "true")));
+
+	/** Resultado de una JVM hija, en ms. */
+	private record Medida(long desdeJvm, long desdeMain) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals(HIJA)) {
+			hija(args[1], args[2]);
+			return;
+		}
+		int repeticiones = args.length > 0 ? Integer.parseInt(args[0]) : REPETICIONES_DEFECTO;
+		Path dir = Files.createTempDirectory("arranque-bench");
+		String url = "jdbc:h2:file:" + dir.resolve("eshop") + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE";
+		crearEsquema(url);
+
+		Path archivoCds = dir.resolve("arranque.jsa");
+		ejecutarHija(List.of("-XX:ArchiveClassesAtExit=" + archivoCds), "rapido", url);
+		if (!Files.exists(archivoCds))
+			throw new IllegalStateException("La ejecución de entrenamiento no ha generado " + archivoCds);
+
+		System.out.println("\n--- TIEMPO HASTA LA PRIMERA CONSULTA (ms, " + repeticiones + " JVM por modo) ---");
+		System.out.printf("%-12s %28s %28s%n", "modo", "desde la JVM (mín/med/máx)", "desde main (mín/med/máx)");
+		medir("completo", List.of(), "completo", url, repeticiones);
+		medir("rapido", List.of(), "rapido", url, repeticiones);
+		medir("rapido+cds", List.of("-XX:SharedArchiveFile=" + archivoCds), "rapido", url, repeticiones);
+	}
+
+	/* Esquema y cliente de prueba en la BD en fichero; al cerrar la factoría H2 cierra el fichero. */
+	private static void crearEsquema(String url) {
+		EntityManagerFactory emf = BaseDatosBench.crear("arranque", 0,
+				Map.of("jakarta.persistence.jdbc.url", url, "hibernate.hbm2ddl.auto", "create"));
+		emf.close();
+	}
+
+	private static void medir(String nombre, List<String> opcionesJvm, String modo, String url, int repeticiones)
+			throws IOException, InterruptedException {
+		long[] desdeJvm = new long[repeticiones];
+		long[] desdeMain = new long[repeticiones];
+		for (int i = 0; i < repeticiones; i++) {
+			Medida m = ejecutarHija(opcionesJvm, modo, url);
+			desdeJvm[i] = m.desdeJvm();
+			desdeMain[i] = m.desdeMain();
+		}
+		System.out.printf("%-12s %28s %28s%n", nombre, resumen(desdeJvm), resumen(desdeMain));
+	}
+
+	private static String resumen(long[] ms) {
+		Arrays.sort(ms);
+		return ms[0] + " / " + ms[ms.length / 2] + " / " + ms[ms.length - 1];
+	}
+
+	private static Medida ejecutarHija(List<String> opcionesJvm, String modo, String url)
+			throws IOException, InterruptedException {
+		List<String> comando = new ArrayList<>();
+		comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		comando.addAll(opcionesJvm);
+		comando.addAll(List.of("-cp", System.getProperty("java.class.path"), ArranqueBenchmark.class.getName(),
+				HIJA, modo, url));
+		Process proceso = new ProcessBuilder(comando).redirectErrorStream(true).start();
+		List<String> salida = proceso.inputReader().lines().toList();
+		if (proceso.waitFor() != 0)
+			throw new IllegalStateException("La JVM hija (" + modo + ") ha fallado:\n" + String.join("\n", salida));
+		String linea = salida.stream().filter(l -> l.startsWith(MARCA)).findFirst()
+				.orElseThrow(() -> new IllegalStateException("La JVM hija no ha informado del tiempo:\n"
+						+ String.join("\n", salida)));
+		String[] partes = linea.substring(MARCA.length()).split(" ");
+		return new Medida(Long.parseLong(partes[0]), Long.parseLong(partes[1]));
+	}
+
+	/* JVM medida: nada de lo que se hace antes de la primera consulta se carga fuera de la medida. */
+	private static void hija(String modo, String url) {
+		long inicio = System.nanoTime();
+		Map<String, Object> props = BaseDatosBench.propiedades(url);
+		props.put("hibernate.hikari.poolName", "bench-arranque");
+		props.putAll(MODOS.stream().filter(m -> m.nombre().equals(modo)).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Modo desconocido: " + modo)).props());
+
+		EntityManagerFactory emf = Arranque.crear(props);
+		try {
+			EntityManager em = emf.createEntityManager();
+			try {
+				if (em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE) == null)
+					throw new IllegalStateException("No está el cliente de prueba.");
+			} finally {
+				em.close();
+			}
+			long fin = System.currentTimeMillis();
+			long desdeMain = (System.nanoTime() - inicio) / 1_000_000;
+			long desdeJvm = fin - ManagementFactory.getRuntimeMXBean().getStartTime();
+			// Una validación diferida fallida hace fallar la hija (y el benchmark)
+			Arranque.validacion(emf).join();
+			System.out.println(MARCA + desdeJvm + " " + desdeMain);
+		} finally {
+			emf.close();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+import com.silviarafa.ecommerce.ecommerceProject.model.InformacionFiscal;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+/**
+ * Base de datos embebida (H2 en memoria, modo MariaDB) para los benchmarks.
+ * <p>
+ * Arranca la unidad de persistencia {@code my_eshop-jpa-pu} del proyecto sobrescribiendo solo la
+ * conexión, el dialecto (con el producto y la versión de la BD) y la validación del esquema, de modo
+ * que se mide el mismo mapeo, pool, lotes JDBC y caché que en producción.
+ * El esquema lo crea Hibernate ({@code create-drop}) y se cargan clientes y artículos de prueba.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class BaseDatosBench {
+
+	static final String NIF_CLIENTE = "00000000T";
+
+	/* El persistence.xml fija MariaDB y su versión para arrancar sin metadatos JDBC; aquí se cambian por H2. */
+	static final String VERSION_H2 = "2.3.232";
+
+	private BaseDatosBench() {
+	}
+
+	/**
+	 * Crea la factoría sobre una BD H2 nueva con nombre {@code nombre} y la rellena con {@code numArticulos} artículos.
+	 */
+	static EntityManagerFactory crear(String nombre, int numArticulos) {
+		return crear(nombre, numArticulos, Map.of());
+	}
+
+	/**
+	 * Como {@link #crear(String, int)}, añadiendo o sobrescribiendo las propiedades {@code extra}.
+	 */
+	static EntityManagerFactory crear(String nombre, int numArticulos, Map<String, Object> extra) {
+		Map<String, Object> props = propiedades(url(nombre));
+		props.putAll(extra);
+
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory("my_eshop-jpa-pu", props);
+		cargarDatos(emf, numArticulos);
+		return emf;
+	}
+
+	/**
+	 * Propiedades que apuntan la unidad de persistencia a la BD H2 {@code url}, con el esquema en {@code create-drop}.
+	 */
+	static Map<String, Object> propiedades(String url) {
+		Map<String, Object> props = new HashMap<>();
+		props.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+		props.put("jakarta.persistence.jdbc.url", url);
+		props.put("jakarta.persistence.jdbc.user", "sa");
+		props.put("jakarta.persistence.jdbc.password", "");
+		props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.put("jakarta.persistence.database-product-name", "H2");
+		props.put("jakarta.persistence.database-product-version", VERSION_H2);
+		props.put("hibernate.hbm2ddl.auto", "create-drop");
+		props.put("eshop.esquema.validacion_diferida", "false");
+		props.put("hibernate.show_sql", "false");
+		props.put("hibernate.format_sql", "false");
+		return props;
+	}
+
+	/**
+	 * URL JDBC de la BD H2 en memoria {@code nombre} (sigue viva mientras la JVM no termine).
+	 */
+	static String url(String nombre) {
+		return "jdbc:h2:mem:" + nombre + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	}
+
+	/**
+	 * Descarta la salida por consola de los métodos de {@code AppEcommerce} para no medir la escritura en terminal.
+	 */
+	static void silenciarConsola() {
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	private static void cargarDatos(EntityManagerFactory emf, int numArticulos) {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+
+			Cliente cli = new Cliente();
+			cli.setNifCif(NIF_CLIENTE);
+			cli.setNombreCompleto("Cliente Benchmark");
+			cli.setEmail("bench@example.com");
+			cli.setFechaRegistro(LocalDateTime.now());
+			InformacionFiscal info = new InformacionFiscal();
+			info.setNifCif(NIF_CLIENTE);
+			info.setTelefono("600000000");
+			info.setDireccionFiscal("Calle Benchmark 1");
+			cli.setInformacionFiscal(info);
+			em.persist(cli);
+
+			for (int i = 1; i <= numArticulos; i++) {
+				Articulo a = new Articulo();
+				a.setNombre("Artículo " + i);
+				a.setDescripcion("Descripción del artículo " + i);
+				a.setPrecioActual(Dinero.deCentimos(999 + i));
+				a.setStock(1_000_000);
+				em.persist(a);
+			}
+
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+	}
+}
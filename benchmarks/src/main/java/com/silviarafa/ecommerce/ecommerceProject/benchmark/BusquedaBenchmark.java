@@ -0,0 +1,99 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.busqueda.IndiceArticulos;
+
+/**
+ * Latencia de la búsqueda de texto sobre un catálogo sintético (sin BD), con percentiles ({@code SampleTime}).
+ * <p>
+ * Cada artículo tiene un nombre de 3 palabras y una descripción de 20, tomadas de un vocabulario de
+ * {@value #VOCABULARIO} términos con frecuencias muy desiguales, como en un catálogo real: {@code terminoComun}
+ * aparece en un 2,5% de los artículos y {@code terminoRaro} en un 0,01%. Las consultas de varios términos
+ * recorren la lista del más raro y saltan por bloques en las demás. La construcción del índice con 5M artículos
+ * tarda alrededor de un minuto ({@code -Xmx4g}).
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BusquedaBenchmark {
+
+	private static final int VOCABULARIO = 50_000;
+
+	@Param({ "1000000", "5000000" })
+	public int articulos;
+
+	private IndiceArticulos indice;
+	private String[] palabras;
+
+	@Setup
+	public void preparar() {
+		palabras = new String[VOCABULARIO];
+		for (int i = 0; i < VOCABULARIO; i++)
+			palabras[i] = "termino" + i;
+
+		indice = new IndiceArticulos(null);
+		SplittableRandom r = new SplittableRandom(42);
+		StringBuilder nombre = new StringBuilder(), descripcion = new StringBuilder();
+		for (int id = 1; id <= articulos; id++) {
+			nombre.setLength(0);
+			descripcion.setLength(0);
+			for (int k = 0; k < 3; k++)
+				nombre.append(palabra(r, 200)).append(' ');
+			for (int k = 0; k < 20; k++)
+				descripcion.append(palabra(r, 2000)).append(' ');
+			indice.indexar(id, nombre.toString(), descripcion.toString());
+		}
+	}
+
+	/* Términos con distribución aproximadamente exponencial: los primeros índices son los más frecuentes. */
+	private String palabra(SplittableRandom r, int escala) {
+		return palabras[(int) Math.min(VOCABULARIO - 1, -Math.log(1 - r.nextDouble()) * escala)];
+	}
+
+	@Benchmark
+	public IndiceArticulos.Pagina terminoComun() {
+		return indice.buscar(palabras[0], 0, 20);
+	}
+
+	@Benchmark
+	public IndiceArticulos.Pagina terminoRaro() {
+		return indice.buscar(palabras[9000], 0, 20);
+	}
+
+	@Benchmark
+	public IndiceArticulos.Pagina dosTerminos() {
+		return indice.buscar(palabras[1] + " " + palabras[150], 0, 20);
+	}
+
+	@Benchmark
+	public IndiceArticulos.Pagina tresTerminos() {
+		return indice.buscar(palabras[0] + " " + palabras[40] + " " + palabras[900], 0, 20);
+	}
+
+	@Benchmark
+	public IndiceArticulos.Pagina paginaProfunda() {
+		return indice.buscar(palabras[5] + " " + palabras[30], 49, 20);
+	}
+}
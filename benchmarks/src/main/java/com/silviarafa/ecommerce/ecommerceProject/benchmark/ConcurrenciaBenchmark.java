@@ -0,0 +1,91 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.servicio.EjecutorPersistencia;
+import com.silviarafa.ecommerce.ecommerceProject.servicio.ServicioClientes;
+import com.silviarafa.ecommerce.ecommerceProject.servicio.ServicioCompras;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Rendimiento de la capa de servicios con hilos virtuales frente a un pool fijo de hilos de plataforma.
+ * <p>
+ * Cada invocación lanza {@value #TAREAS} peticiones simultáneas (9 de cada 10 son lecturas de resumen de
+ * cliente y 1 crea una compra) y espera a que terminen todas. El resultado se expresa en peticiones por segundo.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ConcurrenciaBenchmark {
+
+	static final int TAREAS = 2000;
+
+	public enum Modo {
+		VIRTUAL, PLATAFORMA
+	}
+
+	@Param({ "VIRTUAL", "PLATAFORMA" })
+	public Modo modo;
+
+	@Param({ "50" })
+	public int hilosPlataforma;
+
+	private EntityManagerFactory emf;
+	private EjecutorPersistencia ejecutor;
+	private ServicioClientes clientes;
+	private ServicioCompras compras;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		emf = BaseDatosBench.crear("concurrencia" + modo, 10);
+		ejecutor = modo == Modo.VIRTUAL ? EjecutorPersistencia.virtual(emf)
+				: EjecutorPersistencia.plataforma(emf, hilosPlataforma);
+		clientes = new ServicioClientes(ejecutor);
+		compras = new ServicioCompras(ejecutor);
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		ejecutor.close();
+		emf.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TAREAS)
+	public void peticionesSimultaneas() {
+		CompletableFuture<?>[] futuros = new CompletableFuture<?>[TAREAS];
+		for (int i = 0; i < TAREAS; i++) {
+			futuros[i] = i % 10 == 0
+					? compras.crear(BaseDatosBench.NIF_CLIENTE, Map.of(1 + (i / 10) % 10, 1))
+					: clientes.resumen(BaseDatosBench.NIF_CLIENTE);
+		}
+		CompletableFuture.allOf(futuros).join();
+	}
+}
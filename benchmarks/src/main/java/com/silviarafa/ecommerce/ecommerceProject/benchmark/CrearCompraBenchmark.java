@@ -0,0 +1,98 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Coste de {@link OperacionesCompra#crear} (cabecera + líneas en una transacción) según el tamaño del carrito,
+ * con lotes JDBC ({@code hibernate.jdbc.batch_size} del {@code persistence.xml}, 50) y sin ellos (1: un
+ * INSERT por sentencia, como antes de usar {@code compra_seq}).
+ * <p>
+ * H2 en memoria no tiene ida y vuelta por red, así que la diferencia es una cota inferior de la que hay contra
+ * MariaDB, donde cada sentencia sin lote es un viaje al servidor. Por eso antes de medir se cuenta también
+ * cuántas sentencias JDBC prepara una compra (estadísticas de Hibernate) y se imprime por la salida de error:
+ * con lotes es una por tipo de sentencia; sin ellos, una por fila.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrearCompraBenchmark {
+
+	@Param({ "1", "5", "20" })
+	public int lineas;
+
+	@Param({ "50", "1" })
+	public int loteJdbc;
+
+	private EntityManagerFactory emf;
+	private EntityManager em;
+	private Cliente cliente;
+	private Map<Articulo, Integer> carrito;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		emf = BaseDatosBench.crear("crearCompra" + lineas + "-" + loteJdbc, lineas,
+				Map.of("hibernate.jdbc.batch_size", String.valueOf(loteJdbc)));
+		em = emf.createEntityManager();
+
+		cliente = em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE);
+		List<Articulo> articulos = em.createQuery("SELECT a FROM Articulo a ORDER BY a.id", Articulo.class)
+				.setMaxResults(lineas)
+				.getResultList();
+		carrito = new LinkedHashMap<>();
+		articulos.forEach(a -> carrito.put(a, 2));
+		em.clear();
+
+		Statistics estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+		OperacionesCompra.crear(em, cliente, carrito);
+		System.err.println("Sentencias JDBC por compra (" + lineas + " líneas, lote " + loteJdbc + "): "
+				+ estadisticas.getPrepareStatementCount());
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		em.close();
+		emf.close();
+	}
+
+	@Benchmark
+	public Compra crearCompra() {
+		return OperacionesCompra.crear(em, cliente, carrito);
+	}
+}
@@ -0,0 +1,85 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+import com.silviarafa.ecommerce.ecommerceProject.model.DineroConverter;
+
+/**
+ * Cálculo del total de una compra con {@link Dinero} (céntimos en {@code long}) frente a {@link BigDecimal}.
+ * <p>
+ * {@code totalBigDecimal} reproduce el bucle anterior de {@code registrarCompra} ({@code multiply} + {@code add}
+ * por línea) como referencia; {@code totalDinero} es el actual. Con {@code -prof gc} se ve que el cálculo con
+ * {@code Dinero} no reserva memoria. {@code convertir} mide la ida y vuelta por el {@link DineroConverter},
+ * que solo se paga al leer o escribir en la BD.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DineroBenchmark {
+
+	@Param({ "3", "20" })
+	public int lineas;
+
+	private BigDecimal[] preciosBigDecimal;
+	private Dinero[] precios;
+	private int[] unidades;
+	private final DineroConverter converter = new DineroConverter();
+
+	@Setup
+	public void preparar() {
+		SplittableRandom r = new SplittableRandom(42);
+		preciosBigDecimal = new BigDecimal[lineas];
+		precios = new Dinero[lineas];
+		unidades = new int[lineas];
+		for (int i = 0; i < lineas; i++) {
+			long centimos = 100 + r.nextInt(100_000);
+			preciosBigDecimal[i] = BigDecimal.valueOf(centimos, 2);
+			precios[i] = Dinero.deCentimos(centimos);
+			unidades[i] = 1 + r.nextInt(5);
+		}
+	}
+
+	@Benchmark
+	public BigDecimal totalBigDecimal() {
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < lineas; i++)
+			total = total.add(preciosBigDecimal[i].multiply(BigDecimal.valueOf(unidades[i])));
+		return total;
+	}
+
+	@Benchmark
+	public long totalDinero() {
+		long total = 0;
+		for (int i = 0; i < lineas; i++)
+			total = Dinero.sumar(total, Dinero.multiplicar(precios[i].centimos(), unidades[i]));
+		return total;
+	}
+
+	@Benchmark
+	public Dinero convertir() {
+		return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(precios[0]));
+	}
+}
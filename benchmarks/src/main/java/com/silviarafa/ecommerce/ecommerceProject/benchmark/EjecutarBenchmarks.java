@@ -0,0 +1,29 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanza todos los benchmarks con el profiler de GC, que añade a cada resultado la tasa de reserva
+ * de memoria ({@code gc.alloc.rate}) y los bytes reservados por operación ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Uso: {@code java -cp target/benchmarks.jar com.silviarafa.ecommerce.ecommerceProject.benchmark.EjecutarBenchmarks [regex]}
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class EjecutarBenchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+		Options opciones = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : EjecutarBenchmarks.class.getPackageName() + ".*Benchmark")
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(opciones).run();
+	}
+}
@@ -0,0 +1,195 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.fragmentacion.ComprasFragmentadas;
+import com.silviarafa.ecommerce.ecommerceProject.fragmentacion.ConsultasFragmentadas;
+import com.silviarafa.ecommerce.ecommerceProject.fragmentacion.Fragmentos;
+import com.silviarafa.ecommerce.ecommerceProject.fragmentacion.Reparto;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Modo fragmentado con tres BD H2 en memoria y un reparto en caliente a una cuarta.
+ * <p>
+ * Antes de medir se crean clientes y compras a través de {@link Fragmentos} y se comprueba que cada cliente
+ * está en un único fragmento (el que le da el anillo) y que las consultas de todos los fragmentos cuentan lo
+ * mismo que la suma de cada uno. Después se añade un fragmento, se reparte con {@link Reparto} y se vuelve a
+ * comprobar: mismos clientes, compras y unidades vendidas, cada cliente en su nuevo sitio y solo una parte
+ * movida. Se mide la lectura de un cliente en su fragmento y un recuento de todos los fragmentos.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FragmentosBenchmark {
+
+	private static final int ARTICULOS = 50;
+	private static final int CLIENTES = 600;
+
+	private final Map<Integer, EntityManagerFactory> fabricas = new TreeMap<>();
+	private final List<String> nifs = new ArrayList<>();
+	private Fragmentos fragmentos;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		// El fragmento 0 (catálogo) se crea con los artículos; los demás los reciben replicados
+		for (int id = 0; id < 3; id++)
+			fabricas.put(id, crearFragmento(id));
+		fragmentos = new Fragmentos(Map.copyOf(fabricas));
+		fragmentos.replicarCatalogo(List.of(1, 2));
+		quitarClienteDeCarga();
+
+		nifs.add(BaseDatosBench.NIF_CLIENTE);
+		for (int i = 1; i < CLIENTES; i++) {
+			String nif = String.format("%08dB", i);
+			nifs.add(nif);
+			fragmentos.enFragmento(nif, em -> crearCliente(em, nif));
+		}
+		// Una compra de 1 a 3 unidades de un artículo por cada tercer cliente
+		long unidades = 0;
+		for (int i = 0; i < CLIENTES; i += 3) {
+			int n = 1 + i % 3;
+			ComprasFragmentadas.crear(fragmentos, nifs.get(i), Map.of(1 + i % ARTICULOS, n));
+			unidades += n;
+		}
+		comprobarReparto(unidades);
+
+		// Reparto en caliente a cuatro fragmentos
+		EntityManagerFactory nuevo = crearFragmento(3);
+		fabricas.put(3, nuevo);
+		quitarCliente(nuevo, BaseDatosBench.NIF_CLIENTE);
+		fragmentos.iniciarReparto(Map.of(3, nuevo), List.of(0, 1, 2, 3));
+		Reparto.Informe informe = new Reparto(fragmentos, 100).ejecutar();
+		if (informe.clientesMovidos() == 0 || informe.clientesMovidos() > CLIENTES / 2)
+			throw new IllegalStateException("El reparto ha movido una proporción inesperada: " + informe);
+		comprobarReparto(unidades);
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		fragmentos.close();
+		fabricas.values().forEach(EntityManagerFactory::close);
+	}
+
+	private static EntityManagerFactory crearFragmento(int id) {
+		Map<String, Object> props = Fragmentos.propiedades(id, id == 0);
+		props.put("hibernate.hikari.poolName", "bench-fragmento-" + id);
+		return BaseDatosBench.crear("fragmento" + id, id == 0 ? ARTICULOS : 0, props);
+	}
+
+	/* La carga de BaseDatosBench crea el cliente de prueba en todas las BD: se deja solo en su fragmento. */
+	private void quitarClienteDeCarga() {
+		int propio = fragmentos.fragmento(BaseDatosBench.NIF_CLIENTE);
+		fabricas.forEach((id, emf) -> {
+			if (id != propio)
+				quitarCliente(emf, BaseDatosBench.NIF_CLIENTE);
+		});
+	}
+
+	private static void quitarCliente(EntityManagerFactory emf, String nif) {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			em.createNativeQuery("DELETE FROM informacion_fiscal WHERE nif_cif = ?").setParameter(1, nif)
+					.executeUpdate();
+			em.createNativeQuery("DELETE FROM cliente WHERE nif_cif = ?").setParameter(1, nif).executeUpdate();
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+	}
+
+	private static Void crearCliente(EntityManager em, String nif) {
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			Cliente cli = new Cliente();
+			cli.setNifCif(nif);
+			cli.setNombreCompleto("Cliente " + nif);
+			cli.setFechaRegistro(LocalDateTime.now());
+			em.persist(cli);
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+		}
+		return null;
+	}
+
+	/* Falla si algún cliente no está exactamente en su fragmento o si los totales no cuadran. */
+	private void comprobarReparto(long unidades) {
+		for (String nif : nifs) {
+			int esperado = fragmentos.fragmento(nif);
+			if (esperado != fragmentos.anillo().fragmento(nif))
+				throw new IllegalStateException("Reparto sin cerrar para " + nif);
+			for (int id : fragmentos.activos()) {
+				EntityManager em = fragmentos.fabrica(id).createEntityManager();
+				try {
+					boolean esta = em.find(Cliente.class, nif) != null;
+					if (esta != (id == esperado))
+						throw new IllegalStateException(
+								"El cliente " + nif + (esta ? " sobra en" : " falta en") + " el fragmento " + id);
+				} finally {
+					em.close();
+				}
+			}
+		}
+		long clientes = ConsultasFragmentadas.totalClientes(fragmentos);
+		if (clientes != CLIENTES)
+			throw new IllegalStateException("Clientes en todos los fragmentos: " + clientes + " de " + CLIENTES);
+		long compras = ConsultasFragmentadas.totalCompras(fragmentos);
+		if (compras != (CLIENTES + 2) / 3)
+			throw new IllegalStateException("Compras en todos los fragmentos: " + compras);
+		long vendidas = ConsultasFragmentadas.articulosMasVendidos(fragmentos, ARTICULOS).stream()
+				.mapToLong(ConsultasFragmentadas.VentasArticulo::unidades).sum();
+		if (vendidas != unidades)
+			throw new IllegalStateException("Unidades vendidas: " + vendidas + " de " + unidades);
+		if (ConsultasFragmentadas.mejoresClientes(fragmentos, 1).get(0).numCompras() != 1)
+			throw new IllegalStateException("Agregados del mejor cliente incorrectos.");
+	}
+
+	@Benchmark
+	public String leerCliente() {
+		String nif = nifs.get(ThreadLocalRandom.current().nextInt(nifs.size()));
+		return fragmentos.enFragmento(nif, em -> em.find(Cliente.class, nif).getNombreCompleto());
+	}
+
+	@Benchmark
+	public long contarClientes() {
+		return ConsultasFragmentadas.totalClientes(fragmentos);
+	}
+}
@@ -0,0 +1,114 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.ArticuloCompra;
+import com.silviarafa.ecommerce.ecommerceProject.model.ArticuloCompra.ArticuloCompraId;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+
+/**
+ * equals/hashCode de {@link ArticuloCompra} y {@link ArticuloCompraId}, usados por los {@code HashSet}
+ * de líneas de {@link Compra} y {@link Articulo}.
+ * <p>
+ * {@code hashCodeObjectsHash} reproduce la implementación anterior con {@code Objects.hash} (varargs)
+ * como referencia: con {@code -prof gc} se ve la diferencia en bytes reservados por operación.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IgualdadArticuloCompraBenchmark {
+
+	private static final int LINEAS = 20;
+
+	private ArticuloCompraId id;
+	private ArticuloCompraId idIgual;
+	private ArticuloCompra linea;
+	private ArticuloCompra lineaIgual;
+	private ArticuloCompra[] lineas;
+	private Set<ArticuloCompra> conjunto;
+
+	@Setup
+	public void preparar() {
+		Compra compra = new Compra();
+		compra.setId(1000);
+
+		lineas = new ArticuloCompra[LINEAS];
+		for (int i = 0; i < LINEAS; i++) {
+			Articulo a = new Articulo();
+			a.setId(i + 1);
+			lineas[i] = new ArticuloCompra(a, compra, 1, null);
+		}
+		linea = lineas[0];
+		Articulo a1 = new Articulo();
+		a1.setId(1);
+		lineaIgual = new ArticuloCompra(a1, compra, 1, null);
+
+		id = new ArticuloCompraId(7, 1000);
+		idIgual = new ArticuloCompraId(7, 1000);
+
+		conjunto = new HashSet<>();
+		for (ArticuloCompra l : lineas)
+			conjunto.add(l);
+	}
+
+	@Benchmark
+	public int hashCodeId() {
+		return id.hashCode();
+	}
+
+	@Benchmark
+	public int hashCodeObjectsHash() {
+		return Objects.hash(id.getArticuloId(), id.getCompraId());
+	}
+
+	@Benchmark
+	public boolean equalsId() {
+		return id.equals(idIgual);
+	}
+
+	@Benchmark
+	public int hashCodeLinea() {
+		return linea.hashCode();
+	}
+
+	@Benchmark
+	public boolean equalsLinea() {
+		return linea.equals(lineaIgual);
+	}
+
+	@Benchmark
+	public boolean containsLinea() {
+		return conjunto.contains(lineaIgual);
+	}
+
+	@Benchmark
+	public Set<ArticuloCompra> construirConjuntoLineas() {
+		Set<ArticuloCompra> s = new HashSet<>();
+		for (ArticuloCompra l : lineas)
+			s.add(l);
+		return s;
+	}
+}
@@ -0,0 +1,95 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.silviarafa.ecommerce.ecommerceProject.AppEcommerce;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ConsultasCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ResumenCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Lecturas frecuentes: {@code em.find(Cliente)}, resumen de cliente y listado del catálogo.
+ * <p>
+ * Se limpia el contexto de persistencia en cada llamada para no medir la caché de primer nivel.
+ * </p>
+ * <p>
+ * El SQL que lanzan el listado y {@code find(Cliente)} (sin la columna TEXT {@code descripcion} ni la tabla
+ * {@code informacion_fiscal}, gracias a la mejora en compilación) lo comprueba {@code CargaPerezosaTest}.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LecturaBenchmark {
+
+	@Param({ "100", "1000" })
+	public int articulos;
+
+	private EntityManagerFactory emf;
+	private EntityManager em;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		emf = BaseDatosBench.crear("lectura" + articulos, articulos);
+		em = emf.createEntityManager();
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		em.close();
+		emf.close();
+	}
+
+	@Benchmark
+	public Cliente findCliente() {
+		em.clear();
+		return em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE);
+	}
+
+	@Benchmark
+	public ResumenCliente resumenCliente() {
+		em.clear();
+		return ConsultasCliente.resumen(em, BaseDatosBench.NIF_CLIENTE);
+	}
+
+	@Benchmark
+	public List<Articulo> listadoCatalogo() {
+		em.clear();
+		return em.createQuery("SELECT a FROM Articulo a", Articulo.class).getResultList();
+	}
+
+	@Benchmark
+	public void leerDatosArticulo(Blackhole bh) throws Exception {
+		em.clear();
+		AppEcommerce.leerDatosArticulo(em);
+		bh.consume(em);
+	}
+}
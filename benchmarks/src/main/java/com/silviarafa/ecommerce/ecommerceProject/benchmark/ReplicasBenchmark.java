@@ -0,0 +1,127 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Separación de lecturas y escrituras con dos BD H2 en memoria: una hace de primaria y otra de réplica.
+ * <p>
+ * Las dos BD se cargan con los mismos datos y después solo se cambia el nombre del cliente en la primaria,
+ * como si la réplica fuera con retraso. Antes de medir se comprueba el enrutado: una lectura sin clave debe
+ * ver el nombre antiguo (réplica) y una lectura del cliente tras {@code anotarEscritura} el nuevo (primaria).
+ * Se mide el coste de cada camino, incluida la creación del {@code EntityManager}.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplicasBenchmark {
+
+	private static final int ARTICULOS = 100;
+	private static final String NOMBRE_NUEVO = "Cliente Benchmark (primaria)";
+
+	private EntityManagerFactory replica;
+	private EntityManagerFactory emf;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		// La factoría de la réplica solo crea y mantiene su esquema; la aplicación usa la de la primaria.
+		// Su pool lleva otro nombre para no chocar con el de la primaria al registrarse por JMX.
+		replica = BaseDatosBench.crear("replica", ARTICULOS, Map.of("hibernate.hikari.poolName", "bench-replica"));
+		// Retraso máximo de una hora: la marca de escritura dura toda la medición
+		emf = BaseDatosBench.crear("primaria", ARTICULOS, Map.of(
+				ConexionesReplicadas.PROPIEDAD_URLS, BaseDatosBench.url("replica"),
+				ConexionesReplicadas.PROPIEDAD_RETRASO_MAXIMO, "3600000"));
+		comprobarEnrutado();
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		emf.close();
+		replica.close();
+	}
+
+	/* Falla si las lecturas no van a la BD que les corresponde. */
+	private void comprobarEnrutado() {
+		String original = nombreEnPrimaria();
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			em.createQuery("UPDATE Cliente c SET c.nombreCompleto = :nombre WHERE c.nifCif = :nif")
+					.setParameter("nombre", NOMBRE_NUEVO)
+					.setParameter("nif", BaseDatosBench.NIF_CLIENTE)
+					.executeUpdate();
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+
+		String enReplica = leerEnReplica();
+		if (!original.equals(enReplica))
+			throw new IllegalStateException("La lectura sin clave no ha ido a la réplica: " + enReplica);
+		if (!NOMBRE_NUEVO.equals(nombreEnPrimaria()))
+			throw new IllegalStateException("La escritura no ha ido a la primaria.");
+
+		ConexionesReplicadas.anotarEscritura(emf, BaseDatosBench.NIF_CLIENTE);
+		String trasEscritura = leerTrasEscritura();
+		if (!NOMBRE_NUEVO.equals(trasEscritura))
+			throw new IllegalStateException("La lectura tras escribir no ha ido a la primaria: " + trasEscritura);
+	}
+
+	private String nombreEnPrimaria() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE).getNombreCompleto();
+		} finally {
+			em.close();
+		}
+	}
+
+	@Benchmark
+	public String leerEnPrimaria() {
+		return nombreEnPrimaria();
+	}
+
+	@Benchmark
+	public String leerEnReplica() {
+		return ConexionesReplicadas.leer(emf, null,
+				em -> em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE).getNombreCompleto());
+	}
+
+	@Benchmark
+	public String leerTrasEscritura() {
+		return ConexionesReplicadas.leer(emf, BaseDatosBench.NIF_CLIENTE,
+				em -> em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE).getNombreCompleto());
+	}
+}
@@ -0,0 +1,137 @@
+package com.silviarafa.ecommerce.ecommerceProject.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+import com.silviarafa.ecommerce.ecommerceProject.stock.StockBD;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Descuentos de stock por segundo con {@value #HILOS} hilos compitiendo por la misma fila de {@code articulo}.
+ * <p>
+ * {@code descontar} mide solo el UPDATE condicional de {@link StockBD} en su propia transacción;
+ * {@code comprarDescontandoStock} mide la compra completa ({@link OperacionesCompra#crearDescontandoStock}),
+ * que mantiene el bloqueo de la fila hasta el commit de la compra. El resultado (ops/s) es directamente la
+ * tasa de descuentos sobre la fila caliente. Al terminar se comprueba que el stock bajó exactamente lo
+ * descontado: con la contención no se pierde ni se duplica ningún descuento.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(StockBenchmark.HILOS)
+@Fork(1)
+public class StockBenchmark {
+
+	static final int HILOS = 8;
+
+	/* Sin límite práctico: la medición no debe quedarse sin stock. */
+	private static final int STOCK_INICIAL = Integer.MAX_VALUE;
+	private static final Integer ARTICULO = 1;
+
+	private EntityManagerFactory emf;
+	private final AtomicLong descontadas = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		BaseDatosBench.silenciarConsola();
+		emf = BaseDatosBench.crear("stock", 1);
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			em.createNativeQuery("UPDATE articulo SET stock = ?1 WHERE id = ?2")
+					.setParameter(1, STOCK_INICIAL)
+					.setParameter(2, ARTICULO)
+					.executeUpdate();
+			tx.commit();
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+		emf.getCache().evictAll();
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		try {
+			long stock = stockEnBD();
+			if (STOCK_INICIAL - stock != descontadas.get())
+				throw new IllegalStateException("El stock ha bajado " + (STOCK_INICIAL - stock) + " unidades y se"
+						+ " han descontado " + descontadas.get() + '.');
+		} finally {
+			emf.close();
+		}
+	}
+
+	@Benchmark
+	public StockBD.Resultado descontar() {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			StockBD.Resultado r = StockBD.descontar(em, ARTICULO, 1);
+			tx.commit();
+			if (r == StockBD.Resultado.DESCONTADO)
+				descontadas.incrementAndGet();
+			return r;
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+	}
+
+	@Benchmark
+	public Integer comprarDescontandoStock() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			Cliente cliente = em.find(Cliente.class, BaseDatosBench.NIF_CLIENTE);
+			Integer id = OperacionesCompra.crearDescontandoStock(em, cliente,
+					Map.of(em.find(Articulo.class, ARTICULO), 1)).getId();
+			descontadas.incrementAndGet();
+			return id;
+		} finally {
+			em.close();
+		}
+	}
+
+	private long stockEnBD() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return ((Number) em.createNativeQuery("SELECT stock FROM articulo WHERE id = ?1")
+					.setParameter(1, ARTICULO)
+					.getSingleResult()).longValue();
+		} finally {
+			em.close();
+		}
+	}
+}
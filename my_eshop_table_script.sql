@@ -5,11 +5,16 @@ USE my_eshop_db;
 SET FOREIGN_KEY_CHECKS=0;
 
 -- BORRADO SEGURO DE TABLAS
+DROP TABLE IF EXISTS movimiento_stock;
+DROP TABLE IF EXISTS articulo_compra_archivo;
+DROP TABLE IF EXISTS compra_archivo;
 DROP TABLE IF EXISTS articulo_compra;
 DROP TABLE IF EXISTS articulo;
 DROP TABLE IF EXISTS compra;
 DROP TABLE IF EXISTS informacion_fiscal;
+DROP TABLE IF EXISTS cliente_agregado;
 DROP TABLE IF EXISTS cliente;
+DROP SEQUENCE IF EXISTS compra_seq;
 
 -- Reactivamos la comprobación de claves foráneas
 SET FOREIGN_KEY_CHECKS=1;
@@ -21,9 +26,11 @@ SET FOREIGN_KEY_CHECKS=1;
 CREATE TABLE IF NOT EXISTS cliente (
   nif_cif varchar(20) NOT NULL,
   nombre_completo varchar(100) DEFAULT '',
-  email varchar(150) DEFAULT '',
+  email varchar(150) DEFAULT NULL, -- NULL (no '') para clientes sin email: el índice único admite varios NULL
   fecha_registro datetime DEFAULT NULL,
-  PRIMARY KEY (nif_cif)
+  PRIMARY KEY (nif_cif),
+  -- Comprobación de emails duplicados en el alta de clientes
+  UNIQUE KEY cliente_email_UX (email)
 ) ENGINE=InnoDB;
 
 
@@ -40,6 +47,19 @@ CREATE TABLE IF NOT EXISTS informacion_fiscal (
 ) ENGINE=InnoDB;
 
 
+-- CLIENTE_AGREGADO (Relación 1:1 con cliente): agregados de compras mantenidos al crear cada compra
+CREATE TABLE IF NOT EXISTS cliente_agregado (
+  nif_cif varchar(20) NOT NULL,
+  num_compras BIGINT NOT NULL DEFAULT 0,
+  gasto_total decimal(12,2) NOT NULL DEFAULT 0.0,
+  fecha_ultima_compra datetime DEFAULT NULL,
+  PRIMARY KEY (nif_cif),
+  CONSTRAINT cliente_agregado_cliente_FK
+  FOREIGN KEY (nif_cif) REFERENCES cliente (nif_cif)
+  		ON UPDATE CASCADE
+  		ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 -- COMPRA (Relación N:1 con cliente)
 CREATE TABLE IF NOT EXISTS compra (
   id INTEGER NOT NULL AUTO_INCREMENT,
@@ -47,14 +67,26 @@ CREATE TABLE IF NOT EXISTS compra (
   estado varchar(20) DEFAULT '',
   direccion_entrega varchar(255) DEFAULT '',
   precio_total decimal(10,2) DEFAULT 0.0,
+  version INTEGER NOT NULL DEFAULT 0, -- bloqueo optimista (@Version)
   cliente_nif_cif varchar(20) NULL, -- esto permite asignar null a compras antes de borrar al cliente
   PRIMARY KEY (id),
-  KEY compra_cliente_FK (cliente_nif_cif),
+  -- Historial por cliente con paginación por clave (cliente, fecha, id); también sirve de índice para la FK
+  KEY compra_cliente_fecha_IX (cliente_nif_cif, fecha_compra, id),
+  -- Exportación/informes por rango de fechas
+  KEY compra_fecha_IX (fecha_compra),
   CONSTRAINT compra_cliente_FK 
   FOREIGN KEY (cliente_nif_cif) REFERENCES cliente (nif_cif) 
   		ON UPDATE CASCADE
 ) ENGINE=InnoDB;
 
+-- Secuencia para el id de compra (Hibernate reserva bloques de 50 ids con el optimizador pooled).
+-- Con IDENTITY Hibernate tiene que ejecutar cada INSERT al momento para conocer el id y no puede
+-- agrupar los INSERT de cabecera y líneas en lotes JDBC.
+-- El optimizador pooled toma cada valor de la secuencia como el último id de su bloque: el primer valor
+-- (101) da los ids 52..101, el siguiente 102..151, etc., todos por encima de los ids AUTO_INCREMENT de las
+-- compras de ejemplo (1 y 2).
+CREATE SEQUENCE IF NOT EXISTS compra_seq START WITH 101 INCREMENT BY 50;
+
 
 -- ARTICULO
 CREATE TABLE IF NOT EXISTS articulo (
@@ -63,7 +95,13 @@ CREATE TABLE IF NOT EXISTS articulo (
   descripcion text DEFAULT '',
   precio_actual decimal(10,2) DEFAULT 0.0,
   stock INTEGER DEFAULT 0,
-  PRIMARY KEY (id)
+  version INTEGER NOT NULL DEFAULT 0, -- bloqueo optimista (@Version)
+  referencia_proveedor varchar(64) NULL, -- clave del proveedor para importar/actualizar el catálogo
+  retirado BOOLEAN NOT NULL DEFAULT FALSE, -- borrado lógico: fuera del catálogo, pero visible desde el histórico
+  PRIMARY KEY (id),
+  UNIQUE KEY articulo_referencia_proveedor_UK (referencia_proveedor),
+  -- Listados del catálogo vigente (WHERE retirado = false) sin recorrer los retirados
+  KEY articulo_retirado_IX (retirado, id)
 ) ENGINE=InnoDB;
 
 -- ARTICULO_COMPRA (Relación N:N entre articulo y compra)
@@ -82,6 +120,43 @@ CREATE TABLE IF NOT EXISTS articulo_compra (
   		ON UPDATE CASCADE
 ) ENGINE=InnoDB;
 
+-- COMPRA_ARCHIVO y ARTICULO_COMPRA_ARCHIVO: compras cerradas y antiguas movidas por archivo.ArchivadoCompras.
+-- Mismas columnas y claves que compra y articulo_compra (más fecha_archivo), sin claves foráneas para que
+-- mover filas sea barato. Los clientes borrados dejan sus compras archivadas anonimizadas, como las de compra.
+CREATE TABLE IF NOT EXISTS compra_archivo (
+  id INTEGER NOT NULL,
+  fecha_compra datetime DEFAULT NULL,
+  estado varchar(20) DEFAULT '',
+  direccion_entrega varchar(255) DEFAULT '',
+  precio_total decimal(10,2) DEFAULT 0.0,
+  version INTEGER NOT NULL DEFAULT 0,
+  cliente_nif_cif varchar(20) NULL,
+  fecha_archivo datetime NOT NULL,
+  PRIMARY KEY (id),
+  -- Historial por cliente (misma paginación por clave que en compra)
+  KEY compra_archivo_cliente_fecha_IX (cliente_nif_cif, fecha_compra, id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS articulo_compra_archivo (
+  articulo_id INTEGER NOT NULL,
+  compra_id INTEGER NOT NULL,
+  unidades INTEGER DEFAULT 0,
+  precio_compra decimal(10,2) DEFAULT 0.0,
+  PRIMARY KEY (articulo_id,compra_id),
+  KEY articulo_compra_archivo_compra_IX (compra_id)
+) ENGINE=InnoDB;
+
+-- MOVIMIENTO_STOCK: diario del libro de stock (stock.LibroStock). Cada compra confirmada inserta aquí, en su
+-- transacción, las unidades reservadas; el volcado las suma a articulo.stock y borra las filas. Sin clave
+-- foránea para que insertar y borrar sea barato. Stock real de un artículo = stock + SUM(unidades) de sus filas.
+CREATE TABLE IF NOT EXISTS movimiento_stock (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  articulo_id INTEGER NOT NULL,
+  unidades INTEGER NOT NULL,
+  fecha datetime NOT NULL,
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
 -- Example data for testing
 
 -- Clientes
@@ -115,4 +190,9 @@ INSERT INTO articulo_compra (articulo_id, compra_id, unidades, precio_compra) VA
   (2, 2, 1, 49.50),
   (3, 2, 3, 15.00);
 
+-- Agregados por cliente calculados a partir de las compras de ejemplo
+INSERT INTO cliente_agregado (nif_cif, num_compras, gasto_total, fecha_ultima_compra)
+  SELECT c.nif_cif, COUNT(co.id), COALESCE(SUM(co.precio_total), 0), MAX(co.fecha_compra)
+  FROM cliente c LEFT JOIN compra co ON co.cliente_nif_cif = c.nif_cif
+  GROUP BY c.nif_cif;
 
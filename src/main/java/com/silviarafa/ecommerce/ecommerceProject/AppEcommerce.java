@@ -1,12 +1,28 @@
 package com.silviarafa.ecommerce.ecommerceProject;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.hibernate.jpa.HibernateHints;
+
+import com.silviarafa.ecommerce.ecommerceProject.busqueda.IndiceArticulos;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.AgregadosCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ConsultasCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ResumenCliente;
 import com.silviarafa.ecommerce.ecommerceProject.model.*;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.EstadisticasCache;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Instrumentacion;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.MetricasEnMemoria;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.MetricasPool;
+import com.silviarafa.ecommerce.ecommerceProject.registro.AltaCliente;
+import com.silviarafa.ecommerce.ecommerceProject.registro.RegistroClientes;
+import com.silviarafa.ecommerce.ecommerceProject.stock.LibroStock;
 import jakarta.persistence.*;
 
 /**
@@ -29,10 +45,22 @@ public class AppEcommerce {
 
 		EntityManagerFactory emf = null;
 		EntityManager em = null;
+		LibroStock libroStock = null;
+		IndiceArticulos indice = null;
+		MetricasEnMemoria metricas = new MetricasEnMemoria();
 
 		try {
-			emf = Persistence.createEntityManagerFactory("my_eshop-jpa-pu");
+			emf = Arranque.crear();
 			em = emf.createEntityManager();
+			libroStock = LibroStock.cargar(emf, 1000);
+			indice = new IndiceArticulos(emf);
+			System.out.println(indice.reindexar());
+			IndiceArticulos buscador = indice;
+			RegistroClientes registro = RegistroClientes.iniciar(emf);
+			Instrumentacion instr = new Instrumentacion(emf, metricas);
+			EntityManager emOp = em;
+			EntityManagerFactory fabrica = emf;
+			LibroStock libro = libroStock;
 			
 			// X1234567A
 			String nif = "00000000T";
@@ -44,12 +72,31 @@ public class AppEcommerce {
 //			leerDatosArticulo(em);
 
 			// 3. CREAR CLIENTE
-			Cliente clienteNuevo = crearCliente(em); 
-			leerDatosCliente(em, clienteNuevo.getNifCif());
+			Cliente clienteNuevo = instr.medir("crearCliente", () -> crearCliente(emOp));
+			// Lectura en réplica salvo recién escrito: el cliente acaba de crearse, así que se lee de la primaria
+			instr.medir("leerDatosCliente", () -> ConexionesReplicadas.leer(fabrica, clienteNuevo.getNifCif(), e -> {
+				leerDatosCliente(e, clienteNuevo.getNifCif());
+				return null;
+			}));
+
+			// 3b. ALTA DE CLIENTES EN LOTE (el segundo ya existe y se rechaza sin abortar el lote)
+			instr.medir("registrarClientes", () -> registrarClientes(registro, List.of(
+					new AltaCliente("00000001R", "Cliente Registrado", "cliente.registrado@example.com", null, null),
+					new AltaCliente("X1234567A", "Ana García", "ana.garcia@example.com", null, null))));
 
 			// 4. CREAR ARTICULO
-			crearArticulo(em);
-			leerDatosArticulo(em);
+			instr.medir("crearArticulo", () -> crearArticulo(emOp));
+			// El catálogo tolera el retraso de la réplica: se lee siempre de ella si la hay
+			instr.medir("leerDatosArticulo", () -> ConexionesReplicadas.leer(fabrica, null, e -> {
+				leerDatosArticulo(e);
+				return null;
+			}));
+
+			// 4b. BUSCAR ARTICULOS (el artículo creado ya está en el índice tras el commit)
+			instr.medir("buscarArticulos", () -> {
+				buscarArticulos(emOp, buscador, "teclado mecanico");
+				return null;
+			});
 
 			// 5. CREAR COMPRA
 			// Para añadir varíos artículos a una compra.
@@ -57,23 +104,24 @@ public class AppEcommerce {
 			carrito.put(em.find(Articulo.class, 1), 2); // Camiseta básica
 			carrito.put(em.find(Articulo.class, 3), 3); // Taza Cerámica
 			
-			Compra c = crearCompra(em, em.find(Cliente.class, nif), carrito);
+			Cliente comprador = em.find(Cliente.class, nif);
+			Compra c = instr.medir("crearCompra", () -> crearCompra(emOp, comprador, carrito, libro));
 			System.out.println(c);
 
 			// 6. UPDATE CLIENTE
-			boolean updateC = actualizarCliente(em, nif);
+			boolean updateC = instr.medir("actualizarCliente", () -> actualizarCliente(emOp, nif));
 			System.out.println(updateC);
 
 			// 7. UPDATE ARTICULO
-			boolean updateA = actualizarArticulo(em, 4);
+			boolean updateA = instr.medir("actualizarArticulo", () -> actualizarArticulo(emOp, 4));
 			System.out.println(updateA);
 
 			// 8. DELETE CLIENTE
-			boolean deleteC = borrarCliente(em, nif);
+			boolean deleteC = instr.medir("borrarCliente", () -> borrarClienteEnBloque(emOp, nif));
 			System.out.println(deleteC);
 
 			// 9. DELETE ARTICULO
-			boolean deleteA = borrarArticulo(em, 4);
+			boolean deleteA = instr.medir("borrarArticulo", () -> borrarArticuloEnBloque(emOp, 4));
 			System.out.println(deleteA);
 
 		} catch (IllegalArgumentException iae) {
@@ -87,8 +135,24 @@ public class AppEcommerce {
 		} catch (Exception e) {
 			System.err.println("\nERROR GENERAL: " + e.getMessage());
 		} finally {
+			if (libroStock != null)
+				libroStock.close();
+			if (indice != null)
+				indice.close();
 			if (em != null)
 				em.close();
+			System.out.println("\n--- MÉTRICAS POR OPERACIÓN ---");
+			metricas.resumen().forEach(System.out::println);
+			MetricasPool.Instantanea pool = MetricasPool.instantanea(MetricasPool.POOL_ESHOP);
+			if (pool != null)
+				System.out.println("\n" + pool);
+			ConexionesReplicadas replicas = emf != null && emf.isOpen() ? ConexionesReplicadas.de(emf) : null;
+			if (replicas != null && replicas.hayReplicas())
+				System.out.println(replicas.estadisticas());
+			if (emf != null && emf.isOpen()) {
+				System.out.println(EstadisticasCache.region(emf, Articulo.REGION_CACHE));
+				System.out.println(EstadisticasCache.consultas(emf));
+			}
 			if (emf != null)
 				emf.close();
 			System.out.println("\n--- APLICACIÓN FINALIZADA ---");
@@ -100,7 +164,8 @@ public class AppEcommerce {
 			throws IllegalArgumentException, NullPointerException, Exception {
 		System.out.println("\n--- 1. LEYENDO DATOS ---");
 
-		Cliente cliente = em.find(Cliente.class, nif);
+		// Proyección con COUNT/SUM en SQL: no carga la entidad ni su colección de compras
+		ResumenCliente cliente = ConsultasCliente.resumen(em, nif);
 
 		if (cliente != null) {
 			System.out.println("DATOS DEL CLIENTE: \n" + cliente.toString());
@@ -115,11 +180,29 @@ public class AppEcommerce {
 		System.out.println("\n--- 2. LEYENDO DATOS ARTICULO ---");
 
 		System.out.println("\nArtículos:");
-		List<Articulo> arts = em.createQuery("SELECT a FROM Articulo a", Articulo.class).getResultList();
+		// Listado cacheable: se resuelve desde la caché de consultas mientras no cambie la tabla articulo
+		List<Articulo> arts = em.createQuery("SELECT a FROM Articulo a", Articulo.class)
+				.setHint(HibernateHints.HINT_CACHEABLE, true)
+				.setHint(HibernateHints.HINT_CACHE_REGION, Articulo.REGION_CATALOGO)
+				.getResultList();
 		System.out.println("\n DATOS ARTÍCULOS");
 		arts.forEach(a -> System.out.println("  - " + a.toString()));
 	}
 
+	// 2b. BUSCAR ARTICULOS
+	/**
+	 * Muestra la primera página de la búsqueda de texto en nombre y descripción, por relevancia.
+	 */
+	public static void buscarArticulos(EntityManager em, IndiceArticulos indice, String texto)
+			throws IllegalArgumentException {
+		System.out.println("\n--- BUSCANDO ARTÍCULOS: \"" + texto + "\" ---");
+
+		List<Articulo> arts = indice.buscarArticulos(em, texto, 0, 10);
+		if (arts.isEmpty())
+			System.out.println("Sin resultados.");
+		arts.forEach(a -> System.out.println("  - " + a.toString()));
+	}
+
 	// 3. CREAR CLIENTE
 	public static Cliente crearCliente(EntityManager em)
 			throws IllegalArgumentException, TransactionRequiredException, IllegalStateException, Exception {
@@ -150,9 +233,12 @@ public class AppEcommerce {
 			cli.setInformacionFiscal(info);
 
 			em.persist(cli);
+			AgregadosCliente.crear(em, cli);
 
 			em.flush();
 			tx.commit();
+			// Sus lecturas van a la primaria hasta que las réplicas tengan el alta
+			ConexionesReplicadas.anotarEscritura(em.getEntityManagerFactory(), nif);
 
 		} catch (Exception e) {
 			if (tx.isActive())
@@ -165,6 +251,21 @@ public class AppEcommerce {
 		return cli;
 	}
 
+	// 3b. ALTA DE CLIENTES EN LOTE
+	/**
+	 * Da de alta varios clientes con un INSERT de varias filas. Los duplicados (por NIF/CIF o email) se
+	 * rechazan uno a uno; el filtro de Bloom evita consultar la BD para las claves que seguro que son nuevas.
+	 */
+	public static RegistroClientes.Resultado registrarClientes(RegistroClientes registro, List<AltaCliente> altas) {
+		System.out.println("\n--- REGISTRANDO " + altas.size() + " CLIENTES ---");
+
+		RegistroClientes.Resultado r = registro.registrarLote(altas);
+		System.out.println("Registrados: " + r.registrados());
+		r.rechazos().forEach(x -> System.out.println("  - Rechazado " + x.alta().nifCif() + ": " + x.motivo()));
+		System.out.println(registro.estadisticas());
+		return r;
+	}
+
 	// 4. CREAR ARTICULO
 	public static Articulo crearArticulo(EntityManager em)
 			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
@@ -177,7 +278,7 @@ public class AppEcommerce {
 
 			articulo.setNombre("Teclado Mecánico RGB");
 			articulo.setDescripcion("Teclado gaming con switches azules.");
-			articulo.setPrecioActual(new BigDecimal("39.99"));
+			articulo.setPrecioActual(Dinero.de("39.99"));
 			articulo.setStock(50);
 
 			em.persist(articulo);
@@ -198,52 +299,22 @@ public class AppEcommerce {
 	public static Compra crearCompra(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades)
 			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
 		System.out.println("\n--- CREANDO Compra ---");
+		return OperacionesCompra.crear(em, cliente, articuloUnidades);
+	}
 
-		EntityTransaction tx = em.getTransaction();
-		tx.begin();
-		Compra compra = new Compra();
-
-		try {
-			compra.setFechaCompra(LocalDateTime.now());
-			compra.setEstado("PENDIENTE");
-			compra.setDireccionEntrega("Calle Temporal 1");
-			compra.setPrecioTotal(new BigDecimal("0.00"));
-			compra.setCliente(cliente);
-
-			em.persist(compra);
-			em.flush();
-
-			BigDecimal precioTotal = BigDecimal.ZERO;
-
-			// Recorrer el mapa de artículos y unidades
-			for (Map.Entry<Articulo, Integer> entry : articuloUnidades.entrySet()) {
-				Articulo articulo = entry.getKey();
-				int cantidad = entry.getValue();
-
-				// Calcular el precio_compra de artículo compra
-				BigDecimal precioCompra = articulo.getPrecioActual().multiply(BigDecimal.valueOf(cantidad));
-				ArticuloCompra artCom = new ArticuloCompra(articulo, compra, cantidad, precioCompra);
-
-				compra.addLinea(artCom);
-				em.persist(artCom);
-
-				precioTotal = precioTotal.add(precioCompra);
-			}
-
-			compra.setPrecioTotal(precioTotal);
-
-			em.persist(compra);
-			em.flush();
-			tx.commit();
-		} catch (Exception e) {
-			if (tx.isActive())
-				tx.rollback();
-			throw e;
-		} finally {
-			em.clear();
-		}
+	// 5. CREAR COMPRA (descontando el stock en la BD dentro de la misma transacción)
+	public static Compra crearCompraDescontandoStock(EntityManager em, Cliente cliente,
+			Map<Articulo, Integer> articuloUnidades)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+		System.out.println("\n--- CREANDO Compra ---");
+		return OperacionesCompra.crearDescontandoStock(em, cliente, articuloUnidades);
+	}
 
-		return compra;
+	// 5. CREAR COMPRA (reservando stock en el libro de stock)
+	public static Compra crearCompra(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades,
+			LibroStock libroStock) throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+		System.out.println("\n--- CREANDO Compra ---");
+		return OperacionesCompra.crear(em, cliente, articuloUnidades, libroStock);
 	}
 
 	// 6. UPDATE CLIENTE
@@ -281,6 +352,7 @@ public class AppEcommerce {
 			em.merge(cli);
 			em.flush();
 			tx.commit();
+			ConexionesReplicadas.anotarEscritura(em.getEntityManagerFactory(), nif);
 		} catch (Exception e) {
 			actualizado = false;
 			if (tx.isActive())
@@ -311,7 +383,7 @@ public class AppEcommerce {
 
 			articulo.setNombre("Teclado Mecánico");
 			articulo.setDescripcion("Teclado gaming con switches azules y verdes.");
-			articulo.setPrecioActual(new BigDecimal("40.00"));
+			articulo.setPrecioActual(Dinero.de("40.00"));
 			articulo.setStock(10);
 
 			em.merge(articulo);
@@ -350,10 +422,13 @@ public class AppEcommerce {
 					c.setFechaCompra(null);
 					c.setEstado("");
 					c.setDireccionEntrega("");
-					c.setPrecioTotal(new BigDecimal("0.00"));
+					c.setPrecioTotal(Dinero.CERO);
 					c.setCliente(null);
 				}
 			}
+			OperacionesCliente.anonimizarComprasArchivadas(em, nif);
+
+			AgregadosCliente.borrar(em, nif);
 
 			// La relación 1:1 con InformacionFiscal se elimina por cascade
 			em.remove(cliente);
@@ -371,6 +446,21 @@ public class AppEcommerce {
 		return borrado;
 	}
 
+	// 8b. DELETE CLIENTE (en bloque)
+	/**
+	 * Igual que {@link #borrarCliente(EntityManager, String)}, pero con sentencias masivas
+	 * ({@link OperacionesCliente#borrarEnBloque(EntityManager, String)}): las compras del cliente se anonimizan
+	 * y desvinculan con un único UPDATE, sin cargarlas en el contexto de persistencia.
+	 */
+	public static boolean borrarClienteEnBloque(EntityManager em, String nif)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+
+		boolean borrado = OperacionesCliente.borrarEnBloque(em, nif);
+		if (!borrado)
+			System.out.println("Cliente con NIF " + nif + " no encontrado.");
+		return borrado;
+	}
+
 	// 9. DELETE ARTICULO
 	public static boolean borrarArticulo(EntityManager em, int id)
 			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
@@ -386,18 +476,9 @@ public class AppEcommerce {
 				return false;
 			}
 
-			// Desvincular las líneas de compra
-			if (articulo.getCompras() != null) {
-				for (ArticuloCompra a : articulo.getCompras()) {
-					a.setUnidades(0);
-					a.setPrecioCompra(new BigDecimal("0.00"));
-				}
-			}
-
-			// "Eliminar" el artículo
-			articulo.setNombre("");
-			articulo.setDescripcion("");
-			articulo.setPrecioActual(new BigDecimal("0.00"));
+			// Borrado lógico: deja de aparecer en el catálogo, pero las líneas de compra
+			// conservan su artículo con los datos con los que se vendió
+			articulo.setRetirado(true);
 			articulo.setStock(0);
 
 			em.flush();
@@ -413,4 +494,43 @@ public class AppEcommerce {
 		return borrado;
 	}
 
-}
\ No newline at end of file
+	// 9b. DELETE ARTICULO (en bloque)
+	/**
+	 * Igual que {@link #borrarArticulo(EntityManager, int)}, pero con un único UPDATE masivo que marca el
+	 * artículo como retirado, sin cargarlo ni recorrer sus líneas de compra (que no se modifican). Como en
+	 * {@link #borrarClienteEnBloque(EntityManager, String)}, el contexto de persistencia se vacía con flush
+	 * antes y se limpia después.
+	 */
+	public static boolean borrarArticuloEnBloque(EntityManager em, int id)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+
+		EntityTransaction tx = em.getTransaction();
+		tx.begin();
+		boolean borrado;
+
+		try {
+			em.flush();
+
+			// Borrado lógico; las líneas de compra no se tocan
+			borrado = em.createQuery("UPDATE VERSIONED Articulo a SET a.retirado = true, a.stock = 0"
+					+ " WHERE a.id = :id AND a.retirado = false")
+					.setParameter("id", id)
+					.executeUpdate() == 1;
+
+			tx.commit();
+		} catch (Exception e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.clear();
+		}
+
+		if (borrado)
+			IndiceArticulos.notificarRetirado(em.getEntityManagerFactory(), id); // el UPDATE masivo no genera eventos
+		else
+			System.out.println("Artículo con ID " + id + " no encontrado.");
+		return borrado;
+	}
+
+}
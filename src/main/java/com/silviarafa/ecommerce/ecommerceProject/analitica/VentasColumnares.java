@@ -0,0 +1,411 @@
+package com.silviarafa.ecommerce.ecommerceProject.analitica;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Motor de análisis de ventas en memoria, con las líneas de compra guardadas por columnas en arrays primitivos.
+ * <p>
+ * Cada línea de {@code articulo_compra} con la fecha de su compra ocupa 24 bytes repartidos en cuatro columnas:
+ * artículo ({@code int}, codificado con un diccionario a un índice denso), unidades ({@code int}), importe en
+ * céntimos ({@code long}) y fecha en segundos epoch UTC ({@code long}). No hay un objeto por línea, así que el
+ * heap es previsible (unos 24 MB por millón de líneas) y el GC no tiene que recorrer millones de objetos.
+ * </p>
+ * <p>
+ * Las columnas se dividen en segmentos de {@value #FILAS_SEGMENTO} filas con la fecha mínima y máxima de cada
+ * uno: una consulta por periodo salta los segmentos que no se solapan con él. Las agregaciones reparten los
+ * segmentos entre los núcleos con fork/join; cada hoja suma sus segmentos en un par de arrays densos indexados
+ * por artículo y los resultados parciales se combinan al volver.
+ * </p>
+ * <h3>Carga incremental</h3>
+ * <ul>
+ *   <li>{@link #actualizar()} lee de la BD las líneas de compras con id mayor que el último cargado (la primera
+ *   vez, todas), en streaming con una {@link StatelessSession}.</li>
+ *   <li>Los ids de {@code compra_seq} se reservan en bloques, así que una compra puede confirmarse después de otra
+ *   con id mayor. Por eso cada actualización vuelve a mirar los últimos {@value #MARGEN_IDS} ids y descarta las
+ *   compras ya cargadas.</li>
+ *   <li>{@link #anadir(int, long, int[], int[], long[])} añade una compra directamente, sin leer la BD.</li>
+ * </ul>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Solo hay un escritor a la vez (los métodos de carga son {@code synchronized}); las consultas pueden
+ *   ejecutarse en paralelo con la carga y ven las líneas publicadas hasta ese momento.</li>
+ *   <li>Las compras sin fecha (anonimizadas al borrar su cliente) no se cargan.</li>
+ *   <li>Es una copia de solo lectura: los cambios posteriores en líneas ya cargadas no se reflejan.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class VentasColumnares {
+
+	/** Filas por segmento. */
+	public static final int FILAS_SEGMENTO = 1 << 16;
+
+	/** Ids de compra anteriores al último cargado que se vuelven a revisar en cada actualización. */
+	public static final int MARGEN_IDS = 1000;
+
+	private static final int FETCH_SIZE = 10_000;
+
+	/**
+	 * Criterio de ordenación del ranking.
+	 */
+	public enum Criterio {
+		INGRESOS, UNIDADES
+	}
+
+	/**
+	 * Ventas agregadas de un artículo en un periodo.
+	 */
+	public record Ranking(int articuloId, long unidades, long ingresosCentimos) {
+
+		public BigDecimal ingresos() {
+			return BigDecimal.valueOf(ingresosCentimos, 2);
+		}
+
+		@Override
+		public String toString() {
+			return "Artículo " + articuloId + ": unidades=" + unidades + ", ingresos=" + ingresos() + '.';
+		}
+	}
+
+	/* Trozo de las columnas. Solo el escritor modifica las filas a partir de la última publicada. */
+	private static final class Segmento {
+		private final int[] articulo = new int[FILAS_SEGMENTO];
+		private final int[] unidades = new int[FILAS_SEGMENTO];
+		private final long[] centimos = new long[FILAS_SEGMENTO];
+		private final long[] fecha = new long[FILAS_SEGMENTO];
+		private int filas;
+		private long fechaMin = Long.MAX_VALUE;
+		private long fechaMax = Long.MIN_VALUE;
+	}
+
+	/*
+	 * Estado publicado para los lectores. Se sustituye entero tras cada carga (escritura volátil) y solo incluye
+	 * posiciones ya escritas, así que un lector nunca ve filas a medio escribir. Los arrays son los del escritor
+	 * (publicar no copia nada): las posiciones publicadas de los segmentos completos ya no cambian, y la zona de
+	 * fechas del último segmento, que sí cambia, va copiada en la propia vista.
+	 */
+	private record Vista(Segmento[] segmentos, int numSegmentos, int filasUltimo, long[] fechaMin, long[] fechaMax,
+			long fechaMinUltimo, long fechaMaxUltimo, int[] articuloPorIndice, int numArticulos, long lineas) {
+
+		int filas(int s) {
+			return s == numSegmentos - 1 ? filasUltimo : FILAS_SEGMENTO;
+		}
+
+		long min(int s) {
+			return s == numSegmentos - 1 ? fechaMinUltimo : fechaMin[s];
+		}
+
+		long max(int s) {
+			return s == numSegmentos - 1 ? fechaMaxUltimo : fechaMax[s];
+		}
+	}
+
+	private final SessionFactory sessionFactory;
+	private final ForkJoinPool pool;
+
+	// Estado del escritor
+	private Segmento[] segmentos = new Segmento[16];
+	private int numSegmentos;
+	private long[] fechaMin = new long[16];
+	private long[] fechaMax = new long[16];
+	private final Map<Integer, Integer> indicePorArticulo = new HashMap<>();
+	private int[] articuloPorIndice = new int[256];
+	private long lineas;
+	private int ultimaCompra;
+	private final Set<Integer> comprasRecientes = new HashSet<>();
+
+	private volatile Vista vista = new Vista(segmentos, 0, 0, fechaMin, fechaMax, 0, 0, articuloPorIndice, 0, 0);
+
+	public VentasColumnares(EntityManagerFactory emf) {
+		this(emf, ForkJoinPool.commonPool());
+	}
+
+	public VentasColumnares(EntityManagerFactory emf, ForkJoinPool pool) {
+		this.sessionFactory = emf != null ? emf.unwrap(SessionFactory.class) : null;
+		this.pool = pool;
+	}
+
+	/**
+	 * Carga las líneas de las compras nuevas desde la última actualización (la primera vez, todas).
+	 *
+	 * @return líneas añadidas.
+	 */
+	public synchronized long actualizar() {
+		if (sessionFactory == null)
+			throw new IllegalStateException("Motor sin EntityManagerFactory: solo admite anadir().");
+
+		long antes = lineas;
+		int desde = Math.max(0, ultimaCompra - MARGEN_IDS);
+		try (StatelessSession session = sessionFactory.openStatelessSession();
+				ScrollableResults<Object[]> filas = session.createSelectionQuery(
+						"SELECT c.id, l.id.articuloId, l.unidades, l.precioCompra, c.fechaCompra"
+								+ " FROM ArticuloCompra l JOIN l.compra c"
+								+ " WHERE c.id > :desde AND c.fechaCompra IS NOT NULL ORDER BY c.id",
+						Object[].class)
+						.setParameter("desde", desde)
+						.setFetchSize(FETCH_SIZE)
+						.setReadOnly(true)
+						.scroll(ScrollMode.FORWARD_ONLY)) {
+
+			// Compras ya cargadas dentro del margen: se saltan todas sus líneas
+			Set<Integer> nuevas = new HashSet<>();
+			while (filas.next()) {
+				Object[] f = filas.get();
+				int compra = (Integer) f[0];
+				if (!nuevas.contains(compra)) {
+					if (!comprasRecientes.add(compra))
+						continue;
+					nuevas.add(compra);
+				}
+				long centimos = f[3] != null ? ((Dinero) f[3]).centimos() : 0;
+				escribir(compra, (Integer) f[1], f[2] != null ? (Integer) f[2] : 0, centimos,
+						segundos((LocalDateTime) f[4]));
+			}
+		}
+
+		podarRecientes();
+		publicar();
+		return lineas - antes;
+	}
+
+	/**
+	 * Añade las líneas de una compra sin pasar por la BD (p. ej. justo después de confirmarla). La compra queda
+	 * marcada como cargada para que {@link #actualizar()} no la duplique si la encuentra dentro del margen.
+	 *
+	 * @param articulos Id de artículo de cada línea.
+	 * @param unidades  Unidades de cada línea.
+	 * @param centimos  Importe de cada línea en céntimos.
+	 */
+	public synchronized void anadir(int compraId, long segundosEpoch, int[] articulos, int[] unidades,
+			long[] centimos) {
+		if (articulos.length != unidades.length || articulos.length != centimos.length)
+			throw new IllegalArgumentException("Las columnas de la compra deben tener la misma longitud.");
+		if (!comprasRecientes.add(compraId) && compraId > ultimaCompra - MARGEN_IDS)
+			return;
+		for (int i = 0; i < articulos.length; i++)
+			escribir(compraId, articulos[i], unidades[i], centimos[i], segundosEpoch);
+		publicar();
+	}
+
+	/**
+	 * Líneas cargadas.
+	 */
+	public long lineas() {
+		return vista.lineas();
+	}
+
+	/**
+	 * Los {@code n} artículos más vendidos con fecha de compra en [{@code desde}, {@code hasta}).
+	 *
+	 * @param desde Inicio del periodo, incluido ({@code null} sin límite).
+	 * @param hasta Fin del periodo, excluido ({@code null} sin límite).
+	 */
+	public List<Ranking> top(LocalDateTime desde, LocalDateTime hasta, int n, Criterio criterio) {
+		if (n <= 0)
+			throw new IllegalArgumentException("El tamaño del ranking debe ser positivo: " + n);
+		Vista v = vista;
+		long inicio = desde != null ? segundos(desde) : Long.MIN_VALUE;
+		long fin = hasta != null ? segundos(hasta) : Long.MAX_VALUE;
+		if (v.numSegmentos() == 0 || inicio >= fin)
+			return List.of();
+
+		// Unas cuatro hojas por núcleo: suficiente para equilibrar carga sin multiplicar los arrays parciales
+		int segmentosPorHoja = Math.max(1, v.numSegmentos() / (pool.getParallelism() * 4));
+		long[][] totales = pool.invoke(new Agregacion(v, 0, v.numSegmentos(), segmentosPorHoja, inicio, fin));
+		if (totales == null)
+			return List.of();
+		return ranking(v, totales[0], totales[1], n, criterio);
+	}
+
+	private void escribir(int compra, int articuloId, int unidades, long centimos, long fecha) {
+		Segmento s = numSegmentos > 0 ? segmentos[numSegmentos - 1] : null;
+		if (s == null || s.filas == FILAS_SEGMENTO) {
+			if (s != null) {
+				// El segmento lleno ya no cambia: se congela su zona de fechas
+				fechaMin[numSegmentos - 1] = s.fechaMin;
+				fechaMax[numSegmentos - 1] = s.fechaMax;
+			}
+			if (numSegmentos == segmentos.length) {
+				segmentos = Arrays.copyOf(segmentos, numSegmentos * 2);
+				fechaMin = Arrays.copyOf(fechaMin, numSegmentos * 2);
+				fechaMax = Arrays.copyOf(fechaMax, numSegmentos * 2);
+			}
+			s = new Segmento();
+			segmentos[numSegmentos++] = s;
+		}
+
+		int i = s.filas;
+		s.articulo[i] = indice(articuloId);
+		s.unidades[i] = unidades;
+		s.centimos[i] = centimos;
+		s.fecha[i] = fecha;
+		s.filas = i + 1;
+		s.fechaMin = Math.min(s.fechaMin, fecha);
+		s.fechaMax = Math.max(s.fechaMax, fecha);
+
+		lineas++;
+		ultimaCompra = Math.max(ultimaCompra, compra);
+	}
+
+	/* Diccionario id de artículo -> índice denso (0..n-1), para agregar en arrays en lugar de mapas. */
+	private int indice(int articuloId) {
+		Integer i = indicePorArticulo.get(articuloId);
+		if (i != null)
+			return i;
+		int nuevo = indicePorArticulo.size();
+		if (nuevo == articuloPorIndice.length)
+			articuloPorIndice = Arrays.copyOf(articuloPorIndice, nuevo * 2);
+		articuloPorIndice[nuevo] = articuloId;
+		indicePorArticulo.put(articuloId, nuevo);
+		return nuevo;
+	}
+
+	private void podarRecientes() {
+		int limite = ultimaCompra - MARGEN_IDS;
+		comprasRecientes.removeIf(id -> id <= limite);
+	}
+
+	private void publicar() {
+		Segmento ultimo = numSegmentos > 0 ? segmentos[numSegmentos - 1] : null;
+		vista = new Vista(segmentos, numSegmentos, ultimo != null ? ultimo.filas : 0, fechaMin, fechaMax,
+				ultimo != null ? ultimo.fechaMin : 0, ultimo != null ? ultimo.fechaMax : 0, articuloPorIndice,
+				indicePorArticulo.size(), lineas);
+	}
+
+	private static List<Ranking> ranking(Vista v, long[] unidades, long[] centimos, int n, Criterio criterio) {
+		long[] clave = criterio == Criterio.INGRESOS ? centimos : unidades;
+
+		// Montículo de mínimos con los n mejores índices
+		PriorityQueue<Integer> mejores = new PriorityQueue<>(n, (a, b) -> Long.compare(clave[a], clave[b]));
+		for (int i = 0; i < clave.length; i++) {
+			if (unidades[i] == 0 && centimos[i] == 0)
+				continue;
+			if (mejores.size() < n)
+				mejores.add(i);
+			else if (clave[i] > clave[mejores.peek()]) {
+				mejores.poll();
+				mejores.add(i);
+			}
+		}
+
+		List<Ranking> resultado = new ArrayList<>(mejores.size());
+		while (!mejores.isEmpty()) {
+			int i = mejores.poll();
+			resultado.add(new Ranking(v.articuloPorIndice()[i], unidades[i], centimos[i]));
+		}
+		resultado.sort((a, b) -> criterio == Criterio.INGRESOS
+				? Long.compare(b.ingresosCentimos(), a.ingresosCentimos())
+				: Long.compare(b.unidades(), a.unidades()));
+		return resultado;
+	}
+
+	/**
+	 * Segundos epoch (UTC) de una fecha, la misma escala de la columna de fechas.
+	 */
+	public static long segundos(LocalDateTime fecha) {
+		return fecha.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	/*
+	 * Suma unidades e ingresos por artículo de un rango de segmentos. Divide el rango hasta que tiene como mucho
+	 * segmentosPorHoja segmentos; cada hoja suma en un único par de arrays densos. Devuelve null si ningún
+	 * segmento del rango se solapa con el periodo.
+	 */
+	private static final class Agregacion extends RecursiveTask<long[][]> {
+
+		private final Vista v;
+		private final int desde;
+		private final int hasta;
+		private final int segmentosPorHoja;
+		private final long inicio;
+		private final long fin;
+
+		Agregacion(Vista v, int desde, int hasta, int segmentosPorHoja, long inicio, long fin) {
+			this.v = v;
+			this.desde = desde;
+			this.hasta = hasta;
+			this.segmentosPorHoja = segmentosPorHoja;
+			this.inicio = inicio;
+			this.fin = fin;
+		}
+
+		@Override
+		protected long[][] compute() {
+			if (hasta - desde <= segmentosPorHoja)
+				return sumarHoja();
+
+			int medio = (desde + hasta) >>> 1;
+			Agregacion izquierda = new Agregacion(v, desde, medio, segmentosPorHoja, inicio, fin);
+			izquierda.fork();
+			long[][] der = new Agregacion(v, medio, hasta, segmentosPorHoja, inicio, fin).compute();
+			long[][] izq = izquierda.join();
+			if (izq == null)
+				return der;
+			if (der == null)
+				return izq;
+			for (int i = 0; i < izq[0].length; i++) {
+				izq[0][i] += der[0][i];
+				izq[1][i] += der[1][i];
+			}
+			return izq;
+		}
+
+		private long[][] sumarHoja() {
+			long[] unidades = null;
+			long[] centimos = null;
+			for (int s = desde; s < hasta; s++) {
+				// Segmento fuera del periodo: se salta sin leer sus filas
+				if (v.max(s) < inicio || v.min(s) >= fin)
+					continue;
+				if (unidades == null) {
+					unidades = new long[v.numArticulos()];
+					centimos = new long[unidades.length];
+				}
+
+				Segmento seg = v.segmentos()[s];
+				int filas = v.filas(s);
+				if (v.min(s) >= inicio && v.max(s) < fin) {
+					// Segmento entero dentro del periodo: sin comprobar la fecha fila a fila
+					for (int i = 0; i < filas; i++) {
+						int a = seg.articulo[i];
+						unidades[a] += seg.unidades[i];
+						centimos[a] += seg.centimos[i];
+					}
+				} else {
+					for (int i = 0; i < filas; i++) {
+						long f = seg.fecha[i];
+						if (f >= inicio && f < fin) {
+							int a = seg.articulo[i];
+							unidades[a] += seg.unidades[i];
+							centimos[a] += seg.centimos[i];
+						}
+					}
+				}
+			}
+			return unidades != null ? new long[][] { unidades, centimos } : null;
+		}
+	}
+}
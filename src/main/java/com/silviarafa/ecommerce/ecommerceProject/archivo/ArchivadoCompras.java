@@ -0,0 +1,336 @@
+package com.silviarafa.ecommerce.ecommerceProject.archivo;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.NativeQuery;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.ArticuloCompra;
+import com.silviarafa.ecommerce.ecommerceProject.model.ArticuloCompraArchivada;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.model.CompraArchivada;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+
+/**
+ * Archivado por lotes de las compras cerradas y antiguas: pasan con sus líneas de {@code compra} y
+ * {@code articulo_compra} a las tablas frías {@code compra_archivo} y {@code articulo_compra_archivo}.
+ * <p>
+ * Las candidatas son las compras con {@code fecha_compra} anterior a la antigüedad indicada y con un estado
+ * terminal. Se recorren por clave ({@code (fecha_compra, id) > (:fecha, :id)} sobre {@code compra_fecha_IX}) en
+ * lotes de {@code tamanoLote}, y cada lote se mueve en su propia transacción:
+ * </p>
+ * <ol>
+ *   <li>Se bloquean las compras del lote por clave primaria ({@code SELECT ... FOR UPDATE}) volviendo a comprobar
+ *   fecha y estado: una compra que ha cambiado de estado desde la lectura se queda donde está.</li>
+ *   <li>{@code INSERT ... SELECT} de las cabeceras y de las líneas en las tablas de archivo.</li>
+ *   <li>{@code DELETE} de las líneas y de las cabeceras en las tablas calientes.</li>
+ * </ol>
+ * <p>
+ * Los bloqueos son solo los de las filas del lote y duran cinco sentencias; entre lotes se hace una pausa para
+ * dejar paso al tráfico normal. Un lote se mueve entero o no se mueve, así que si el proceso se cae basta con
+ * volver a lanzarlo: lo archivado ya no es candidato y lo demás se recorre de nuevo. Un lote que falla se
+ * cuenta en el informe, con su primera compra y la causa, y se sigue con el siguiente (se reintentará en la
+ * próxima ejecución).
+ * </p>
+ * <h3>Métricas</h3>
+ * <p>
+ * El {@link Informe} da las compras y líneas movidas, las filas por segundo y el tamaño de las tablas calientes
+ * antes y después. En MariaDB el tamaño sale de {@code information_schema.tables} (estimado y sin coste); InnoDB
+ * no devuelve al sistema el espacio de las filas borradas, que aparece como {@code bytesLibres} y se reutiliza
+ * para filas nuevas ({@code OPTIMIZE TABLE} lo recupera, fuera de horas). En otras BD se cuentan las filas.
+ * </p>
+ * <p>
+ * Las lecturas del historial ({@code HistorialCompras}), el resumen del cliente ({@code ConsultasCliente}), la
+ * reconstrucción de agregados y el borrado de clientes tienen en cuenta las tablas de archivo.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ArchivadoCompras {
+
+	public static final Period ANTIGUEDAD_DEFECTO = Period.ofYears(1);
+	public static final Set<String> ESTADOS_TERMINALES_DEFECTO = Set.of("entregado", "cancelado", "devuelto");
+	public static final int TAMANO_LOTE_DEFECTO = 500;
+	public static final Duration PAUSA_DEFECTO = Duration.ofMillis(50);
+
+	/**
+	 * Tamaño de una tabla. Con {@code estimado} las filas y bytes son los de {@code information_schema}; si no,
+	 * las filas son un {@code COUNT(*)} y los bytes {@code -1}.
+	 */
+	public record TamanoTabla(String tabla, long filas, long bytes, long bytesLibres, boolean estimado) {
+
+		@Override
+		public String toString() {
+			return tabla + ": " + (estimado ? "~" : "") + filas + " filas"
+					+ (bytes >= 0 ? ", " + bytes / 1024 + " KiB (" + bytesLibres / 1024 + " KiB libres)" : "");
+		}
+	}
+
+	/**
+	 * Resultado del archivado. {@code errores} detalla los primeros lotes fallidos (primera compra y causa).
+	 */
+	public record Informe(LocalDateTime limite, long compras, long lineas, int lotes, int lotesFallidos,
+			List<String> errores, Duration transcurrido, List<TamanoTabla> antes, List<TamanoTabla> despues) {
+
+		/**
+		 * Filas (cabeceras y líneas) movidas por segundo.
+		 */
+		public double filasPorSegundo() {
+			double segundos = transcurrido.toNanos() / 1e9;
+			return segundos > 0 ? (compras + lineas) / segundos : 0.0;
+		}
+
+		@Override
+		public String toString() {
+			return "Compras archivadas=" + compras + ", líneas=" + lineas + " (anteriores a " + limite + "), lotes="
+					+ lotes + ", lotes fallidos=" + lotesFallidos + ", tiempo=" + transcurrido.toMillis() + " ms"
+					+ String.format(", %.0f filas/s.", filasPorSegundo())
+					+ "\n  Antes: " + antes + "\n  Después: " + despues;
+		}
+	}
+
+	/* Compras y líneas movidas en un lote. */
+	private record Lote(int compras, int lineas) {
+	}
+
+	private static final String[] TABLAS_CALIENTES = { "compra", "articulo_compra" };
+
+	/* Máximo de lotes fallidos que se detallan en el informe. */
+	private static final int MAX_ERRORES = 100;
+
+	private final EntityManagerFactory emf;
+	private final Period antiguedad;
+	private final Set<String> estados;
+	private final int tamanoLote;
+	private final Duration pausa;
+
+	public ArchivadoCompras(EntityManagerFactory emf) {
+		this(emf, ANTIGUEDAD_DEFECTO, ESTADOS_TERMINALES_DEFECTO, TAMANO_LOTE_DEFECTO, PAUSA_DEFECTO);
+	}
+
+	/**
+	 * @param antiguedad Se archivan las compras anteriores a {@code ahora - antiguedad}.
+	 * @param estados    Estados terminales (en MariaDB se comparan sin distinguir mayúsculas).
+	 * @param tamanoLote Compras por transacción.
+	 * @param pausa      Espera entre lotes.
+	 */
+	public ArchivadoCompras(EntityManagerFactory emf, Period antiguedad, Set<String> estados, int tamanoLote,
+			Duration pausa) {
+		if (antiguedad.isNegative() || estados.isEmpty() || tamanoLote <= 0 || pausa.isNegative())
+			throw new IllegalArgumentException("Antigüedad y pausa no negativas, estados no vacíos y lote positivo.");
+		this.emf = emf;
+		this.antiguedad = antiguedad;
+		this.estados = Set.copyOf(estados);
+		this.tamanoLote = tamanoLote;
+		this.pausa = pausa;
+	}
+
+	/**
+	 * Archiva las compras cerradas anteriores a {@code ahora - antiguedad}.
+	 */
+	public Informe archivar() {
+		return archivarHasta(LocalDateTime.now().minus(antiguedad));
+	}
+
+	/**
+	 * Archiva las compras cerradas con {@code fecha_compra} anterior a {@code limite}.
+	 */
+	public Informe archivarHasta(LocalDateTime limite) {
+		long inicio = System.nanoTime();
+		List<TamanoTabla> antes = tamanos();
+		long compras = 0, lineas = 0;
+		int lotes = 0, fallidos = 0;
+		List<String> errores = new ArrayList<>();
+
+		LocalDateTime ultimaFecha = null;
+		Integer ultimoId = null;
+		List<Object[]> candidatas;
+		while (!(candidatas = candidatas(limite, ultimaFecha, ultimoId)).isEmpty()) {
+			Object[] ultima = candidatas.get(candidatas.size() - 1);
+			ultimaFecha = (LocalDateTime) ultima[1];
+			ultimoId = (Integer) ultima[0];
+
+			List<Integer> ids = candidatas.stream().map(c -> (Integer) c[0]).toList();
+			try {
+				Lote lote = moverLote(ids, limite);
+				compras += lote.compras();
+				lineas += lote.lineas();
+				lotes++;
+			} catch (RuntimeException e) {
+				fallidos++;
+				if (errores.size() < MAX_ERRORES)
+					errores.add("Lote desde la compra " + ids.get(0) + ": " + e.getMessage());
+			}
+			esperar();
+		}
+
+		return new Informe(limite, compras, lineas, lotes, fallidos, List.copyOf(errores),
+				Duration.ofNanos(System.nanoTime() - inicio), antes, tamanos());
+	}
+
+	/* Siguientes candidatas después de (fecha, id) ({@code null} para empezar), sin bloquear: solo se leen claves. */
+	private List<Object[]> candidatas(LocalDateTime limite, LocalDateTime fecha, Integer id) {
+		String jpql = "SELECT c.id, c.fechaCompra FROM Compra c WHERE c.fechaCompra < :limite AND c.estado IN :estados";
+		if (fecha != null)
+			jpql += " AND (c.fechaCompra > :fecha OR (c.fechaCompra = :fecha AND c.id > :id))";
+
+		EntityManager em = emf.createEntityManager();
+		try {
+			var query = em.createQuery(jpql + " ORDER BY c.fechaCompra, c.id", Object[].class)
+					.setParameter("limite", limite)
+					.setParameter("estados", estados)
+					.setMaxResults(tamanoLote);
+			if (fecha != null) {
+				query.setParameter("fecha", fecha);
+				query.setParameter("id", id);
+			}
+			return query.getResultList();
+		} finally {
+			em.close();
+		}
+	}
+
+	private Lote moverLote(List<Integer> candidatas, LocalDateTime limite) {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+
+			// 1. Bloquear y volver a comprobar (la lectura de candidatas no bloqueaba)
+			List<Integer> ids = em.createQuery("SELECT c.id FROM Compra c WHERE c.id IN :ids"
+					+ " AND c.fechaCompra < :limite AND c.estado IN :estados", Integer.class)
+					.setParameter("ids", candidatas)
+					.setParameter("limite", limite)
+					.setParameter("estados", estados)
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+					.getResultList();
+			if (ids.isEmpty()) {
+				tx.commit();
+				return new Lote(0, 0);
+			}
+
+			// 2. Copiar a las tablas de archivo
+			int compras = nativa(em, "INSERT INTO compra_archivo (id, fecha_compra, estado, direccion_entrega,"
+					+ " precio_total, version, cliente_nif_cif, fecha_archivo)"
+					+ " SELECT id, fecha_compra, estado, direccion_entrega, precio_total, version, cliente_nif_cif, ?1"
+					+ " FROM compra WHERE id IN (?2)", CompraArchivada.class, LocalDateTime.now(), ids);
+			int lineas = nativa(em, "INSERT INTO articulo_compra_archivo (articulo_id, compra_id, unidades,"
+					+ " precio_compra) SELECT articulo_id, compra_id, unidades, precio_compra"
+					+ " FROM articulo_compra WHERE compra_id IN (?1)", ArticuloCompraArchivada.class, ids);
+
+			// 3. Borrar de las tablas calientes
+			int lineasBorradas = nativa(em, "DELETE FROM articulo_compra WHERE compra_id IN (?1)",
+					ArticuloCompra.class, ids);
+			int comprasBorradas = nativa(em, "DELETE FROM compra WHERE id IN (?1)", Compra.class, ids);
+			if (compras != ids.size() || comprasBorradas != compras || lineasBorradas != lineas)
+				throw new IllegalStateException("Filas copiadas y borradas no coinciden: compras " + compras + "/"
+						+ comprasBorradas + ", líneas " + lineas + "/" + lineasBorradas);
+
+			tx.commit();
+			return new Lote(compras, lineas);
+		} catch (RuntimeException e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.close();
+		}
+	}
+
+	/*
+	 * Sentencia nativa sincronizada solo con la entidad que modifica: sin esto Hibernate invalidaría todas las
+	 * regiones de la caché de segundo nivel (también la de artículos) en cada lote.
+	 */
+	private static int nativa(EntityManager em, String sql, Class<?> entidad, Object... parametros) {
+		NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+		query.addSynchronizedEntityClass(entidad);
+		for (int i = 0; i < parametros.length; i++)
+			query.setParameter(i + 1, parametros[i]);
+		return query.executeUpdate();
+	}
+
+	private void esperar() {
+		if (pausa.isZero())
+			return;
+		try {
+			Thread.sleep(pausa);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Archivado interrumpido.", ie);
+		}
+	}
+
+	/**
+	 * Tamaño actual de {@code compra} y {@code articulo_compra}.
+	 */
+	public List<TamanoTabla> tamanos() {
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			return Arrays.stream(TABLAS_CALIENTES)
+					.map(tabla -> session.doReturningWork(conexion -> tamano(conexion, tabla)))
+					.toList();
+		}
+	}
+
+	private static TamanoTabla tamano(Connection conexion, String tabla) throws SQLException {
+		try (PreparedStatement ps = conexion.prepareStatement("SELECT table_rows, data_length + index_length,"
+				+ " data_free FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?")) {
+			ps.setString(1, tabla);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (rs.next())
+					return new TamanoTabla(tabla, rs.getLong(1), rs.getLong(2), rs.getLong(3), true);
+			}
+		} catch (SQLException e) {
+			// Sin las columnas de MariaDB/MySQL: se cuentan las filas
+		}
+		try (PreparedStatement ps = conexion.prepareStatement("SELECT COUNT(*) FROM " + tabla);
+				ResultSet rs = ps.executeQuery()) {
+			rs.next();
+			return new TamanoTabla(tabla, rs.getLong(1), -1, -1, false);
+		}
+	}
+
+	/**
+	 * Archiva desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code ArchivadoCompras [antigüedad ISO-8601, p. ej. P1Y] [tamañoLote] [pausaMs] [estado,estado,...]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			Period antiguedad = args.length > 0 ? Period.parse(args[0]) : ANTIGUEDAD_DEFECTO;
+			int tamanoLote = args.length > 1 ? Integer.parseInt(args[1]) : TAMANO_LOTE_DEFECTO;
+			Duration pausa = args.length > 2 ? Duration.ofMillis(Long.parseLong(args[2])) : PAUSA_DEFECTO;
+			Set<String> estados = args.length > 3 ? Set.of(args[3].split(",")) : ESTADOS_TERMINALES_DEFECTO;
+
+			System.out.println("\n--- ARCHIVANDO COMPRAS " + estados + " DE MÁS DE " + antiguedad + " ---");
+			Informe informe = new ArchivadoCompras(emf, antiguedad, estados, tamanoLote, pausa).archivar();
+			System.out.println(informe);
+			informe.errores().forEach(e -> System.out.println("  - ERROR " + e));
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.silviarafa.ecommerce.ecommerceProject.busqueda;
+
+import java.text.Normalizer;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Divide un texto en los términos que se indexan y se buscan.
+ * <ul>
+ *   <li>Se separa por cualquier carácter que no sea letra o dígito.</li>
+ *   <li>Se pasa a minúsculas y se quitan tildes y diéresis ({@code "Cerámica"} y {@code "ceramica"} son el mismo
+ *   término; la ñ queda como n).</li>
+ *   <li>Se descartan los términos de una letra, los de más de {@value #MAX_LONGITUD} caracteres y las palabras
+ *   vacías más frecuentes del español.</li>
+ *   <li>Se quita el plural de forma aproximada ({@code "tazas"} → {@code "taza"}, {@code "camiones"} →
+ *   {@code "camion"}). No es un lematizador: basta con que índice y consulta hagan lo mismo.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Analizador {
+
+	static final int MAX_LONGITUD = 40;
+
+	private static final Set<String> VACIAS = Set.of("de", "la", "el", "en", "los", "las", "del", "con", "para",
+			"por", "un", "una", "al", "se", "su", "sus", "es", "que", "lo", "le", "sin", "mas", "muy", "y", "o");
+
+	private Analizador() {
+	}
+
+	/**
+	 * Pasa a {@code destino} cada término de {@code texto}, en orden y con repeticiones.
+	 */
+	static void terminos(String texto, Consumer<String> destino) {
+		if (texto == null || texto.isEmpty())
+			return;
+		String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD);
+		StringBuilder termino = new StringBuilder(16);
+		for (int i = 0, n = normalizado.length(); i <= n; i++) {
+			char c = i < n ? normalizado.charAt(i) : ' ';
+			if (Character.getType(c) == Character.NON_SPACING_MARK)
+				continue;
+			if (Character.isLetterOrDigit(c)) {
+				termino.append(Character.toLowerCase(c));
+			} else if (termino.length() > 0) {
+				emitir(termino, destino);
+				termino.setLength(0);
+			}
+		}
+	}
+
+	private static void emitir(StringBuilder termino, Consumer<String> destino) {
+		int n = termino.length();
+		if (n < 2 || n > MAX_LONGITUD)
+			return;
+		String t = singular(termino.toString());
+		if (!VACIAS.contains(t))
+			destino.accept(t);
+	}
+
+	/* Plural regular: "-es" tras l, n, r, d o j; si no, "-s" final en palabras de más de 3 letras. */
+	private static String singular(String t) {
+		int n = t.length();
+		if (n > 4 && t.endsWith("es") && "lnrdj".indexOf(t.charAt(n - 3)) >= 0)
+			return t.substring(0, n - 2);
+		if (n > 3 && t.charAt(n - 1) == 's' && t.charAt(n - 2) != 's')
+			return t.substring(0, n - 1);
+		return t;
+	}
+}
@@ -0,0 +1,443 @@
+package com.silviarafa.ecommerce.ecommerceProject.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los artículos.
+ * <p>
+ * Cada artículo indexado es un documento con un número interno consecutivo. Por cada término se guarda la
+ * lista de documentos que lo contienen ({@link Postings}), comprimida en un {@code byte[]}: la diferencia con el
+ * documento anterior y las apariciones en nombre y descripción, cada una como entero de longitud variable (7 bits
+ * por byte). Cada {@value #BLOQUE} entradas se anota un salto (documento y posición) para que la intersección
+ * de términos avance sin descomprimir toda la lista.
+ * </p>
+ * <p>
+ * Modificar o retirar un artículo marca su documento como borrado (las listas no se tocan) y, al modificarlo, se
+ * añade un documento nuevo al final. Cuando los borrados superan un cuarto de los documentos se compacta.
+ * </p>
+ * <p>
+ * No es seguro para hilos: {@link IndiceArticulos} lo protege con un cerrojo de lectura/escritura.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class Indice {
+
+	/** Entradas por bloque entre saltos. */
+	static final int BLOQUE = 128;
+
+	/* Parámetros de BM25F: saturación, normalización por longitud y peso del nombre frente a la descripción. */
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+	private static final float PESO_NOMBRE = 3.0f;
+
+	private static final int[] VACIO = new int[0];
+
+	/**
+	 * Documentos que contienen un término.
+	 */
+	static final class Postings {
+		private byte[] datos = new byte[8];
+		private int tam;
+		private int df;
+		private int ultimoDoc = -1;
+		private int[] saltoDoc = VACIO;
+		private int[] saltoPos = VACIO;
+		private int saltos;
+
+		void anadir(int doc, int tfNombre, int tfDescripcion) {
+			if (df > 0 && df % BLOQUE == 0) {
+				if (saltos == saltoDoc.length) {
+					saltoDoc = Arrays.copyOf(saltoDoc, Math.max(4, saltos * 2));
+					saltoPos = Arrays.copyOf(saltoPos, saltoDoc.length);
+				}
+				saltoDoc[saltos] = ultimoDoc;
+				saltoPos[saltos] = tam;
+				saltos++;
+			}
+			if (tam + 15 > datos.length)
+				datos = Arrays.copyOf(datos, Math.max(tam + 15, datos.length + (datos.length >> 1)));
+			escribir(doc - ultimoDoc);
+			escribir(tfNombre);
+			escribir(tfDescripcion);
+			ultimoDoc = doc;
+			df++;
+		}
+
+		private void escribir(int v) {
+			while ((v & ~0x7F) != 0) {
+				datos[tam++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			datos[tam++] = (byte) v;
+		}
+	}
+
+	/**
+	 * Recorrido de una lista de documentos.
+	 */
+	static final class Cursor {
+		private final Postings p;
+		private int pos;
+		private int leidos;
+		int doc = -1;
+		int tfNombre;
+		int tfDescripcion;
+
+		Cursor(Postings p) {
+			this.p = p;
+		}
+
+		/** Avanza al siguiente documento; {@code false} si no hay más. */
+		boolean siguiente() {
+			if (leidos == p.df)
+				return false;
+			doc += leer();
+			tfNombre = leer();
+			tfDescripcion = leer();
+			leidos++;
+			return true;
+		}
+
+		/** Avanza al primer documento {@code >= objetivo}; {@code false} si no hay. */
+		boolean avanzar(int objetivo) {
+			if (doc >= objetivo)
+				return true;
+			// Último salto que empieza antes del objetivo y después de la posición actual
+			int k = Arrays.binarySearch(p.saltoDoc, 0, p.saltos, objetivo);
+			k = (k >= 0 ? k : -k - 1) - 1;
+			if (k >= 0 && (k + 1) * BLOQUE > leidos) {
+				pos = p.saltoPos[k];
+				doc = p.saltoDoc[k];
+				leidos = (k + 1) * BLOQUE;
+			}
+			while (siguiente())
+				if (doc >= objetivo)
+					return true;
+			return false;
+		}
+
+		private int leer() {
+			byte[] d = p.datos;
+			int b = d[pos++];
+			int v = b & 0x7F;
+			for (int desp = 7; b < 0; desp += 7) {
+				b = d[pos++];
+				v |= (b & 0x7F) << desp;
+			}
+			return v;
+		}
+	}
+
+	/**
+	 * Documento encontrado: artículo y puntuación.
+	 */
+	record Acierto(int articuloId, float puntuacion) {
+	}
+
+	/**
+	 * Resultado de una búsqueda: total de documentos que cumplen y los de la página pedida.
+	 */
+	record Aciertos(long total, List<Acierto> pagina) {
+	}
+
+	// Documentos: artículo (-1 si está borrado) y longitudes en términos de cada campo
+	private int numDocs;
+	private int vivos;
+	private int[] articulo = new int[1024];
+	private int[] longNombre = new int[1024];
+	private int[] longDescripcion = new int[1024];
+	private long sumaNombre;
+	private long sumaDescripcion;
+
+	// Documento + 1 de cada artículo, indexado por id (0 si no está)
+	private int[] docDeArticulo = new int[1024];
+
+	private Map<String, Postings> terminos = new HashMap<>();
+
+	int vivos() {
+		return vivos;
+	}
+
+	int documentos() {
+		return numDocs;
+	}
+
+	int numTerminos() {
+		return terminos.size();
+	}
+
+	long bytesPostings() {
+		long total = 0;
+		for (Postings p : terminos.values())
+			total += p.tam;
+		return total;
+	}
+
+	/**
+	 * Indexa el artículo, sustituyendo la versión anterior si ya estaba.
+	 */
+	void indexar(int articuloId, String nombre, String descripcion) {
+		retirar(articuloId);
+
+		Map<String, int[]> frecuencias = new HashMap<>();
+		int[] lnom = { 0 }, ldesc = { 0 };
+		Analizador.terminos(nombre, t -> {
+			frecuencias.computeIfAbsent(t, k -> new int[2])[0]++;
+			lnom[0]++;
+		});
+		Analizador.terminos(descripcion, t -> {
+			frecuencias.computeIfAbsent(t, k -> new int[2])[1]++;
+			ldesc[0]++;
+		});
+
+		int doc = nuevoDocumento(articuloId, lnom[0], ldesc[0]);
+		for (Map.Entry<String, int[]> e : frecuencias.entrySet())
+			terminos.computeIfAbsent(e.getKey(), k -> new Postings()).anadir(doc, e.getValue()[0], e.getValue()[1]);
+	}
+
+	/**
+	 * Marca como borrado el documento del artículo. Devuelve {@code false} si no estaba indexado.
+	 */
+	boolean retirar(int articuloId) {
+		if (articuloId <= 0)
+			throw new IllegalArgumentException("Id de artículo no válido: " + articuloId);
+		if (articuloId >= docDeArticulo.length || docDeArticulo[articuloId] == 0)
+			return false;
+		int doc = docDeArticulo[articuloId] - 1;
+		docDeArticulo[articuloId] = 0;
+		articulo[doc] = -1;
+		sumaNombre -= longNombre[doc];
+		sumaDescripcion -= longDescripcion[doc];
+		vivos--;
+
+		if (numDocs - vivos > numDocs / 4 && numDocs - vivos > BLOQUE)
+			compactar();
+		return true;
+	}
+
+	private int nuevoDocumento(int articuloId, int lnom, int ldesc) {
+		if (numDocs == articulo.length) {
+			int n = numDocs + (numDocs >> 1);
+			articulo = Arrays.copyOf(articulo, n);
+			longNombre = Arrays.copyOf(longNombre, n);
+			longDescripcion = Arrays.copyOf(longDescripcion, n);
+		}
+		if (articuloId >= docDeArticulo.length)
+			docDeArticulo = Arrays.copyOf(docDeArticulo, Math.max(articuloId + 1, docDeArticulo.length * 2));
+
+		int doc = numDocs++;
+		articulo[doc] = articuloId;
+		longNombre[doc] = lnom;
+		longDescripcion[doc] = ldesc;
+		sumaNombre += lnom;
+		sumaDescripcion += ldesc;
+		docDeArticulo[articuloId] = doc + 1;
+		vivos++;
+		return doc;
+	}
+
+	/**
+	 * Añade al final todos los documentos de {@code otro}, que no debe tener artículos en común con este índice
+	 * ni documentos borrados. Se usa para unir los tramos del reindexado.
+	 */
+	void anexar(Indice otro) {
+		int desplazamiento = numDocs;
+		for (int d = 0; d < otro.numDocs; d++)
+			nuevoDocumento(otro.articulo[d], otro.longNombre[d], otro.longDescripcion[d]);
+		for (Map.Entry<String, Postings> e : otro.terminos.entrySet()) {
+			Postings destino = terminos.computeIfAbsent(e.getKey(), k -> new Postings());
+			Cursor c = new Cursor(e.getValue());
+			while (c.siguiente())
+				destino.anadir(c.doc + desplazamiento, c.tfNombre, c.tfDescripcion);
+		}
+	}
+
+	/**
+	 * Reescribe las listas sin los documentos borrados y renumera los vivos (en el mismo orden).
+	 */
+	void compactar() {
+		int[] nuevoDoc = new int[numDocs];
+		int n = 0;
+		for (int d = 0; d < numDocs; d++) {
+			if (articulo[d] < 0) {
+				nuevoDoc[d] = -1;
+				continue;
+			}
+			nuevoDoc[d] = n;
+			articulo[n] = articulo[d];
+			longNombre[n] = longNombre[d];
+			longDescripcion[n] = longDescripcion[d];
+			docDeArticulo[articulo[n]] = n + 1;
+			n++;
+		}
+		numDocs = n;
+
+		Map<String, Postings> compactados = new HashMap<>(terminos.size());
+		for (Map.Entry<String, Postings> e : terminos.entrySet()) {
+			Postings p = null;
+			Cursor c = new Cursor(e.getValue());
+			while (c.siguiente()) {
+				if (nuevoDoc[c.doc] < 0)
+					continue;
+				if (p == null)
+					p = new Postings();
+				p.anadir(nuevoDoc[c.doc], c.tfNombre, c.tfDescripcion);
+			}
+			if (p != null)
+				compactados.put(e.getKey(), p);
+		}
+		terminos = compactados;
+	}
+
+	/**
+	 * Documentos que contienen todos los términos, ordenados por puntuación BM25F (a igualdad, por orden de
+	 * indexación). Devuelve los {@code cuantos} a partir de la posición {@code desde} y el total.
+	 */
+	Aciertos buscar(List<String> consulta, int desde, int cuantos) {
+		List<String> distintos = consulta.stream().distinct().toList();
+		if (distintos.isEmpty() || vivos == 0)
+			return new Aciertos(0, List.of());
+
+		// Intersección empezando por el término menos frecuente
+		Cursor[] cursores = new Cursor[distintos.size()];
+		float[] idf = new float[cursores.length];
+		for (int i = 0; i < cursores.length; i++) {
+			Postings p = terminos.get(distintos.get(i));
+			if (p == null)
+				return new Aciertos(0, List.of());
+			cursores[i] = new Cursor(p);
+		}
+		Arrays.sort(cursores, (a, b) -> Integer.compare(a.p.df, b.p.df));
+		for (int i = 0; i < cursores.length; i++) {
+			int df = cursores[i].p.df;
+			idf[i] = (float) Math.log(1 + (numDocs - df + 0.5) / (df + 0.5));
+		}
+
+		float mediaNombre = Math.max(1f, (float) sumaNombre / vivos);
+		float mediaDescripcion = Math.max(1f, (float) sumaDescripcion / vivos);
+		Monticulo mejores = new Monticulo(desde + cuantos);
+		long total = 0;
+
+		Cursor guia = cursores[0];
+		buscar: while (guia.siguiente()) {
+			int objetivo = guia.doc;
+			for (int i = 1; i < cursores.length; i++) {
+				if (!cursores[i].avanzar(objetivo))
+					break buscar;
+				if (cursores[i].doc > objetivo) {
+					if (!guia.avanzar(cursores[i].doc))
+						break buscar;
+					objetivo = guia.doc;
+					i = 0;
+				}
+			}
+			if (articulo[objetivo] < 0)
+				continue;
+
+			float puntuacion = 0;
+			float normNombre = 1 - B + B * longNombre[objetivo] / mediaNombre;
+			float normDescripcion = 1 - B + B * longDescripcion[objetivo] / mediaDescripcion;
+			for (int i = 0; i < cursores.length; i++) {
+				float tf = PESO_NOMBRE * cursores[i].tfNombre / normNombre
+						+ cursores[i].tfDescripcion / normDescripcion;
+				puntuacion += idf[i] * tf * (K1 + 1) / (K1 + tf);
+			}
+			total++;
+			mejores.ofrecer(objetivo, puntuacion);
+		}
+
+		int encontrados = mejores.tam;
+		int[] docs = new int[encontrados];
+		float[] puntos = new float[encontrados];
+		mejores.vaciarOrdenado(docs, puntos);
+		List<Acierto> pagina = new ArrayList<>(cuantos);
+		for (int i = desde; i < encontrados; i++)
+			pagina.add(new Acierto(articulo[docs[i]], puntos[i]));
+		return new Aciertos(total, pagina);
+	}
+
+	/**
+	 * Los {@code capacidad} mejores documentos, en un montículo de mínimos sobre arrays primitivos.
+	 */
+	private static final class Monticulo {
+		private final int[] docs;
+		private final float[] puntos;
+		private int tam;
+
+		Monticulo(int capacidad) {
+			docs = new int[capacidad];
+			puntos = new float[capacidad];
+		}
+
+		/* Peor primero: menor puntuación y, a igualdad, documento mayor. */
+		private boolean peor(int i, int j) {
+			return puntos[i] < puntos[j] || (puntos[i] == puntos[j] && docs[i] > docs[j]);
+		}
+
+		void ofrecer(int doc, float puntuacion) {
+			if (tam < docs.length) {
+				docs[tam] = doc;
+				puntos[tam] = puntuacion;
+				subir(tam++);
+			} else if (puntuacion > puntos[0]) {
+				docs[0] = doc;
+				puntos[0] = puntuacion;
+				bajar(0);
+			}
+		}
+
+		private void subir(int i) {
+			while (i > 0) {
+				int padre = (i - 1) >>> 1;
+				if (!peor(i, padre))
+					break;
+				intercambiar(i, padre);
+				i = padre;
+			}
+		}
+
+		private void bajar(int i) {
+			while (true) {
+				int hijo = 2 * i + 1;
+				if (hijo >= tam)
+					break;
+				if (hijo + 1 < tam && peor(hijo + 1, hijo))
+					hijo++;
+				if (!peor(hijo, i))
+					break;
+				intercambiar(i, hijo);
+				i = hijo;
+			}
+		}
+
+		private void intercambiar(int i, int j) {
+			int d = docs[i];
+			docs[i] = docs[j];
+			docs[j] = d;
+			float p = puntos[i];
+			puntos[i] = puntos[j];
+			puntos[j] = p;
+		}
+
+		/** Copia los documentos y sus puntuaciones del mejor al peor, vaciando el montículo. */
+		void vaciarOrdenado(int[] docsOrdenados, float[] puntosOrdenados) {
+			while (tam > 0) {
+				docsOrdenados[tam - 1] = docs[0];
+				puntosOrdenados[tam - 1] = puntos[0];
+				tam--;
+				if (tam > 0) {
+					docs[0] = docs[tam];
+					puntos[0] = puntos[tam];
+					bajar(0);
+				}
+			}
+		}
+	}
+}
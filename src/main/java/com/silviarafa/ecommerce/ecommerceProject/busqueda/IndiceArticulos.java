@@ -0,0 +1,523 @@
+package com.silviarafa.ecommerce.ecommerceProject.busqueda;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.bytecode.enhance.spi.LazyPropertyInitializer;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Búsqueda de texto completo sobre el nombre y la descripción de los artículos vigentes, con un índice invertido
+ * en memoria (sin servidor externo).
+ * <p>
+ * Una consulta devuelve los artículos que contienen todos sus términos (ver {@link Analizador}), ordenados por
+ * relevancia BM25F: un término en el nombre pesa más que en la descripción, los términos raros más que los comunes
+ * y los textos cortos más que los largos. Evita el {@code LIKE '%texto%'} sobre la columna {@code descripcion},
+ * que recorre la tabla entera.
+ * </p>
+ * <h3>Mantenimiento</h3>
+ * <ul>
+ *   <li>{@link #reindexar()} construye el índice completo: el rango de ids se reparte en tramos de
+ *   {@value #TAMANO_TRAMO} que se leen y analizan en paralelo, cada uno con su {@link StatelessSession} en
+ *   streaming, y se unen en orden. Las consultas siguen usando el índice anterior hasta que termina.</li>
+ *   <li>Al crear el índice se registran oyentes post-commit de Hibernate: los artículos creados, modificados
+ *   (nombre, descripción o {@code retirado}) o borrados mediante el {@code EntityManager} se actualizan en el
+ *   índice después del commit, así que un rollback no lo ensucia. Los cambios que llegan durante un reindexado
+ *   se vuelven a leer de la BD antes de publicar el índice nuevo.</li>
+ *   <li>Las escrituras que no pasan por el contexto de persistencia (HQL masivo, JDBC) no generan eventos: esos
+ *   caminos avisan con {@link #notificarRetirado(EntityManagerFactory, int)} y
+ *   {@link #notificarReferencias(EntityManagerFactory, Collection)}.</li>
+ * </ul>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Hay como mucho un índice por unidad de persistencia.</li>
+ *   <li>Las consultas comparten un cerrojo de lectura; las actualizaciones toman el de escritura, que es breve
+ *   salvo cuando toca compactar.</li>
+ *   <li>La paginación profunda está limitada a {@value #MAX_RESULTADOS} resultados.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class IndiceArticulos implements AutoCloseable {
+
+	/** Ids de artículo por tramo del reindexado. */
+	public static final int TAMANO_TRAMO = 50_000;
+
+	/** Posición máxima ({@code (pagina + 1) * tamano}) que se puede pedir. */
+	public static final int MAX_RESULTADOS = 10_000;
+
+	private static final int FETCH_SIZE = 1000;
+
+	/* Índice activo de cada unidad de persistencia, para los avisos de los caminos masivos. */
+	private static final Map<SessionFactory, IndiceArticulos> ACTIVOS = new ConcurrentHashMap<>();
+
+	/**
+	 * Artículo encontrado y su puntuación (mayor es más relevante).
+	 */
+	public record Resultado(int articuloId, float puntuacion) {
+	}
+
+	/**
+	 * Página de resultados de una búsqueda.
+	 *
+	 * @param total Artículos que cumplen la consulta (en todas las páginas).
+	 */
+	public record Pagina(long total, int pagina, int tamano, List<Resultado> resultados) {
+	}
+
+	/**
+	 * Resultado de un reindexado.
+	 */
+	public record Informe(long articulos, long terminos, long bytesPostings, int tramos, long cambiosReaplicados,
+			Duration transcurrido) {
+
+		@Override
+		public String toString() {
+			return "Artículos=" + articulos + ", términos=" + terminos + ", postings=" + bytesPostings / 1024
+					+ " KB, tramos=" + tramos + ", cambios reaplicados=" + cambiosReaplicados + ", tiempo="
+					+ transcurrido.toMillis() + " ms.";
+		}
+	}
+
+	private final SessionFactory sessionFactory;
+	private final int hilos;
+	private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+	// Protegidos por el cerrojo de escritura
+	private Indice indice = new Indice();
+	private boolean reindexando;
+	private final Set<Integer> cambiosDuranteReindexado = new HashSet<>();
+
+	private volatile boolean cerrado;
+
+	/**
+	 * Índice vacío. Con {@code emf == null} no se conecta a la BD: solo admite {@link #indexar} y {@link #retirar}.
+	 *
+	 * @throws IllegalStateException si ya hay un índice abierto para esa unidad de persistencia.
+	 */
+	public IndiceArticulos(EntityManagerFactory emf) {
+		this(emf, Runtime.getRuntime().availableProcessors());
+	}
+
+	public IndiceArticulos(EntityManagerFactory emf, int hilos) {
+		if (hilos <= 0)
+			throw new IllegalArgumentException("El número de hilos debe ser positivo.");
+		this.hilos = hilos;
+		this.sessionFactory = emf != null ? emf.unwrap(SessionFactory.class) : null;
+		if (sessionFactory == null)
+			return;
+
+		if (ACTIVOS.putIfAbsent(sessionFactory, this) != null)
+			throw new IllegalStateException("Ya hay un índice de artículos abierto para esta unidad de persistencia.");
+		EventListenerRegistry registro = sessionFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.requireService(EventListenerRegistry.class);
+		Oyente oyente = new Oyente();
+		registro.appendListeners(EventType.POST_COMMIT_INSERT, oyente);
+		registro.appendListeners(EventType.POST_COMMIT_UPDATE, oyente);
+		registro.appendListeners(EventType.POST_COMMIT_DELETE, oyente);
+	}
+
+	/**
+	 * Indexa (o vuelve a indexar) un artículo.
+	 */
+	public void indexar(int articuloId, String nombre, String descripcion) {
+		cerrojo.writeLock().lock();
+		try {
+			if (reindexando)
+				cambiosDuranteReindexado.add(articuloId);
+			indice.indexar(articuloId, nombre, descripcion);
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Quita un artículo del índice. Devuelve {@code false} si no estaba.
+	 */
+	public boolean retirar(int articuloId) {
+		cerrojo.writeLock().lock();
+		try {
+			if (reindexando)
+				cambiosDuranteReindexado.add(articuloId);
+			return indice.retirar(articuloId);
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Busca los artículos que contienen todos los términos de {@code texto}, de más a menos relevante.
+	 *
+	 * @param pagina Número de página, desde 0.
+	 * @param tamano Resultados por página.
+	 * @throws IllegalArgumentException si la página pedida pasa de {@value #MAX_RESULTADOS} resultados.
+	 */
+	public Pagina buscar(String texto, int pagina, int tamano) {
+		if (pagina < 0 || tamano <= 0)
+			throw new IllegalArgumentException("Página o tamaño de página no válidos.");
+		if ((long) (pagina + 1) * tamano > MAX_RESULTADOS)
+			throw new IllegalArgumentException("No se pueden pedir más de " + MAX_RESULTADOS + " resultados.");
+
+		List<String> terminos = new ArrayList<>();
+		Analizador.terminos(texto, terminos::add);
+
+		Indice.Aciertos aciertos;
+		cerrojo.readLock().lock();
+		try {
+			aciertos = indice.buscar(terminos, pagina * tamano, tamano);
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+
+		List<Resultado> resultados = new ArrayList<>(aciertos.pagina().size());
+		for (Indice.Acierto a : aciertos.pagina())
+			resultados.add(new Resultado(a.articuloId(), a.puntuacion()));
+		return new Pagina(aciertos.total(), pagina, tamano, resultados);
+	}
+
+	/**
+	 * Como {@link #buscar}, pero devuelve las entidades en el orden de relevancia. Se cargan con una sola
+	 * consulta (desde la caché de segundo nivel si están); el filtro de vigentes descarta los retirados
+	 * que el índice aún no conozca.
+	 */
+	public List<Articulo> buscarArticulos(EntityManager em, String texto, int pagina, int tamano) {
+		Pagina p = buscar(texto, pagina, tamano);
+		if (p.resultados().isEmpty())
+			return List.of();
+
+		Map<Integer, Integer> posicion = new HashMap<>();
+		for (Resultado r : p.resultados())
+			posicion.put(r.articuloId(), posicion.size());
+		List<Articulo> articulos = new ArrayList<>(em.createQuery("SELECT a FROM Articulo a WHERE a.id IN :ids",
+				Articulo.class)
+				.setParameter("ids", posicion.keySet())
+				.getResultList());
+		articulos.sort(Comparator.comparingInt(a -> posicion.get(a.getId())));
+		return articulos;
+	}
+
+	/**
+	 * Artículos indexados.
+	 */
+	public int articulos() {
+		cerrojo.readLock().lock();
+		try {
+			return indice.vivos();
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reconstruye el índice completo desde la BD. Las consultas siguen respondiendo con el índice anterior
+	 * hasta que el nuevo se publica.
+	 *
+	 * @throws IllegalStateException si el índice no tiene {@code EntityManagerFactory} o ya se está reindexando.
+	 */
+	public Informe reindexar() {
+		if (sessionFactory == null)
+			throw new IllegalStateException("Índice sin EntityManagerFactory: solo admite indexar() y retirar().");
+		long inicio = System.nanoTime();
+
+		cerrojo.writeLock().lock();
+		try {
+			if (reindexando)
+				throw new IllegalStateException("Ya hay un reindexado en curso.");
+			reindexando = true;
+			cambiosDuranteReindexado.clear();
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+
+		try {
+			Indice nuevo = new Indice();
+			int tramos = 0;
+			long reaplicados = 0;
+
+			Object[] rango;
+			try (StatelessSession session = sessionFactory.openStatelessSession()) {
+				rango = session.createSelectionQuery("SELECT MIN(a.id), MAX(a.id) FROM Articulo a", Object[].class)
+						.getSingleResult();
+			}
+
+			if (rango[0] != null) {
+				int min = (Integer) rango[0], max = (Integer) rango[1];
+				List<Future<Indice>> partes = new ArrayList<>();
+				ExecutorService executor = Executors.newFixedThreadPool(hilos);
+				try {
+					for (long desde = min; desde <= max; desde += TAMANO_TRAMO) {
+						int d = (int) desde, h = (int) Math.min(desde + TAMANO_TRAMO, (long) max + 1);
+						partes.add(executor.submit(() -> leerTramo(d, h)));
+					}
+					// Se unen en orden, a medida que terminan los tramos
+					for (Future<Indice> parte : partes)
+						nuevo.anexar(parte.get());
+					tramos = partes.size();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Reindexado interrumpido.", ie);
+				} catch (ExecutionException ee) {
+					throw new IllegalStateException("Error reindexando artículos: " + ee.getCause().getMessage(),
+							ee.getCause());
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+
+			// Cambios confirmados mientras tanto: se releen de la BD hasta que no quede ninguno y se publica
+			while (true) {
+				List<Integer> pendientes;
+				cerrojo.writeLock().lock();
+				try {
+					if (cambiosDuranteReindexado.isEmpty()) {
+						indice = nuevo;
+						reindexando = false;
+						return new Informe(nuevo.vivos(), nuevo.numTerminos(), nuevo.bytesPostings(), tramos,
+								reaplicados, Duration.ofNanos(System.nanoTime() - inicio));
+					}
+					pendientes = new ArrayList<>(cambiosDuranteReindexado);
+					cambiosDuranteReindexado.clear();
+				} finally {
+					cerrojo.writeLock().unlock();
+				}
+				reaplicados += pendientes.size();
+				releer(nuevo, pendientes);
+			}
+		} finally {
+			cerrojo.writeLock().lock();
+			try {
+				reindexando = false;
+				cambiosDuranteReindexado.clear();
+			} finally {
+				cerrojo.writeLock().unlock();
+			}
+		}
+	}
+
+	private Indice leerTramo(int desde, int hasta) {
+		Indice parte = new Indice();
+		try (StatelessSession session = sessionFactory.openStatelessSession();
+				ScrollableResults<Object[]> filas = session.createSelectionQuery(
+						"SELECT a.id, a.nombre, a.descripcion FROM Articulo a"
+								+ " WHERE a.id >= :desde AND a.id < :hasta AND a.retirado = false ORDER BY a.id",
+						Object[].class)
+						.setParameter("desde", desde)
+						.setParameter("hasta", hasta)
+						.setFetchSize(FETCH_SIZE)
+						.setReadOnly(true)
+						.scroll(ScrollMode.FORWARD_ONLY)) {
+			while (filas.next()) {
+				Object[] f = filas.get();
+				parte.indexar((Integer) f[0], (String) f[1], (String) f[2]);
+			}
+		}
+		return parte;
+	}
+
+	/*
+	 * Id, nombre, descripción y retirado de los artículos que cumplen la condición (con el parámetro :claves).
+	 */
+	private List<Object[]> leerEstado(String condicion, Collection<?> claves) {
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			return session.createSelectionQuery("SELECT a.id, a.nombre, a.descripcion, a.retirado FROM Articulo a"
+					+ " WHERE " + condicion, Object[].class)
+					.setParameter("claves", claves)
+					.getResultList();
+		}
+	}
+
+	/*
+	 * Vuelve a leer de la BD los artículos indicados y los indexa o retira en destino (retira también los que
+	 * ya no existen).
+	 */
+	private void releer(Indice destino, List<Integer> ids) {
+		Set<Integer> pendientes = new HashSet<>(ids);
+		for (Object[] f : leerEstado("a.id IN :claves", ids)) {
+			pendientes.remove(f[0]);
+			if ((Boolean) f[3])
+				destino.retirar((Integer) f[0]);
+			else
+				destino.indexar((Integer) f[0], (String) f[1], (String) f[2]);
+		}
+		for (int id : pendientes)
+			destino.retirar(id);
+	}
+
+	/*
+	 * Aplica al índice activo el estado actual en la BD de los artículos que cumplen la condición.
+	 */
+	private void refrescar(String condicion, Collection<?> claves) {
+		if (claves.isEmpty())
+			return;
+		for (Object[] f : leerEstado(condicion, claves)) {
+			if ((Boolean) f[3])
+				retirar((Integer) f[0]);
+			else
+				indexar((Integer) f[0], (String) f[1], (String) f[2]);
+		}
+	}
+
+	/**
+	 * Avisa al índice abierto para {@code emf} (si lo hay) de que un artículo se ha retirado sin pasar por el
+	 * contexto de persistencia (p. ej. con un {@code UPDATE} masivo).
+	 */
+	public static void notificarRetirado(EntityManagerFactory emf, int articuloId) {
+		IndiceArticulos indice = ACTIVOS.get(emf.unwrap(SessionFactory.class));
+		if (indice != null && !indice.cerrado)
+			indice.retirar(articuloId);
+	}
+
+	/**
+	 * Avisa al índice abierto para {@code emf} (si lo hay) de que los artículos con esas referencias de proveedor
+	 * se han creado o modificado sin pasar por el contexto de persistencia (p. ej. en la importación del catálogo).
+	 */
+	public static void notificarReferencias(EntityManagerFactory emf, Collection<String> referencias) {
+		IndiceArticulos indice = ACTIVOS.get(emf.unwrap(SessionFactory.class));
+		if (indice != null && !indice.cerrado)
+			indice.refrescar("a.referenciaProveedor IN :claves", referencias);
+	}
+
+	/**
+	 * Deja de seguir los cambios de la BD. Hibernate no permite quitar oyentes, así que los registrados quedan
+	 * inactivos hasta que se cierre la {@code EntityManagerFactory}.
+	 */
+	@Override
+	public void close() {
+		cerrado = true;
+		if (sessionFactory != null)
+			ACTIVOS.remove(sessionFactory, this);
+	}
+
+	/**
+	 * Oyente post-commit de las escrituras de {@link Articulo}.
+	 */
+	private final class Oyente implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+			PostCommitDeleteEventListener {
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return Articulo.class.equals(persister.getMappedClass());
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			if (!cerrado && event.getEntity() instanceof Articulo)
+				aplicar((Integer) event.getId(), event.getState(), event.getPersister());
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (cerrado || !(event.getEntity() instanceof Articulo))
+				return;
+			// Cambios de stock, precio, etc. no afectan al índice
+			EntityPersister persister = event.getPersister();
+			int[] sucias = event.getDirtyProperties();
+			boolean afecta = sucias == null;
+			for (int i = 0; sucias != null && i < sucias.length && !afecta; i++) {
+				String propiedad = persister.getPropertyNames()[sucias[i]];
+				afecta = propiedad.equals("nombre") || propiedad.equals("descripcion") || propiedad.equals("retirado");
+			}
+			if (afecta)
+				aplicar((Integer) event.getId(), event.getState(), persister);
+		}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			if (!cerrado && event.getEntity() instanceof Articulo)
+				retirar((Integer) event.getId());
+		}
+
+		private void aplicar(int id, Object[] estado, EntityPersister persister) {
+			if ((Boolean) estado[persister.getPropertyIndex("retirado")]) {
+				retirar(id);
+				return;
+			}
+			Object nombre = estado[persister.getPropertyIndex("nombre")];
+			Object descripcion = estado[persister.getPropertyIndex("descripcion")];
+			// Con carga perezosa de la descripción puede no estar en el estado: se relee de la BD
+			if (descripcion == LazyPropertyInitializer.UNFETCHED_PROPERTY)
+				refrescar("a.id IN :claves", List.of(id));
+			else
+				indexar(id, (String) nombre, (String) descripcion);
+		}
+
+		@Override
+		public void onPostInsertCommitFailed(PostInsertEvent event) {
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+		}
+	}
+
+	/**
+	 * Reindexa el catálogo y ejecuta una búsqueda desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code IndiceArticulos <texto> [página] [tamaño]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: IndiceArticulos <texto> [página] [tamaño]");
+			return;
+		}
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			try (IndiceArticulos indice = new IndiceArticulos(emf)) {
+				System.out.println("\n--- REINDEXANDO ARTÍCULOS ---");
+				System.out.println(indice.reindexar());
+
+				int pagina = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+				int tamano = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+				long t0 = System.nanoTime();
+				Pagina p = indice.buscar(args[0], pagina, tamano);
+				System.out.println("\n--- " + p.total() + " RESULTADOS (" + (System.nanoTime() - t0) / 1000 + " µs) ---");
+				p.resultados().forEach(r -> System.out.println("  " + r.articuloId() + "  " + r.puntuacion()));
+			}
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.silviarafa.ecommerce.ecommerceProject.comun;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash de 64 bits de cadenas, compartido por el anillo de fragmentos ({@code AnilloHash}) y los filtros de Bloom
+ * del registro ({@code FiltroBloom}).
+ * <p>
+ * Es FNV-1a de 64 bits sobre los bytes UTF-8 de la cadena, con la mezcla final de MurmurHash3 (fmix64) para
+ * repartir los bits. El resultado no depende de la JVM ni de la plataforma: el anillo lo usa para colocar a
+ * los clientes en sus fragmentos, así que no debe cambiar. Las cadenas ASCII (NIF/CIF, la mayoría de emails) se
+ * recorren sin codificarlas, sin reservar memoria; el resto se codifica a UTF-8.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class HashCadena {
+
+	private static final long BASE_FNV = 0xcbf29ce484222325L;
+	private static final long PRIMO_FNV = 0x100000001b3L;
+
+	private HashCadena() {
+	}
+
+	/**
+	 * Hash de 64 bits de {@code s}.
+	 */
+	public static long hash64(String s) {
+		long h = BASE_FNV;
+		for (int i = 0, n = s.length(); i < n; i++) {
+			char c = s.charAt(i);
+			if (c >= 0x80)
+				return mezclar(fnv1a(s.getBytes(StandardCharsets.UTF_8)));
+			h ^= c;
+			h *= PRIMO_FNV;
+		}
+		return mezclar(h);
+	}
+
+	private static long fnv1a(byte[] bytes) {
+		long h = BASE_FNV;
+		for (byte b : bytes) {
+			h ^= b & 0xFF;
+			h *= PRIMO_FNV;
+		}
+		return h;
+	}
+
+	/* fmix64 de MurmurHash3. */
+	private static long mezclar(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,84 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.query.NativeQuery;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.AgregadoCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TransactionRequiredException;
+
+/**
+ * Lectura y mantenimiento incremental de los agregados por cliente ({@link AgregadoCliente}).
+ * <p>
+ * Los métodos de escritura se ejecutan dentro de la transacción del llamador, la misma que crea o borra
+ * los datos de los que dependen, así que los agregados se confirman o se deshacen junto con ellos.
+ * Cada compra suma con un único {@code INSERT ... ON DUPLICATE KEY UPDATE num_compras = num_compras + 1}:
+ * crea la fila si aún no existe o la incrementa en la BD, en una sola sentencia. La fila se bloquea solo lo
+ * que dura esa transacción y dos compras concurrentes del mismo cliente no se pisan; tampoco las dos primeras,
+ * que con un UPDATE seguido de un INSERT chocarían por clave duplicada.
+ * </p>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class AgregadosCliente {
+
+	private AgregadosCliente() {
+	}
+
+	/**
+	 * Agregados del cliente con una búsqueda por clave primaria, o {@code null} si no tiene fila
+	 * (cliente inexistente o anterior a los agregados y aún sin reconstruir).
+	 */
+	public static AgregadoCliente leer(EntityManager em, String nifCif) {
+		return em.find(AgregadoCliente.class, nifCif);
+	}
+
+	/**
+	 * Crea la fila a cero de un cliente nuevo (se inserta después del cliente en el mismo flush).
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static void crear(EntityManager em, Cliente cliente) {
+		em.persist(new AgregadoCliente(cliente));
+	}
+
+	/**
+	 * Suma una compra a los agregados del cliente. Si el cliente aún no tiene fila, la crea.
+	 * Sentencia nativa sincronizada solo con {@link AgregadoCliente}, para no invalidar las demás regiones de
+	 * la caché de segundo nivel.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static void sumarCompra(EntityManager em, Cliente cliente, BigDecimal importe, LocalDateTime fecha) {
+		em.createNativeQuery("INSERT INTO cliente_agregado (nif_cif, num_compras, gasto_total, fecha_ultima_compra)"
+				+ " VALUES (?1, 1, ?2, ?3)"
+				+ " ON DUPLICATE KEY UPDATE num_compras = num_compras + 1,"
+				+ " gasto_total = gasto_total + VALUES(gasto_total),"
+				+ " fecha_ultima_compra = CASE WHEN fecha_ultima_compra IS NULL"
+				+ " OR fecha_ultima_compra < VALUES(fecha_ultima_compra)"
+				+ " THEN VALUES(fecha_ultima_compra) ELSE fecha_ultima_compra END")
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(AgregadoCliente.class)
+				.setParameter(1, cliente.getNifCif())
+				.setParameter(2, importe)
+				.setParameter(3, fecha)
+				.executeUpdate();
+	}
+
+	/**
+	 * Borra los agregados del cliente (antes de borrar el cliente).
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static void borrar(EntityManager em, String nifCif) {
+		em.createQuery("DELETE FROM AgregadoCliente a WHERE a.nifCif = :nif")
+				.setParameter("nif", nifCif)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,93 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Consultas de lectura sobre clientes que devuelven proyecciones en lugar de entidades.
+ * <p>
+ * Los agregados (número de compras y gasto total) se calculan en la base de datos con
+ * {@code LEFT JOIN} + {@code GROUP BY}, de modo que el coste no depende de cuántas compras
+ * tenga el cliente en memoria: nunca se inicializa la colección {@code Cliente.compras}. Las compras
+ * archivadas ({@code compra_archivo}) se suman con un segundo agregado sobre {@code CompraArchivada}, como en
+ * {@link ReconstruccionAgregados}.
+ * </p>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ConsultasCliente {
+
+	private static final String SELECT_RESUMEN = "SELECT new " + ResumenCliente.class.getName()
+			+ "(c.nifCif, c.nombreCompleto, c.email, c.fechaRegistro, f.telefono, f.direccionFiscal,"
+			+ " COUNT(co), SUM(co.precioTotal))"
+			+ " FROM Cliente c LEFT JOIN c.informacionFiscal f LEFT JOIN c.compras co";
+
+	private static final String GROUP_BY_RESUMEN = " GROUP BY c.nifCif, c.nombreCompleto, c.email, c.fechaRegistro,"
+			+ " f.telefono, f.direccionFiscal";
+
+	private static final String SELECT_ARCHIVADAS = "SELECT c.clienteNifCif, COUNT(c), COALESCE(SUM(c.precioTotal), 0)"
+			+ " FROM CompraArchivada c";
+
+	private ConsultasCliente() {
+	}
+
+	/**
+	 * Resumen de un cliente, o {@code null} si no existe.
+	 */
+	public static ResumenCliente resumen(EntityManager em, String nifCif) {
+		ResumenCliente resumen = em.createQuery(SELECT_RESUMEN + " WHERE c.nifCif = :nif" + GROUP_BY_RESUMEN,
+				ResumenCliente.class)
+				.setParameter("nif", nifCif)
+				.getResultStream()
+				.findFirst()
+				.orElse(null);
+		if (resumen == null)
+			return null;
+		List<Object[]> archivadas = em.createQuery(SELECT_ARCHIVADAS
+				+ " WHERE c.clienteNifCif = :nif GROUP BY c.clienteNifCif", Object[].class)
+				.setParameter("nif", nifCif)
+				.getResultList();
+		return archivadas.isEmpty() ? resumen : sumar(resumen, archivadas.get(0));
+	}
+
+	/**
+	 * Resumen de todos los clientes ordenados por NIF/CIF.
+	 */
+	public static List<ResumenCliente> resumenes(EntityManager em) {
+		Map<String, Object[]> archivadas = new HashMap<>();
+		em.createQuery(SELECT_ARCHIVADAS + " WHERE c.clienteNifCif IS NOT NULL GROUP BY c.clienteNifCif",
+				Object[].class)
+				.getResultList()
+				.forEach(fila -> archivadas.put((String) fila[0], fila));
+		return em.createQuery(SELECT_RESUMEN + GROUP_BY_RESUMEN + " ORDER BY c.nifCif", ResumenCliente.class)
+				.getResultStream()
+				.map(r -> archivadas.containsKey(r.nifCif()) ? sumar(r, archivadas.get(r.nifCif())) : r)
+				.toList();
+	}
+
+	/**
+	 * Número de compras del cliente (también las archivadas), con un {@code COUNT} por tabla en la BD.
+	 */
+	public static long numCompras(EntityManager em, String nifCif) {
+		return em.createQuery("SELECT COUNT(co) FROM Compra co WHERE co.cliente.nifCif = :nif", Long.class)
+				.setParameter("nif", nifCif)
+				.getSingleResult()
+				+ em.createQuery("SELECT COUNT(c) FROM CompraArchivada c WHERE c.clienteNifCif = :nif", Long.class)
+						.setParameter("nif", nifCif)
+						.getSingleResult();
+	}
+
+	/* Suma al resumen una fila (nif, número, gasto) de compras archivadas. */
+	private static ResumenCliente sumar(ResumenCliente r, Object[] archivadas) {
+		BigDecimal gasto = archivadas[2] instanceof BigDecimal bd ? bd : new BigDecimal(archivadas[2].toString());
+		return new ResumenCliente(r.nifCif(), r.nombreCompleto(), r.email(), r.fechaRegistro(), r.telefono(),
+				r.direccionFiscal(), r.numCompras() + ((Number) archivadas[1]).longValue(),
+				r.totalGastado().add(gasto).setScale(2));
+	}
+}
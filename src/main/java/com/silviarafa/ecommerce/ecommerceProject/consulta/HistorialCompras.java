@@ -0,0 +1,200 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.jpa.HibernateHints;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Historial de compras de un cliente, de la más reciente a la más antigua.
+ * <p>
+ * La paginación es por clave (keyset / seek) sobre ({@code cliente_nif_cif}, {@code fecha_compra}, {@code id})
+ * en lugar de {@code OFFSET}: cada página continúa desde la última fila de la anterior con
+ * {@code WHERE (fecha, id) < (:fecha, :id)}, que se resuelve con un rango sobre el índice
+ * {@code compra_cliente_fecha_IX}. Así la página 10.000 cuesta lo mismo que la primera, mientras que
+ * con {@code OFFSET} la BD tendría que recorrer y descartar todas las filas anteriores.
+ * </p>
+ * <p>
+ * El {@code id} desempata compras con la misma fecha, de modo que ninguna fila se repite ni se salta.
+ * </p>
+ * <p>
+ * Las compras archivadas ({@code compra_archivo}) siguen en el historial: la misma consulta por clave se hace
+ * en la tabla caliente y en la de archivo (con su índice {@code compra_archivo_cliente_fecha_IX}) y los dos
+ * resultados, ya ordenados, se mezclan. La tabla caliente se lee primero: si un lote de archivado se confirma
+ * entre las dos lecturas, la compra sale en ambas y se descarta el duplicado; al revés podría no salir en ninguna.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class HistorialCompras {
+
+	/** Tamaño de lote JDBC por defecto para {@link #stream(EntityManager, String, int)}. */
+	public static final int FETCH_SIZE_DEFECTO = 500;
+
+	private static final String SELECT = "SELECT new " + ResumenCompra.class.getName()
+			+ "(c.id, c.fechaCompra, c.estado, c.direccionEntrega, c.precioTotal)"
+			+ " FROM Compra c WHERE c.cliente.nifCif = :nif";
+
+	private static final String SELECT_ARCHIVO = "SELECT new " + ResumenCompra.class.getName()
+			+ "(c.id, c.fechaCompra, c.estado, c.direccionEntrega, c.precioTotal)"
+			+ " FROM CompraArchivada c WHERE c.clienteNifCif = :nif";
+
+	private static final String ORDER_BY = " ORDER BY c.fechaCompra DESC, c.id DESC";
+
+	/* El mismo orden que ORDER_BY. */
+	private static final Comparator<ResumenCompra> ORDEN = Comparator
+			.comparing(ResumenCompra::fechaCompra, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()))
+			.thenComparing(ResumenCompra::id, Comparator.reverseOrder());
+
+	/**
+	 * Posición desde la que continuar: fecha e id de la última compra de la página anterior.
+	 */
+	public record Cursor(LocalDateTime fechaCompra, Integer id) {
+	}
+
+	/**
+	 * Página del historial. {@code siguiente} es {@code null} cuando no hay más páginas.
+	 */
+	public record Pagina(List<ResumenCompra> compras, Cursor siguiente) {
+
+		public boolean hayMas() {
+			return siguiente != null;
+		}
+	}
+
+	private HistorialCompras() {
+	}
+
+	/**
+	 * Primera página del historial del cliente.
+	 */
+	public static Pagina primeraPagina(EntityManager em, String nifCif, int tamano) {
+		return pagina(em, nifCif, null, tamano);
+	}
+
+	/**
+	 * Página que empieza justo después de {@code desde} ({@code null} para la primera).
+	 */
+	public static Pagina pagina(EntityManager em, String nifCif, Cursor desde, int tamano) {
+		if (tamano <= 0)
+			throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamano);
+
+		List<ResumenCompra> filas = mezclar(consultar(em, SELECT, nifCif, desde, tamano).iterator(),
+				consultar(em, SELECT_ARCHIVO, nifCif, desde, tamano).iterator(), tamano + 1);
+		if (filas.size() <= tamano)
+			return new Pagina(filas, null);
+
+		List<ResumenCompra> compras = filas.subList(0, tamano);
+		ResumenCompra ultima = compras.get(tamano - 1);
+		return new Pagina(List.copyOf(compras), new Cursor(ultima.fechaCompra(), ultima.id()));
+	}
+
+	private static List<ResumenCompra> consultar(EntityManager em, String select, String nifCif, Cursor desde,
+			int tamano) {
+		String jpql = select;
+		if (desde != null)
+			jpql += " AND (c.fechaCompra < :fecha OR (c.fechaCompra = :fecha AND c.id < :id))";
+
+		var query = em.createQuery(jpql + ORDER_BY, ResumenCompra.class)
+				.setParameter("nif", nifCif)
+				// Se pide una fila de más para saber si hay página siguiente sin un COUNT
+				.setMaxResults(tamano + 1);
+		if (desde != null) {
+			query.setParameter("fecha", desde.fechaCompra());
+			query.setParameter("id", desde.id());
+		}
+		return query.getResultList();
+	}
+
+	/* Mezcla dos listas ordenadas por ORDEN, sin repetir ids, hasta max filas. */
+	private static List<ResumenCompra> mezclar(Iterator<ResumenCompra> a, Iterator<ResumenCompra> b, int max) {
+		List<ResumenCompra> filas = new ArrayList<>(max);
+		Iterator<ResumenCompra> mezcla = new Mezcla(a, b);
+		while (filas.size() < max && mezcla.hasNext())
+			filas.add(mezcla.next());
+		return filas;
+	}
+
+	/**
+	 * Todo el historial del cliente como {@link Stream}, leído del driver en lotes de {@code fetchSize} filas.
+	 * <p>
+	 * El stream mantiene abierto el cursor JDBC: debe cerrarse (try-with-resources) y consumirse
+	 * mientras el {@link EntityManager} siga abierto.
+	 * </p>
+	 */
+	public static Stream<ResumenCompra> stream(EntityManager em, String nifCif, int fetchSize) {
+		Stream<ResumenCompra> calientes = stream(em, SELECT, nifCif, fetchSize);
+		Stream<ResumenCompra> archivadas = stream(em, SELECT_ARCHIVO, nifCif, fetchSize);
+		Iterator<ResumenCompra> mezcla = new Mezcla(calientes.iterator(), archivadas.iterator());
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mezcla, Spliterator.ORDERED | Spliterator.NONNULL),
+				false)
+				.onClose(calientes::close)
+				.onClose(archivadas::close);
+	}
+
+	private static Stream<ResumenCompra> stream(EntityManager em, String select, String nifCif, int fetchSize) {
+		return em.createQuery(select + ORDER_BY, ResumenCompra.class)
+				.setParameter("nif", nifCif)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+	}
+
+	/**
+	 * Como {@link #stream(EntityManager, String, int)} con {@link #FETCH_SIZE_DEFECTO}.
+	 */
+	public static Stream<ResumenCompra> stream(EntityManager em, String nifCif) {
+		return stream(em, nifCif, FETCH_SIZE_DEFECTO);
+	}
+
+	/* Mezcla de dos secuencias ordenadas por ORDEN; una compra presente en las dos (ver clase) sale una vez. */
+	private static final class Mezcla implements Iterator<ResumenCompra> {
+
+		private final Iterator<ResumenCompra> a;
+		private final Iterator<ResumenCompra> b;
+		private ResumenCompra siguienteA;
+		private ResumenCompra siguienteB;
+
+		private Mezcla(Iterator<ResumenCompra> a, Iterator<ResumenCompra> b) {
+			this.a = a;
+			this.b = b;
+			this.siguienteA = a.hasNext() ? a.next() : null;
+			this.siguienteB = b.hasNext() ? b.next() : null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return siguienteA != null || siguienteB != null;
+		}
+
+		@Override
+		public ResumenCompra next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int c = siguienteA == null ? 1 : siguienteB == null ? -1 : ORDEN.compare(siguienteA, siguienteB);
+			ResumenCompra r;
+			if (c <= 0) {
+				r = siguienteA;
+				siguienteA = a.hasNext() ? a.next() : null;
+				if (c == 0)
+					siguienteB = b.hasNext() ? b.next() : null;
+			} else {
+				r = siguienteB;
+				siguienteB = b.hasNext() ? b.next() : null;
+			}
+			return r;
+		}
+	}
+}
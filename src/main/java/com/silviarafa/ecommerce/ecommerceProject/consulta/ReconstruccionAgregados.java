@@ -0,0 +1,275 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.AgregadoCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+
+/**
+ * Reconstrucción completa de los agregados por cliente a partir de las compras, con informe de desviaciones.
+ * <p>
+ * Los NIF/CIF de los clientes se recorren por clave ({@code nif_cif > :ultimo ORDER BY nif_cif}) en tramos de
+ * {@code tamanoTramo} clientes, y cada tramo se reconstruye en paralelo en su propia transacción:
+ * </p>
+ * <ol>
+ *   <li>Se bloquean las filas de agregados del tramo ({@code SELECT ... FOR UPDATE}). Una compra concurrente
+ *   de esos clientes espera a que el tramo termine y luego suma sobre el valor ya corregido.</li>
+ *   <li>Se calculan los valores reales con un {@code GROUP BY} sobre {@code compra} limitado al tramo.</li>
+ *   <li>Se comparan con los guardados: las filas distintas se corrigen, las que faltan se crean y cada
+ *   diferencia cuenta como desviación.</li>
+ * </ol>
+ * <p>
+ * Las compras archivadas ({@code compra_archivo}) cuentan igual que las de {@code compra}: archivar no cambia
+ * los agregados.
+ * </p>
+ * <p>
+ * Sirve para crear los agregados de los clientes anteriores a la tabla y para comprobar periódicamente
+ * que el mantenimiento incremental no se ha desviado (por ejemplo, tras cambios hechos a mano en la BD).
+ * </p>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ReconstruccionAgregados {
+
+	public static final int TAMANO_TRAMO_DEFECTO = 500;
+
+	/* Máximo de desviaciones y de errores que se detallan en el informe. */
+	private static final int MAX_DETALLES = 100;
+
+	/**
+	 * Diferencia entre el valor guardado y el real de un cliente ({@code filaExistia == false} si faltaba la fila).
+	 */
+	public record Desviacion(String nifCif, boolean filaExistia, long numComprasGuardado, BigDecimal gastoGuardado,
+			LocalDateTime fechaGuardada, long numCompras, BigDecimal gastoTotal, LocalDateTime fechaUltimaCompra) {
+
+		@Override
+		public String toString() {
+			return nifCif + ": guardado=" + (filaExistia ? numComprasGuardado + "/" + gastoGuardado + "/" + fechaGuardada
+					: "(sin fila)") + ", real=" + numCompras + "/" + gastoTotal + "/" + fechaUltimaCompra;
+		}
+	}
+
+	/**
+	 * Resultado de la reconstrucción.
+	 */
+	public record Informe(long clientes, long filasCreadas, long filasCorregidas, int tramosFallidos,
+			List<Desviacion> desviaciones, List<String> errores, Duration transcurrido) {
+
+		public long totalDesviaciones() {
+			return filasCreadas + filasCorregidas;
+		}
+
+		@Override
+		public String toString() {
+			return "Clientes=" + clientes + ", filas creadas=" + filasCreadas + ", filas corregidas=" + filasCorregidas
+					+ ", tramos fallidos=" + tramosFallidos + ", tiempo=" + transcurrido.toMillis() + " ms.";
+		}
+	}
+
+	/* Resultado de un tramo. */
+	private record Tramo(long clientes, long creadas, long corregidas, List<Desviacion> desviaciones) {
+	}
+
+	private final EntityManagerFactory emf;
+	private final int tamanoTramo;
+	private final int hilos;
+
+	public ReconstruccionAgregados(EntityManagerFactory emf) {
+		this(emf, TAMANO_TRAMO_DEFECTO, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ReconstruccionAgregados(EntityManagerFactory emf, int tamanoTramo, int hilos) {
+		if (tamanoTramo <= 0 || hilos <= 0)
+			throw new IllegalArgumentException("El tamaño de tramo y el número de hilos deben ser positivos.");
+		this.emf = emf;
+		this.tamanoTramo = tamanoTramo;
+		this.hilos = hilos;
+	}
+
+	/**
+	 * Reconstruye los agregados de todos los clientes.
+	 */
+	public Informe reconstruir() {
+		long inicio = System.nanoTime();
+		List<Future<Tramo>> tramos = new ArrayList<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(hilos);
+		try {
+			// Los límites de los tramos se leen en este hilo (solo claves); cada tramo se procesa en paralelo
+			String ultimo = "";
+			List<String> nifs;
+			while (!(nifs = siguientesNifs(ultimo)).isEmpty()) {
+				List<String> tramo = nifs;
+				tramos.add(executor.submit(() -> reconstruirTramo(tramo)));
+				ultimo = nifs.get(nifs.size() - 1);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		long clientes = 0, creadas = 0, corregidas = 0;
+		int fallidos = 0;
+		List<Desviacion> desviaciones = new ArrayList<>();
+		List<String> errores = new ArrayList<>();
+		for (Future<Tramo> f : tramos) {
+			try {
+				Tramo t = f.get();
+				clientes += t.clientes();
+				creadas += t.creadas();
+				corregidas += t.corregidas();
+				for (Desviacion d : t.desviaciones())
+					if (desviaciones.size() < MAX_DETALLES)
+						desviaciones.add(d);
+			} catch (ExecutionException ee) {
+				fallidos++;
+				if (errores.size() < MAX_DETALLES)
+					errores.add("Tramo " + (tramos.indexOf(f) + 1) + ": " + ee.getCause().getMessage());
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				fallidos++;
+			}
+		}
+
+		return new Informe(clientes, creadas, corregidas, fallidos, List.copyOf(desviaciones), List.copyOf(errores),
+				Duration.ofNanos(System.nanoTime() - inicio));
+	}
+
+	private List<String> siguientesNifs(String ultimo) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT c.nifCif FROM Cliente c WHERE c.nifCif > :ultimo ORDER BY c.nifCif",
+					String.class)
+					.setParameter("ultimo", ultimo)
+					.setMaxResults(tamanoTramo)
+					.getResultList();
+		} finally {
+			em.close();
+		}
+	}
+
+	private Tramo reconstruirTramo(List<String> nifs) {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+
+			// 1. Bloquear las filas existentes antes de leer las compras
+			Map<String, AgregadoCliente> guardados = new HashMap<>();
+			em.createQuery("SELECT a FROM AgregadoCliente a WHERE a.nifCif IN :nifs", AgregadoCliente.class)
+					.setParameter("nifs", nifs)
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+					.getResultList()
+					.forEach(a -> guardados.put(a.getNifCif(), a));
+
+			// 2. Valores reales, sumando las compras archivadas
+			Map<String, Object[]> reales = new HashMap<>();
+			em.createQuery("SELECT c.cliente.nifCif, COUNT(c), COALESCE(SUM(c.precioTotal), 0), MAX(c.fechaCompra)"
+					+ " FROM Compra c WHERE c.cliente.nifCif IN :nifs GROUP BY c.cliente.nifCif", Object[].class)
+					.setParameter("nifs", nifs)
+					.getResultList()
+					.forEach(fila -> reales.put((String) fila[0], fila));
+			em.createQuery("SELECT c.clienteNifCif, COUNT(c), COALESCE(SUM(c.precioTotal), 0), MAX(c.fechaCompra)"
+					+ " FROM CompraArchivada c WHERE c.clienteNifCif IN :nifs GROUP BY c.clienteNifCif", Object[].class)
+					.setParameter("nifs", nifs)
+					.getResultList()
+					.forEach(fila -> reales.merge((String) fila[0], fila, ReconstruccionAgregados::sumar));
+
+			// 3. Comparar y corregir
+			long creadas = 0, corregidas = 0;
+			List<Desviacion> desviaciones = new ArrayList<>();
+			for (String nif : nifs) {
+				Object[] real = reales.get(nif);
+				long num = real != null ? ((Number) real[1]).longValue() : 0;
+				BigDecimal gasto = real != null ? importe(real[2]) : BigDecimal.ZERO;
+				LocalDateTime fecha = real != null ? (LocalDateTime) real[3] : null;
+
+				AgregadoCliente a = guardados.get(nif);
+				if (a != null && a.getNumCompras() == num && a.getGastoTotal().compareTo(gasto) == 0
+						&& Objects.equals(a.getFechaUltimaCompra(), fecha))
+					continue;
+
+				if (desviaciones.size() < MAX_DETALLES)
+					desviaciones.add(a != null
+							? new Desviacion(nif, true, a.getNumCompras(), a.getGastoTotal(), a.getFechaUltimaCompra(),
+									num, gasto, fecha)
+							: new Desviacion(nif, false, 0, null, null, num, gasto, fecha));
+				if (a == null) {
+					a = new AgregadoCliente(em.getReference(Cliente.class, nif));
+					em.persist(a);
+					creadas++;
+				} else {
+					corregidas++;
+				}
+				a.setNumCompras(num);
+				a.setGastoTotal(gasto);
+				a.setFechaUltimaCompra(fecha);
+			}
+
+			tx.commit();
+			return new Tramo(nifs.size(), creadas, corregidas, desviaciones);
+		} catch (RuntimeException e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.close();
+		}
+	}
+
+	/* Suma dos filas (nif, número, gasto, última fecha) del mismo cliente. */
+	private static Object[] sumar(Object[] a, Object[] b) {
+		LocalDateTime fechaA = (LocalDateTime) a[3], fechaB = (LocalDateTime) b[3];
+		return new Object[] { a[0], ((Number) a[1]).longValue() + ((Number) b[1]).longValue(),
+				importe(a[2]).add(importe(b[2])),
+				fechaA == null || (fechaB != null && fechaB.isAfter(fechaA)) ? fechaB : fechaA };
+	}
+
+	private static BigDecimal importe(Object valor) {
+		return valor instanceof BigDecimal bd ? bd : new BigDecimal(valor.toString());
+	}
+
+	/**
+	 * Reconstruye los agregados desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code ReconstruccionAgregados [tamañoTramo] [hilos]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			int tamanoTramo = args.length > 0 ? Integer.parseInt(args[0]) : TAMANO_TRAMO_DEFECTO;
+			int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+			System.out.println("\n--- RECONSTRUYENDO AGREGADOS DE CLIENTES ---");
+			Informe informe = new ReconstruccionAgregados(emf, tamanoTramo, hilos).reconstruir();
+			System.out.println(informe);
+			informe.desviaciones().forEach(d -> System.out.println("  - " + d));
+			informe.errores().forEach(e -> System.out.println("  - ERROR " + e));
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen de un cliente para listados y cabeceras de cuenta.
+ * <p>
+ * Es una proyección de solo lectura: se construye directamente desde la consulta
+ * (JPQL {@code SELECT new}) con el número de compras y el gasto total calculados en SQL
+ * ({@code COUNT}/{@code SUM}), sin cargar la colección {@code Cliente.compras}.
+ * </p>
+ *
+ * @param nifCif          NIF/CIF del cliente.
+ * @param nombreCompleto  Nombre completo.
+ * @param email           Correo electrónico.
+ * @param fechaRegistro   Fecha de alta.
+ * @param telefono        Teléfono fiscal ({@code null} si no tiene información fiscal).
+ * @param direccionFiscal Dirección fiscal ({@code null} si no tiene información fiscal).
+ * @param numCompras      Número de compras, también las archivadas.
+ * @param totalGastado    Suma de {@code precio_total} de sus compras y de las archivadas (0.00 si no tiene).
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record ResumenCliente(String nifCif, String nombreCompleto, String email, LocalDateTime fechaRegistro,
+		String telefono, String direccionFiscal, Long numCompras, BigDecimal totalGastado) {
+
+	public ResumenCliente {
+		if (numCompras == null)
+			numCompras = 0L;
+		if (totalGastado == null)
+			totalGastado = new BigDecimal("0.00");
+	}
+
+	@Override
+	public String toString() {
+		return "Cliente: " + "NIF/CIF=" + nifCif + ", Nombre Completo=" + nombreCompleto + ", Email=" + email
+				+ ", Fecha Registro=" + fechaRegistro + ".\n"
+				+ (telefono != null || direccionFiscal != null
+						? "Informacion Fiscal: Teléfono=" + telefono + ", Dirección Fiscal=" + direccionFiscal + '.'
+						: "Sin información fiscal")
+				+ "\nNúmero de compras=" + numCompras + ", Total gastado=" + totalGastado + '.';
+	}
+}
@@ -0,0 +1,28 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import java.time.LocalDateTime;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+
+/**
+ * Cabecera de una compra para el historial de pedidos (proyección de solo lectura, sin líneas).
+ *
+ * @param id               Identificador de la compra.
+ * @param fechaCompra      Fecha y hora de la compra.
+ * @param estado           Estado de la compra.
+ * @param direccionEntrega Dirección de entrega.
+ * @param precioTotal      Precio total.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record ResumenCompra(Integer id, LocalDateTime fechaCompra, String estado, String direccionEntrega,
+		Dinero precioTotal) {
+
+	@Override
+	public String toString() {
+		return "Compra{" + "id=" + id + ", fechaCompra=" + fechaCompra + ", estado=" + estado + ", direccionEntrega="
+				+ direccionEntrega + ", precioTotal=" + precioTotal + '}';
+	}
+}
@@ -0,0 +1,309 @@
+package com.silviarafa.ecommerce.ecommerceProject.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.SelectionQuery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Exportación nocturna de compras con sus líneas y el NIF/CIF del cliente, para contabilidad.
+ * <p>
+ * Las filas se recorren con un cursor de solo avance ({@link ScrollMode#FORWARD_ONLY}) sobre una
+ * {@link StatelessSession}: el driver las entrega en bloques de {@code fetchSize} y no se guarda
+ * ninguna entidad en un contexto de persistencia. Cada fila se escribe en la salida en cuanto se lee,
+ * así que el heap no depende del tamaño de las tablas.
+ * </p>
+ * <h3>Formatos</h3>
+ * <ul>
+ *   <li><b>NDJSON</b>: un objeto por compra con sus líneas anidadas. Como las filas llegan ordenadas por
+ *   compra, solo se acumulan en memoria las líneas de la compra actual.</li>
+ *   <li><b>CSV</b>: una fila por línea de compra con los datos de la cabecera repetidos
+ *   (las compras sin líneas salen con las columnas de línea vacías).</li>
+ * </ul>
+ * La salida puede comprimirse con gzip.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ExportadorCompras {
+
+	public static final int FETCH_SIZE_DEFECTO = 1000;
+
+	private static final String CABECERA_CSV = "compra_id,fecha_compra,estado,direccion_entrega,precio_total,"
+			+ "cliente_nif_cif,articulo_id,unidades,precio_compra";
+
+	/**
+	 * Formato de salida.
+	 */
+	public enum Formato {
+		CSV, NDJSON
+	}
+
+	/**
+	 * Compra exportada en NDJSON.
+	 */
+	public record CompraExportada(Integer id, String fechaCompra, String estado, String direccionEntrega,
+			BigDecimal precioTotal, String clienteNifCif, List<LineaExportada> lineas) {
+	}
+
+	/**
+	 * Línea de compra exportada en NDJSON.
+	 */
+	public record LineaExportada(Integer articuloId, Integer unidades, BigDecimal precioCompra) {
+	}
+
+	/**
+	 * Totales de una exportación.
+	 */
+	public record Resultado(long compras, long lineas, long milisegundos) {
+
+		@Override
+		public String toString() {
+			return "Compras=" + compras + ", líneas=" + lineas + ", tiempo=" + milisegundos + " ms.";
+		}
+	}
+
+	private final SessionFactory sessionFactory;
+	private final int fetchSize;
+	private final ObjectMapper json = new ObjectMapper();
+
+	public ExportadorCompras(EntityManagerFactory emf) {
+		this(emf, FETCH_SIZE_DEFECTO);
+	}
+
+	public ExportadorCompras(EntityManagerFactory emf, int fetchSize) {
+		if (fetchSize <= 0)
+			throw new IllegalArgumentException("El fetch size debe ser positivo: " + fetchSize);
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Exporta a un fichero. El formato sale de la extensión ({@code .csv} o {@code .ndjson}) y
+	 * un sufijo {@code .gz} activa la compresión.
+	 *
+	 * @param desde Fecha de compra mínima, incluida ({@code null} sin límite).
+	 * @param hasta Fecha de compra máxima, excluida ({@code null} sin límite).
+	 */
+	public Resultado exportar(Path fichero, LocalDateTime desde, LocalDateTime hasta) throws IOException {
+		String nombre = fichero.getFileName().toString().toLowerCase();
+		boolean gzip = nombre.endsWith(".gz");
+		if (gzip)
+			nombre = nombre.substring(0, nombre.length() - 3);
+
+		Formato formato;
+		if (nombre.endsWith(".csv"))
+			formato = Formato.CSV;
+		else if (nombre.endsWith(".ndjson") || nombre.endsWith(".jsonl"))
+			formato = Formato.NDJSON;
+		else
+			throw new IllegalArgumentException("Formato de fichero no soportado: " + fichero);
+
+		try (OutputStream salida = Files.newOutputStream(fichero)) {
+			return exportar(salida, formato, gzip, desde, hasta);
+		}
+	}
+
+	/**
+	 * Exporta las compras con {@code fecha_compra} en [{@code desde}, {@code hasta}) a {@code salida}.
+	 * No cierra {@code salida}.
+	 */
+	public Resultado exportar(OutputStream salida, Formato formato, boolean gzip, LocalDateTime desde,
+			LocalDateTime hasta) throws IOException {
+		long inicio = System.currentTimeMillis();
+
+		GZIPOutputStream comprimida = gzip ? new GZIPOutputStream(salida, 64 * 1024) : null;
+		Writer out = new BufferedWriter(
+				new OutputStreamWriter(comprimida != null ? comprimida : salida, StandardCharsets.UTF_8), 64 * 1024);
+
+		Escritor escritor = formato == Formato.CSV ? new EscritorCsv(out) : new EscritorNdjson(out);
+
+		try (StatelessSession session = sessionFactory.openStatelessSession();
+				ScrollableResults<Object[]> filas = consulta(session, desde, hasta).scroll(ScrollMode.FORWARD_ONLY)) {
+			while (filas.next())
+				escritor.fila(filas.get());
+		}
+		escritor.terminar();
+
+		out.flush();
+		if (comprimida != null)
+			comprimida.finish();
+
+		return new Resultado(escritor.compras, escritor.lineas, System.currentTimeMillis() - inicio);
+	}
+
+	private SelectionQuery<Object[]> consulta(StatelessSession session, LocalDateTime desde, LocalDateTime hasta) {
+		StringBuilder hql = new StringBuilder("SELECT c.id, c.fechaCompra, c.estado, c.direccionEntrega, c.precioTotal,"
+				+ " c.cliente.nifCif, l.id.articuloId, l.unidades, l.precioCompra"
+				+ " FROM Compra c LEFT JOIN c.lineas l WHERE 1 = 1");
+		if (desde != null)
+			hql.append(" AND c.fechaCompra >= :desde");
+		if (hasta != null)
+			hql.append(" AND c.fechaCompra < :hasta");
+		// Las líneas de una compra llegan seguidas; el orden coincide con el índice compra_fecha_IX
+		hql.append(" ORDER BY c.fechaCompra, c.id");
+
+		SelectionQuery<Object[]> query = session.createSelectionQuery(hql.toString(), Object[].class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true);
+		if (desde != null)
+			query.setParameter("desde", desde);
+		if (hasta != null)
+			query.setParameter("hasta", hasta);
+		return query;
+	}
+
+	/* Recibe las filas (cabecera + línea) en orden de compra y las escribe en la salida. */
+	private abstract static class Escritor {
+		final Writer out;
+		long compras;
+		long lineas;
+
+		Escritor(Writer out) {
+			this.out = out;
+		}
+
+		abstract void fila(Object[] f) throws IOException;
+
+		abstract void terminar() throws IOException;
+	}
+
+	private static final class EscritorCsv extends Escritor {
+		private Integer compraActual;
+
+		EscritorCsv(Writer out) throws IOException {
+			super(out);
+			out.write(CABECERA_CSV);
+			out.write('\n');
+		}
+
+		@Override
+		void fila(Object[] f) throws IOException {
+			if (!f[0].equals(compraActual)) {
+				compraActual = (Integer) f[0];
+				compras++;
+			}
+			if (f[6] != null)
+				lineas++;
+
+			for (int i = 0; i < f.length; i++) {
+				if (i > 0)
+					out.write(',');
+				out.write(csv(f[i]));
+			}
+			out.write('\n');
+		}
+
+		@Override
+		void terminar() {
+		}
+
+		private static String csv(Object valor) {
+			if (valor == null)
+				return "";
+			String s = valor instanceof BigDecimal bd ? bd.toPlainString() : valor.toString();
+			if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0)
+				return s;
+			return '"' + s.replace("\"", "\"\"") + '"';
+		}
+	}
+
+	private final class EscritorNdjson extends Escritor {
+		private Object[] cabecera;
+		private final List<LineaExportada> lineasCompra = new ArrayList<>();
+
+		EscritorNdjson(Writer out) {
+			super(out);
+		}
+
+		@Override
+		void fila(Object[] f) throws IOException {
+			if (cabecera != null && !cabecera[0].equals(f[0]))
+				escribirCompra();
+			if (cabecera == null)
+				cabecera = f.clone();
+			if (f[6] != null) {
+				lineasCompra.add(new LineaExportada((Integer) f[6], (Integer) f[7], importe(f[8])));
+				lineas++;
+			}
+		}
+
+		@Override
+		void terminar() throws IOException {
+			if (cabecera != null)
+				escribirCompra();
+		}
+
+		private void escribirCompra() throws IOException {
+			LocalDateTime fecha = (LocalDateTime) cabecera[1];
+			CompraExportada compra = new CompraExportada((Integer) cabecera[0], fecha != null ? fecha.toString() : null,
+					(String) cabecera[2], (String) cabecera[3], importe(cabecera[4]), (String) cabecera[5],
+					List.copyOf(lineasCompra));
+			out.write(json.writeValueAsString(compra));
+			out.write('\n');
+			compras++;
+			cabecera = null;
+			lineasCompra.clear();
+		}
+
+		/* Los importes se exportan como número JSON con dos decimales, igual que antes de usar Dinero. */
+		private static BigDecimal importe(Object valor) {
+			return valor != null ? ((Dinero) valor).aBigDecimal() : null;
+		}
+	}
+
+	/**
+	 * Exporta desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code ExportadorCompras <fichero.csv|.ndjson[.gz]> [desde yyyy-MM-dd] [hasta yyyy-MM-dd]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: ExportadorCompras <fichero.csv|.ndjson[.gz]> [desde yyyy-MM-dd] [hasta yyyy-MM-dd]");
+			return;
+		}
+
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			LocalDateTime desde = args.length > 1 ? LocalDate.parse(args[1]).atStartOfDay() : null;
+			LocalDateTime hasta = args.length > 2 ? LocalDate.parse(args[2]).atStartOfDay() : null;
+
+			System.out.println("\n--- EXPORTANDO COMPRAS: " + args[0] + " ---");
+			Resultado r = new ExportadorCompras(emf).exportar(Paths.get(args[0]), desde, hasta);
+			System.out.println(r);
+		} catch (IOException ioe) {
+			System.err.println("\nERROR DE ESCRITURA: " + ioe.getMessage());
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.silviarafa.ecommerce.ecommerceProject.comun.HashCadena;
+
+/**
+ * Anillo de hash consistente: asigna cada NIF/CIF a un fragmento.
+ * <p>
+ * Cada fragmento ocupa {@code nodosVirtuales} puntos del anillo ({@link HashCadena} de {@code "<id>#<n>"}) y una
+ * clave va al primer punto igual o posterior a su hash. Con muchos nodos virtuales el reparto es casi uniforme y,
+ * al añadir un fragmento a N, solo cambia de sitio alrededor de {@code 1/(N+1)} de las claves (las que caen en los tramos
+ * que ocupa el nuevo); con un módulo ({@code hash % N}) cambiarían casi todas.
+ * </p>
+ * <p>
+ * Es inmutable: un reparto construye un anillo nuevo con {@link #con(Collection)}.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class AnilloHash {
+
+	public static final int NODOS_VIRTUALES_DEFECTO = 256;
+
+	private final int[] fragmentos;
+	private final int nodosVirtuales;
+	/* Puntos del anillo ordenados por hash y, en paralelo, el fragmento de cada punto. */
+	private final long[] puntos;
+	private final int[] duenos;
+
+	/**
+	 * @param fragmentos     Ids de los fragmentos (distintos, no negativos).
+	 * @param nodosVirtuales Puntos del anillo por fragmento.
+	 */
+	public AnilloHash(Collection<Integer> fragmentos, int nodosVirtuales) {
+		if (fragmentos.isEmpty())
+			throw new IllegalArgumentException("El anillo necesita al menos un fragmento.");
+		if (nodosVirtuales <= 0)
+			throw new IllegalArgumentException("Los nodos virtuales deben ser positivos: " + nodosVirtuales);
+		TreeSet<Integer> ids = new TreeSet<>(fragmentos);
+		if (ids.size() != fragmentos.size() || ids.first() < 0)
+			throw new IllegalArgumentException("Ids de fragmento repetidos o negativos: " + fragmentos);
+
+		this.fragmentos = ids.stream().mapToInt(Integer::intValue).toArray();
+		this.nodosVirtuales = nodosVirtuales;
+		int n = this.fragmentos.length * nodosVirtuales;
+		long[] hashes = new long[n];
+		for (int i = 0; i < n; i++)
+			hashes[i] = HashCadena.hash64(this.fragmentos[i / nodosVirtuales] + "#" + i % nodosVirtuales);
+		Integer[] orden = new Integer[n];
+		for (int i = 0; i < n; i++)
+			orden[i] = i;
+		Arrays.sort(orden, (a, b) -> Long.compareUnsigned(hashes[a], hashes[b]));
+		long[] ordenados = new long[n];
+		int[] indices = new int[n];
+		for (int i = 0; i < n; i++) {
+			ordenados[i] = hashes[orden[i]];
+			indices[i] = this.fragmentos[orden[i] / nodosVirtuales];
+		}
+		this.puntos = ordenados;
+		this.duenos = indices;
+	}
+
+	/**
+	 * Anillo con {@value #NODOS_VIRTUALES_DEFECTO} nodos virtuales por fragmento.
+	 */
+	public AnilloHash(Collection<Integer> fragmentos) {
+		this(fragmentos, NODOS_VIRTUALES_DEFECTO);
+	}
+
+	/**
+	 * Anillo con los mismos nodos virtuales y otros fragmentos.
+	 */
+	public AnilloHash con(Collection<Integer> fragmentos) {
+		return new AnilloHash(fragmentos, nodosVirtuales);
+	}
+
+	/**
+	 * Fragmento de la clave.
+	 */
+	public int fragmento(String clave) {
+		long h = HashCadena.hash64(clave);
+		// Primer punto con hash >= h (orden sin signo); si no hay, se da la vuelta al anillo
+		int lo = 0, hi = puntos.length;
+		while (lo < hi) {
+			int m = (lo + hi) >>> 1;
+			if (Long.compareUnsigned(puntos[m], h) < 0)
+				lo = m + 1;
+			else
+				hi = m;
+		}
+		return duenos[lo == puntos.length ? 0 : lo];
+	}
+
+	/**
+	 * Ids de los fragmentos, en orden ascendente.
+	 */
+	public List<Integer> fragmentos() {
+		return Arrays.stream(fragmentos).boxed().toList();
+	}
+
+	public boolean contiene(int fragmento) {
+		return Arrays.binarySearch(fragmentos, fragmento) >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return "Anillo " + fragmentos() + " (" + nodosVirtuales + " nodos virtuales por fragmento)";
+	}
+}
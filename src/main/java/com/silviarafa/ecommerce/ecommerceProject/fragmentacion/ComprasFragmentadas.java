@@ -0,0 +1,112 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+import com.silviarafa.ecommerce.ecommerceProject.stock.StockBD;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Creación de compras en modo fragmentado.
+ * <p>
+ * El stock solo vale en el fragmento de catálogo y la compra se guarda en el del cliente, así que no caben en
+ * una transacción. Se hace en dos pasos con compensación:
+ * </p>
+ * <ol>
+ *   <li>Se descuenta el stock en el fragmento de catálogo ({@link StockBD#descontarTodo}) y se confirma.</li>
+ *   <li>Se crea la compra en el fragmento del cliente ({@link OperacionesCompra#registrar}, que también suma
+ *   los agregados del cliente) y se confirma.</li>
+ *   <li>Si el segundo paso falla, se devuelven las unidades al stock ({@link StockBD#reponer}).</li>
+ * </ol>
+ * <p>
+ * Entre el primer paso y la compensación el stock queda descontado de más, nunca de menos: no se puede vender lo
+ * que no hay. Si también falla la compensación, las unidades quedan apartadas y se informa en el error.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ComprasFragmentadas {
+
+	private ComprasFragmentadas() {
+	}
+
+	/**
+	 * Crea una compra del cliente con las unidades indicadas por id de artículo.
+	 *
+	 * @throws IllegalArgumentException si el cliente o algún artículo no existen en su fragmento.
+	 * @throws IllegalStateException    si no hay stock suficiente.
+	 */
+	public static Compra crear(Fragmentos fragmentos, String nifCif, Map<Integer, Integer> unidadesPorArticulo) {
+		if (unidadesPorArticulo.isEmpty())
+			throw new IllegalArgumentException("La compra no tiene líneas.");
+
+		// 1. Stock en el fragmento de catálogo
+		fragmentos.enCatalogo(em -> {
+			enTransaccion(em, () -> {
+				StockBD.ResultadoCompra r = StockBD.descontarTodo(em, unidadesPorArticulo);
+				if (!r.correcto())
+					throw new IllegalStateException(
+							"No se puede crear la compra: " + r.resultado() + " (artículo " + r.articuloId() + ").");
+			});
+			return null;
+		});
+
+		// 2. Compra en el fragmento del cliente
+		try {
+			return fragmentos.enFragmento(nifCif, em -> {
+				Compra[] compra = new Compra[1];
+				enTransaccion(em, () -> {
+					Cliente cliente = em.find(Cliente.class, nifCif);
+					if (cliente == null)
+						throw new IllegalArgumentException("No existe el cliente " + nifCif);
+					Map<Articulo, Integer> lineas = new LinkedHashMap<>();
+					unidadesPorArticulo.forEach((id, unidades) -> {
+						Articulo articulo = em.find(Articulo.class, id);
+						if (articulo == null)
+							throw new IllegalArgumentException("El artículo " + id + " no está en el fragmento "
+									+ fragmentos.fragmento(nifCif) + " (¿falta replicarlo?).");
+						lineas.merge(articulo, unidades, Integer::sum);
+					});
+					compra[0] = OperacionesCompra.registrar(em, cliente, lineas);
+					em.flush();
+				});
+				return compra[0];
+			});
+		} catch (RuntimeException e) {
+			// 3. Compensación
+			try {
+				fragmentos.enCatalogo(em -> {
+					enTransaccion(em, () -> unidadesPorArticulo.forEach((id, n) -> StockBD.reponer(em, id, n)));
+					return null;
+				});
+			} catch (RuntimeException re) {
+				e.addSuppressed(new IllegalStateException("No se pudo reponer el stock de la compra fallida de "
+						+ nifCif + ": " + unidadesPorArticulo, re));
+			}
+			throw e;
+		}
+	}
+
+	private static void enTransaccion(EntityManager em, Runnable trabajo) {
+		EntityTransaction tx = em.getTransaction();
+		tx.begin();
+		try {
+			trabajo.run();
+			tx.commit();
+		} catch (RuntimeException e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.clear();
+		}
+	}
+}
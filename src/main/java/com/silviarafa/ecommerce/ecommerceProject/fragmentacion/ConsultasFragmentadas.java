@@ -0,0 +1,118 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de todos los clientes en modo fragmentado (scatter-gather).
+ * <p>
+ * Cada consulta se ejecuta en paralelo en todos los fragmentos ({@link Fragmentos#enTodos}) y los resultados
+ * parciales se combinan en memoria: los recuentos se suman y los "top N" piden N a cada fragmento y se vuelven
+ * a ordenar. Como cada cliente está en un solo fragmento, el top N global está entre los N primeros de algún
+ * fragmento. Para artículos, en cambio, cada fragmento solo tiene una parte de las ventas: se suman por
+ * artículo todas las de cada fragmento antes de ordenar.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ConsultasFragmentadas {
+
+	/**
+	 * Cliente y su gasto total (de {@code cliente_agregado}).
+	 */
+	public record GastoCliente(String nifCif, long numCompras, BigDecimal gastoTotal) {
+	}
+
+	/**
+	 * Artículo y unidades vendidas en todos los fragmentos.
+	 */
+	public record VentasArticulo(Integer articuloId, String nombre, long unidades) {
+	}
+
+	private ConsultasFragmentadas() {
+	}
+
+	/**
+	 * Número de clientes en todos los fragmentos.
+	 */
+	public static long totalClientes(Fragmentos fragmentos) {
+		return fragmentos.enTodos(em -> em.createQuery("SELECT COUNT(c) FROM Cliente c", Long.class)
+				.getSingleResult())
+				.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Número de compras en todos los fragmentos, archivadas incluidas.
+	 */
+	public static long totalCompras(Fragmentos fragmentos) {
+		return fragmentos.enTodos(em -> em.createQuery("SELECT COUNT(c) FROM Compra c", Long.class)
+				.getSingleResult()
+				+ em.createQuery("SELECT COUNT(c) FROM CompraArchivada c", Long.class).getSingleResult())
+				.values().stream().mapToLong(Long::longValue).sum();
+	}
+
+	/**
+	 * Los {@code n} clientes con más gasto.
+	 */
+	public static List<GastoCliente> mejoresClientes(Fragmentos fragmentos, int n) {
+		if (n <= 0)
+			throw new IllegalArgumentException("n debe ser positivo: " + n);
+		return fragmentos.enTodos(em -> em.createQuery(
+				"SELECT a.nifCif, a.numCompras, a.gastoTotal FROM AgregadoCliente a"
+						+ " ORDER BY a.gastoTotal DESC, a.nifCif",
+				Object[].class)
+				.setMaxResults(n)
+				.getResultList())
+				.values().stream()
+				.flatMap(List::stream)
+				.map(f -> new GastoCliente((String) f[0], ((Number) f[1]).longValue(), (BigDecimal) f[2]))
+				.sorted(Comparator.comparing(GastoCliente::gastoTotal).reversed()
+						.thenComparing(GastoCliente::nifCif))
+				.limit(n)
+				.toList();
+	}
+
+	/**
+	 * Los {@code n} artículos con más unidades vendidas (archivadas incluidas), con el nombre del fragmento de
+	 * catálogo.
+	 */
+	public static List<VentasArticulo> articulosMasVendidos(Fragmentos fragmentos, int n) {
+		if (n <= 0)
+			throw new IllegalArgumentException("n debe ser positivo: " + n);
+		Map<Integer, Long> unidades = new HashMap<>();
+		fragmentos.enTodos(em -> Stream.concat(
+				em.createQuery("SELECT ac.articulo.id, SUM(ac.unidades) FROM ArticuloCompra ac"
+						+ " GROUP BY ac.articulo.id", Object[].class).getResultList().stream(),
+				em.createQuery("SELECT ac.id.articuloId, SUM(ac.unidades) FROM ArticuloCompraArchivada ac"
+						+ " GROUP BY ac.id.articuloId", Object[].class).getResultList().stream())
+				.toList())
+				.values()
+				.forEach(filas -> filas.forEach(
+						f -> unidades.merge((Integer) f[0], ((Number) f[1]).longValue(), Long::sum)));
+
+		List<Map.Entry<Integer, Long>> top = unidades.entrySet().stream()
+				.sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+						.thenComparing(Map.Entry.comparingByKey()))
+				.limit(n)
+				.toList();
+		if (top.isEmpty())
+			return List.of();
+
+		Map<Integer, String> nombres = new HashMap<>();
+		fragmentos.enCatalogo(em -> em.createQuery("SELECT a.id, a.nombre FROM Articulo a WHERE a.id IN :ids",
+				Object[].class)
+				.setParameter("ids", top.stream().map(Map.Entry::getKey).toList())
+				.getResultList())
+				.forEach(f -> nombres.put((Integer) f[0], (String) f[1]));
+
+		return top.stream()
+				.map(e -> new VentasArticulo(e.getKey(), nombres.get(e.getKey()), e.getValue()))
+				.toList();
+	}
+}
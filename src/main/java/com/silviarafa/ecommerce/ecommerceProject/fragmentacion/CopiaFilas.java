@@ -0,0 +1,113 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Copia de filas entre fragmentos por JDBC, conservando las claves (ids IDENTITY y de secuencia incluidos).
+ * <p>
+ * Las columnas se toman de los metadatos del {@code SELECT *}, así que la copia sigue al esquema sin repetir
+ * el mapeo de las entidades. Todos los fragmentos tienen el mismo esquema ({@code hbm2ddl validate}).
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class CopiaFilas {
+
+	private static final int TAMANO_BATCH = 500;
+
+	private CopiaFilas() {
+	}
+
+	/**
+	 * Filas leídas de una tabla: nombres de columna y valores en ese orden.
+	 */
+	record Filas(String tabla, List<String> columnas, List<Object[]> valores) {
+
+		boolean vacia() {
+			return valores.isEmpty();
+		}
+	}
+
+	/**
+	 * Lee las filas de {@code tabla} que cumplen {@code condicion} (SQL con parámetros {@code ?}).
+	 */
+	static Filas leer(Connection conexion, String tabla, String condicion, Object... parametros)
+			throws SQLException {
+		try (PreparedStatement ps = conexion.prepareStatement("SELECT * FROM " + tabla + " WHERE " + condicion)) {
+			for (int i = 0; i < parametros.length; i++)
+				ps.setObject(i + 1, parametros[i]);
+			try (ResultSet rs = ps.executeQuery()) {
+				ResultSetMetaData md = rs.getMetaData();
+				int n = md.getColumnCount();
+				List<String> columnas = new ArrayList<>(n);
+				for (int c = 1; c <= n; c++)
+					columnas.add(md.getColumnName(c).toLowerCase(Locale.ROOT));
+				List<Object[]> valores = new ArrayList<>();
+				while (rs.next()) {
+					Object[] fila = new Object[n];
+					for (int c = 0; c < n; c++)
+						fila[c] = rs.getObject(c + 1);
+					valores.add(fila);
+				}
+				return new Filas(tabla, columnas, valores);
+			}
+		}
+	}
+
+	/**
+	 * Inserta las filas en lotes JDBC. Con {@code sobrescribir} las que ya existen por clave se actualizan
+	 * ({@code ON DUPLICATE KEY UPDATE}), como en la réplica del catálogo.
+	 *
+	 * @return filas enviadas.
+	 */
+	static int insertar(Connection conexion, Filas filas, boolean sobrescribir) throws SQLException {
+		if (filas.vacia())
+			return 0;
+		String columnas = String.join(", ", filas.columnas());
+		String marcas = filas.columnas().stream().map(c -> "?").collect(Collectors.joining(", "));
+		String sql = "INSERT INTO " + filas.tabla() + " (" + columnas + ") VALUES (" + marcas + ")";
+		if (sobrescribir)
+			sql += " ON DUPLICATE KEY UPDATE "
+					+ filas.columnas().stream().map(c -> c + " = VALUES(" + c + ")").collect(Collectors.joining(", "));
+
+		try (PreparedStatement ps = conexion.prepareStatement(sql)) {
+			int pendientes = 0;
+			for (Object[] fila : filas.valores()) {
+				for (int c = 0; c < fila.length; c++)
+					ps.setObject(c + 1, fila[c]);
+				ps.addBatch();
+				if (++pendientes == TAMANO_BATCH) {
+					ps.executeBatch();
+					pendientes = 0;
+				}
+			}
+			if (pendientes > 0)
+				ps.executeBatch();
+		}
+		return filas.valores().size();
+	}
+
+	/**
+	 * Borra las filas de {@code tabla} que cumplen {@code condicion}.
+	 *
+	 * @return filas borradas.
+	 */
+	static int borrar(Connection conexion, String tabla, String condicion, Object... parametros)
+			throws SQLException {
+		try (PreparedStatement ps = conexion.prepareStatement("DELETE FROM " + tabla + " WHERE " + condicion)) {
+			for (int i = 0; i < parametros.length; i++)
+				ps.setObject(i + 1, parametros[i]);
+			return ps.executeUpdate();
+		}
+	}
+}
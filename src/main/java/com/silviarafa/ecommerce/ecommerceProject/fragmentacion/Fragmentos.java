@@ -0,0 +1,583 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.jdbc.Work;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Modo fragmentado: los datos de cada cliente viven en una de N BD, elegida por hash consistente del NIF/CIF.
+ * <p>
+ * Cada fragmento es una {@link EntityManagerFactory} de la misma unidad de persistencia con otra URL. En el
+ * fragmento de un cliente están su fila de {@code cliente}, {@code informacion_fiscal},
+ * {@code cliente_agregado} y sus compras con sus líneas (también las archivadas), de modo que toda operación de un cliente es local a
+ * una BD y a una transacción ({@link #enFragmento(String, Function)}). El resto se resuelve así:
+ * </p>
+ * <ul>
+ *   <li><b>Catálogo replicado.</b> {@code articulo} está completo en todos los fragmentos con los mismos ids,
+ *   para que las líneas de compra lo referencien en local. El fragmento de menor id es el de catálogo: las
+ *   altas y cambios de artículos se hacen en él ({@link #enCatalogo(Function)}) y se copian a los demás con
+ *   {@link #replicarArticulos(Collection)}. El stock vale solo en el fragmento de catálogo
+ *   ({@link ComprasFragmentadas}); en los demás es una copia informativa. Por eso solo el fragmento de catálogo
+ *   tiene caché de segundo nivel ({@link #propiedades(int, boolean)}).</li>
+ *   <li><b>Consultas de todos los fragmentos</b> (scatter-gather): {@link #enTodos(Function)} ejecuta la misma
+ *   unidad en paralelo en cada fragmento y devuelve los resultados parciales para combinarlos
+ *   ({@link ConsultasFragmentadas}).</li>
+ *   <li><b>Ids de compra.</b> Cada fragmento saca los ids de {@code compra_seq} de su propio rango de
+ *   {@value #RANGO_IDS_COMPRA} valores ({@code id * RANGO + 1 ...}), así que una compra conserva su id al mover
+ *   al cliente de fragmento. Al abrir un fragmento se adelanta la secuencia hasta su rango si hace falta.</li>
+ * </ul>
+ * <h3>Reparto en caliente</h3>
+ * <p>
+ * Para añadir o quitar fragmentos, {@link #iniciarReparto(Map, Collection)} fija el anillo de destino y
+ * {@link #migrar(String)} mueve un cliente (copia sus filas al destino, confirma y las borra del origen) con
+ * el cerrojo de escritura de su NIF/CIF: mientras tanto sus operaciones esperan y las del resto de clientes
+ * siguen. Un cliente se lee del destino en cuanto está movido y del origen hasta entonces; si se toca antes de
+ * que le llegue el turno se mueve en ese momento. {@link Reparto} recorre todos los clientes y cierra el reparto
+ * con {@link #completarReparto()}. El estado del reparto es de este proceso: todas las instancias de la
+ * aplicación deben compartir este objeto (o parar mientras se reparte con la herramienta de línea de comandos).
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class Fragmentos implements AutoCloseable {
+
+	/** Unidad de persistencia de la que se crean los fragmentos. */
+	public static final String UNIDAD_PERSISTENCIA = Arranque.UNIDAD_PERSISTENCIA;
+
+	/** Máximo de fragmentos (ids 0 a 15): cada uno tiene su rango de ids de compra dentro de un {@code int}. */
+	public static final int MAX_FRAGMENTOS = 16;
+
+	/** Ids de compra por fragmento. */
+	public static final int RANGO_IDS_COMPRA = 1 << 27;
+
+	/* allocationSize de compra_seq: el optimizador de Hibernate reparte los ids del bloque anterior al valor. */
+	private static final int BLOQUE_SECUENCIA = 50;
+	private static final int NUM_CERROJOS = 256;
+	private static final int TAMANO_TRAMO_CATALOGO = 1000;
+
+	/*
+	 * Tablas de un cliente en orden de inserción (padres antes que hijos) y la condición que selecciona sus filas.
+	 * Se borran en orden inverso.
+	 */
+	private static final String[][] TABLAS_CLIENTE = {
+			{ "cliente", "nif_cif = ?" },
+			{ "informacion_fiscal", "nif_cif = ?" },
+			{ "cliente_agregado", "nif_cif = ?" },
+			{ "compra", "cliente_nif_cif = ?" },
+			{ "articulo_compra", "compra_id IN (SELECT id FROM compra WHERE cliente_nif_cif = ?)" },
+			{ "compra_archivo", "cliente_nif_cif = ?" },
+			{ "articulo_compra_archivo", "compra_id IN (SELECT id FROM compra_archivo WHERE cliente_nif_cif = ?)" } };
+
+	/*
+	 * Estado de un reparto en curso: anillo de destino, clientes ya movidos a él y, de esos, los que no se
+	 * pudieron borrar del origen (fragmento de origen por NIF/CIF).
+	 */
+	private record EstadoReparto(AnilloHash destino, Set<String> movidos, Map<String, Integer> restos) {
+	}
+
+	private final Map<Integer, EntityManagerFactory> fabricas = new ConcurrentHashMap<>();
+	private final boolean cerrarFabricas;
+	private final int catalogo;
+	private volatile AnilloHash anillo;
+	private volatile EstadoReparto reparto;
+	/* Por NIF/CIF: lectura para operar con el cliente, escritura para moverlo de fragmento. */
+	private final ReentrantReadWriteLock[] cerrojos = new ReentrantReadWriteLock[NUM_CERROJOS];
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	/**
+	 * Fragmentos sobre factorías ya creadas (se cierran con {@link #close()} solo si las creó {@link #abrir(String)}).
+	 *
+	 * @param fabricas Id de fragmento (0 a {@value #MAX_FRAGMENTOS} - 1) y su factoría.
+	 */
+	public Fragmentos(Map<Integer, EntityManagerFactory> fabricas) {
+		this(fabricas, false);
+	}
+
+	private Fragmentos(Map<Integer, EntityManagerFactory> fabricas, boolean cerrarFabricas) {
+		this.cerrarFabricas = cerrarFabricas;
+		for (int i = 0; i < NUM_CERROJOS; i++)
+			cerrojos[i] = new ReentrantReadWriteLock();
+		anadir(fabricas);
+		this.anillo = new AnilloHash(fabricas.keySet());
+		this.catalogo = anillo.fragmentos().get(0);
+	}
+
+	/**
+	 * Crea una factoría por fragmento a partir de {@code "id=url,id=url,..."}
+	 * (p. ej. {@code 0=jdbc:mariadb://bd0:3310/my_eshop_db,1=jdbc:mariadb://bd1:3310/my_eshop_db}).
+	 */
+	public static Fragmentos abrir(String especificacion) {
+		Map<Integer, EntityManagerFactory> fabricas = new TreeMap<>();
+		try {
+			Map<Integer, String> urls = parsear(especificacion);
+			int catalogo = urls.keySet().iterator().next();
+			urls.forEach((id, url) -> fabricas.put(id, crearFabrica(id, url, id == catalogo)));
+			return new Fragmentos(fabricas, true);
+		} catch (RuntimeException e) {
+			fabricas.values().forEach(EntityManagerFactory::close);
+			throw e;
+		}
+	}
+
+	/**
+	 * Ids y URLs de {@code "id=url,id=url,..."}, en orden de id.
+	 */
+	public static Map<Integer, String> parsear(String especificacion) {
+		Map<Integer, String> urls = new TreeMap<>();
+		for (String parte : especificacion.split(",")) {
+			if (parte.isBlank())
+				continue;
+			int igual = parte.indexOf('=');
+			if (igual <= 0)
+				throw new IllegalArgumentException("Se esperaba id=url: " + parte);
+			int id = Integer.parseInt(parte.substring(0, igual).strip());
+			if (urls.put(id, parte.substring(igual + 1).strip()) != null)
+				throw new IllegalArgumentException("Fragmento repetido: " + id);
+		}
+		if (urls.isEmpty())
+			throw new IllegalArgumentException("No hay fragmentos en: " + especificacion);
+		return urls;
+	}
+
+	/**
+	 * Factoría del fragmento {@code id}: la unidad de persistencia con otra URL y las propiedades de
+	 * {@link #propiedades(int, boolean)}.
+	 *
+	 * @param catalogo {@code true} para el fragmento de catálogo, el único con caché de segundo nivel.
+	 */
+	public static EntityManagerFactory crearFabrica(int id, String url, boolean catalogo) {
+		Map<String, Object> props = propiedades(id, catalogo);
+		props.put("jakarta.persistence.jdbc.url", url);
+		return Arranque.crear(props);
+	}
+
+	/**
+	 * Propiedades propias del fragmento {@code id}: su propio pool y sin réplicas. Todas las factorías de la JVM
+	 * comparten las regiones de la caché de segundo nivel (mismo {@code ehcache.xml}), así que solo la tiene el
+	 * fragmento de catálogo: en los demás las filas de {@code articulo} son copias con su propio stock y, en una
+	 * región compartida, se leerían desde otro fragmento.
+	 */
+	public static Map<String, Object> propiedades(int id, boolean catalogo) {
+		Map<String, Object> props = new HashMap<>();
+		props.put("hibernate.hikari.poolName", "my_eshop-pool-fragmento-" + id);
+		props.put(ConexionesReplicadas.PROPIEDAD_URLS, "");
+		if (!catalogo) {
+			props.put("hibernate.cache.use_second_level_cache", "false");
+			props.put("hibernate.cache.use_query_cache", "false");
+		}
+		return props;
+	}
+
+	private void anadir(Map<Integer, EntityManagerFactory> nuevas) {
+		nuevas.forEach((id, emf) -> {
+			if (id < 0 || id >= MAX_FRAGMENTOS)
+				throw new IllegalArgumentException("Id de fragmento fuera de 0.." + (MAX_FRAGMENTOS - 1) + ": " + id);
+			if (fabricas.containsKey(id))
+				throw new IllegalArgumentException("El fragmento " + id + " ya está abierto.");
+			prepararSecuencia(emf, id);
+			fabricas.put(id, emf);
+		});
+	}
+
+	/* Lleva compra_seq al rango del fragmento si aún no ha llegado; falla si está en el rango de otro. */
+	private static void prepararSecuencia(EntityManagerFactory emf, int id) {
+		long inicio = (long) id * RANGO_IDS_COMPRA;
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			session.doWork(conexion -> {
+				long siguiente;
+				try (PreparedStatement ps = conexion.prepareStatement("SELECT NEXT VALUE FOR compra_seq");
+						ResultSet rs = ps.executeQuery()) {
+					rs.next();
+					siguiente = rs.getLong(1);
+				}
+				if (siguiente >= inicio + RANGO_IDS_COMPRA)
+					throw new IllegalStateException("compra_seq del fragmento " + id + " está fuera de su rango ("
+							+ siguiente + "): ¿URL de otro fragmento?");
+				if (siguiente < inicio) {
+					try (PreparedStatement ps = conexion.prepareStatement(
+							"ALTER SEQUENCE compra_seq RESTART WITH " + (inicio + BLOQUE_SECUENCIA))) {
+						ps.executeUpdate();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Fragmento en el que están ahora los datos del cliente.
+	 */
+	public int fragmento(String nifCif) {
+		EstadoReparto r = reparto;
+		if (r != null && r.movidos().contains(nifCif))
+			return r.destino().fragmento(nifCif);
+		return anillo.fragmento(nifCif);
+	}
+
+	public AnilloHash anillo() {
+		return anillo;
+	}
+
+	/**
+	 * Factoría del fragmento {@code id}.
+	 *
+	 * @throws IllegalArgumentException si no está abierto.
+	 */
+	public EntityManagerFactory fabrica(int id) {
+		EntityManagerFactory emf = fabricas.get(id);
+		if (emf == null)
+			throw new IllegalArgumentException("No existe el fragmento " + id);
+		return emf;
+	}
+
+	/**
+	 * Factoría del fragmento de catálogo, donde se escriben los artículos y su stock.
+	 */
+	public EntityManagerFactory catalogo() {
+		return fabricas.get(catalogo);
+	}
+
+	/**
+	 * Fragmentos con datos de clientes: los del anillo y, durante un reparto, también los del destino.
+	 */
+	public List<Integer> activos() {
+		TreeSet<Integer> ids = new TreeSet<>(anillo.fragmentos());
+		EstadoReparto r = reparto;
+		if (r != null)
+			ids.addAll(r.destino().fragmentos());
+		return List.copyOf(ids);
+	}
+
+	/**
+	 * Ejecuta {@code unidad} con un {@link EntityManager} del fragmento del cliente. La unidad gestiona su
+	 * transacción, como los métodos de {@code AppEcommerce}. Mientras dura, el cliente no se mueve de fragmento.
+	 */
+	public <T> T enFragmento(String nifCif, Function<EntityManager, T> unidad) {
+		Objects.requireNonNull(nifCif, "nifCif");
+		// Durante un reparto, un cliente que se toca se mueve antes (también uno nuevo: se crea ya en el destino)
+		if (reparto != null)
+			migrar(nifCif);
+		Lock lectura = cerrojo(nifCif).readLock();
+		lectura.lock();
+		try {
+			return ejecutar(fabricas.get(fragmento(nifCif)), unidad);
+		} finally {
+			lectura.unlock();
+		}
+	}
+
+	/**
+	 * Ejecuta {@code unidad} en el fragmento de catálogo. Tras cambiar artículos hay que llamar a
+	 * {@link #replicarArticulos(Collection)} con sus ids.
+	 */
+	public <T> T enCatalogo(Function<EntityManager, T> unidad) {
+		return ejecutar(catalogo(), unidad);
+	}
+
+	/**
+	 * Ejecuta {@code unidad} en paralelo en cada fragmento activo (un hilo virtual por fragmento) y devuelve los
+	 * resultados por id de fragmento. Un cliente que se está moviendo en ese instante puede aparecer en los dos.
+	 *
+	 * @throws IllegalStateException si falla en algún fragmento.
+	 */
+	public <T> Map<Integer, T> enTodos(Function<EntityManager, T> unidad) {
+		Map<Integer, Future<T>> tareas = new LinkedHashMap<>();
+		for (int id : activos()) {
+			EntityManagerFactory emf = fabricas.get(id);
+			tareas.put(id, executor.submit((Callable<T>) () -> ejecutar(emf, unidad)));
+		}
+		Map<Integer, T> resultados = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<Integer, Future<T>> t : tareas.entrySet())
+				resultados.put(t.getKey(), t.getValue().get());
+		} catch (InterruptedException ie) {
+			tareas.values().forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrumpido esperando a los fragmentos.", ie);
+		} catch (ExecutionException ee) {
+			tareas.values().forEach(f -> f.cancel(true));
+			throw new IllegalStateException("Falló la consulta en un fragmento: " + ee.getCause().getMessage(),
+					ee.getCause());
+		}
+		return resultados;
+	}
+
+	private static <T> T ejecutar(EntityManagerFactory emf, Function<EntityManager, T> unidad) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return unidad.apply(em);
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Copia los artículos indicados del fragmento de catálogo a todos los demás (inserta o sobrescribe).
+	 *
+	 * @return artículos copiados a cada fragmento.
+	 */
+	public int replicarArticulos(Collection<Integer> ids) {
+		List<Integer> lista = List.copyOf(new TreeSet<>(ids));
+		List<Integer> destinos = new ArrayList<>(fabricas.keySet());
+		destinos.remove((Integer) catalogo);
+		int copiados = 0;
+		for (int desde = 0; desde < lista.size(); desde += TAMANO_TRAMO_CATALOGO) {
+			List<Integer> tramo = lista.subList(desde, Math.min(lista.size(), desde + TAMANO_TRAMO_CATALOGO));
+			String marcas = String.join(", ", Collections.nCopies(tramo.size(), "?"));
+			CopiaFilas.Filas filas = leer(catalogo(),
+					c -> CopiaFilas.leer(c, "articulo", "id IN (" + marcas + ")", tramo.toArray()));
+			for (int destino : destinos)
+				escribirArticulos(fabricas.get(destino), filas);
+			copiados += filas.valores().size();
+		}
+		return copiados;
+	}
+
+	/**
+	 * Copia el catálogo completo a los fragmentos indicados, por tramos de id (al añadir un fragmento).
+	 *
+	 * @return artículos copiados a cada fragmento.
+	 */
+	public long replicarCatalogo(Collection<Integer> destinos) {
+		long copiados = 0;
+		long ultimo = Long.MIN_VALUE;
+		while (true) {
+			long desde = ultimo;
+			CopiaFilas.Filas filas = leer(catalogo(), c -> CopiaFilas.leer(c, "articulo",
+					"id > ? ORDER BY id LIMIT " + TAMANO_TRAMO_CATALOGO, desde));
+			if (filas.vacia())
+				return copiados;
+			for (int destino : destinos) {
+				if (destino != catalogo)
+					escribirArticulos(fabrica(destino), filas);
+			}
+			copiados += filas.valores().size();
+			int columnaId = filas.columnas().indexOf("id");
+			ultimo = ((Number) filas.valores().get(filas.valores().size() - 1)[columnaId]).longValue();
+		}
+	}
+
+	/* Upsert de los artículos en una transacción y limpieza de su caché (la escritura no pasa por Hibernate). */
+	private static void escribirArticulos(EntityManagerFactory emf, CopiaFilas.Filas filas) {
+		SessionFactory sf = emf.unwrap(SessionFactory.class);
+		try (StatelessSession session = sf.openStatelessSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				session.doWork(c -> CopiaFilas.insertar(c, filas, true));
+				tx.commit();
+			} catch (RuntimeException e) {
+				if (tx.isActive())
+					tx.rollback();
+				throw e;
+			}
+		}
+		sf.getCache().evictEntityData(Articulo.class);
+		sf.getCache().evictQueryRegions();
+	}
+
+	/* Lectura JDBC fuera de transacción (autocommit) en el fragmento. */
+	private static <T> T leer(EntityManagerFactory emf, LecturaJdbc<T> lectura) {
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			return session.doReturningWork(lectura::leer);
+		}
+	}
+
+	@FunctionalInterface
+	private interface LecturaJdbc<T> {
+		T leer(Connection conexion) throws SQLException;
+	}
+
+	// --- Reparto ---
+
+	/**
+	 * Empieza un reparto hacia los fragmentos {@code destino}. Abre los fragmentos nuevos ({@code nuevos}, sin
+	 * clientes) y les copia el catálogo. El fragmento de catálogo debe seguir en el destino.
+	 *
+	 * @throws IllegalStateException si ya hay un reparto en curso.
+	 */
+	public synchronized void iniciarReparto(Map<Integer, EntityManagerFactory> nuevos, Collection<Integer> destino) {
+		if (reparto != null)
+			throw new IllegalStateException("Ya hay un reparto en curso.");
+		if (!destino.contains(catalogo))
+			throw new IllegalArgumentException("El fragmento de catálogo (" + catalogo + ") debe seguir en el anillo.");
+		anadir(nuevos);
+		for (int id : destino)
+			fabrica(id);
+		replicarCatalogo(nuevos.keySet());
+		reparto = new EstadoReparto(anillo.con(destino), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * {@code true} si hay un reparto en curso.
+	 */
+	public boolean enReparto() {
+		return reparto != null;
+	}
+
+	/**
+	 * {@code true} si el cliente debe moverse en el reparto en curso y aún no se ha movido.
+	 */
+	public boolean pendienteDeMover(String nifCif) {
+		EstadoReparto r = reparto;
+		return r != null && !r.movidos().contains(nifCif)
+				&& r.destino().fragmento(nifCif) != anillo.fragmento(nifCif);
+	}
+
+	/**
+	 * Mueve el cliente a su fragmento de destino si el reparto en curso lo cambia de sitio y no se ha movido ya.
+	 * Sus filas se copian al destino en una transacción y, confirmada esta, se borran del origen.
+	 *
+	 * @return {@code true} si se ha movido ahora.
+	 */
+	public boolean migrar(String nifCif) {
+		if (!pendienteDeMover(nifCif))
+			return false;
+		Lock escritura = cerrojo(nifCif).writeLock();
+		escritura.lock();
+		try {
+			EstadoReparto r = reparto;
+			if (!pendienteDeMover(nifCif))
+				return false;
+			int idOrigen = anillo.fragmento(nifCif);
+			EntityManagerFactory origen = fabricas.get(idOrigen);
+			EntityManagerFactory destino = fabricas.get(r.destino().fragmento(nifCif));
+
+			// Copia: se borran restos de un intento anterior en el destino y se insertan las filas del origen
+			List<CopiaFilas.Filas> filas = leer(origen, c -> {
+				List<CopiaFilas.Filas> todas = new ArrayList<>(TABLAS_CLIENTE.length);
+				for (String[] t : TABLAS_CLIENTE)
+					todas.add(CopiaFilas.leer(c, t[0], t[1], nifCif));
+				return todas;
+			});
+			if (filas.get(0).vacia()) {
+				// Cliente nuevo (se creará ya en el destino) o ya copiado en un intento anterior que borró el origen
+				r.movidos().add(nifCif);
+				return true;
+			}
+			enTransaccion(destino, c -> {
+				borrarCliente(c, nifCif);
+				for (CopiaFilas.Filas f : filas)
+					CopiaFilas.insertar(c, f, false);
+			});
+			// Desde aquí el cliente se lee del destino; lo que quede en el origen ya no es visible por su NIF/CIF
+			r.movidos().add(nifCif);
+			try {
+				enTransaccion(origen, c -> borrarCliente(c, nifCif));
+			} catch (RuntimeException e) {
+				r.restos().put(nifCif, idOrigen);
+			}
+			return true;
+		} finally {
+			escritura.unlock();
+		}
+	}
+
+	/**
+	 * Reintenta borrar del origen a los clientes movidos cuya copia antigua no se pudo borrar.
+	 *
+	 * @return clientes que siguen pendientes de borrar.
+	 */
+	public int borrarRestos() {
+		EstadoReparto r = reparto;
+		if (r == null)
+			return 0;
+		for (Map.Entry<String, Integer> resto : r.restos().entrySet()) {
+			try {
+				enTransaccion(fabricas.get(resto.getValue()), c -> borrarCliente(c, resto.getKey()));
+				r.restos().remove(resto.getKey());
+			} catch (RuntimeException e) {
+				// Sigue pendiente para el siguiente intento
+			}
+		}
+		return r.restos().size();
+	}
+
+	private static void borrarCliente(Connection conexion, String nifCif) throws SQLException {
+		for (int i = TABLAS_CLIENTE.length - 1; i >= 0; i--)
+			CopiaFilas.borrar(conexion, TABLAS_CLIENTE[i][0], TABLAS_CLIENTE[i][1], nifCif);
+	}
+
+	private static void enTransaccion(EntityManagerFactory emf, Work trabajo) {
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				session.doWork(trabajo);
+				tx.commit();
+			} catch (RuntimeException e) {
+				if (tx.isActive())
+					tx.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Cierra el reparto: el anillo de destino pasa a ser el actual. Espera a que terminen las operaciones de
+	 * clientes en curso. Antes hay que haber movido a todos los clientes ({@link Reparto}); los que se crean
+	 * durante el reparto nacen ya en su fragmento de destino.
+	 *
+	 * @throws IllegalStateException si no hay un reparto en curso o quedan copias sin borrar
+	 *                               ({@link #borrarRestos()}).
+	 */
+	public synchronized void completarReparto() {
+		EstadoReparto r = reparto;
+		if (r == null)
+			throw new IllegalStateException("No hay un reparto en curso.");
+		if (!r.restos().isEmpty())
+			throw new IllegalStateException(r.restos().size() + " clientes movidos siguen también en su origen.");
+		for (ReentrantReadWriteLock c : cerrojos)
+			c.writeLock().lock();
+		try {
+			anillo = r.destino();
+			reparto = null;
+		} finally {
+			for (ReentrantReadWriteLock c : cerrojos)
+				c.writeLock().unlock();
+		}
+	}
+
+	private ReentrantReadWriteLock cerrojo(String nifCif) {
+		return cerrojos[Math.floorMod(nifCif.hashCode(), NUM_CERROJOS)];
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+		if (cerrarFabricas)
+			fabricas.values().forEach(EntityManagerFactory::close);
+	}
+}
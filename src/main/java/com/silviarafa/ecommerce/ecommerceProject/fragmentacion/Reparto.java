@@ -0,0 +1,146 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Reparto en caliente de los clientes al añadir o quitar fragmentos.
+ * <p>
+ * Con el reparto ya iniciado ({@link Fragmentos#iniciarReparto}), recorre los NIF/CIF de cada fragmento de
+ * origen por clave ({@code nif_cif > :ultimo ORDER BY nif_cif}) en tramos de {@code tamanoTramo} y mueve los que
+ * cambian de fragmento ({@link Fragmentos#migrar}). Cada cliente se mueve con su propio cerrojo, así que la
+ * aplicación sigue atendiendo al resto mientras tanto. Repite pasadas hasta que una no mueve a nadie (los
+ * clientes que se crean durante el reparto ya nacen en su destino), reintenta borrar las copias que hayan quedado
+ * en el origen y cierra el reparto ({@link Fragmentos#completarReparto()}).
+ * </p>
+ * <p>
+ * El estado del reparto vive en el objeto {@link Fragmentos}: para repartir sin parar la aplicación se ejecuta
+ * desde la propia instancia que atiende las peticiones. {@link #main(String[])} es para repartir con la
+ * aplicación parada; si se interrumpe, se vuelve a lanzar con los mismos argumentos y continúa (los clientes ya
+ * movidos no están en el origen y la copia en el destino borra restos de un intento anterior).
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class Reparto {
+
+	public static final int TAMANO_TRAMO_DEFECTO = 500;
+
+	/* Pasadas como máximo antes de rendirse (cada una solo mueve lo que quedó pendiente en la anterior). */
+	private static final int MAX_PASADAS = 10;
+
+	/**
+	 * Resultado del reparto.
+	 */
+	public record Informe(long clientesRevisados, long clientesMovidos, int pasadas, Duration transcurrido) {
+
+		@Override
+		public String toString() {
+			return "Clientes revisados=" + clientesRevisados + ", movidos=" + clientesMovidos + ", pasadas=" + pasadas
+					+ ", tiempo=" + transcurrido.toMillis() + " ms.";
+		}
+	}
+
+	private final Fragmentos fragmentos;
+	private final int tamanoTramo;
+
+	public Reparto(Fragmentos fragmentos) {
+		this(fragmentos, TAMANO_TRAMO_DEFECTO);
+	}
+
+	public Reparto(Fragmentos fragmentos, int tamanoTramo) {
+		if (tamanoTramo <= 0)
+			throw new IllegalArgumentException("El tamaño de tramo debe ser positivo: " + tamanoTramo);
+		this.fragmentos = fragmentos;
+		this.tamanoTramo = tamanoTramo;
+	}
+
+	/**
+	 * Mueve a todos los clientes que cambian de fragmento y cierra el reparto.
+	 *
+	 * @throws IllegalStateException si no hay reparto en curso o no se consigue terminar.
+	 */
+	public Informe ejecutar() {
+		if (!fragmentos.enReparto())
+			throw new IllegalStateException("No hay un reparto en curso.");
+		long inicio = System.nanoTime();
+		long revisados = 0, movidos = 0;
+		int pasadas = 0;
+
+		long movidosPasada;
+		do {
+			if (++pasadas > MAX_PASADAS)
+				throw new IllegalStateException("El reparto no termina tras " + MAX_PASADAS + " pasadas.");
+			movidosPasada = 0;
+			for (int origen : fragmentos.anillo().fragmentos()) {
+				EntityManagerFactory emf = fragmentos.fabrica(origen);
+				String ultimo = "";
+				List<String> nifs;
+				while (!(nifs = siguientesNifs(emf, ultimo)).isEmpty()) {
+					revisados += nifs.size();
+					for (String nif : nifs) {
+						if (fragmentos.migrar(nif))
+							movidosPasada++;
+					}
+					ultimo = nifs.get(nifs.size() - 1);
+				}
+			}
+			movidos += movidosPasada;
+		} while (movidosPasada > 0);
+
+		int restos = fragmentos.borrarRestos();
+		if (restos > 0)
+			throw new IllegalStateException(restos + " clientes movidos no se han podido borrar de su origen;"
+					+ " vuelva a ejecutar el reparto.");
+		fragmentos.completarReparto();
+		return new Informe(revisados, movidos, pasadas, Duration.ofNanos(System.nanoTime() - inicio));
+	}
+
+	private List<String> siguientesNifs(EntityManagerFactory emf, String ultimo) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT c.nifCif FROM Cliente c WHERE c.nifCif > :ultimo ORDER BY c.nifCif",
+					String.class)
+					.setParameter("ultimo", ultimo)
+					.setMaxResults(tamanoTramo)
+					.getResultList();
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Reparte con la aplicación parada: {@code Reparto <fragmentos actuales> <fragmentos de destino>}, ambos
+	 * como {@code "id=url,id=url,..."}. Los fragmentos del destino que no están en el actual se abren vacíos
+	 * (esquema creado) y reciben el catálogo.
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Uso: Reparto <id=url,... actuales> <id=url,... destino>");
+			System.exit(2);
+		}
+		Map<Integer, String> actuales = Fragmentos.parsear(args[0]);
+		Map<Integer, String> destino = Fragmentos.parsear(args[1]);
+
+		Map<Integer, EntityManagerFactory> nuevos = new HashMap<>();
+		try (Fragmentos fragmentos = Fragmentos.abrir(args[0])) {
+			destino.forEach((id, url) -> {
+				if (!actuales.containsKey(id))
+					nuevos.put(id, Fragmentos.crearFabrica(id, url, false)); // el catálogo sigue en su fragmento
+			});
+			System.out.println("\n--- REPARTO " + fragmentos.anillo() + " -> " + destino.keySet() + " ---");
+			fragmentos.iniciarReparto(nuevos, destino.keySet());
+			Informe informe = new Reparto(fragmentos).ejecutar();
+			System.out.println(informe);
+		} finally {
+			nuevos.values().forEach(EntityManagerFactory::close);
+		}
+	}
+}
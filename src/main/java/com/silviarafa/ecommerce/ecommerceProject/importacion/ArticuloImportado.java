@@ -0,0 +1,36 @@
+package com.silviarafa.ecommerce.ecommerceProject.importacion;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila del catálogo de un proveedor tal como llega en el fichero de importación.
+ * <p>
+ * Los nombres de los componentes son los nombres de columna (CSV con cabecera) o de propiedad (NDJSON):
+ * {@code referencia, nombre, descripcion, precio, stock}.
+ * </p>
+ *
+ * @param referencia  Clave del artículo en el catálogo del proveedor (obligatoria).
+ * @param nombre      Nombre del artículo (obligatorio).
+ * @param descripcion Descripción.
+ * @param precio      Precio actual.
+ * @param stock       Unidades iniciales; solo se usan si el artículo es nuevo.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record ArticuloImportado(String referencia, String nombre, String descripcion, BigDecimal precio,
+		Integer stock) {
+
+	/**
+	 * Comprueba los campos obligatorios.
+	 *
+	 * @throws IllegalArgumentException si falta la referencia o el nombre.
+	 */
+	public void validar() {
+		if (referencia == null || referencia.isBlank())
+			throw new IllegalArgumentException("Artículo sin referencia de proveedor: " + this);
+		if (nombre == null || nombre.isBlank())
+			throw new IllegalArgumentException("Artículo sin nombre: " + referencia);
+	}
+}
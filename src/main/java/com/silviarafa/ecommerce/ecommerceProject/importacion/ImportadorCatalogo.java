@@ -0,0 +1,346 @@
+package com.silviarafa.ecommerce.ecommerceProject.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.silviarafa.ecommerce.ecommerceProject.busqueda.IndiceArticulos;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Importación masiva del catálogo de un proveedor desde CSV (con cabecera) o NDJSON (un objeto JSON por línea).
+ * <p>
+ * El fichero se lee en streaming (Jackson {@link MappingIterator}) y se procesa en lotes de
+ * {@code tamanoLote} filas; cada lote es una transacción independiente sobre una {@link StatelessSession}.
+ * En memoria solo hay un lote a la vez, así que el heap no crece con el tamaño del fichero
+ * y no hay contexto de persistencia que limpiar (a diferencia del patrón persist/flush/clear de {@code crearArticulo}).
+ * </p>
+ * <p>
+ * Cada fila se escribe con un {@code INSERT ... ON DUPLICATE KEY UPDATE} sobre la clave única
+ * {@code referencia_proveedor}: inserta los artículos nuevos y actualiza los existentes. Las sentencias se
+ * envían en lotes JDBC de {@code tamanoBatchJdbc}. No se usa {@code insert()} de la sesión porque
+ * {@code Articulo} tiene id IDENTITY, que impide a Hibernate agrupar los INSERT, y porque el upsert es por
+ * la clave del proveedor y no por el id.
+ * </p>
+ * <p>
+ * El stock del fichero solo se usa para los artículos nuevos: el de los existentes lo llevan las ventas
+ * ({@code StockBD}, el libro de stock) y el proveedor no lo conoce. Un artículo existente que vuelve a llegar
+ * en el catálogo deja de estar retirado.
+ * </p>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Si un lote falla se hace rollback solo de ese lote; los anteriores ya están confirmados y la
+ *   importación continúa con el siguiente.</li>
+ *   <li>Las filas sin referencia o sin nombre se descartan y se cuentan como rechazadas.</li>
+ *   <li>Un error de formato en el fichero detiene la importación (los lotes confirmados se mantienen).</li>
+ *   <li>Como las escrituras no pasan por el contexto de persistencia, tras cada lote se desalojan de la caché
+ *   solo los artículos escritos (sus ids se leen por referencia en la misma transacción) y la región del
+ *   catálogo ({@value Articulo#REGION_CATALOGO}), que lista los artículos, y se avisa al índice de búsqueda
+ *   ({@link IndiceArticulos}) para que relea los artículos del lote.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ImportadorCatalogo {
+
+	public static final int TAMANO_LOTE_DEFECTO = 5000;
+	public static final int TAMANO_BATCH_JDBC_DEFECTO = 500;
+
+	/* Máximo de mensajes de error que se guardan, para no acumular memoria con ficheros muy sucios. */
+	private static final int MAX_ERRORES = 100;
+
+	private static final String UPSERT = "INSERT INTO articulo"
+			+ " (referencia_proveedor, nombre, descripcion, precio_actual, stock, retirado, version)"
+			+ " VALUES (?, ?, ?, ?, ?, FALSE, 0)"
+			+ " ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), descripcion = VALUES(descripcion),"
+			+ " precio_actual = VALUES(precio_actual), retirado = FALSE, version = version + 1";
+
+	/**
+	 * Formato del fichero de entrada.
+	 */
+	public enum Formato {
+		CSV, NDJSON;
+
+		/** Deduce el formato de la extensión ({@code .csv}, {@code .ndjson} o {@code .jsonl}). */
+		public static Formato deFichero(Path fichero) {
+			String nombre = fichero.getFileName().toString().toLowerCase();
+			if (nombre.endsWith(".csv"))
+				return CSV;
+			if (nombre.endsWith(".ndjson") || nombre.endsWith(".jsonl"))
+				return NDJSON;
+			throw new IllegalArgumentException("Formato de fichero no soportado: " + fichero);
+		}
+	}
+
+	/**
+	 * Estado de la importación tras cada lote.
+	 */
+	public record Progreso(long filasLeidas, long filasEscritas, long filasRechazadas, int lotesOk,
+			int lotesFallidos, Duration transcurrido) {
+
+		public double filasPorSegundo() {
+			long ms = transcurrido.toMillis();
+			return ms > 0 ? filasEscritas * 1000.0 / ms : 0.0;
+		}
+
+		@Override
+		public String toString() {
+			return "Leídas=" + filasLeidas + ", escritas=" + filasEscritas + ", rechazadas=" + filasRechazadas
+					+ ", lotes OK=" + lotesOk + ", lotes fallidos=" + lotesFallidos
+					+ String.format(", %.0f filas/s", filasPorSegundo()) + '.';
+		}
+	}
+
+	/**
+	 * Resultado final: totales y los primeros mensajes de error.
+	 */
+	public record Resultado(Progreso totales, List<String> errores) {
+	}
+
+	private final SessionFactory sessionFactory;
+	private final int tamanoLote;
+	private final int tamanoBatchJdbc;
+	private Consumer<Progreso> observador = p -> {
+	};
+
+	// Contadores de la importación en curso
+	private long inicio;
+	private long filasLeidas;
+	private long filasEscritas;
+	private long filasRechazadas;
+	private int lotesOk;
+	private int lotesFallidos;
+	private List<String> errores;
+
+	public ImportadorCatalogo(EntityManagerFactory emf) {
+		this(emf, TAMANO_LOTE_DEFECTO, TAMANO_BATCH_JDBC_DEFECTO);
+	}
+
+	public ImportadorCatalogo(EntityManagerFactory emf, int tamanoLote, int tamanoBatchJdbc) {
+		if (tamanoLote <= 0 || tamanoBatchJdbc <= 0)
+			throw new IllegalArgumentException("Los tamaños de lote deben ser positivos.");
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.tamanoLote = tamanoLote;
+		this.tamanoBatchJdbc = tamanoBatchJdbc;
+	}
+
+	/**
+	 * Registra un observador al que se notifica el progreso después de cada lote.
+	 */
+	public ImportadorCatalogo alProgresar(Consumer<Progreso> observador) {
+		this.observador = observador;
+		return this;
+	}
+
+	/**
+	 * Importa el fichero indicado, deduciendo el formato por la extensión.
+	 */
+	public Resultado importar(Path fichero) throws IOException {
+		try (Reader entrada = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+			return importar(entrada, Formato.deFichero(fichero));
+		}
+	}
+
+	/**
+	 * Importa el contenido de {@code entrada} en el formato indicado.
+	 *
+	 * @throws IOException si falla la lectura o el fichero está mal formado.
+	 */
+	public synchronized Resultado importar(Reader entrada, Formato formato) throws IOException {
+		inicio = System.nanoTime();
+		filasLeidas = filasEscritas = filasRechazadas = 0;
+		lotesOk = lotesFallidos = 0;
+		errores = new ArrayList<>();
+
+		List<ArticuloImportado> lote = new ArrayList<>(tamanoLote);
+		try (MappingIterator<ArticuloImportado> filas = lector(formato).readValues(entrada)) {
+			while (filas.hasNextValue()) {
+				ArticuloImportado fila = filas.nextValue();
+				filasLeidas++;
+				try {
+					fila.validar();
+				} catch (IllegalArgumentException iae) {
+					filasRechazadas++;
+					anotarError("Fila " + filasLeidas + ": " + iae.getMessage());
+					continue;
+				}
+
+				lote.add(fila);
+				if (lote.size() == tamanoLote) {
+					escribirLote(lote);
+					lote.clear();
+				}
+			}
+		}
+		if (!lote.isEmpty())
+			escribirLote(lote);
+
+		return new Resultado(progreso(), List.copyOf(errores));
+	}
+
+	private void escribirLote(List<ArticuloImportado> lote) {
+		int numLote = lotesOk + lotesFallidos + 1;
+		List<Integer> escritos = new ArrayList<>(lote.size());
+
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				session.doWork(conexion -> {
+					try (PreparedStatement ps = conexion.prepareStatement(UPSERT)) {
+						int pendientes = 0;
+						List<String> referencias = new ArrayList<>(tamanoBatchJdbc);
+						for (ArticuloImportado a : lote) {
+							ps.setString(1, a.referencia());
+							ps.setString(2, a.nombre());
+							ps.setString(3, a.descripcion());
+							if (a.precio() != null)
+								ps.setBigDecimal(4, a.precio());
+							else
+								ps.setNull(4, Types.DECIMAL);
+							if (a.stock() != null)
+								ps.setInt(5, a.stock());
+							else
+								ps.setNull(5, Types.INTEGER);
+							ps.addBatch();
+							referencias.add(a.referencia());
+
+							if (++pendientes == tamanoBatchJdbc) {
+								ps.executeBatch();
+								escritos.addAll(ids(conexion, referencias));
+								referencias.clear();
+								pendientes = 0;
+							}
+						}
+						if (pendientes > 0) {
+							ps.executeBatch();
+							escritos.addAll(ids(conexion, referencias));
+						}
+					}
+				});
+				tx.commit();
+
+				lotesOk++;
+				filasEscritas += lote.size();
+				IndiceArticulos.notificarReferencias(sessionFactory,
+						lote.stream().map(ArticuloImportado::referencia).toList());
+			} catch (RuntimeException e) {
+				if (tx.isActive())
+					tx.rollback();
+				lotesFallidos++;
+				anotarError("Lote " + numLote + " (" + lote.size() + " filas, referencias " + lote.get(0).referencia()
+						+ " .. " + lote.get(lote.size() - 1).referencia() + "): " + e.getMessage());
+				escritos.clear();
+			}
+		}
+
+		// Las escrituras JDBC no invalidan la caché de segundo nivel por sí solas
+		escritos.forEach(id -> sessionFactory.getCache().evictEntityData(Articulo.class, id));
+		if (!escritos.isEmpty())
+			sessionFactory.getCache().evictQueryRegion(Articulo.REGION_CATALOGO);
+
+		observador.accept(progreso());
+	}
+
+	/* Ids de los artículos con las referencias dadas, en la conexión (y la transacción) del lote. */
+	private static List<Integer> ids(Connection conexion, List<String> referencias) throws SQLException {
+		String marcas = String.join(", ", Collections.nCopies(referencias.size(), "?"));
+		List<Integer> ids = new ArrayList<>(referencias.size());
+		try (PreparedStatement ps = conexion
+				.prepareStatement("SELECT id FROM articulo WHERE referencia_proveedor IN (" + marcas + ")")) {
+			for (int i = 0; i < referencias.size(); i++)
+				ps.setString(i + 1, referencias.get(i));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next())
+					ids.add(rs.getInt(1));
+			}
+		}
+		return ids;
+	}
+
+	private ObjectReader lector(Formato formato) {
+		if (formato == Formato.CSV) {
+			CsvMapper csv = new CsvMapper();
+			csv.enable(CsvParser.Feature.TRIM_SPACES);
+			csv.enable(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+			return csv.readerFor(ArticuloImportado.class)
+					.with(CsvSchema.emptySchema().withHeader())
+					.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		}
+		return new ObjectMapper().readerFor(ArticuloImportado.class)
+				.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	}
+
+	private Progreso progreso() {
+		return new Progreso(filasLeidas, filasEscritas, filasRechazadas, lotesOk, lotesFallidos,
+				Duration.ofNanos(System.nanoTime() - inicio));
+	}
+
+	private void anotarError(String mensaje) {
+		if (errores.size() < MAX_ERRORES)
+			errores.add(mensaje);
+	}
+
+	/**
+	 * Importa un fichero desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code ImportadorCatalogo <fichero.csv|fichero.ndjson> [tamañoLote]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: ImportadorCatalogo <fichero.csv|fichero.ndjson> [tamañoLote]");
+			return;
+		}
+
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			int tamanoLote = args.length > 1 ? Integer.parseInt(args[1]) : TAMANO_LOTE_DEFECTO;
+
+			ImportadorCatalogo importador = new ImportadorCatalogo(emf, tamanoLote, TAMANO_BATCH_JDBC_DEFECTO)
+					.alProgresar(p -> System.out.println("  " + p));
+
+			System.out.println("\n--- IMPORTANDO CATÁLOGO: " + args[0] + " ---");
+			Resultado r = importador.importar(Paths.get(args[0]));
+
+			System.out.println("\nTOTAL: " + r.totales());
+			r.errores().forEach(e -> System.out.println("  - " + e));
+		} catch (IOException ioe) {
+			System.err.println("\nERROR DE LECTURA: " + ioe.getMessage());
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
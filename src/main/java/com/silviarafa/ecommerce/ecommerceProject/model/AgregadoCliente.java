@@ -0,0 +1,127 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Agregados históricos de las compras de un cliente: número de compras, gasto total y fecha de la última compra.
+ * <p>
+ * Esta entidad se mapea a la tabla {@code cliente_agregado}. Los valores se guardan ya calculados y se
+ * actualizan en la misma transacción que crea la compra ({@code OperacionesCompra.registrar}), de modo que
+ * leerlos es una búsqueda por clave primaria de una sola fila en lugar de agregar todas las compras.
+ * La tabla se mantiene aparte de {@code cliente} para que la edición de los datos del cliente (que escribe
+ * la entidad completa) no pise los contadores ni compita por la misma fila con las compras.
+ * </p>
+ * <h3>Relaciones</h3>
+ * <ul>
+ *     <li><b>Cliente (One-to-One):</b> Clave primaria compartida con {@link Cliente}; la fila se borra con el cliente.</li>
+ * </ul>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Entity
+@Table(name = "cliente_agregado")
+public class AgregadoCliente {
+
+	// Clave primaria compartida con 'Cliente'
+	@Id
+	@Column(name = "nif_cif")
+	private String nifCif;
+
+	@Column(name = "num_compras", nullable = false)
+	private long numCompras;
+
+	@Column(name = "gasto_total", precision = 12, scale = 2, nullable = false)
+	private BigDecimal gastoTotal = BigDecimal.ZERO;
+
+	@Column(name = "fecha_ultima_compra")
+	private LocalDateTime fechaUltimaCompra;
+
+	// Relación 1:1 con clave primaria compartida
+	@OneToOne(fetch = FetchType.LAZY)
+	@MapsId
+	@JoinColumn(name = "nif_cif")
+	private Cliente cliente;
+
+	public AgregadoCliente() {
+	}
+
+	public AgregadoCliente(Cliente cliente) {
+		this.cliente = cliente;
+		this.nifCif = cliente.getNifCif();
+	}
+
+	public String getNifCif() {
+		return nifCif;
+	}
+
+	public long getNumCompras() {
+		return numCompras;
+	}
+
+	public void setNumCompras(long numCompras) {
+		this.numCompras = numCompras;
+	}
+
+	public BigDecimal getGastoTotal() {
+		return gastoTotal;
+	}
+
+	public void setGastoTotal(BigDecimal gastoTotal) {
+		this.gastoTotal = gastoTotal;
+	}
+
+	public LocalDateTime getFechaUltimaCompra() {
+		return fechaUltimaCompra;
+	}
+
+	public void setFechaUltimaCompra(LocalDateTime fechaUltimaCompra) {
+		this.fechaUltimaCompra = fechaUltimaCompra;
+	}
+
+	public Cliente getCliente() {
+		return cliente;
+	}
+
+	// --- toString, equals, hashCode ---
+
+	@Override
+	public String toString() {
+		return "Agregados del cliente: NIF/CIF=" + nifCif + ", Compras=" + numCompras + ", Gasto total=" + gastoTotal
+				+ ", Última compra=" + fechaUltimaCompra + '.';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		AgregadoCliente otro = (AgregadoCliente) o;
+
+		// Si ambos son nuevos (id null), compara por referencia
+		if (nifCif == null && otro.nifCif == null)
+			return false;
+
+		return Objects.equals(nifCif, otro.nifCif);
+	}
+
+	@Override
+	public int hashCode() {
+		return nifCif != null ? nifCif.hashCode() : System.identityHashCode(this);
+	}
+}
@@ -1,19 +1,29 @@
 package com.silviarafa.ecommerce.ecommerceProject.model;
 
-import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.LazyGroup;
+
 import jakarta.persistence.Basic;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * Representa un artículo en la tienda online.
@@ -26,15 +36,50 @@ import jakarta.persistence.Table;
  * <ul>
  *     <li><b>ArticuloCompra (One-to-Many):</b> Un artículo puede estar presente en muchas líneas de compra. La relación es gestionada por la entidad {@link ArticuloCompra}.</li>
  * </ul>
+ * <h3>Caché</h3>
+ * <p>
+ * El catálogo es de lectura mayoritaria, así que la entidad se guarda en la caché de segundo nivel
+ * (región {@value #REGION_CACHE}, configurada en {@code ehcache.xml}). Con la estrategia READ_WRITE
+ * Hibernate actualiza o invalida la entrada al hacer commit de cualquier cambio sobre la entidad,
+ * y las consultas cacheadas sobre {@code articulo} se invalidan por la marca de tiempo de la tabla.
+ * </p>
+ * <h3>Borrado lógico</h3>
+ * <p>
+ * Un artículo retirado no se borra: se marca con {@code retirado = true}. El filtro {@value #FILTRO_VIGENTES}
+ * está activo automáticamente en todas las sesiones, así que toda consulta HQL/Criteria sobre
+ * {@code Articulo} (listados, búsquedas, el libro de stock) excluye los retirados sin tocar cada consulta.
+ * El filtro no se aplica a la carga por clave ({@code find} o la asociación {@code ArticuloCompra.articulo}),
+ * de modo que las líneas de compras antiguas siguen resolviendo su artículo. El índice
+ * {@code articulo_retirado_IX (retirado, id)} permite recorrer solo el catálogo vigente.
+ * </p>
+ * <h3>Carga perezosa</h3>
+ * <p>
+ * La clase se mejora en compilación ({@code hibernate-maven-plugin}), así que {@code descripcion} (TEXT) no
+ * viaja en los listados: se lee con su propia consulta (grupo {@code descripcion}) la primera vez que se accede.
+ * Los cambios se detectan en línea, sin comparar el estado completo al hacer flush.
+ * </p>
  *
  * @author Rafael Robles
  * @version 1.0
  * @since 2025-11-30
  */
 @Entity
-@Table(name = "articulo")
+@Table(name = "articulo", indexes = @Index(name = "articulo_retirado_IX", columnList = "retirado, id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Articulo.REGION_CACHE)
+@FilterDef(name = Articulo.FILTRO_VIGENTES, defaultCondition = "retirado = false", autoEnabled = true)
+@Filter(name = Articulo.FILTRO_VIGENTES)
 public class Articulo {
 
+	/** Región de la caché de segundo nivel para la entidad. */
+	public static final String REGION_CACHE = "articulo";
+
+	/** Región de la caché de consultas para los listados del catálogo. */
+	public static final String REGION_CATALOGO = "catalogo";
+
+	/** Filtro (activo por defecto) que excluye los artículos retirados de las consultas. */
+	public static final String FILTRO_VIGENTES = "articulosVigentes";
+
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name = "id")
@@ -45,14 +90,29 @@ public class Articulo {
 
 	@Column(name = "descripcion", columnDefinition = "text")
 	@Basic(fetch = FetchType.LAZY)
+	@LazyGroup("descripcion")
 	private String descripcion;
 
 	@Column(name = "precio_actual", precision = 10, scale = 2)
-	private BigDecimal precioActual;
+	@Convert(converter = DineroConverter.class)
+	private Dinero precioActual;
 
 	@Column(name = "stock")
 	private Integer stock;
 
+	// Clave del artículo en el catálogo del proveedor (única; null en artículos dados de alta a mano)
+	@Column(name = "referencia_proveedor", length = 64, unique = true)
+	private String referenciaProveedor;
+
+	// Bloqueo optimista: una edición concurrente sobre una versión antigua falla con OptimisticLockException
+	@Version
+	@Column(name = "version", nullable = false)
+	private Integer version;
+
+	// Borrado lógico: el artículo deja de estar a la venta pero su fila se conserva para el histórico
+	@Column(name = "retirado", nullable = false)
+	private boolean retirado;
+
 	@OneToMany(mappedBy = "articulo", fetch = FetchType.LAZY) // Para que JPA no borre ArticuloCompra cuando se borre Articulo.
 	private Set<ArticuloCompra> compras = new HashSet<>();
 
@@ -67,6 +127,18 @@ public class Articulo {
 		this.id = id;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
+	public boolean isRetirado() {
+		return retirado;
+	}
+
+	public void setRetirado(boolean retirado) {
+		this.retirado = retirado;
+	}
+
 	public String getNombre() {
 		return nombre;
 	}
@@ -83,11 +155,11 @@ public class Articulo {
 		this.descripcion = descripcion;
 	}
 
-	public BigDecimal getPrecioActual() {
+	public Dinero getPrecioActual() {
 		return precioActual;
 	}
 
-	public void setPrecioActual(BigDecimal precioActual) {
+	public void setPrecioActual(Dinero precioActual) {
 		this.precioActual = precioActual;
 	}
 
@@ -99,6 +171,14 @@ public class Articulo {
 		this.stock = stock;
 	}
 
+	public String getReferenciaProveedor() {
+		return referenciaProveedor;
+	}
+
+	public void setReferenciaProveedor(String referenciaProveedor) {
+		this.referenciaProveedor = referenciaProveedor;
+	}
+
 	public Set<ArticuloCompra> getCompras() {
 		return compras;
 	}
@@ -119,7 +199,9 @@ public class Articulo {
 
 	@Override
 	public String toString() {
-		return nombre + ", Descripción=" + descripcion + ", Precio Actual=" + precioActual + ", Stock=" + stock + ".";
+		// La descripción solo se muestra si ya está cargada: toString no debe disparar consultas
+		return nombre + (Hibernate.isPropertyInitialized(this, "descripcion") ? ", Descripción=" + descripcion : "")
+				+ ", Precio Actual=" + precioActual + ", Stock=" + stock + ".";
 	}
 	/*
 	public String toString() {
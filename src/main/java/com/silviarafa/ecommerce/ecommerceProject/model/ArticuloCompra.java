@@ -1,10 +1,10 @@
 package com.silviarafa.ecommerce.ecommerceProject.model;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.util.Objects;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
@@ -60,12 +60,13 @@ public class ArticuloCompra {
 	private Integer unidades;
 
 	@Column(name = "precio_compra", precision = 10, scale = 2)
-	private BigDecimal precioCompra;
+	@Convert(converter = DineroConverter.class)
+	private Dinero precioCompra;
 
 	public ArticuloCompra() {
 	}
 
-	public ArticuloCompra(Articulo articulo, Compra compra, Integer unidades, BigDecimal precioCompra) {
+	public ArticuloCompra(Articulo articulo, Compra compra, Integer unidades, Dinero precioCompra) {
 		this.articulo = articulo;
 		this.compra = compra;
 		this.unidades = unidades;
@@ -117,11 +118,11 @@ public class ArticuloCompra {
 		this.unidades = unidades;
 	}
 
-	public BigDecimal getPrecioCompra() {
+	public Dinero getPrecioCompra() {
 		return precioCompra;
 	}
 
-	public void setPrecioCompra(BigDecimal precioCompra) {
+	public void setPrecioCompra(Dinero precioCompra) {
 		this.precioCompra = precioCompra;
 	}
 
@@ -148,7 +149,8 @@ public class ArticuloCompra {
 
 	@Override
 	public int hashCode() {
-		return (id != null && id.getArticuloId() != null && id.getCompraId() != null) ? Objects.hash(id)
+		// Mismo valor que Objects.hash(id), sin el array de varargs
+		return (id != null && id.getArticuloId() != null && id.getCompraId() != null) ? 31 + id.hashCode()
 				: System.identityHashCode(this);
 	}
 
@@ -218,7 +220,8 @@ public class ArticuloCompra {
 
 		@Override
 		public int hashCode() {
-			return (articuloId != null && compraId != null) ? Objects.hash(articuloId, compraId)
+			// Mismo valor que Objects.hash(articuloId, compraId), sin reservar el array de varargs en cada llamada
+			return (articuloId != null && compraId != null) ? 31 * (31 + articuloId.hashCode()) + compraId.hashCode()
 				: System.identityHashCode(this);
 		}
 	}
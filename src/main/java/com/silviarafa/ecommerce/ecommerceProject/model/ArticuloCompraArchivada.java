@@ -0,0 +1,72 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Línea de una compra archivada ({@link CompraArchivada}), movida de {@code articulo_compra} a la tabla fría
+ * {@code articulo_compra_archivo}.
+ * <p>
+ * Misma clave compuesta que {@link ArticuloCompra} ({@link ArticuloCompra.ArticuloCompraId}), pero sin
+ * asociaciones ni claves foráneas: los ids se leen tal cual. No tiene setters: las filas solo las escribe el archivado.
+ * </p>
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Entity
+@Table(name = "articulo_compra_archivo", indexes = {
+		@Index(name = "articulo_compra_archivo_compra_IX", columnList = "compra_id") })
+public class ArticuloCompraArchivada {
+
+	@EmbeddedId
+	private ArticuloCompra.ArticuloCompraId id;
+
+	@Column(name = "unidades")
+	private Integer unidades;
+
+	@Column(name = "precio_compra", precision = 10, scale = 2)
+	@Convert(converter = DineroConverter.class)
+	private Dinero precioCompra;
+
+	public ArticuloCompraArchivada() {
+	}
+
+	public ArticuloCompra.ArticuloCompraId getId() {
+		return id;
+	}
+
+	public Integer getUnidades() {
+		return unidades;
+	}
+
+	public Dinero getPrecioCompra() {
+		return precioCompra;
+	}
+
+	@Override
+	public String toString() {
+		return "ArticuloCompraArchivada{" + "articuloId=" + id.getArticuloId() + ", compraId=" + id.getCompraId()
+				+ ", unidades=" + unidades + ", precioCompra=" + precioCompra + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof ArticuloCompraArchivada that))
+			return false;
+		return id != null && id.equals(that.id);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(id);
+	}
+}
@@ -5,11 +5,15 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.LazyGroup;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
@@ -26,13 +30,25 @@ import jakarta.persistence.Table;
  *     <li><b>InformacionFiscal (One-to-One):</b> Cada cliente tiene una única información fiscal asociada. La relación es gestionada por la entidad {@link InformacionFiscal}.</li>
  *     <li><b>Compra (One-to-Many):</b> Un cliente puede tener múltiples compras asociadas. La relación es gestionada por la entidad {@link Compra}.</li>
  * </ul>
+ * <h3>Índices</h3>
+ * <p>
+ * El email es único ({@code cliente_email_UX}): el alta comprueba duplicados por índice y la BD rechaza los que
+ * lleguen a la vez. Sin email se guarda {@code NULL}, que puede repetirse.
+ * </p>
+ * <h3>Carga perezosa</h3>
+ * <p>
+ * {@code informacionFiscal} es el lado inverso ({@code mappedBy}) de la relación 1:1: sin la FK en
+ * {@code cliente}, Hibernate solo puede no cargarla si la clase está mejorada en compilación
+ * ({@code hibernate-maven-plugin}). Así {@code find(Cliente)} lanza una sola consulta y la información fiscal
+ * (grupo {@code fiscal}) se lee al acceder a ella.
+ * </p>
  *
  * @author Silvia Balmaseda
  * @version 1.0
  * @since 2025-11-28
  */
 @Entity
-@Table(name = "cliente")
+@Table(name = "cliente", indexes = @Index(name = "cliente_email_UX", columnList = "email", unique = true))
 public class Cliente {
 
 	@Id
@@ -42,7 +58,8 @@ public class Cliente {
 	@Column(name = "nombre_completo", nullable = false)
 	private String nombreCompleto;
 
-	@Column(name = "email", nullable = true, unique = false)
+	// Único mediante cliente_email_UX (NULL no cuenta como repetido)
+	@Column(name = "email", nullable = true)
 	private String email;
 
 	@Column(name = "fecha_registro", nullable = true)
@@ -50,6 +67,7 @@ public class Cliente {
 
 	// --- RELACIÓN 1:1 ---
 	@OneToOne(mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+	@LazyGroup("fiscal")
 	private InformacionFiscal informacionFiscal;
 
 	// --- RELACIÓN 1:N ---
@@ -136,6 +154,13 @@ public class Cliente {
 		compra.setCliente(null);
 	}
 
+	/**
+	 * Número de compras de la colección en memoria.
+	 * <p>
+	 * Ojo: inicializa la colección LAZY {@code compras} completa. Para conocer solo el número
+	 * usar {@code ConsultasCliente.numCompras} o {@code ConsultasCliente.resumen}, que lo calculan en SQL.
+	 * </p>
+	 */
 	public int getNumCompras() {
 		return compras != null ? compras.size() : 0;
 	}
@@ -146,8 +171,10 @@ public class Cliente {
 	public String toString() {
 		return "Cliente: " + "NIF/CIF=" + nifCif + ", Nombre Completo=" + nombreCompleto + ", Email="
 				+ email + ", Fecha Registro=" + fechaRegistro + ".\n"
-				+ (informacionFiscal != null ? informacionFiscal.toString() : "Sin información fiscal") 
-				+ "\nNúmero de compras=" + getNumCompras() + '.';
+				// Las relaciones solo se muestran si ya están cargadas: toString no debe disparar consultas
+				+ (!Hibernate.isPropertyInitialized(this, "informacionFiscal") ? ""
+						: informacionFiscal != null ? informacionFiscal.toString() : "Sin información fiscal")
+				+ (Hibernate.isInitialized(compras) ? "\nNúmero de compras=" + getNumCompras() + '.' : "");
 	}
 
 	@Override
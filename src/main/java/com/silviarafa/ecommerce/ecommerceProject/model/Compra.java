@@ -1,21 +1,24 @@
 package com.silviarafa.ecommerce.ecommerceProject.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * Entidad que representa la cabecera de una compra, incluyendo detalles como dirección de entrega,
@@ -30,12 +33,15 @@ import jakarta.persistence.Table;
  *   <li><b>estado</b>: Estado actual de la compra (e.g., pendiente, completada).</li>
  *   <li><b>direccionEntrega</b>: Dirección donde se entregarán los productos.</li>
  *   <li><b>precioTotal</b>: Precio total de la compra.</li>
+ *   <li><b>version</b>: Versión para el bloqueo optimista.</li>
  *   <li><b>cliente</b>: Referencia al cliente que realizó la compra.</li>
  *   <li><b>lineas</b>: Conjunto de líneas de artículos asociadas a esta compra.</li>
  * </ul>
  * <h3>Observaciones</h3>
  * <ul>
  *   <li>Carga LAZY en las asociaciones para optimizar rendimiento.</li>
+ *   <li>El id se obtiene de la secuencia {@code compra_seq} (pooled) y no de IDENTITY, para que
+ *   Hibernate pueda agrupar en lotes JDBC los INSERT de cabecera y líneas.</li>
  *   <li>No se aplican cascadas hacia el cliente para evitar modificaciones accidentales.</li>
  *   <li>equals y hashCode basados en el identificador único.</li>
  * </ul>
@@ -44,11 +50,14 @@ import jakarta.persistence.Table;
  * @since 2025-11-30
  */
 @Entity
-@Table(name = "compra")
+@Table(name = "compra", indexes = {
+		@Index(name = "compra_cliente_fecha_IX", columnList = "cliente_nif_cif, fecha_compra, id"),
+		@Index(name = "compra_fecha_IX", columnList = "fecha_compra") })
 public class Compra {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compra_seq")
+	@SequenceGenerator(name = "compra_seq", sequenceName = "compra_seq", allocationSize = 50)
 	@Column(name = "id")
 	private Integer id;
 
@@ -62,7 +71,13 @@ public class Compra {
 	private String direccionEntrega;
 
 	@Column(name = "precio_total", precision = 10, scale = 2, nullable = false)
-	private BigDecimal precioTotal;
+	@Convert(converter = DineroConverter.class)
+	private Dinero precioTotal;
+
+	// Bloqueo optimista: una edición concurrente sobre una versión antigua falla con OptimisticLockException
+	@Version
+	@Column(name = "version", nullable = false)
+	private Integer version;
 
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "cliente_nif_cif", nullable = true) // aquí nullable permite asignar null a compras antes de borrar al cliente
@@ -82,6 +97,10 @@ public class Compra {
 		this.id = id;
 	}
 
+	public Integer getVersion() {
+		return version;
+	}
+
 	public LocalDateTime getFechaCompra() {
 		return fechaCompra;
 	}
@@ -106,11 +125,11 @@ public class Compra {
 		this.direccionEntrega = direccionEntrega;
 	}
 
-	public BigDecimal getPrecioTotal() {
+	public Dinero getPrecioTotal() {
 		return precioTotal;
 	}
 
-	public void setPrecioTotal(BigDecimal precioTotal) {
+	public void setPrecioTotal(Dinero precioTotal) {
 		this.precioTotal = precioTotal;
 	}
 
@@ -0,0 +1,119 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Cabecera de una compra archivada: una compra cerrada y antigua que se ha movido de {@code compra} a la tabla
+ * fría {@code compra_archivo} ({@code archivo.ArchivadoCompras}).
+ * <p>
+ * Tiene las mismas columnas que {@link Compra} más {@code fecha_archivo}, y conserva el id. El cliente se guarda
+ * como NIF/CIF sin asociación ni clave foránea: las tablas de archivo no tienen restricciones para que mover
+ * filas sea barato. No tiene setters: las filas las escribe el archivado y la única modificación
+ * posterior es la anonimización al borrar el cliente (UPDATE masivo).
+ * </p>
+ * <h3>Campos</h3>
+ * <ul>
+ *   <li><b>id</b>: Id que tenía la compra en {@code compra}.</li>
+ *   <li><b>fechaCompra, estado, direccionEntrega, precioTotal, version</b>: Valores de la compra al archivarla.</li>
+ *   <li><b>clienteNifCif</b>: NIF/CIF del cliente ({@code null} si se borró el cliente).</li>
+ *   <li><b>fechaArchivo</b>: Momento en que se archivó.</li>
+ * </ul>
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Entity
+@Table(name = "compra_archivo", indexes = {
+		@Index(name = "compra_archivo_cliente_fecha_IX", columnList = "cliente_nif_cif, fecha_compra, id") })
+public class CompraArchivada {
+
+	@Id
+	@Column(name = "id")
+	private Integer id;
+
+	@Column(name = "fecha_compra")
+	private LocalDateTime fechaCompra;
+
+	@Column(name = "estado")
+	private String estado;
+
+	@Column(name = "direccion_entrega")
+	private String direccionEntrega;
+
+	@Column(name = "precio_total", precision = 10, scale = 2, nullable = false)
+	@Convert(converter = DineroConverter.class)
+	private Dinero precioTotal;
+
+	@Column(name = "version", nullable = false)
+	private Integer version;
+
+	@Column(name = "cliente_nif_cif", length = 20)
+	private String clienteNifCif;
+
+	@Column(name = "fecha_archivo", nullable = false)
+	private LocalDateTime fechaArchivo;
+
+	public CompraArchivada() {
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public LocalDateTime getFechaCompra() {
+		return fechaCompra;
+	}
+
+	public String getEstado() {
+		return estado;
+	}
+
+	public String getDireccionEntrega() {
+		return direccionEntrega;
+	}
+
+	public Dinero getPrecioTotal() {
+		return precioTotal;
+	}
+
+	public Integer getVersion() {
+		return version;
+	}
+
+	public String getClienteNifCif() {
+		return clienteNifCif;
+	}
+
+	public LocalDateTime getFechaArchivo() {
+		return fechaArchivo;
+	}
+
+	@Override
+	public String toString() {
+		return "CompraArchivada{" + "id=" + id + ", fechaCompra=" + fechaCompra + ", estado=" + estado
+				+ ", direccionEntrega=" + direccionEntrega + ", precioTotal=" + precioTotal + ", fechaArchivo="
+				+ fechaArchivo + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof CompraArchivada that))
+			return false;
+		return id != null && id.equals(that.id);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(id);
+	}
+}
@@ -0,0 +1,115 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Importe en euros guardado como un {@code long} de céntimos.
+ * <p>
+ * Sustituye a {@link BigDecimal} en los precios y totales ({@code decimal(10,2)} en la BD). Un {@code BigDecimal}
+ * reserva un objeto nuevo (y a veces un {@code BigInteger}) en cada operación; aquí la aritmética se hace sobre
+ * {@code long}, así que el cálculo del total de una compra no reserva memoria: los métodos estáticos
+ * {@link #multiplicar(long, int)} y {@link #sumar(long, long)} trabajan con céntimos y solo se crea un
+ * {@code Dinero} al guardar el resultado en la entidad.
+ * </p>
+ * <h3>Reglas</h3>
+ * <ul>
+ *   <li>Escala fija de 2 decimales, como la columna. Al convertir desde un valor con más decimales se redondea
+ *   con {@link RoundingMode#HALF_UP} (la mitad se aleja del cero), que es lo que hace MariaDB al guardar en un
+ *   {@code DECIMAL}.</li>
+ *   <li>Sumas y productos son exactos: un desbordamiento de {@code long} lanza {@link ArithmeticException}
+ *   en lugar de dar un resultado erróneo.</li>
+ *   <li>El límite de la columna ({@value #MAX_CENTIMOS} céntimos) se comprueba al escribir en la BD
+ *   ({@link DineroConverter}), no en los cálculos intermedios.</li>
+ *   <li>Es {@link Serializable}: la caché de segundo nivel guarda el estado de {@code Articulo} tal cual.</li>
+ * </ul>
+ *
+ * @param centimos Importe en céntimos de euro.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record Dinero(long centimos) implements Comparable<Dinero>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Mayor importe representable en {@code decimal(10,2)}: 99.999.999,99. */
+	public static final long MAX_CENTIMOS = 9_999_999_999L;
+
+	public static final Dinero CERO = new Dinero(0);
+
+	/**
+	 * Importe con los céntimos indicados.
+	 */
+	public static Dinero deCentimos(long centimos) {
+		return centimos == 0 ? CERO : new Dinero(centimos);
+	}
+
+	/**
+	 * Importe a partir de un {@code BigDecimal}, redondeado a 2 decimales con HALF_UP ({@code null} si es {@code null}).
+	 *
+	 * @throws ArithmeticException si no cabe en un {@code long} de céntimos.
+	 */
+	public static Dinero de(BigDecimal importe) {
+		if (importe == null)
+			return null;
+		return deCentimos(importe.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+	}
+
+	/**
+	 * Importe a partir de su representación decimal (p. ej. {@code "19.99"}).
+	 *
+	 * @throws NumberFormatException si el texto no es un número.
+	 */
+	public static Dinero de(String importe) {
+		return de(new BigDecimal(importe));
+	}
+
+	/**
+	 * {@code centimos * cantidad}, exacto y sin reservar memoria.
+	 *
+	 * @throws ArithmeticException si desborda.
+	 */
+	public static long multiplicar(long centimos, int cantidad) {
+		return Math.multiplyExact(centimos, (long) cantidad);
+	}
+
+	/**
+	 * {@code a + b}, exacto y sin reservar memoria.
+	 *
+	 * @throws ArithmeticException si desborda.
+	 */
+	public static long sumar(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	public Dinero mas(Dinero otro) {
+		return deCentimos(sumar(centimos, otro.centimos));
+	}
+
+	public Dinero por(int cantidad) {
+		return deCentimos(multiplicar(centimos, cantidad));
+	}
+
+	/**
+	 * El importe como {@code BigDecimal} de escala 2.
+	 */
+	public BigDecimal aBigDecimal() {
+		return BigDecimal.valueOf(centimos, 2);
+	}
+
+	@Override
+	public int compareTo(Dinero otro) {
+		return Long.compare(centimos, otro.centimos);
+	}
+
+	/**
+	 * Representación decimal con dos decimales, como en la BD (p. ej. {@code 19.99}).
+	 */
+	@Override
+	public String toString() {
+		return aBigDecimal().toPlainString();
+	}
+}
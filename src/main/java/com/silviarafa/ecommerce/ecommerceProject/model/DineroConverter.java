@@ -0,0 +1,36 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Conversión entre {@link Dinero} y las columnas {@code decimal(10,2)} de precios y totales.
+ * <p>
+ * Se aplica explícitamente con {@code @Convert} en {@code Articulo.precioActual}, {@code ArticuloCompra.precioCompra}
+ * y {@code Compra.precioTotal}. Al escribir se comprueba que el importe cabe en la columna, para fallar con un
+ * mensaje claro en lugar de con el error de truncado de la BD.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Converter
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+	@Override
+	public BigDecimal convertToDatabaseColumn(Dinero importe) {
+		if (importe == null)
+			return null;
+		if (Math.abs(importe.centimos()) > Dinero.MAX_CENTIMOS)
+			throw new IllegalArgumentException("El importe " + importe + " no cabe en decimal(10,2).");
+		return importe.aBigDecimal();
+	}
+
+	@Override
+	public Dinero convertToEntityAttribute(BigDecimal valor) {
+		return Dinero.de(valor);
+	}
+}
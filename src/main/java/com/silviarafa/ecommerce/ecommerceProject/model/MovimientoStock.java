@@ -0,0 +1,90 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Movimiento de stock del diario del libro de stock ({@code stock.LibroStock}): un cambio en las unidades de un
+ * artículo confirmado en la BD pero aún no aplicado a {@code articulo.stock}.
+ * <p>
+ * Las filas se insertan en la misma transacción que la compra que reserva las unidades, así que una reserva
+ * confirmada no se pierde aunque el proceso caiga antes del volcado. El volcado suma los movimientos a
+ * {@code articulo.stock} y los borra en una sola transacción. El artículo se guarda como id sin asociación ni
+ * clave foránea para que insertar y borrar filas sea barato. No tiene setters: las filas las escribe y las
+ * borra el libro de stock con sentencias nativas.
+ * </p>
+ * <h3>Campos</h3>
+ * <ul>
+ *   <li><b>id</b>: Orden de inserción (AUTO_INCREMENT).</li>
+ *   <li><b>articuloId</b>: Id del artículo.</li>
+ *   <li><b>unidades</b>: Cambio en el stock: negativo para una reserva, positivo para una devolución.</li>
+ *   <li><b>fecha</b>: Momento en que se registró.</li>
+ * </ul>
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Entity
+@Table(name = "movimiento_stock")
+public class MovimientoStock {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "articulo_id", nullable = false)
+	private Integer articuloId;
+
+	@Column(name = "unidades", nullable = false)
+	private Integer unidades;
+
+	@Column(name = "fecha", nullable = false)
+	private LocalDateTime fecha;
+
+	public MovimientoStock() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Integer getArticuloId() {
+		return articuloId;
+	}
+
+	public Integer getUnidades() {
+		return unidades;
+	}
+
+	public LocalDateTime getFecha() {
+		return fecha;
+	}
+
+	@Override
+	public String toString() {
+		return "MovimientoStock{" + "id=" + id + ", articuloId=" + articuloId + ", unidades=" + unidades
+				+ ", fecha=" + fecha + '}';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof MovimientoStock that))
+			return false;
+		return id != null && id.equals(that.id);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(id);
+	}
+}
@@ -0,0 +1,89 @@
+package com.silviarafa.ecommerce.ecommerceProject.operacion;
+
+import com.silviarafa.ecommerce.ecommerceProject.consulta.AgregadosCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.TransactionRequiredException;
+
+/**
+ * Operaciones de escritura sobre clientes sin salida por consola: las usan tanto el runner
+ * ({@code AppEcommerce}) como los servicios concurrentes.
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OperacionesCliente {
+
+	private OperacionesCliente() {
+	}
+
+	/**
+	 * Borra el cliente con sentencias masivas: sus compras se anonimizan y desvinculan con un único UPDATE,
+	 * sin cargarlas en el contexto de persistencia. Siempre son 5 sentencias (UPDATE de compras y de compras
+	 * archivadas, DELETE de agregados, de información fiscal y del cliente), tenga el cliente 1 compra o
+	 * 100.000, y los bloqueos duran lo que duran esas sentencias.
+	 * <p>
+	 * Las sentencias masivas no pasan por el contexto de persistencia: antes se hace flush de los cambios
+	 * pendientes y al terminar se limpia, para que no queden entidades con el estado anterior.
+	 * </p>
+	 *
+	 * @return {@code false} si no existe el cliente.
+	 */
+	public static boolean borrarEnBloque(EntityManager em, String nif)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+
+		EntityTransaction tx = em.getTransaction();
+		tx.begin();
+		boolean borrado;
+
+		try {
+			em.flush();
+
+			// Desvincular las compras: UPDATE VERSIONED incrementa la versión para el bloqueo optimista
+			em.createQuery("UPDATE VERSIONED Compra c SET c.fechaCompra = null, c.estado = '',"
+					+ " c.direccionEntrega = '', c.precioTotal = :cero, c.cliente = null"
+					+ " WHERE c.cliente.nifCif = :nif")
+					.setParameter("cero", Dinero.CERO)
+					.setParameter("nif", nif)
+					.executeUpdate();
+			anonimizarComprasArchivadas(em, nif);
+
+			AgregadosCliente.borrar(em, nif);
+
+			em.createQuery("DELETE FROM InformacionFiscal f WHERE f.nifCif = :nif")
+					.setParameter("nif", nif)
+					.executeUpdate();
+
+			borrado = em.createQuery("DELETE FROM Cliente c WHERE c.nifCif = :nif")
+					.setParameter("nif", nif)
+					.executeUpdate() == 1;
+
+			tx.commit();
+		} catch (Exception e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.clear();
+		}
+
+		return borrado;
+	}
+
+	/**
+	 * Anonimiza las compras archivadas del cliente dentro de la transacción del llamador. No tienen clave
+	 * foránea al cliente, así que se anonimizan igual que las de la tabla caliente.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static void anonimizarComprasArchivadas(EntityManager em, String nif) {
+		em.createQuery("UPDATE CompraArchivada c SET c.fechaCompra = null, c.estado = '', c.direccionEntrega = '',"
+				+ " c.precioTotal = :cero, c.clienteNifCif = null WHERE c.clienteNifCif = :nif")
+				.setParameter("cero", Dinero.CERO)
+				.setParameter("nif", nif)
+				.executeUpdate();
+	}
+}
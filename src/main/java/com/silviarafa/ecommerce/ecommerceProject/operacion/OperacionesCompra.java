@@ -0,0 +1,179 @@
+package com.silviarafa.ecommerce.ecommerceProject.operacion;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.silviarafa.ecommerce.ecommerceProject.consulta.AgregadosCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.ArticuloCompra;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+import com.silviarafa.ecommerce.ecommerceProject.stock.LibroStock;
+import com.silviarafa.ecommerce.ecommerceProject.stock.StockBD;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.TransactionRequiredException;
+
+/**
+ * Alta de compras sin salida por consola: la usan tanto el runner ({@code AppEcommerce}) como los
+ * servicios concurrentes y el checkout agrupado.
+ * <p>
+ * Los métodos {@code crear*} abren y confirman su propia transacción en el {@code EntityManager} recibido y
+ * lo limpian al terminar; {@link #registrar(EntityManager, Cliente, Map)} trabaja dentro de la transacción
+ * del llamador.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OperacionesCompra {
+
+	private OperacionesCompra() {
+	}
+
+	/**
+	 * Crea una compra sin tocar el stock.
+	 */
+	public static Compra crear(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+		return crear(em, cliente, articuloUnidades, false, null);
+	}
+
+	/**
+	 * Crea una compra descontando el stock en la BD dentro de la misma transacción.
+	 *
+	 * @throws IllegalStateException si algún artículo no tiene stock suficiente, está retirado o no existe.
+	 */
+	public static Compra crearDescontandoStock(EntityManager em, Cliente cliente,
+			Map<Articulo, Integer> articuloUnidades)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+		return crear(em, cliente, articuloUnidades, true, null);
+	}
+
+	/**
+	 * Crea una compra reservando el stock en el libro de stock; si la compra falla, la reserva se devuelve.
+	 *
+	 * @throws IllegalStateException si el libro no tiene unidades suficientes.
+	 */
+	public static Compra crear(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades,
+			LibroStock libroStock) throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+
+		Map<Integer, Integer> unidades = unidadesPorArticulo(articuloUnidades);
+
+		// Reserva en memoria (sin bloquear filas); la compra la anota en el diario y el libro la vuelca más tarde
+		if (!libroStock.reservarTodo(unidades))
+			throw new IllegalStateException("Stock insuficiente para la compra.");
+
+		Compra compra;
+		try {
+			compra = crear(em, cliente, articuloUnidades, false, libroStock);
+		} catch (RuntimeException e) {
+			libroStock.liberarTodo(unidades);
+			throw e;
+		}
+		libroStock.confirmar(unidades);
+		return compra;
+	}
+
+	private static Compra crear(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades,
+			boolean descontarStock, LibroStock libroStock)
+			throws IllegalArgumentException, IllegalStateException, TransactionRequiredException {
+
+		EntityTransaction tx = em.getTransaction();
+		tx.begin();
+		Compra compra;
+
+		try {
+			if (descontarStock) {
+				// Un UPDATE condicional por línea; si alguna falla, el rollback deshace las ya descontadas
+				StockBD.ResultadoCompra r = StockBD.descontarTodo(em, unidadesPorArticulo(articuloUnidades));
+				if (!r.correcto())
+					throw new IllegalStateException(
+							"No se puede crear la compra: " + r.resultado() + " (artículo " + r.articuloId() + ").");
+			}
+
+			compra = registrar(em, cliente, articuloUnidades);
+
+			// Las unidades ya reservadas en memoria quedan en el diario de stock con el commit de la compra
+			if (libroStock != null)
+				libroStock.anotar(em, unidadesPorArticulo(articuloUnidades));
+
+			em.flush();
+			tx.commit();
+			// El cliente ve su compra aunque las réplicas aún no la tengan
+			if (cliente != null)
+				ConexionesReplicadas.anotarEscritura(em.getEntityManagerFactory(), cliente.getNifCif());
+		} catch (Exception e) {
+			if (tx.isActive())
+				tx.rollback();
+			throw e;
+		} finally {
+			em.clear();
+		}
+
+		return compra;
+	}
+
+	/**
+	 * Persiste la cabecera y las líneas de una compra dentro de la transacción activa del llamador,
+	 * sin flush ni commit. Lo usan los métodos {@code crear*} y el checkout agrupado, que confirma varias
+	 * compras en una sola transacción.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static Compra registrar(EntityManager em, Cliente cliente, Map<Articulo, Integer> articuloUnidades) {
+		Compra compra = new Compra();
+		compra.setFechaCompra(LocalDateTime.now());
+		compra.setEstado("PENDIENTE");
+		compra.setDireccionEntrega("Calle Temporal 1");
+		compra.setCliente(cliente);
+
+		// Los importes se acumulan en céntimos (long): solo se crea un Dinero por línea y otro para el total
+		long totalCentimos = 0;
+		List<ArticuloCompra> lineas = new ArrayList<>(articuloUnidades.size());
+
+		// Recorrer el mapa de artículos y unidades
+		for (Map.Entry<Articulo, Integer> entry : articuloUnidades.entrySet()) {
+			Articulo articulo = entry.getKey();
+			int cantidad = entry.getValue();
+
+			// Calcular el precio_compra de artículo compra
+			long precioCompra = Dinero.multiplicar(articulo.getPrecioActual().centimos(), cantidad);
+			lineas.add(new ArticuloCompra(articulo, compra, cantidad, Dinero.deCentimos(precioCompra)));
+
+			totalCentimos = Dinero.sumar(totalCentimos, precioCompra);
+		}
+
+		// El total se fija antes del persist para que la cabecera salga en un único INSERT (sin UPDATE posterior).
+		Dinero precioTotal = Dinero.deCentimos(totalCentimos);
+		compra.setPrecioTotal(precioTotal);
+
+		// Agregados del cliente en la misma transacción que la compra
+		if (cliente != null)
+			AgregadosCliente.sumarCompra(em, cliente, precioTotal.aBigDecimal(), compra.getFechaCompra());
+
+		// El id sale de la secuencia al hacer persist, sin ir a la BD: no hace falta flush intermedio
+		// y la cabecera y todas las líneas se envían juntas en lotes JDBC al hacer flush.
+		em.persist(compra);
+		for (ArticuloCompra artCom : lineas) {
+			compra.addLinea(artCom);
+			em.persist(artCom);
+		}
+
+		return compra;
+	}
+
+	// Unidades pedidas agrupadas por id de artículo
+	private static Map<Integer, Integer> unidadesPorArticulo(Map<Articulo, Integer> articuloUnidades) {
+		Map<Integer, Integer> unidades = new HashMap<>();
+		articuloUnidades.forEach((articulo, cantidad) -> unidades.merge(articulo.getId(), cantidad, Integer::sum));
+		return unidades;
+	}
+}
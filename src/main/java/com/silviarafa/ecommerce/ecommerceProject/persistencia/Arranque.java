@@ -0,0 +1,154 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.SchemaValidationException;
+
+/**
+ * Arranque de la unidad de persistencia {@value #UNIDAD_PERSISTENCIA} con validación del esquema por perfil.
+ * <p>
+ * El coste de arrancar la factoría está en leer los metadatos JDBC de la BD, validar el esquema tabla a tabla y
+ * cargar las clases de Hibernate. El {@code persistence.xml} ya lleva la lista cerrada de entidades (sin escanear
+ * el classpath) y el dialecto y la versión de MariaDB, de modo que con
+ * {@code hibernate.boot.allow_jdbc_metadata_access=false} la factoría se construye sin abrir ninguna conexión.
+ * La carga de clases la reduce el archivo AppCDS que genera el perfil Maven {@code cds} con {@link #main(String[])}.
+ * </p>
+ * <h3>Validación del esquema (valores por perfil Maven)</h3>
+ * <ul>
+ *   <li>{@code hibernate.hbm2ddl.auto}: {@code validate} valida al arrancar (dev); {@code none} no valida.</li>
+ *   <li>{@value #PROPIEDAD_VALIDACION_DIFERIDA}: si es {@code true}, {@link #crear(Map)} devuelve la factoría
+ *       en cuanto está lista y valida el esquema en un hilo aparte (pre y pro). Un esquema que no cuadra se
+ *       informa por la salida de error y en {@link #validacion(EntityManagerFactory)}; no cierra la factoría.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class Arranque {
+
+	/** Nombre de la unidad de persistencia del proyecto. */
+	public static final String UNIDAD_PERSISTENCIA = "my_eshop-jpa-pu";
+
+	/** {@code true} para validar el esquema en segundo plano tras arrancar. */
+	public static final String PROPIEDAD_VALIDACION_DIFERIDA = "eshop.esquema.validacion_diferida";
+
+	/* Consultas de los caminos calientes que se compilan en la ejecución de entrenamiento del archivo CDS. */
+	private static final List<String> CONSULTAS_ENTRENAMIENTO = List.of(
+			"SELECT a FROM Articulo a",
+			"SELECT a FROM Articulo a WHERE a.id IN :ids",
+			"SELECT COALESCE(a.stock, 0) FROM Articulo a WHERE a.id = :id",
+			"SELECT COUNT(co) FROM Compra co WHERE co.cliente.nifCif = :nif",
+			"SELECT c.nifCif FROM Cliente c WHERE c.nifCif > :ultimo ORDER BY c.nifCif",
+			"SELECT a FROM AgregadoCliente a WHERE a.nifCif IN :nifs");
+
+	private static final Map<EntityManagerFactory, CompletableFuture<Void>> VALIDACIONES = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private Arranque() {
+	}
+
+	/**
+	 * Arranca la unidad de persistencia con la configuración del perfil.
+	 */
+	public static EntityManagerFactory crear() {
+		return crear(Map.of());
+	}
+
+	/**
+	 * Arranca la unidad de persistencia añadiendo o sobrescribiendo las propiedades {@code props} y, si
+	 * {@value #PROPIEDAD_VALIDACION_DIFERIDA} está activa, lanza la validación del esquema en segundo plano.
+	 */
+	public static EntityManagerFactory crear(Map<String, ?> props) {
+		EntityManagerFactory emf = Persistence.createEntityManagerFactory(UNIDAD_PERSISTENCIA, props);
+		if (Boolean.parseBoolean(String.valueOf(emf.getProperties().get(PROPIEDAD_VALIDACION_DIFERIDA))))
+			validarEnSegundoPlano(emf);
+		return emf;
+	}
+
+	/**
+	 * Valida el esquema de {@code emf} contra el mapeo en un hilo virtual. La factoría se puede usar mientras
+	 * tanto; si se cierra antes de terminar, la validación se da por abandonada sin error.
+	 */
+	public static CompletableFuture<Void> validarEnSegundoPlano(EntityManagerFactory emf) {
+		CompletableFuture<Void> validacion = CompletableFuture.runAsync(() -> validar(emf),
+				r -> Thread.ofVirtual().name("validacion-esquema").start(r));
+		validacion.whenComplete((ok, error) -> {
+			if (error != null && emf.isOpen())
+				System.err.println("\nESQUEMA NO VÁLIDO: " + causa(error).getMessage());
+		});
+		VALIDACIONES.put(emf, validacion);
+		return validacion;
+	}
+
+	/**
+	 * Validación en segundo plano de {@code emf}, o una ya completada si no se lanzó ninguna. Un trabajo por
+	 * lotes que prefiera no escribir sobre un esquema sin validar puede esperarla con {@code join()}.
+	 */
+	public static CompletableFuture<Void> validacion(EntityManagerFactory emf) {
+		CompletableFuture<Void> validacion = VALIDACIONES.get(emf);
+		return validacion != null ? validacion : CompletableFuture.completedFuture(null);
+	}
+
+	private static void validar(EntityManagerFactory emf) {
+		try {
+			emf.getSchemaManager().validate();
+		} catch (SchemaValidationException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		} catch (IllegalStateException e) {
+			// Factoría cerrada antes de que la validación llegue a conectar
+			if (emf.isOpen())
+				throw e;
+		}
+	}
+
+	private static Throwable causa(Throwable error) {
+		return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+	}
+
+	/**
+	 * Ejecución de entrenamiento para el archivo AppCDS (perfil Maven {@code cds}): arranca la factoría sin
+	 * conectar a la BD (sin metadatos JDBC, sin validación y con el pool vacío) y compila las consultas de
+	 * los caminos calientes, de modo que la JVM registra las clases que se cargan al arrancar y al preparar
+	 * la primera consulta. No necesita la BD en marcha.
+	 */
+	public static void main(String[] args) {
+		Map<String, Object> props = new HashMap<>();
+		props.put("hibernate.boot.allow_jdbc_metadata_access", "false");
+		props.put("hibernate.hbm2ddl.auto", "none");
+		props.put(PROPIEDAD_VALIDACION_DIFERIDA, "false");
+		props.put("hibernate.hikari.minimumIdle", "0");
+		props.put("hibernate.hikari.initializationFailTimeout", "-1");
+		props.put(ConexionesReplicadas.PROPIEDAD_URLS, "");
+
+		EntityManagerFactory emf = null;
+		try {
+			System.out.println("\n--- ENTRENAMIENTO DEL ARCHIVO CDS ---");
+			long inicio = System.nanoTime();
+			emf = crear(props);
+			EntityManager em = emf.createEntityManager();
+			try {
+				CONSULTAS_ENTRENAMIENTO.forEach(em::createQuery);
+				em.getCriteriaBuilder();
+			} finally {
+				em.close();
+			}
+			System.out.println("Factoría y " + CONSULTAS_ENTRENAMIENTO.size() + " consultas listas en "
+					+ (System.nanoTime() - inicio) / 1_000_000 + " ms");
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
@@ -0,0 +1,373 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Proveedor de conexiones con separación de lecturas y escrituras: un pool HikariCP contra la BD primaria y
+ * otro por cada réplica de lectura.
+ * <p>
+ * Hibernate lo instancia a partir de {@code hibernate.connection.provider_class} y le pide una conexión cada
+ * vez que una sesión la necesita. Por defecto todo va a la primaria; solo las unidades de trabajo de lectura
+ * lanzadas con {@link #leer(EntityManagerFactory, String, UnidadLectura)} toman la conexión de una réplica
+ * (por turnos). Sin réplicas configuradas se comporta como el proveedor HikariCP de Hibernate.
+ * </p>
+ * <h3>Configuración (persistence.xml, valores por perfil Maven)</h3>
+ * <ul>
+ *   <li>{@code jakarta.persistence.jdbc.url}, {@code .driver}, {@code .user} y {@code .password}: la BD
+ *       primaria. Solo se leen estas claves, no las antiguas {@code hibernate.connection.*}.</li>
+ *   <li>{@value #PROPIEDAD_URLS}: URLs JDBC de las réplicas separadas por comas (vacío = sin réplicas).
+ *       Usan el mismo usuario, driver y ajustes {@code hibernate.hikari.*} que la primaria; cada pool se llama
+ *       {@code <poolName>-replica-N}.</li>
+ *   <li>{@value #PROPIEDAD_RETRASO_MAXIMO}: retraso máximo de replicación que se tolera, en ms.</li>
+ * </ul>
+ * <h3>Leer lo propio recién escrito</h3>
+ * <p>
+ * Tras confirmar una escritura (por ejemplo {@code crearCompra}) se llama a
+ * {@link #anotarEscritura(EntityManagerFactory, String)} con una clave (el NIF/CIF del cliente). Durante el
+ * retraso máximo, las lecturas con esa clave van a la primaria, de modo que el cliente ve su compra aunque la
+ * réplica aún no la tenga. Las marcas son de este proceso: otra instancia de la aplicación no las ve.
+ * </p>
+ * <h3>Réplica caída</h3>
+ * <p>
+ * Si una réplica no da conexión se aparta durante {@value #PAUSA_REPLICA_CAIDA_MS} ms y la lectura pasa a la
+ * siguiente réplica o, si no queda ninguna, a la primaria.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ConexionesReplicadas implements ConnectionProvider, Configurable, Stoppable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** URLs JDBC de las réplicas, separadas por comas. */
+	public static final String PROPIEDAD_URLS = "eshop.replicas.urls";
+
+	/** Retraso máximo de replicación tolerado (ms): ventana en la que una clave recién escrita se lee de la primaria. */
+	public static final String PROPIEDAD_RETRASO_MAXIMO = "eshop.replicas.retraso_maximo";
+
+	private static final long RETRASO_MAXIMO_DEFECTO_MS = 2000;
+	private static final long PAUSA_REPLICA_CAIDA_MS = 30_000;
+	private static final int MAX_MARCAS = 100_000;
+	private static final String PREFIJO_HIKARI = "hibernate.hikari.";
+
+	/* TRUE mientras el hilo ejecuta una unidad de lectura que puede ir a una réplica. */
+	private static final ThreadLocal<Boolean> EN_REPLICA = new ThreadLocal<>();
+
+	private transient HikariDataSource primaria;
+	private transient Replica[] replicas;
+	private long retrasoMaximoNanos;
+	private final AtomicInteger turno = new AtomicInteger();
+	/* Clave escrita -> instante (System.nanoTime) hasta el que sus lecturas van a la primaria. */
+	private final Map<String, Long> escrituras = new ConcurrentHashMap<>();
+
+	private final LongAdder lecturasReplica = new LongAdder();
+	private final LongAdder lecturasPrimaria = new LongAdder();
+	private final LongAdder fallosReplica = new LongAdder();
+
+	public ConexionesReplicadas() {
+	}
+
+	@Override
+	public void configure(Map<String, Object> props) {
+		String url = valor(props, AvailableSettings.JAKARTA_JDBC_URL);
+		if (url == null)
+			throw new IllegalArgumentException(
+					"Falta la URL JDBC de la BD primaria (" + AvailableSettings.JAKARTA_JDBC_URL + ").");
+		String nombre = valor(props, PREFIJO_HIKARI + "poolName");
+		if (nombre == null)
+			nombre = MetricasPool.POOL_ESHOP;
+
+		primaria = pool(props, url, nombre);
+		List<Replica> lista = new ArrayList<>();
+		String urls = valor(props, PROPIEDAD_URLS);
+		if (urls != null) {
+			for (String urlReplica : urls.split(",")) {
+				if (urlReplica.isBlank())
+					continue;
+				String nombreReplica = nombre + "-replica-" + (lista.size() + 1);
+				lista.add(new Replica(pool(props, urlReplica.strip(), nombreReplica)));
+			}
+		}
+		replicas = lista.toArray(Replica[]::new);
+
+		String retraso = valor(props, PROPIEDAD_RETRASO_MAXIMO);
+		long ms = retraso != null ? Long.parseLong(retraso.strip()) : RETRASO_MAXIMO_DEFECTO_MS;
+		if (ms < 0)
+			throw new IllegalArgumentException(PROPIEDAD_RETRASO_MAXIMO + " no puede ser negativo: " + ms);
+		retrasoMaximoNanos = TimeUnit.MILLISECONDS.toNanos(ms);
+	}
+
+	/* Mismo mapeo que el proveedor HikariCP de Hibernate: hibernate.hikari.X pasa a ser la propiedad X. */
+	private static HikariDataSource pool(Map<String, Object> props, String url, String nombre) {
+		Properties hikari = new Properties();
+		props.forEach((clave, v) -> {
+			if (clave.startsWith(PREFIJO_HIKARI) && v != null)
+				hikari.setProperty(clave.substring(PREFIJO_HIKARI.length()), v.toString());
+		});
+		HikariConfig config = new HikariConfig(hikari);
+		config.setJdbcUrl(url);
+		config.setPoolName(nombre);
+		String driver = valor(props, AvailableSettings.JAKARTA_JDBC_DRIVER);
+		if (driver != null)
+			config.setDriverClassName(driver);
+		String usuario = valor(props, AvailableSettings.JAKARTA_JDBC_USER);
+		if (usuario != null)
+			config.setUsername(usuario);
+		String clave = valor(props, AvailableSettings.JAKARTA_JDBC_PASSWORD);
+		if (clave != null)
+			config.setPassword(clave);
+		return new HikariDataSource(config);
+	}
+
+	private static String valor(Map<String, Object> props, String... claves) {
+		for (String clave : claves) {
+			Object v = props.get(clave);
+			if (v != null && !v.toString().isBlank())
+				return v.toString();
+		}
+		return null;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (EN_REPLICA.get() == Boolean.TRUE && replicas.length > 0) {
+			long ahora = System.nanoTime();
+			int inicio = Math.floorMod(turno.getAndIncrement(), replicas.length);
+			for (int i = 0; i < replicas.length; i++) {
+				Replica r = replicas[(inicio + i) % replicas.length];
+				if (!r.disponible(ahora))
+					continue;
+				try {
+					return r.pool.getConnection();
+				} catch (SQLException e) {
+					fallosReplica.increment();
+					r.apartarHasta(ahora + TimeUnit.MILLISECONDS.toNanos(PAUSA_REPLICA_CAIDA_MS));
+				}
+			}
+		}
+		return primaria.getConnection();
+	}
+
+	@Override
+	public void closeConnection(Connection conn) throws SQLException {
+		// Devuelve la conexión a su pool, sea el de la primaria o el de una réplica
+		conn.close();
+	}
+
+	@Override
+	public boolean supportsAggressiveRelease() {
+		return false;
+	}
+
+	@Override
+	public boolean isUnwrappableAs(Class<?> tipo) {
+		return tipo.isAssignableFrom(ConexionesReplicadas.class) || tipo.isAssignableFrom(HikariDataSource.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> tipo) {
+		if (tipo.isAssignableFrom(ConexionesReplicadas.class))
+			return (T) this;
+		if (tipo.isAssignableFrom(HikariDataSource.class))
+			return (T) primaria;
+		throw new IllegalArgumentException("No se puede desenvolver como " + tipo.getName());
+	}
+
+	@Override
+	public void stop() {
+		if (replicas != null) {
+			for (Replica r : replicas)
+				r.pool.close();
+		}
+		if (primaria != null)
+			primaria.close();
+	}
+
+	/**
+	 * {@code true} si hay al menos una réplica configurada.
+	 */
+	public boolean hayReplicas() {
+		return replicas.length > 0;
+	}
+
+	/**
+	 * Contadores de enrutado desde el arranque.
+	 */
+	public Estadisticas estadisticas() {
+		long ahora = System.nanoTime();
+		int disponibles = 0;
+		for (Replica r : replicas) {
+			if (r.disponible(ahora))
+				disponibles++;
+		}
+		return new Estadisticas(replicas.length, disponibles, lecturasReplica.sum(), lecturasPrimaria.sum(),
+				fallosReplica.sum());
+	}
+
+	/**
+	 * Anota que se acaba de confirmar una escritura sobre {@code clave}: durante el retraso máximo de
+	 * replicación sus lecturas irán a la primaria.
+	 */
+	public void anotarEscritura(String clave) {
+		if (clave == null || replicas.length == 0)
+			return;
+		if (escrituras.size() >= MAX_MARCAS) {
+			long ahora = System.nanoTime();
+			escrituras.values().removeIf(hasta -> ahora - hasta > 0);
+		}
+		escrituras.put(clave, System.nanoTime() + retrasoMaximoNanos);
+	}
+
+	/**
+	 * {@code true} si {@code clave} se escribió hace menos del retraso máximo de replicación.
+	 */
+	public boolean escrituraReciente(String clave) {
+		if (clave == null)
+			return false;
+		Long hasta = escrituras.get(clave);
+		if (hasta == null)
+			return false;
+		if (System.nanoTime() - hasta > 0) {
+			escrituras.remove(clave, hasta);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Proveedor de conexiones de la factoría, o {@code null} si no usa esta clase (p. ej. en los benchmarks con
+	 * otro proveedor).
+	 */
+	public static ConexionesReplicadas de(EntityManagerFactory emf) {
+		ConnectionProvider proveedor = emf.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+				.getService(ConnectionProvider.class);
+		return proveedor instanceof ConexionesReplicadas c ? c : null;
+	}
+
+	/**
+	 * Atajo de {@link #anotarEscritura(String)} que no hace nada si la factoría no usa esta clase.
+	 */
+	public static void anotarEscritura(EntityManagerFactory emf, String clave) {
+		ConexionesReplicadas c = de(emf);
+		if (c != null)
+			c.anotarEscritura(clave);
+	}
+
+	/**
+	 * Ejecuta una unidad de trabajo de solo lectura con un {@link EntityManager} propio, en una réplica si la hay
+	 * y {@code clave} no tiene una escritura reciente; si no, en la primaria.
+	 * <p>
+	 * La sesión es de solo lectura (las entidades no se comprueban ni se escriben al hacer flush) y, en réplica,
+	 * lee de la caché de segundo nivel pero no la rellena: una fila leída de una réplica retrasada no debe
+	 * volver a la caché después de que una escritura en la primaria la haya invalidado.
+	 * </p>
+	 *
+	 * @param clave Clave para leer lo propio recién escrito (el NIF/CIF del cliente), o {@code null} si la
+	 *              lectura tolera el retraso de la réplica (el catálogo).
+	 */
+	public static <T, E extends Exception> T leer(EntityManagerFactory emf, String clave,
+			UnidadLectura<T, E> unidad) throws E {
+		ConexionesReplicadas c = de(emf);
+		boolean enReplica = c != null && c.hayReplicas() && !c.escrituraReciente(clave);
+		if (c != null && c.hayReplicas())
+			(enReplica ? c.lecturasReplica : c.lecturasPrimaria).increment();
+
+		Boolean previo = EN_REPLICA.get();
+		EN_REPLICA.set(enReplica);
+		EntityManager em = emf.createEntityManager();
+		try {
+			Session session = em.unwrap(Session.class);
+			session.setDefaultReadOnly(true);
+			if (enReplica)
+				session.setCacheMode(CacheMode.GET);
+			return unidad.ejecutar(em);
+		} finally {
+			em.close();
+			if (previo == null)
+				EN_REPLICA.remove();
+			else
+				EN_REPLICA.set(previo);
+		}
+	}
+
+	/**
+	 * Unidad de trabajo de solo lectura; puede lanzar las mismas excepciones que el método que envuelve.
+	 */
+	@FunctionalInterface
+	public interface UnidadLectura<T, E extends Exception> {
+		T ejecutar(EntityManager em) throws E;
+	}
+
+	/**
+	 * Foto de los contadores de enrutado.
+	 *
+	 * @param replicas            Réplicas configuradas.
+	 * @param disponibles         Réplicas no apartadas por fallo.
+	 * @param lecturasReplica     Unidades de lectura enviadas a réplica.
+	 * @param lecturasPrimaria    Unidades de lectura enviadas a la primaria por una escritura reciente.
+	 * @param fallosReplica       Conexiones a réplica fallidas (la lectura siguió en otra o en la primaria).
+	 */
+	public record Estadisticas(int replicas, int disponibles, long lecturasReplica, long lecturasPrimaria,
+			long fallosReplica) {
+
+		@Override
+		public String toString() {
+			return "Réplicas: " + disponibles + "/" + replicas + " disponibles, lecturas en réplica="
+					+ lecturasReplica + ", lecturas en primaria por escritura reciente=" + lecturasPrimaria
+					+ ", fallos de réplica=" + fallosReplica + '.';
+		}
+	}
+
+	/* Pool de una réplica y el instante (System.nanoTime) hasta el que queda apartada tras un fallo. */
+	private static final class Replica {
+
+		final HikariDataSource pool;
+		private volatile long apartadaHasta;
+		private volatile boolean apartada;
+
+		Replica(HikariDataSource pool) {
+			this.pool = pool;
+		}
+
+		boolean disponible(long ahora) {
+			if (!apartada)
+				return true;
+			if (ahora - apartadaHasta > 0) {
+				apartada = false;
+				return true;
+			}
+			return false;
+		}
+
+		void apartarHasta(long instante) {
+			apartadaHasta = instante;
+			apartada = true;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Lectura de las estadísticas de la caché de segundo nivel y de la caché de consultas.
+ * <p>
+ * Se apoya en {@link Statistics} de Hibernate, que solo recoge datos si
+ * {@code hibernate.generate_statistics=true} en el {@code persistence.xml}. La tasa de aciertos
+ * por región sirve para ajustar el tamaño y el TTL de cada región en {@code ehcache.xml}:
+ * muchos fallos con la región llena indican que se queda pequeña.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class EstadisticasCache {
+
+	private EstadisticasCache() {
+	}
+
+	/**
+	 * Foto de las estadísticas de una región de caché (entidad o consultas).
+	 * {@code elementosEnMemoria} vale -1 cuando no aplica (agregado de varias regiones).
+	 */
+	public record Region(String nombre, long aciertos, long fallos, long escrituras, long elementosEnMemoria) {
+
+		public double tasaAciertos() {
+			long total = aciertos + fallos;
+			return total > 0 ? (double) aciertos / total : 0.0;
+		}
+
+		@Override
+		public String toString() {
+			return "Región " + nombre + ": aciertos=" + aciertos + ", fallos=" + fallos + ", escrituras=" + escrituras
+					+ (elementosEnMemoria >= 0 ? ", elementos=" + elementosEnMemoria : "")
+					+ String.format(", tasa aciertos=%.1f%%", tasaAciertos() * 100) + '.';
+		}
+	}
+
+	/**
+	 * Estadísticas de la región de caché indicada.
+	 *
+	 * @throws IllegalArgumentException si la región no existe.
+	 */
+	public static Region region(EntityManagerFactory emf, String nombre) {
+		CacheRegionStatistics r = estadisticas(emf).getCacheRegionStatistics(nombre);
+		if (r == null)
+			throw new IllegalArgumentException("No existe la región de caché: " + nombre);
+		return new Region(nombre, r.getHitCount(), r.getMissCount(), r.getPutCount(), r.getElementCountInMemory());
+	}
+
+	/**
+	 * Estadísticas agregadas de la caché de consultas (todas las regiones de consultas).
+	 */
+	public static Region consultas(EntityManagerFactory emf) {
+		Statistics stats = estadisticas(emf);
+		return new Region("consultas", stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount(),
+				stats.getQueryCachePutCount(), -1);
+	}
+
+	/**
+	 * Pone a cero los contadores, p. ej. entre dos rondas de ajuste.
+	 */
+	public static void reiniciar(EntityManagerFactory emf) {
+		estadisticas(emf).clear();
+	}
+
+	private static Statistics estadisticas(EntityManagerFactory emf) {
+		return emf.unwrap(SessionFactory.class).getStatistics();
+	}
+}
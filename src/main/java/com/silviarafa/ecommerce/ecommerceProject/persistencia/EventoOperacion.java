@@ -0,0 +1,48 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder emitido por {@link Instrumentacion} en cada operación de dominio.
+ * <p>
+ * Aparece en JDK Mission Control bajo <i>eCommerce / Persistencia</i>, junto a los eventos de la JVM
+ * (GC, bloqueos, E/S de socket), lo que permite ver qué hacía la aplicación durante una pausa.
+ * Si no hay ninguna grabación activa el coste es prácticamente nulo. Para grabar:
+ * {@code java -XX:StartFlightRecording=filename=eshop.jfr ...}
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Name("com.silviarafa.ecommerce.Operacion")
+@Label("Operación de persistencia")
+@Category({ "eCommerce", "Persistencia" })
+@Description("Operación de dominio con sus sentencias SQL, entidades cargadas y flushes.")
+@StackTrace(false)
+class EventoOperacion extends Event {
+
+	@Label("Operación")
+	String operacion;
+
+	@Label("Sentencias SQL")
+	long sentencias;
+
+	@Label("Entidades cargadas")
+	long entidadesCargadas;
+
+	@Label("Cargas separadas")
+	@Description("Entidades y colecciones LAZY cargadas con un SELECT propio")
+	long cargasSeparadas;
+
+	@Label("Flushes")
+	long flushes;
+
+	@Label("Correcta")
+	boolean correcta;
+}
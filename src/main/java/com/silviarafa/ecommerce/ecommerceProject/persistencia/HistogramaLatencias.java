@@ -0,0 +1,88 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales y sin bloqueos.
+ * <p>
+ * Cada potencia de dos se divide en 32 cubetas iguales, así que el error relativo de un percentil es
+ * como mucho del 3% en cualquier rango (de nanosegundos a horas) con un array fijo de contadores.
+ * Registrar es un incremento atómico en una cubeta; calcular un percentil recorre el array.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class HistogramaLatencias {
+
+	private static final int BITS_SUBCUBETA = 5;
+	private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+	private static final int CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS;
+
+	private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Registra una latencia (los valores negativos cuentan como cero).
+	 */
+	public void registrar(long nanos) {
+		long v = Math.max(0, nanos);
+		cubetas.incrementAndGet(indice(v));
+		total.increment();
+		maximo.accumulate(v);
+	}
+
+	public long total() {
+		return total.sum();
+	}
+
+	public long maximo() {
+		return maximo.get();
+	}
+
+	/**
+	 * Valor por debajo del cual queda la fracción {@code p} de las mediciones ({@code 0.99} para p99),
+	 * o 0 si no hay mediciones.
+	 */
+	public long percentil(double p) {
+		if (p < 0.0 || p > 1.0)
+			throw new IllegalArgumentException("El percentil debe estar entre 0 y 1: " + p);
+		long n = 0;
+		long[] copia = new long[CUBETAS];
+		for (int i = 0; i < CUBETAS; i++)
+			n += copia[i] = cubetas.get(i);
+		if (n == 0)
+			return 0;
+
+		long objetivo = Math.max(1, (long) Math.ceil(p * n));
+		long acumulado = 0;
+		for (int i = 0; i < CUBETAS; i++) {
+			acumulado += copia[i];
+			if (acumulado >= objetivo)
+				return Math.min(valorMedio(i), maximo());
+		}
+		return maximo();
+	}
+
+	/* Valores < 32 tienen cubeta propia; a partir de ahí, 32 cubetas por potencia de dos. */
+	private static int indice(long v) {
+		if (v < SUBCUBETAS)
+			return (int) v;
+		int exp = 63 - Long.numberOfLeadingZeros(v);
+		int sub = (int) ((v >>> (exp - BITS_SUBCUBETA)) & (SUBCUBETAS - 1));
+		return (exp - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+	}
+
+	private static long valorMedio(int indice) {
+		if (indice < SUBCUBETAS)
+			return indice;
+		int exp = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+		long ancho = 1L << (exp - BITS_SUBCUBETA);
+		long inferior = (1L << exp) | ((long) (indice % SUBCUBETAS) << (exp - BITS_SUBCUBETA));
+		return inferior + ancho / 2;
+	}
+}
@@ -0,0 +1,94 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Mide las operaciones de dominio: latencia, sentencias SQL, entidades cargadas y flushes.
+ * <p>
+ * {@link #medir(String, Operacion)} ejecuta la operación y calcula la diferencia de los contadores de
+ * {@link Statistics} de Hibernate antes y después (requiere {@code hibernate.generate_statistics=true}).
+ * Cada medición se emite como evento JFR ({@link EventoOperacion}) y se entrega a la implementación de
+ * {@link MetricasOperacion} configurada.
+ * </p>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Los contadores de {@link Statistics} son globales de la {@code EntityManagerFactory}: si varias
+ *   operaciones se ejecutan a la vez, cada medición incluye también el trabajo de las demás. Los valores
+ *   son exactos en ejecución secuencial (como en {@code AppEcommerce.main}); la latencia siempre lo es.</li>
+ *   <li>Con batching JDBC, una sentencia preparada puede enviar muchas filas: el recuento es de sentencias
+ *   preparadas, no de filas.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class Instrumentacion {
+
+	/**
+	 * Operación a medir.
+	 */
+	@FunctionalInterface
+	public interface Operacion<T, E extends Exception> {
+		T ejecutar() throws E;
+	}
+
+	private final Statistics estadisticas;
+	private final MetricasOperacion metricas;
+
+	public Instrumentacion(EntityManagerFactory emf, MetricasOperacion metricas) {
+		this.estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+		this.metricas = metricas;
+		if (!estadisticas.isStatisticsEnabled())
+			System.err.println("hibernate.generate_statistics está desactivado: solo se medirá la latencia.");
+	}
+
+	/**
+	 * Ejecuta {@code operacion} y registra su medición, tanto si termina bien como si lanza una excepción
+	 * (que se propaga sin cambios).
+	 */
+	public <T, E extends Exception> T medir(String nombre, Operacion<T, E> operacion) throws E {
+		long sentencias = estadisticas.getPrepareStatementCount();
+		long entidades = estadisticas.getEntityLoadCount();
+		long cargasSeparadas = cargasSeparadas();
+		long flushes = estadisticas.getFlushCount();
+
+		EventoOperacion evento = new EventoOperacion();
+		evento.begin();
+		long inicio = System.nanoTime();
+		boolean correcta = false;
+		try {
+			T resultado = operacion.ejecutar();
+			correcta = true;
+			return resultado;
+		} finally {
+			long nanos = System.nanoTime() - inicio;
+			evento.end();
+
+			MetricasOperacion.Medicion m = new MetricasOperacion.Medicion(nombre, nanos,
+					estadisticas.getPrepareStatementCount() - sentencias,
+					estadisticas.getEntityLoadCount() - entidades,
+					cargasSeparadas() - cargasSeparadas,
+					estadisticas.getFlushCount() - flushes,
+					correcta);
+
+			if (evento.shouldCommit()) {
+				evento.operacion = nombre;
+				evento.sentencias = m.sentencias();
+				evento.entidadesCargadas = m.entidadesCargadas();
+				evento.cargasSeparadas = m.cargasSeparadas();
+				evento.flushes = m.flushes();
+				evento.correcta = correcta;
+				evento.commit();
+			}
+			metricas.registrar(m);
+		}
+	}
+
+	private long cargasSeparadas() {
+		return estadisticas.getEntityFetchCount() + estadisticas.getCollectionFetchCount();
+	}
+}
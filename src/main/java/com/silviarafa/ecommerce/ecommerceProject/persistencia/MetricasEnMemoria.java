@@ -0,0 +1,177 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Implementación por defecto de {@link MetricasOperacion}: agrega en memoria las mediciones de cada operación.
+ * <p>
+ * Por operación guarda un {@link HistogramaLatencias} (p50/p99/p999) y las medias de sentencias SQL,
+ * entidades cargadas y flushes. {@link #resumen()} devuelve una foto de todas las operaciones.
+ * </p>
+ * <h3>Detección de N+1</h3>
+ * Una operación se marca como sospechosa de N+1 por dos vías:
+ * <ul>
+ *   <li><b>Cargas separadas</b>: en una sola ejecución se inicializan con SELECT propio al menos
+ *   {@code umbralCargasSeparadas} entidades o colecciones LAZY.</li>
+ *   <li><b>Crecimiento</b>: a lo largo de las ejecuciones, las sentencias crecen con las entidades cargadas.
+ *   Se ajusta una recta por mínimos cuadrados (sentencias frente a entidades) y una pendiente de
+ *   {@value #PENDIENTE_N_MAS_1} o más sentencias por entidad indica que el número de consultas depende del
+ *   tamaño de la colección recorrida (p. ej. {@code getCompras()} en {@code borrarCliente}).</li>
+ * </ul>
+ * La primera vez que una operación se marca se avisa al observador registrado con {@link #alAlertar(Consumer)}.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class MetricasEnMemoria implements MetricasOperacion {
+
+	public static final int UMBRAL_CARGAS_SEPARADAS_DEFECTO = 10;
+
+	/** Sentencias adicionales por entidad cargada a partir de las que se sospecha un N+1. */
+	public static final double PENDIENTE_N_MAS_1 = 0.5;
+
+	/* Ejecuciones mínimas, con distinto número de entidades, para estimar la pendiente. */
+	private static final int MIN_MUESTRAS_PENDIENTE = 5;
+
+	/**
+	 * Foto de las métricas de una operación. Las latencias están en milisegundos.
+	 */
+	public record Resumen(String operacion, long llamadas, long errores, double p50Ms, double p99Ms, double p999Ms,
+			double maxMs, double sentenciasMedias, double entidadesMedias, double flushesMedios,
+			double sentenciasPorEntidad, boolean sospechaNMas1) {
+
+		@Override
+		public String toString() {
+			return String.format("%s: llamadas=%d, errores=%d, p50=%.3f ms, p99=%.3f ms, p999=%.3f ms, máx=%.3f ms,"
+					+ " sentencias=%.1f, entidades=%.1f, flushes=%.1f%s", operacion, llamadas, errores, p50Ms, p99Ms,
+					p999Ms, maxMs, sentenciasMedias, entidadesMedias, flushesMedios,
+					sospechaNMas1 ? " [POSIBLE N+1]" : "");
+		}
+	}
+
+	private final Map<String, Agregado> operaciones = new ConcurrentHashMap<>();
+	private final int umbralCargasSeparadas;
+	private Consumer<String> observador = System.err::println;
+
+	public MetricasEnMemoria() {
+		this(UMBRAL_CARGAS_SEPARADAS_DEFECTO);
+	}
+
+	public MetricasEnMemoria(int umbralCargasSeparadas) {
+		if (umbralCargasSeparadas <= 0)
+			throw new IllegalArgumentException("El umbral debe ser positivo: " + umbralCargasSeparadas);
+		this.umbralCargasSeparadas = umbralCargasSeparadas;
+	}
+
+	/**
+	 * Registra el observador que recibe los avisos de posible N+1 (por defecto, la salida de error).
+	 */
+	public MetricasEnMemoria alAlertar(Consumer<String> observador) {
+		this.observador = observador;
+		return this;
+	}
+
+	@Override
+	public void registrar(Medicion m) {
+		Agregado a = operaciones.computeIfAbsent(m.operacion(), k -> new Agregado());
+		a.latencias.registrar(m.nanos());
+		boolean sospecha;
+		synchronized (a) {
+			a.anotar(m);
+			if (m.cargasSeparadas() >= umbralCargasSeparadas)
+				a.cargasSeparadasExcesivas = true;
+			sospecha = a.sospecha();
+		}
+
+		if (sospecha && a.avisado.compareAndSet(false, true))
+			observador.accept("Posible N+1 en " + m.operacion() + ": " + m.sentencias() + " sentencias, "
+					+ m.entidadesCargadas() + " entidades cargadas, " + m.cargasSeparadas() + " cargas separadas.");
+	}
+
+	/**
+	 * Métricas de todas las operaciones registradas hasta ahora.
+	 */
+	public List<Resumen> resumen() {
+		List<Resumen> resumen = new ArrayList<>();
+		operaciones.forEach((nombre, a) -> {
+			synchronized (a) {
+				resumen.add(a.resumen(nombre));
+			}
+		});
+		resumen.sort((r1, r2) -> r1.operacion().compareTo(r2.operacion()));
+		return resumen;
+	}
+
+	/**
+	 * Descarta todas las mediciones.
+	 */
+	public void reiniciar() {
+		operaciones.clear();
+	}
+
+	/* Agregados de una operación. El histograma no necesita bloqueo; el resto se actualiza en bloque. */
+	private static final class Agregado {
+		private final HistogramaLatencias latencias = new HistogramaLatencias();
+		private final AtomicBoolean avisado = new AtomicBoolean();
+		private long llamadas;
+		private long errores;
+		private long sentencias;
+		private long entidades;
+		private long flushes;
+		private boolean cargasSeparadasExcesivas;
+
+		// Sumas para la recta de mínimos cuadrados sentencias = a + b * entidades
+		private double sumaX;
+		private double sumaY;
+		private double sumaXY;
+		private double sumaXX;
+
+		private void anotar(Medicion m) {
+			llamadas++;
+			if (!m.correcta())
+				errores++;
+			sentencias += m.sentencias();
+			entidades += m.entidadesCargadas();
+			flushes += m.flushes();
+
+			double x = m.entidadesCargadas();
+			double y = m.sentencias();
+			sumaX += x;
+			sumaY += y;
+			sumaXY += x * y;
+			sumaXX += x * x;
+		}
+
+		/* Pendiente de la recta, o NaN si no hay muestras suficientes o todas cargan lo mismo. */
+		private double pendiente() {
+			if (llamadas < MIN_MUESTRAS_PENDIENTE)
+				return Double.NaN;
+			double denominador = llamadas * sumaXX - sumaX * sumaX;
+			if (denominador <= 0)
+				return Double.NaN;
+			return (llamadas * sumaXY - sumaX * sumaY) / denominador;
+		}
+
+		private boolean sospecha() {
+			double b = pendiente();
+			return cargasSeparadasExcesivas || (!Double.isNaN(b) && b >= PENDIENTE_N_MAS_1);
+		}
+
+		private Resumen resumen(String nombre) {
+			double n = Math.max(1, llamadas);
+			return new Resumen(nombre, llamadas, errores, ms(latencias.percentil(0.50)), ms(latencias.percentil(0.99)),
+					ms(latencias.percentil(0.999)), ms(latencias.maximo()), sentencias / n, entidades / n, flushes / n,
+					pendiente(), sospecha());
+		}
+
+		private static double ms(long nanos) {
+			return nanos / 1_000_000.0;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+/**
+ * Destino de las mediciones de las operaciones de dominio instrumentadas con {@link Instrumentacion}.
+ * <p>
+ * Es el punto de extensión para enviar las métricas a otro sistema (Micrometer, Prometheus, logs...):
+ * basta con implementar {@link #registrar(Medicion)}. La implementación por defecto es
+ * {@link MetricasEnMemoria}. {@code registrar} se llama en el hilo que ejecutó la operación, así que
+ * las implementaciones deben ser thread-safe y no bloquear.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public interface MetricasOperacion {
+
+	/** Implementación que descarta las mediciones. */
+	MetricasOperacion NINGUNA = medicion -> {
+	};
+
+	/**
+	 * Medición de una ejecución de una operación.
+	 *
+	 * @param operacion          Nombre de la operación (p. ej. {@code borrarCliente}).
+	 * @param nanos              Duración de la operación.
+	 * @param sentencias         Sentencias SQL preparadas.
+	 * @param entidadesCargadas  Entidades cargadas desde la BD (no desde la caché de segundo nivel).
+	 * @param cargasSeparadas    Entidades y colecciones cargadas con un SELECT propio al acceder a ellas
+	 *                           (proxies y colecciones LAZY): el síntoma de un N+1.
+	 * @param flushes            Flushes del contexto de persistencia.
+	 * @param correcta           {@code false} si la operación terminó con una excepción.
+	 */
+	record Medicion(String operacion, long nanos, long sentencias, long entidadesCargadas, long cargasSeparadas,
+			long flushes, boolean correcta) {
+	}
+
+	void registrar(Medicion medicion);
+}
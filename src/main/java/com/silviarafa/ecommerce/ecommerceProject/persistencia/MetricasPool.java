@@ -0,0 +1,116 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Métricas del pool de conexiones HikariCP de la unidad de persistencia.
+ * <p>
+ * HikariCP instancia esta clase a partir de la propiedad
+ * {@code hibernate.hikari.metricsTrackerFactory} del {@code persistence.xml} y le pide
+ * un tracker por cada pool que arranca. Como la instancia la crea Hikari y no la aplicación,
+ * los trackers se registran en un mapa estático indexado por el nombre del pool
+ * ({@code hibernate.hikari.poolName}) y se consultan con {@link #instantanea(String)}.
+ * </p>
+ * <h3>Métricas</h3>
+ * <ul>
+ *   <li><b>activas / inactivas / total</b>: estado actual del pool.</li>
+ *   <li><b>esperando</b>: hilos bloqueados esperando conexión (indicador de saturación).</li>
+ *   <li><b>latencia de adquisición</b>: media y máximo del tiempo en obtener una conexión.</li>
+ *   <li><b>timeouts</b>: peticiones que superaron {@code connectionTimeout}.</li>
+ * </ul>
+ * Además, con {@code registerMbeans=true} Hikari publica el MXBean {@code HikariPoolMXBean} por JMX.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class MetricasPool implements MetricsTrackerFactory {
+
+	/** Nombre del pool configurado en persistence.xml. */
+	public static final String POOL_ESHOP = "my_eshop-pool";
+
+	private static final Map<String, Tracker> TRACKERS = new ConcurrentHashMap<>();
+
+	public MetricasPool() {
+	}
+
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		Tracker tracker = new Tracker(poolName, poolStats);
+		TRACKERS.put(poolName, tracker);
+		return tracker;
+	}
+
+	/**
+	 * Devuelve una foto de las métricas del pool indicado, o {@code null} si el pool no ha arrancado.
+	 */
+	public static Instantanea instantanea(String poolName) {
+		Tracker tracker = TRACKERS.get(poolName);
+		return tracker != null ? tracker.instantanea() : null;
+	}
+
+	/**
+	 * Foto inmutable de las métricas de un pool en un instante.
+	 */
+	public record Instantanea(String pool, int activas, int inactivas, int total, int maximo, int esperando,
+			long adquisiciones, double latenciaMediaMs, double latenciaMaxMs, long timeouts) {
+
+		@Override
+		public String toString() {
+			return "Pool " + pool + ": activas=" + activas + ", inactivas=" + inactivas + ", total=" + total + "/"
+					+ maximo + ", esperando=" + esperando + ", adquisiciones=" + adquisiciones
+					+ String.format(", latencia media=%.3f ms, latencia máx=%.3f ms", latenciaMediaMs, latenciaMaxMs)
+					+ ", timeouts=" + timeouts + '.';
+		}
+	}
+
+	/* Tracker por pool. Hikari lo invoca en cada getConnection(), por eso solo usa contadores sin bloqueo. */
+	private static final class Tracker implements IMetricsTracker {
+
+		private final String poolName;
+		private final PoolStats poolStats;
+		private final LongAdder adquisiciones = new LongAdder();
+		private final LongAdder nanosAdquisicion = new LongAdder();
+		private final LongAccumulator maxNanosAdquisicion = new LongAccumulator(Math::max, 0L);
+		private final LongAdder timeouts = new LongAdder();
+
+		private Tracker(String poolName, PoolStats poolStats) {
+			this.poolName = poolName;
+			this.poolStats = poolStats;
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			adquisiciones.increment();
+			nanosAdquisicion.add(elapsedAcquiredNanos);
+			maxNanosAdquisicion.accumulate(elapsedAcquiredNanos);
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			timeouts.increment();
+		}
+
+		@Override
+		public void close() {
+			TRACKERS.remove(poolName, this);
+		}
+
+		private Instantanea instantanea() {
+			long n = adquisiciones.sum();
+			double media = n > 0 ? (double) nanosAdquisicion.sum() / n / TimeUnit.MILLISECONDS.toNanos(1) : 0.0;
+			double max = (double) maxNanosAdquisicion.get() / TimeUnit.MILLISECONDS.toNanos(1);
+			return new Instantanea(poolName, poolStats.getActiveConnections(), poolStats.getIdleConnections(),
+					poolStats.getTotalConnections(), poolStats.getMaxConnections(), poolStats.getPendingThreads(), n,
+					media, max, timeouts.sum());
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.silviarafa.ecommerce.ecommerceProject.registro;
+
+import java.util.Locale;
+
+/**
+ * Datos de un cliente que se da de alta.
+ *
+ * @param nifCif          NIF/CIF (obligatorio, hasta 20 caracteres).
+ * @param nombreCompleto  Nombre completo (obligatorio, hasta 100 caracteres).
+ * @param email           Correo electrónico (opcional, único, hasta 150 caracteres).
+ * @param telefono        Teléfono de la información fiscal (opcional, hasta 20 caracteres).
+ * @param direccionFiscal Dirección fiscal (opcional, hasta 255 caracteres).
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record AltaCliente(String nifCif, String nombreCompleto, String email, String telefono,
+		String direccionFiscal) {
+
+	/**
+	 * Comprueba los campos obligatorios y las longitudes de columna.
+	 *
+	 * @throws IllegalArgumentException si algún campo no es válido.
+	 */
+	public void validar() {
+		if (nifCif == null || nifCif.isBlank() || nifCif.length() > 20)
+			throw new IllegalArgumentException("NIF/CIF vacío o de más de 20 caracteres: " + nifCif);
+		if (nombreCompleto == null || nombreCompleto.isBlank() || nombreCompleto.length() > 100)
+			throw new IllegalArgumentException("Nombre vacío o de más de 100 caracteres: " + nifCif);
+		if (email != null && (email.length() > 150 || email.indexOf('@') <= 0))
+			throw new IllegalArgumentException("Email no válido: " + email);
+		if (telefono != null && telefono.length() > 20)
+			throw new IllegalArgumentException("Teléfono de más de 20 caracteres: " + nifCif);
+		if (direccionFiscal != null && direccionFiscal.length() > 255)
+			throw new IllegalArgumentException("Dirección fiscal de más de 255 caracteres: " + nifCif);
+	}
+
+	/**
+	 * Email sin espacios y en minúsculas ({@code null} si no tiene), la forma en que se compara: la colación de
+	 * la columna no distingue mayúsculas.
+	 */
+	public String emailNormalizado() {
+		return normalizarEmail(email);
+	}
+
+	static String normalizarEmail(String email) {
+		if (email == null || email.isBlank())
+			return null;
+		return email.strip().toLowerCase(Locale.ROOT);
+	}
+}
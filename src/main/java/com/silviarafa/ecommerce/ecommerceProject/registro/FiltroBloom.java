@@ -0,0 +1,113 @@
+package com.silviarafa.ecommerce.ecommerceProject.registro;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.silviarafa.ecommerce.ecommerceProject.comun.HashCadena;
+
+/**
+ * Filtro de Bloom sobre cadenas: responde "seguro que no está" o "puede que esté".
+ * <p>
+ * Se dimensiona para {@code capacidad} elementos con una tasa de falsos positivos {@code p}:
+ * {@code m = -n·ln(p) / ln(2)²} bits y {@code k = m/n·ln(2)} funciones hash, obtenidas por doble hash
+ * ({@code h1 + i·h2}) del hash de 64 bits de la cadena ({@link HashCadena}). Con {@code p = 1%} ocupa unos 1,2 bytes por elemento.
+ * </p>
+ * <p>
+ * Es seguro para hilos: los bits se activan con operaciones atómicas, así que {@link #anadir(String)} y
+ * {@link #puedeContener(String)} se pueden llamar a la vez sin cerrojos. No admite borrados; al superar la
+ * capacidad la tasa de falsos positivos crece y conviene reconstruirlo ({@link #saturado()}).
+ * </p>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class FiltroBloom {
+
+	private final AtomicLongArray bits;
+	private final long numBits;
+	private final int numHashes;
+	private final long capacidad;
+	private final AtomicLong elementos = new AtomicLong();
+
+	/**
+	 * @param capacidad           Elementos previstos.
+	 * @param tasaFalsosPositivos Tasa de falsos positivos con {@code capacidad} elementos (entre 0 y 1).
+	 */
+	public FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+		if (capacidad <= 0)
+			throw new IllegalArgumentException("La capacidad debe ser positiva.");
+		if (!(tasaFalsosPositivos > 0 && tasaFalsosPositivos < 1))
+			throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1.");
+		double ln2 = Math.log(2);
+		long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (ln2 * ln2));
+		int palabras = (int) Math.min(Integer.MAX_VALUE - 8, (Math.max(m, 64) + 63) / 64);
+		this.bits = new AtomicLongArray(palabras);
+		this.numBits = (long) palabras * 64;
+		this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacidad * ln2));
+		this.capacidad = capacidad;
+	}
+
+	/**
+	 * Añade un elemento ({@code null} se ignora).
+	 */
+	public void anadir(String valor) {
+		if (valor == null)
+			return;
+		long h = HashCadena.hash64(valor);
+		int h1 = (int) h, h2 = (int) (h >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+			int palabra = (int) (bit >>> 6);
+			long mascara = 1L << bit;
+			long actual = bits.get(palabra);
+			while ((actual & mascara) == 0 && !bits.weakCompareAndSetVolatile(palabra, actual, actual | mascara))
+				actual = bits.get(palabra);
+		}
+		elementos.incrementAndGet();
+	}
+
+	/**
+	 * {@code false} si el elemento seguro que no se ha añadido; {@code true} si puede que sí.
+	 */
+	public boolean puedeContener(String valor) {
+		if (valor == null)
+			return false;
+		long h = HashCadena.hash64(valor);
+		int h1 = (int) h, h2 = (int) (h >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+			if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Elementos añadidos (contando repetidos).
+	 */
+	public long elementos() {
+		return elementos.get();
+	}
+
+	/**
+	 * {@code true} si se han añadido más elementos que la capacidad prevista.
+	 */
+	public boolean saturado() {
+		return elementos.get() > capacidad;
+	}
+
+	/**
+	 * Tasa de falsos positivos estimada con los elementos actuales: {@code (1 - e^(-k·n/m))^k}.
+	 */
+	public double tasaFalsosPositivosEstimada() {
+		return Math.pow(1 - Math.exp(-(double) numHashes * elementos.get() / numBits), numHashes);
+	}
+
+	/**
+	 * Tamaño del filtro en bytes.
+	 */
+	public long bytes() {
+		return numBits / 8;
+	}
+}
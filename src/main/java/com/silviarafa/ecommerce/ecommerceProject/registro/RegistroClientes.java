@@ -0,0 +1,422 @@
+package com.silviarafa.ecommerce.ecommerceProject.registro;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Alta de clientes, individual o en lote, sin la consulta previa por clave de {@code crearCliente}.
+ * <p>
+ * Se mantienen en memoria dos {@link FiltroBloom}, con los NIF/CIF y con los emails de la tabla {@code cliente}
+ * (se reconstruyen desde la BD al arrancar). Un alta nueva casi nunca está en el filtro, así que la comprobación
+ * de duplicados no va a la BD; solo las claves que el filtro da como posibles se consultan, por clave primaria
+ * o por el índice único {@code cliente_email_UX}, con una sola consulta {@code IN} por lote.
+ * </p>
+ * <h3>Escritura</h3>
+ * <ul>
+ *   <li>Los clientes de cada lote (hasta {@code tamanoLote}) se insertan con un {@code INSERT} de varias filas,
+ *   junto con su información fiscal y su fila de agregados, en una transacción sobre una
+ *   {@link StatelessSession}.</li>
+ *   <li>Si otro proceso da de alta la misma clave entre la comprobación y el {@code INSERT}, la BD lo rechaza
+ *   (clave primaria o índice único), se hace rollback y el lote se repite comprobando en la BD todas las
+ *   claves, sin el filtro. Solo las filas en conflicto quedan rechazadas.</li>
+ *   <li>Las altas repetidas dentro del mismo lote se rechazan (se queda la primera).</li>
+ * </ul>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>El filtro no admite borrados: un cliente borrado sigue dando positivo y se comprueba en la BD (un falso
+ *   positivo más). Cuando se supera su capacidad se reconstruye.</li>
+ *   <li>Los emails se guardan normalizados (sin espacios, en minúsculas).</li>
+ * </ul>
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class RegistroClientes {
+
+	public static final int TAMANO_LOTE_DEFECTO = 1000;
+
+	/** Tasa de falsos positivos de los filtros con la capacidad prevista. */
+	public static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+	/* Reintentos de un lote cuando choca con un alta concurrente. */
+	private static final int MAX_INTENTOS = 3;
+
+	private static final long CAPACIDAD_MINIMA = 100_000;
+	private static final int FETCH_SIZE = 10_000;
+
+	/**
+	 * Motivo por el que no se registra un alta.
+	 */
+	public enum Motivo {
+		NO_VALIDO, REPETIDO_EN_LOTE, NIF_EXISTENTE, EMAIL_EXISTENTE
+	}
+
+	/**
+	 * Alta no registrada.
+	 */
+	public record Rechazo(AltaCliente alta, Motivo motivo, String detalle) {
+	}
+
+	/**
+	 * Resultado de un registro.
+	 */
+	public record Resultado(int registrados, List<Rechazo> rechazos) {
+	}
+
+	/**
+	 * Contadores acumulados desde que se creó el registro.
+	 *
+	 * @param comprobaciones  Claves (NIF/CIF o email) comprobadas.
+	 * @param descartesFiltro Comprobaciones resueltas por el filtro sin ir a la BD.
+	 * @param consultasBD     Claves consultadas en la BD.
+	 * @param falsosPositivos Claves que el filtro daba como posibles y no estaban en la BD.
+	 */
+	public record Estadisticas(long comprobaciones, long descartesFiltro, long consultasBD, long falsosPositivos,
+			long registrados, long reintentos, long elementosFiltro, double tasaFalsosPositivosEstimada,
+			long bytesFiltro) {
+
+		@Override
+		public String toString() {
+			return "Comprobaciones=" + comprobaciones + ", resueltas por el filtro=" + descartesFiltro
+					+ ", consultadas en BD=" + consultasBD + ", falsos positivos=" + falsosPositivos + ", registrados="
+					+ registrados + ", reintentos=" + reintentos + ", elementos del filtro=" + elementosFiltro
+					+ String.format(", FP estimada=%.4f", tasaFalsosPositivosEstimada) + ", tamaño filtro="
+					+ bytesFiltro / 1024 + " KB.";
+		}
+	}
+
+	/* Filtros de NIF/CIF y emails; se sustituyen juntos al reconstruir. */
+	private record Filtros(FiltroBloom nifs, FiltroBloom emails) {
+
+		static Filtros vacios(long capacidad) {
+			return new Filtros(new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS),
+					new FiltroBloom(capacidad, TASA_FALSOS_POSITIVOS));
+		}
+
+		void anadir(String nif, String email) {
+			nifs.anadir(nif);
+			emails.anadir(email);
+		}
+	}
+
+	private final SessionFactory sessionFactory;
+	private final int tamanoLote;
+
+	private volatile Filtros filtros = Filtros.vacios(CAPACIDAD_MINIMA);
+	// Filtros que se están reconstruyendo: las altas confirmadas mientras tanto se añaden a los dos
+	private volatile Filtros enConstruccion;
+
+	private final LongAdder comprobaciones = new LongAdder();
+	private final LongAdder descartesFiltro = new LongAdder();
+	private final LongAdder consultasBD = new LongAdder();
+	private final LongAdder falsosPositivos = new LongAdder();
+	private final LongAdder registrados = new LongAdder();
+	private final LongAdder reintentos = new LongAdder();
+
+	public RegistroClientes(EntityManagerFactory emf) {
+		this(emf, TAMANO_LOTE_DEFECTO);
+	}
+
+	public RegistroClientes(EntityManagerFactory emf, int tamanoLote) {
+		if (tamanoLote <= 0)
+			throw new IllegalArgumentException("El tamaño de lote debe ser positivo.");
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.tamanoLote = tamanoLote;
+	}
+
+	/**
+	 * Crea el registro y carga los filtros desde la BD (lo habitual al arrancar la aplicación).
+	 */
+	public static RegistroClientes iniciar(EntityManagerFactory emf) {
+		RegistroClientes registro = new RegistroClientes(emf);
+		registro.reconstruirFiltros();
+		return registro;
+	}
+
+	/**
+	 * Reconstruye los filtros leyendo en streaming todos los NIF/CIF y emails de {@code cliente}, con capacidad
+	 * para el doble de los clientes actuales. Las altas siguen funcionando mientras tanto con los filtros
+	 * anteriores.
+	 *
+	 * @return Duración de la reconstrucción.
+	 */
+	public synchronized Duration reconstruirFiltros() {
+		long inicio = System.nanoTime();
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			long clientes = session.createSelectionQuery("SELECT COUNT(c) FROM Cliente c", Long.class)
+					.getSingleResult();
+			Filtros nuevos = Filtros.vacios(Math.max(CAPACIDAD_MINIMA, 2 * clientes));
+			enConstruccion = nuevos;
+
+			// Lo confirmado antes de abrir el cursor lo ve la lectura; lo posterior lo añade el alta a los dos filtros
+			try (ScrollableResults<Object[]> filas = session.createSelectionQuery(
+					"SELECT c.nifCif, c.email FROM Cliente c", Object[].class)
+					.setFetchSize(FETCH_SIZE)
+					.setReadOnly(true)
+					.scroll(ScrollMode.FORWARD_ONLY)) {
+				while (filas.next()) {
+					Object[] f = filas.get();
+					nuevos.anadir((String) f[0], AltaCliente.normalizarEmail((String) f[1]));
+				}
+			}
+			filtros = nuevos;
+		} finally {
+			enConstruccion = null;
+		}
+		return Duration.ofNanos(System.nanoTime() - inicio);
+	}
+
+	/**
+	 * {@code true} si ya hay un cliente con ese NIF/CIF. Solo consulta la BD si el filtro lo da como posible.
+	 */
+	public boolean existeNif(String nifCif) {
+		return !existentes(List.of(nifCif), true).isEmpty();
+	}
+
+	/**
+	 * {@code true} si ya hay un cliente con ese email. Solo consulta la BD si el filtro lo da como posible.
+	 */
+	public boolean existeEmail(String email) {
+		String normalizado = AltaCliente.normalizarEmail(email);
+		return normalizado != null && !existentes(List.of(normalizado), false).isEmpty();
+	}
+
+	/**
+	 * Registra un cliente.
+	 */
+	public Resultado registrar(AltaCliente alta) {
+		return registrarLote(List.of(alta));
+	}
+
+	/**
+	 * Registra los clientes en lotes de {@code tamanoLote}. Cada lote es una transacción; si uno falla por un
+	 * error distinto de un duplicado, se propaga la excepción y los lotes anteriores quedan confirmados.
+	 */
+	public Resultado registrarLote(List<AltaCliente> altas) {
+		List<Rechazo> rechazos = new ArrayList<>();
+		List<AltaCliente> validas = new ArrayList<>(altas.size());
+		Set<String> nifsLote = new HashSet<>(), emailsLote = new HashSet<>();
+		for (AltaCliente alta : altas) {
+			try {
+				alta.validar();
+			} catch (IllegalArgumentException iae) {
+				rechazos.add(new Rechazo(alta, Motivo.NO_VALIDO, iae.getMessage()));
+				continue;
+			}
+			String email = alta.emailNormalizado();
+			if (!nifsLote.add(alta.nifCif()) || (email != null && !emailsLote.add(email))) {
+				rechazos.add(new Rechazo(alta, Motivo.REPETIDO_EN_LOTE, "NIF/CIF o email repetido en el lote."));
+				continue;
+			}
+			validas.add(alta);
+		}
+
+		int total = 0;
+		for (int i = 0; i < validas.size(); i += tamanoLote)
+			total += registrarTramo(validas.subList(i, Math.min(i + tamanoLote, validas.size())), rechazos);
+
+		if (filtros.nifs().saturado())
+			reconstruirFiltros();
+		return new Resultado(total, List.copyOf(rechazos));
+	}
+
+	private int registrarTramo(List<AltaCliente> tramo, List<Rechazo> rechazos) {
+		for (int intento = 1;; intento++) {
+			boolean usarFiltro = intento == 1;
+			try (StatelessSession session = sessionFactory.openStatelessSession()) {
+				Transaction tx = session.beginTransaction();
+				try {
+					Set<String> nifsExistentes = existentes(session,
+							tramo.stream().map(AltaCliente::nifCif).toList(), true, usarFiltro);
+					Set<String> emailsExistentes = existentes(session,
+							tramo.stream().map(AltaCliente::emailNormalizado).filter(Objects::nonNull).toList(), false,
+							usarFiltro);
+
+					List<Rechazo> rechazosTramo = new ArrayList<>();
+					List<AltaCliente> nuevas = new ArrayList<>(tramo.size());
+					for (AltaCliente alta : tramo) {
+						if (nifsExistentes.contains(alta.nifCif()))
+							rechazosTramo.add(new Rechazo(alta, Motivo.NIF_EXISTENTE, alta.nifCif()));
+						else if (alta.emailNormalizado() != null && emailsExistentes.contains(alta.emailNormalizado()))
+							rechazosTramo.add(new Rechazo(alta, Motivo.EMAIL_EXISTENTE, alta.emailNormalizado()));
+						else
+							nuevas.add(alta);
+					}
+
+					if (!nuevas.isEmpty())
+						insertar(session, nuevas);
+					tx.commit();
+
+					Filtros actuales = filtros, siguientes = enConstruccion;
+					for (AltaCliente alta : nuevas) {
+						actuales.anadir(alta.nifCif(), alta.emailNormalizado());
+						if (siguientes != null)
+							siguientes.anadir(alta.nifCif(), alta.emailNormalizado());
+					}
+					registrados.add(nuevas.size());
+					rechazos.addAll(rechazosTramo);
+					return nuevas.size();
+				} catch (ConstraintViolationException cve) {
+					// Alta concurrente de alguna de las claves: se repite comprobando todo en la BD
+					if (tx.isActive())
+						tx.rollback();
+					if (intento == MAX_INTENTOS)
+						throw cve;
+					reintentos.increment();
+				} catch (RuntimeException e) {
+					if (tx.isActive())
+						tx.rollback();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/* Cliente, información fiscal (si hay datos) y agregados, cada uno con un INSERT de varias filas. */
+	private static void insertar(StatelessSession session, List<AltaCliente> nuevas) {
+		Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+		List<AltaCliente> conInformacion = nuevas.stream()
+				.filter(a -> a.telefono() != null || a.direccionFiscal() != null)
+				.toList();
+
+		session.doWork(conexion -> {
+			try (PreparedStatement ps = conexion.prepareStatement(
+					multifila("INSERT INTO cliente (nif_cif, nombre_completo, email, fecha_registro) VALUES ", 4,
+							nuevas.size()))) {
+				int p = 1;
+				for (AltaCliente a : nuevas) {
+					ps.setString(p++, a.nifCif());
+					ps.setString(p++, a.nombreCompleto());
+					ps.setString(p++, a.emailNormalizado());
+					ps.setTimestamp(p++, ahora);
+				}
+				ps.executeUpdate();
+			}
+			if (!conInformacion.isEmpty()) {
+				try (PreparedStatement ps = conexion.prepareStatement(
+						multifila("INSERT INTO informacion_fiscal (nif_cif, telefono, direccion_fiscal) VALUES ", 3,
+								conInformacion.size()))) {
+					int p = 1;
+					for (AltaCliente a : conInformacion) {
+						ps.setString(p++, a.nifCif());
+						ps.setString(p++, a.telefono());
+						ps.setString(p++, a.direccionFiscal());
+					}
+					ps.executeUpdate();
+				}
+			}
+			try (PreparedStatement ps = conexion.prepareStatement(
+					multifila("INSERT INTO cliente_agregado (nif_cif) VALUES ", 1, nuevas.size()))) {
+				int p = 1;
+				for (AltaCliente a : nuevas)
+					ps.setString(p++, a.nifCif());
+				ps.executeUpdate();
+			}
+		});
+	}
+
+	private static String multifila(String cabecera, int columnas, int filas) {
+		String fila = "(" + String.join(", ", Collections.nCopies(columnas, "?")) + ")";
+		return cabecera + String.join(", ", Collections.nCopies(filas, fila));
+	}
+
+	private Set<String> existentes(List<String> claves, boolean nif) {
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			return existentes(session, claves, nif, true);
+		}
+	}
+
+	/*
+	 * Claves que ya están en la BD. Con usarFiltro, las que el filtro descarta no se consultan.
+	 */
+	private Set<String> existentes(StatelessSession session, List<String> claves, boolean nif, boolean usarFiltro) {
+		comprobaciones.add(claves.size());
+		List<String> consultar = claves;
+		if (usarFiltro) {
+			FiltroBloom filtro = nif ? filtros.nifs() : filtros.emails();
+			consultar = claves.stream().filter(filtro::puedeContener).toList();
+			descartesFiltro.add(claves.size() - consultar.size());
+		}
+		if (consultar.isEmpty())
+			return Set.of();
+		consultasBD.add(consultar.size());
+
+		Set<String> encontrados = new HashSet<>();
+		String campo = nif ? "c.nifCif" : "c.email";
+		session.createSelectionQuery("SELECT " + campo + " FROM Cliente c WHERE " + campo + " IN :claves", String.class)
+				.setParameter("claves", consultar)
+				.getResultList()
+				.forEach(v -> encontrados.add(nif ? v : AltaCliente.normalizarEmail(v)));
+		if (usarFiltro)
+			falsosPositivos.add(consultar.size() - encontrados.size());
+		return encontrados;
+	}
+
+	/**
+	 * Contadores acumulados y estado del filtro de NIF/CIF.
+	 */
+	public Estadisticas estadisticas() {
+		FiltroBloom nifs = filtros.nifs();
+		return new Estadisticas(comprobaciones.sum(), descartesFiltro.sum(), consultasBD.sum(), falsosPositivos.sum(),
+				registrados.sum(), reintentos.sum(), nifs.elementos(), nifs.tasaFalsosPositivosEstimada(),
+				nifs.bytes() + filtros.emails().bytes());
+	}
+
+	/**
+	 * Carga los filtros y registra clientes de prueba desde la línea de comandos.
+	 * <p>
+	 * Uso: {@code RegistroClientes [numClientes] [prefijoNif]}
+	 * </p>
+	 */
+	public static void main(String[] args) {
+		EntityManagerFactory emf = null;
+		try {
+			emf = Arranque.crear();
+			int num = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+			String prefijo = args.length > 1 ? args[1] : "R";
+
+			System.out.println("\n--- CARGANDO FILTROS DE CLIENTES ---");
+			RegistroClientes registro = new RegistroClientes(emf);
+			System.out.println("Filtros cargados en " + registro.reconstruirFiltros().toMillis() + " ms.");
+
+			System.out.println("\n--- REGISTRANDO " + num + " CLIENTES ---");
+			List<AltaCliente> altas = new ArrayList<>(num);
+			for (int i = 0; i < num; i++) {
+				String nif = prefijo + String.format("%08d", i);
+				altas.add(new AltaCliente(nif, "Cliente " + nif, nif.toLowerCase() + "@example.com", null, null));
+			}
+			long inicio = System.nanoTime();
+			Resultado r = registro.registrarLote(altas);
+			System.out.println("Registrados=" + r.registrados() + ", rechazados=" + r.rechazos().size() + " en "
+					+ (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+			r.rechazos().stream().limit(10).forEach(x -> System.out.println("  - " + x.motivo() + ": " + x.detalle()));
+			System.out.println(registro.estadisticas());
+		} catch (Exception e) {
+			System.err.println("\nERROR GENERAL: " + e.getMessage());
+		} finally {
+			if (emf != null)
+				emf.close();
+		}
+	}
+}
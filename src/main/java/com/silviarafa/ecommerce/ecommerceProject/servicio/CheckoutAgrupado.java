@@ -0,0 +1,315 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+import com.silviarafa.ecommerce.ecommerceProject.stock.StockBD;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Checkout con commit agrupado (group commit): varias compras se confirman en una sola transacción.
+ * <p>
+ * Las compras se encolan con {@link #enviar(String, Map)} y un único hilo las agrupa en lotes: un lote se
+ * cierra al llegar a {@code maxLote} compras o al pasar {@code ventanaMs} milisegundos desde la primera
+ * compra del lote, lo que ocurra antes. Cada lote es una transacción con un solo flush y un solo commit,
+ * así que el coste fijo de la transacción (ida y vuelta del commit y escritura del log en la BD) se reparte
+ * entre todas las compras y los INSERT de cabeceras y líneas salen juntos en lotes JDBC.
+ * </p>
+ * <p>
+ * El future de cada compra se completa <b>después</b> de que el commit haya terminado: si se completa con
+ * la compra, ésta es durable.
+ * </p>
+ * <h3>Aislamiento de fallos</h3>
+ * <ul>
+ *   <li>Una compra sin líneas o con alguna cantidad no positiva se rechaza en {@link #enviar(String, Map)},
+ *   sin llegar a ningún lote.</li>
+ *   <li>Una compra que no se puede crear (cliente o artículo inexistente, stock insuficiente) se rechaza
+ *   sola: el stock ya descontado de sus líneas se repone en la misma transacción, también si el descuento
+ *   lanza una excepción ({@link StockBD#descontarTodoOReponer(EntityManager, Map)}), y el resto del lote sigue adelante.</li>
+ *   <li>Si el lote falla antes del commit (por ejemplo en el flush), se hace rollback y cada compra del lote
+ *   se reintenta en su propia transacción, de modo que solo fallan las compras que fallan por sí mismas.</li>
+ *   <li>Si falla el propio commit no se sabe si la BD llegó a confirmarlo, así que no se reintenta nada
+ *   (podría duplicar compras): los futures del lote fallan con {@link IllegalStateException} y las compras
+ *   se cuentan como inciertas.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class CheckoutAgrupado implements AutoCloseable {
+
+	public static final int MAX_LOTE_DEFECTO = 50;
+	public static final long VENTANA_MS_DEFECTO = 5;
+	public static final int CAPACIDAD_COLA_DEFECTO = 10_000;
+
+	/**
+	 * Contadores acumulados del checkout.
+	 */
+	public record Estadisticas(long lotes, long confirmadas, long rechazadas, long inciertas,
+			long lotesReintentados) {
+
+		public double comprasPorLote() {
+			return lotes > 0 ? (double) (confirmadas + rechazadas + inciertas) / lotes : 0.0;
+		}
+
+		@Override
+		public String toString() {
+			return "Lotes=" + lotes + ", confirmadas=" + confirmadas + ", rechazadas=" + rechazadas
+					+ ", inciertas=" + inciertas + ", lotes reintentados=" + lotesReintentados
+					+ String.format(", %.1f compras/lote", comprasPorLote()) + '.';
+		}
+	}
+
+	/* Compra en cola a la espera de su lote. */
+	private record Pedido(String nifCif, Map<Integer, Integer> unidades, CompletableFuture<Compra> futuro) {
+	}
+
+	/* El lote falló antes del commit y se deshizo: se puede reintentar sin duplicar compras. */
+	private static final class LoteDeshecho extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		LoteDeshecho(RuntimeException causa) {
+			super(causa);
+		}
+	}
+
+	private final EntityManagerFactory emf;
+	private final int maxLote;
+	private final long ventanaNanos;
+	private final BlockingQueue<Pedido> cola;
+	private final Thread hilo;
+	private volatile boolean activo = true;
+
+	private final AtomicLong lotes = new AtomicLong();
+	private final AtomicLong confirmadas = new AtomicLong();
+	private final AtomicLong rechazadas = new AtomicLong();
+	private final AtomicLong inciertas = new AtomicLong();
+	private final AtomicLong lotesReintentados = new AtomicLong();
+
+	public CheckoutAgrupado(EntityManagerFactory emf) {
+		this(emf, MAX_LOTE_DEFECTO, VENTANA_MS_DEFECTO, CAPACIDAD_COLA_DEFECTO);
+	}
+
+	public CheckoutAgrupado(EntityManagerFactory emf, int maxLote, long ventanaMs, int capacidadCola) {
+		if (maxLote <= 0 || ventanaMs < 0 || capacidadCola <= 0)
+			throw new IllegalArgumentException("Parámetros de lote no válidos.");
+		this.emf = emf;
+		this.maxLote = maxLote;
+		this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+		this.cola = new LinkedBlockingQueue<>(capacidadCola);
+		this.hilo = Thread.ofPlatform().name("checkout-agrupado").daemon(true).start(this::bucle);
+	}
+
+	/**
+	 * Encola una compra del cliente con las unidades indicadas por id de artículo.
+	 * <p>
+	 * El future se completa con la compra ya confirmada, o falla con {@link IllegalArgumentException} si la
+	 * compra no tiene líneas, alguna cantidad no es positiva o el cliente o algún artículo no existe, con {@link IllegalStateException} si no hay stock suficiente o si la
+	 * cola está llena o cerrada o si no se sabe si el commit llegó a la BD, o con el error de la BD.
+	 * </p>
+	 */
+	public CompletableFuture<Compra> enviar(String nifCif, Map<Integer, Integer> unidadesPorArticulo) {
+		CompletableFuture<Compra> futuro = new CompletableFuture<>();
+		String invalida = validar(unidadesPorArticulo);
+		if (invalida != null)
+			futuro.completeExceptionally(new IllegalArgumentException(invalida));
+		else if (!activo)
+			futuro.completeExceptionally(new IllegalStateException("El checkout está cerrado."));
+		else if (!cola.offer(new Pedido(nifCif, Map.copyOf(unidadesPorArticulo), futuro)))
+			futuro.completeExceptionally(new IllegalStateException("Cola de checkout llena."));
+		return futuro;
+	}
+
+	/* Motivo por el que la compra no se puede ni encolar, o null. Se comprueba antes de descontar nada. */
+	private static String validar(Map<Integer, Integer> unidadesPorArticulo) {
+		if (unidadesPorArticulo.isEmpty())
+			return "La compra no tiene líneas.";
+		for (Map.Entry<Integer, Integer> linea : unidadesPorArticulo.entrySet()) {
+			if (linea.getKey() == null || linea.getValue() == null || linea.getValue() <= 0)
+				return "Cantidad no válida para el artículo " + linea.getKey() + ": " + linea.getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Compras encoladas que aún no han entrado en un lote.
+	 */
+	public int enCola() {
+		return cola.size();
+	}
+
+	public Estadisticas estadisticas() {
+		return new Estadisticas(lotes.get(), confirmadas.get(), rechazadas.get(), inciertas.get(),
+				lotesReintentados.get());
+	}
+
+	/**
+	 * Deja de aceptar compras, confirma las ya encoladas y para el hilo.
+	 */
+	@Override
+	public void close() {
+		activo = false;
+		try {
+			hilo.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		// Compras encoladas justo durante el cierre
+		Pedido p;
+		while ((p = cola.poll()) != null)
+			p.futuro().completeExceptionally(new IllegalStateException("El checkout está cerrado."));
+	}
+
+	private void bucle() {
+		List<Pedido> lote = new ArrayList<>(maxLote);
+		while (activo || !cola.isEmpty()) {
+			try {
+				Pedido primero = cola.poll(100, TimeUnit.MILLISECONDS);
+				if (primero == null)
+					continue;
+				lote.add(primero);
+
+				// Se completa el lote hasta maxLote o hasta que venza la ventana de la primera compra
+				long limite = System.nanoTime() + ventanaNanos;
+				while (lote.size() < maxLote) {
+					long resto = limite - System.nanoTime();
+					if (resto <= 0) {
+						// Ventana vencida: entra lo que ya está en cola, sin esperar más
+						cola.drainTo(lote, maxLote - lote.size());
+						break;
+					}
+					Pedido siguiente = cola.poll(resto, TimeUnit.NANOSECONDS);
+					if (siguiente == null)
+						break;
+					lote.add(siguiente);
+				}
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				activo = false;
+			}
+
+			if (!lote.isEmpty()) {
+				procesar(lote);
+				lote.clear();
+			}
+		}
+	}
+
+	private void procesar(List<Pedido> lote) {
+		lotes.incrementAndGet();
+		try {
+			completar(confirmar(lote));
+		} catch (LoteDeshecho e) {
+			// Nada del lote se confirmó: cada compra se reintenta sola para aislar a la que lo provoca
+			lotesReintentados.incrementAndGet();
+			for (Pedido p : lote) {
+				try {
+					completar(confirmar(List.of(p)));
+				} catch (LoteDeshecho ex) {
+					rechazadas.incrementAndGet();
+					p.futuro().completeExceptionally(ex.getCause());
+				} catch (RuntimeException ex) {
+					incierta(p, ex);
+				}
+			}
+		} catch (RuntimeException e) {
+			// Falló el commit: el lote pudo quedar confirmado y reintentarlo duplicaría las compras
+			for (Pedido p : lote)
+				incierta(p, e);
+		}
+	}
+
+	private void incierta(Pedido p, RuntimeException causa) {
+		inciertas.incrementAndGet();
+		p.futuro().completeExceptionally(new IllegalStateException(
+				"No se sabe si la compra se confirmó (falló el commit); no se reintenta.", causa));
+	}
+
+	/*
+	 * Crea las compras del lote en una transacción. Devuelve, por pedido, la compra creada o la excepción
+	 * que la rechazó; los futures no se tocan hasta que el commit ha terminado. Un fallo antes del commit
+	 * sale como LoteDeshecho; cualquier otro, con el commit ya enviado, deja el resultado en duda.
+	 */
+	private Map<Pedido, Object> confirmar(List<Pedido> lote) {
+		Map<Pedido, Object> resultados = new LinkedHashMap<>();
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			try {
+				tx.begin();
+				for (Pedido p : lote) {
+					try {
+						resultados.put(p, crear(em, p));
+					} catch (IllegalArgumentException | IllegalStateException rechazo) {
+						resultados.put(p, rechazo);
+					}
+				}
+				em.flush();
+			} catch (RuntimeException e) {
+				if (tx.isActive())
+					tx.rollback();
+				throw new LoteDeshecho(e);
+			}
+			tx.commit();
+		} finally {
+			em.close();
+		}
+		anotarEscrituras(resultados);
+		return resultados;
+	}
+
+	/* Los clientes con compra confirmada leen de la primaria mientras las réplicas se ponen al día. */
+	private void anotarEscrituras(Map<Pedido, Object> resultados) {
+		ConexionesReplicadas replicas = ConexionesReplicadas.de(emf);
+		if (replicas == null)
+			return;
+		resultados.forEach((p, r) -> {
+			if (r instanceof Compra)
+				replicas.anotarEscritura(p.nifCif());
+		});
+	}
+
+	/* Rechaza la compra sin dejar cambios en la transacción compartida. */
+	private static Compra crear(EntityManager em, Pedido p) {
+		Cliente cliente = em.find(Cliente.class, p.nifCif());
+		if (cliente == null)
+			throw new IllegalArgumentException("No existe el cliente con NIF/CIF: " + p.nifCif());
+		Map<Articulo, Integer> carrito = ServicioCompras.carrito(em, p.unidades());
+
+		StockBD.ResultadoCompra r = StockBD.descontarTodoOReponer(em, p.unidades());
+		if (!r.correcto())
+			throw new IllegalStateException(
+					"No se puede crear la compra: " + r.resultado() + " (artículo " + r.articuloId() + ").");
+
+		return OperacionesCompra.registrar(em, cliente, carrito);
+	}
+
+	private void completar(Map<Pedido, Object> resultados) {
+		resultados.forEach((p, r) -> {
+			if (r instanceof Compra compra) {
+				confirmadas.incrementAndGet();
+				p.futuro().complete(compra);
+			} else {
+				rechazadas.incrementAndGet();
+				p.futuro().completeExceptionally((Throwable) r);
+			}
+		});
+	}
+}
@@ -0,0 +1,155 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Ejecuta unidades de trabajo de persistencia de forma concurrente.
+ * <p>
+ * Cada unidad de trabajo corre en su propia tarea con un {@link EntityManager} nuevo, obtenido de la
+ * {@link EntityManagerFactory} compartida y cerrado al terminar (un {@code EntityManager} no es thread-safe,
+ * así que nunca se comparte entre tareas como hace {@code AppEcommerce.main}).
+ * </p>
+ * <p>
+ * Por defecto cada tarea es un hilo virtual: miles de peticiones simultáneas cuestan poca memoria y
+ * un hilo bloqueado en E/S con la BD no ocupa un hilo del sistema. Como la BD no admite más concurrencia
+ * que conexiones tiene el pool, un {@link Semaphore} con tantos permisos como {@code maximumPoolSize}
+ * limita las tareas que usan la BD a la vez; el resto espera en el semáforo (barato en hilos virtuales)
+ * en lugar de acumularse en la cola del pool hasta agotar {@code connectionTimeout}.
+ * </p>
+ * <p>
+ * Las lecturas lanzadas con {@link #ejecutarLectura(String, Function)} van a una réplica si la unidad de
+ * persistencia tiene réplicas configuradas ({@link ConexionesReplicadas}); el resto, a la primaria.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class EjecutorPersistencia implements AutoCloseable {
+
+	/** Propiedad del persistence.xml con el tamaño máximo del pool. */
+	public static final String PROPIEDAD_TAMANO_POOL = "hibernate.hikari.maximumPoolSize";
+
+	private static final int TAMANO_POOL_DEFECTO = 10;
+
+	private final EntityManagerFactory emf;
+	private final ExecutorService executor;
+	private final Semaphore permisos;
+
+	private EjecutorPersistencia(EntityManagerFactory emf, ExecutorService executor, int maxConcurrencia) {
+		if (maxConcurrencia <= 0)
+			throw new IllegalArgumentException("La concurrencia máxima debe ser positiva: " + maxConcurrencia);
+		this.emf = emf;
+		this.executor = executor;
+		this.permisos = new Semaphore(maxConcurrencia, true);
+	}
+
+	/**
+	 * Un hilo virtual por unidad de trabajo, con la concurrencia en BD limitada al tamaño del pool.
+	 */
+	public static EjecutorPersistencia virtual(EntityManagerFactory emf) {
+		return new EjecutorPersistencia(emf, Executors.newVirtualThreadPerTaskExecutor(), tamanoPool(emf));
+	}
+
+	/**
+	 * Pool fijo de {@code hilos} hilos de plataforma (alternativa clásica, para comparar rendimiento).
+	 */
+	public static EjecutorPersistencia plataforma(EntityManagerFactory emf, int hilos) {
+		return new EjecutorPersistencia(emf, Executors.newFixedThreadPool(hilos), tamanoPool(emf));
+	}
+
+	/**
+	 * Ejecuta {@code unidad} en una tarea propia con un {@link EntityManager} exclusivo.
+	 * <p>
+	 * La unidad gestiona su transacción (como los métodos de {@code AppEcommerce}). El future se completa
+	 * con el resultado o con la excepción lanzada.
+	 * </p>
+	 */
+	public <T> CompletableFuture<T> ejecutar(Function<EntityManager, T> unidad) {
+		return conPermiso(() -> {
+			EntityManager em = emf.createEntityManager();
+			try {
+				return unidad.apply(em);
+			} finally {
+				em.close();
+			}
+		});
+	}
+
+	/**
+	 * Ejecuta una unidad de trabajo de solo lectura en una réplica, o en la primaria si no hay réplicas o
+	 * {@code clave} se ha escrito hace menos del retraso máximo de replicación (leer lo propio recién escrito).
+	 *
+	 * @param clave NIF/CIF del cliente cuyos datos se leen, o {@code null} si la lectura tolera el retraso.
+	 * @see ConexionesReplicadas#leer(EntityManagerFactory, String, ConexionesReplicadas.UnidadLectura)
+	 */
+	public <T> CompletableFuture<T> ejecutarLectura(String clave, Function<EntityManager, T> unidad) {
+		return conPermiso(() -> ConexionesReplicadas.leer(emf, clave, unidad::apply));
+	}
+
+	/* Ejecuta la tarea con uno de los permisos de acceso a la BD. */
+	private <T> CompletableFuture<T> conPermiso(Supplier<T> tarea) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				permisos.acquire();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Interrumpido esperando una conexión libre.");
+			}
+			try {
+				return tarea.get();
+			} finally {
+				permisos.release();
+			}
+		}, executor);
+	}
+
+	/**
+	 * Tareas esperando turno para usar la BD (indicador de saturación).
+	 */
+	public int enEspera() {
+		return permisos.getQueueLength();
+	}
+
+	public EntityManagerFactory getEntityManagerFactory() {
+		return emf;
+	}
+
+	/**
+	 * Deja de aceptar tareas y espera a que terminen las pendientes.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(30, TimeUnit.SECONDS))
+				executor.shutdownNow();
+		} catch (InterruptedException ie) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static int tamanoPool(EntityManagerFactory emf) {
+		Object valor = emf.getProperties().get(PROPIEDAD_TAMANO_POOL);
+		if (valor == null)
+			return TAMANO_POOL_DEFECTO;
+		try {
+			return Integer.parseInt(valor.toString().trim());
+		} catch (NumberFormatException nfe) {
+			return TAMANO_POOL_DEFECTO;
+		}
+	}
+}
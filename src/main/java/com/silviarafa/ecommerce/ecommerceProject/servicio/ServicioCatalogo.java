@@ -0,0 +1,42 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+
+/**
+ * Lecturas del catálogo ejecutadas de forma concurrente. Ambas se apoyan en la caché de segundo nivel y, si
+ * hay réplicas, van a ellas: el catálogo tolera su retraso.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ServicioCatalogo {
+
+	private final EjecutorPersistencia ejecutor;
+
+	public ServicioCatalogo(EjecutorPersistencia ejecutor) {
+		this.ejecutor = ejecutor;
+	}
+
+	/**
+	 * Todos los artículos del catálogo (consulta cacheable, región {@value Articulo#REGION_CATALOGO}).
+	 */
+	public CompletableFuture<List<Articulo>> listar() {
+		return ejecutor.ejecutarLectura(null, em -> em.createQuery("SELECT a FROM Articulo a", Articulo.class)
+				.setHint(HibernateHints.HINT_CACHEABLE, true)
+				.setHint(HibernateHints.HINT_CACHE_REGION, Articulo.REGION_CATALOGO)
+				.getResultList());
+	}
+
+	/**
+	 * Artículo por id, o {@code null} si no existe.
+	 */
+	public CompletableFuture<Articulo> buscar(Integer id) {
+		return ejecutor.ejecutarLectura(null, em -> em.find(Articulo.class, id));
+	}
+}
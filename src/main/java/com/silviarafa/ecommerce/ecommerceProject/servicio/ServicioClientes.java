@@ -0,0 +1,57 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.silviarafa.ecommerce.ecommerceProject.consulta.AgregadosCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ConsultasCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.HistorialCompras;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ResumenCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.AgregadoCliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCliente;
+
+/**
+ * Operaciones de clientes ejecutadas de forma concurrente, cada una con su propio {@code EntityManager}.
+ * Las lecturas van a una réplica salvo que el cliente acabe de comprar o de cambiar sus datos.
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ServicioClientes {
+
+	private final EjecutorPersistencia ejecutor;
+
+	public ServicioClientes(EjecutorPersistencia ejecutor) {
+		this.ejecutor = ejecutor;
+	}
+
+	/**
+	 * Resumen del cliente (datos fiscales, número de compras y gasto), o {@code null} si no existe.
+	 */
+	public CompletableFuture<ResumenCliente> resumen(String nifCif) {
+		return ejecutor.ejecutarLectura(nifCif, em -> ConsultasCliente.resumen(em, nifCif));
+	}
+
+	/**
+	 * Número de compras, gasto total y fecha de la última compra del cliente, leídos por clave primaria
+	 * de la tabla de agregados, o {@code null} si no tiene fila.
+	 */
+	public CompletableFuture<AgregadoCliente> agregados(String nifCif) {
+		return ejecutor.ejecutarLectura(nifCif, em -> AgregadosCliente.leer(em, nifCif));
+	}
+
+	/**
+	 * Página del historial de compras del cliente.
+	 */
+	public CompletableFuture<HistorialCompras.Pagina> historial(String nifCif, HistorialCompras.Cursor desde,
+			int tamano) {
+		return ejecutor.ejecutarLectura(nifCif, em -> HistorialCompras.pagina(em, nifCif, desde, tamano));
+	}
+
+	/**
+	 * Borra el cliente conservando sus compras (desvinculadas con un UPDATE masivo).
+	 */
+	public CompletableFuture<Boolean> borrar(String nifCif) {
+		return ejecutor.ejecutar(em -> OperacionesCliente.borrarEnBloque(em, nifCif));
+	}
+}
@@ -0,0 +1,57 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Alta de compras concurrente: cada compra es una unidad de trabajo con su propio {@code EntityManager}
+ * y su propia transacción, con descuento atómico del stock en la BD.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class ServicioCompras {
+
+	private final EjecutorPersistencia ejecutor;
+
+	public ServicioCompras(EjecutorPersistencia ejecutor) {
+		this.ejecutor = ejecutor;
+	}
+
+	/**
+	 * Crea una compra del cliente con las unidades indicadas por id de artículo.
+	 * <p>
+	 * El future falla con {@link IllegalArgumentException} si el cliente o algún artículo no existe y con
+	 * {@link IllegalStateException} si no hay stock suficiente.
+	 * </p>
+	 */
+	public CompletableFuture<Compra> crear(String nifCif, Map<Integer, Integer> unidadesPorArticulo) {
+		return ejecutor.ejecutar(em -> {
+			Cliente cliente = em.find(Cliente.class, nifCif);
+			if (cliente == null)
+				throw new IllegalArgumentException("No existe el cliente con NIF/CIF: " + nifCif);
+			return OperacionesCompra.crearDescontandoStock(em, cliente, carrito(em, unidadesPorArticulo));
+		});
+	}
+
+	/* Los artículos se leen de la caché de segundo nivel cuando están en ella. */
+	static Map<Articulo, Integer> carrito(EntityManager em, Map<Integer, Integer> unidadesPorArticulo) {
+		Map<Articulo, Integer> carrito = new LinkedHashMap<>();
+		for (Map.Entry<Integer, Integer> linea : unidadesPorArticulo.entrySet()) {
+			Articulo articulo = em.find(Articulo.class, linea.getKey());
+			if (articulo == null)
+				throw new IllegalArgumentException("No existe el artículo con ID: " + linea.getKey());
+			carrito.merge(articulo, linea.getValue(), Integer::sum);
+		}
+		return carrito;
+	}
+}
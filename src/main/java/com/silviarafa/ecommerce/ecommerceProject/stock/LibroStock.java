@@ -0,0 +1,374 @@
+package com.silviarafa.ecommerce.ecommerceProject.stock;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hibernate.query.NativeQuery;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.MovimientoStock;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TransactionRequiredException;
+
+/**
+ * Libro de stock en memoria: reserva y libera unidades de cada artículo sin bloquear la fila
+ * {@code articulo} en la base de datos.
+ * <p>
+ * Cada artículo tiene dos contadores atómicos:
+ * </p>
+ * <ul>
+ *   <li><b>disponible</b>: unidades que aún se pueden reservar. Se decrementa con un bucle CAS
+ *   que nunca lo deja por debajo de cero, así que no se vende más de lo que hay.</li>
+ *   <li><b>enCurso</b>: unidades reservadas de compras que aún no han hecho commit.</li>
+ * </ul>
+ * <h3>Ciclo de una compra</h3>
+ * <ol>
+ *   <li>{@link #reservarTodo(Map)} descuenta las unidades en memoria.</li>
+ *   <li>{@link #anotar(EntityManager, Map)} inserta las unidades en el diario {@code movimiento_stock}
+ *   dentro de la transacción de la compra. Es un INSERT de filas nuevas, sin bloquear {@code articulo}.</li>
+ *   <li>Tras el commit, {@link #confirmar(Map)}; si la compra falla, {@link #liberarTodo(Map)}.</li>
+ * </ol>
+ * <p>
+ * Una reserva solo se da por buena cuando su compra ha hecho commit, y entonces ya está en el diario: si el
+ * proceso cae, ninguna reserva confirmada se pierde. Un hilo programado vuelca periódicamente el diario en
+ * {@code articulo.stock} ({@link #volcar()}): suma los movimientos por artículo, los aplica con un UPDATE nativo
+ * y borra las filas volcadas, todo en una transacción. El UPDATE no toca la versión del artículo, de modo que
+ * el volcado no hace fallar por bloqueo optimista las ediciones del artículo ({@code actualizarArticulo}), y
+ * solo desaloja de la caché los artículos volcados ({@link StockBD}).
+ * El stock real de un artículo es siempre {@code articulo.stock} más la suma de sus movimientos en el diario.
+ * </p>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Al arrancar ({@link #cargar(EntityManagerFactory, long)}) el disponible se calcula con el stock y el
+ *   diario, así que los movimientos que no se llegaron a volcar antes de una caída se tienen en cuenta.</li>
+ *   <li>Mientras el libro está activo es el dueño del stock: los cambios hechos en la BD por otra vía
+ *   (p. ej. {@code actualizarArticulo}) no se ven hasta llamar a {@link #recargar(Integer)}.</li>
+ *   <li>Un volcado programado que falla no se pierde: los movimientos siguen en el diario y se vuelcan en el
+ *   siguiente ciclo. El último error se puede consultar con {@link #errorVolcado()}.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class LibroStock implements AutoCloseable {
+
+	/** Movimientos del diario que se vuelcan por transacción. */
+	private static final int LOTE_VOLCADO = 1000;
+
+	private final EntityManagerFactory emf;
+	private final Map<Integer, Entrada> entradas = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService volcador;
+	private final AtomicReference<RuntimeException> errorVolcado = new AtomicReference<>();
+
+	private LibroStock(EntityManagerFactory emf) {
+		this.emf = emf;
+		this.volcador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "libro-stock-volcado");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Crea el libro con el stock actual de la BD (más el diario sin volcar) y programa el volcado cada
+	 * {@code periodoMs} milisegundos.
+	 */
+	public static LibroStock cargar(EntityManagerFactory emf, long periodoMs) {
+		LibroStock libro = new LibroStock(emf);
+		libro.cargarDesdeBD();
+		libro.volcador.scheduleWithFixedDelay(libro::volcarProgramado, periodoMs, periodoMs, TimeUnit.MILLISECONDS);
+		return libro;
+	}
+
+	/**
+	 * Reserva {@code unidades} del artículo.
+	 *
+	 * @return {@code true} si había stock suficiente; {@code false} si no (no se reserva nada).
+	 * @throws IllegalArgumentException si el artículo no existe o las unidades no son positivas.
+	 */
+	public boolean reservar(Integer articuloId, int unidades) {
+		if (unidades <= 0)
+			throw new IllegalArgumentException("Las unidades a reservar deben ser positivas: " + unidades);
+		Entrada e = entrada(articuloId);
+
+		// En curso antes que disponible: recargar() nunca ve el descuento sin la reserva en curso
+		e.enCurso.addAndGet(unidades);
+		int actual;
+		do {
+			actual = e.disponible.get();
+			if (actual < unidades) {
+				e.enCurso.addAndGet(-unidades);
+				return false;
+			}
+		} while (!e.disponible.compareAndSet(actual, actual - unidades));
+		return true;
+	}
+
+	/**
+	 * Reserva todas las líneas o ninguna: si alguna falla, libera las ya reservadas.
+	 *
+	 * @return {@code true} si se reservaron todas las líneas.
+	 */
+	public boolean reservarTodo(Map<Integer, Integer> unidadesPorArticulo) {
+		Map<Integer, Integer> reservadas = new HashMap<>();
+		for (Map.Entry<Integer, Integer> linea : unidadesPorArticulo.entrySet()) {
+			if (!reservar(linea.getKey(), linea.getValue())) {
+				liberarTodo(reservadas);
+				return false;
+			}
+			reservadas.put(linea.getKey(), linea.getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Registra en el diario las unidades ya reservadas de una compra, con un único INSERT de varias filas dentro
+	 * de la transacción activa del llamador. Si la transacción hace commit, la reserva es durable.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public void anotar(EntityManager em, Map<Integer, Integer> unidadesPorArticulo) {
+		if (unidadesPorArticulo.isEmpty())
+			return;
+		StringBuilder sql = new StringBuilder("INSERT INTO movimiento_stock (articulo_id, unidades, fecha) VALUES ");
+		List<Object> parametros = new ArrayList<>();
+		LocalDateTime ahora = LocalDateTime.now();
+		for (Map.Entry<Integer, Integer> linea : new TreeMap<>(unidadesPorArticulo).entrySet()) {
+			int p = parametros.size();
+			sql.append(p == 0 ? "" : ", ").append("(?").append(p + 1).append(", ?").append(p + 2).append(", ?")
+					.append(p + 3).append(')');
+			parametros.add(linea.getKey());
+			parametros.add(-linea.getValue());
+			parametros.add(ahora);
+		}
+		nativa(em, sql.toString(), MovimientoStock.class, parametros.toArray());
+	}
+
+	/**
+	 * Da por confirmadas las reservas de una compra que ya ha hecho commit.
+	 */
+	public void confirmar(Map<Integer, Integer> unidadesPorArticulo) {
+		unidadesPorArticulo.forEach((id, n) -> {
+			Entrada e = entradas.get(id);
+			if (e != null)
+				e.enCurso.addAndGet(-n);
+		});
+	}
+
+	/**
+	 * Devuelve al disponible {@code unidades} reservadas de una compra que no ha llegado a hacer commit.
+	 * Si el artículo ya no está en el libro (se recargó tras borrarlo) no hace nada.
+	 */
+	public void liberar(Integer articuloId, int unidades) {
+		if (unidades <= 0)
+			throw new IllegalArgumentException("Las unidades a liberar deben ser positivas: " + unidades);
+		Entrada e = entradas.get(articuloId);
+		if (e == null)
+			return;
+		e.disponible.addAndGet(unidades);
+		e.enCurso.addAndGet(-unidades);
+	}
+
+	/**
+	 * Libera todas las líneas de una compra que no ha llegado a hacer commit.
+	 */
+	public void liberarTodo(Map<Integer, Integer> unidadesPorArticulo) {
+		unidadesPorArticulo.forEach(this::liberar);
+	}
+
+	/**
+	 * Unidades disponibles ahora mismo en memoria para el artículo.
+	 */
+	public int disponible(Integer articuloId) {
+		return entrada(articuloId).disponible.get();
+	}
+
+	/**
+	 * Aplica el diario a {@code articulo.stock} en lotes de {@value #LOTE_VOLCADO} movimientos, una transacción
+	 * por lote. Los movimientos se leen con bloqueo de escritura, así que dos procesos que vuelcan a la vez no
+	 * aplican dos veces el mismo movimiento.
+	 *
+	 * @return número de movimientos volcados.
+	 */
+	public synchronized int volcar() {
+		int total = 0;
+		int volcados;
+		do {
+			volcados = volcarLote();
+			total += volcados;
+		} while (volcados == LOTE_VOLCADO);
+		return total;
+	}
+
+	/**
+	 * Error del último volcado programado, o {@code null} si fue bien.
+	 */
+	public RuntimeException errorVolcado() {
+		return errorVolcado.get();
+	}
+
+	/**
+	 * Vuelve a leer de la BD el stock de un artículo (p. ej. tras una reposición hecha fuera del libro), con el
+	 * diario sin volcar y descontando las reservas en curso. Si coincide con compras en curso el valor puede
+	 * quedarse corto, pero nunca deja más unidades de las que hay.
+	 */
+	public void recargar(Integer articuloId) {
+		Entrada e = entradas.computeIfAbsent(articuloId, id -> new Entrada());
+		Integer stock;
+		int actual;
+		int nuevo;
+		do {
+			actual = e.disponible.get();
+			int enCurso = e.enCurso.get();
+			stock = leerStock(articuloId);
+			if (stock == null) {
+				entradas.remove(articuloId);
+				return;
+			}
+			nuevo = Math.max(0, stock - enCurso);
+			// Si una reserva o liberación cambia el disponible mientras tanto, se vuelve a leer
+		} while (!e.disponible.compareAndSet(actual, nuevo));
+	}
+
+	/**
+	 * Para el volcado programado y hace el volcado final.
+	 */
+	@Override
+	public void close() {
+		volcador.shutdown();
+		try {
+			volcador.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		volcar();
+	}
+
+	private int volcarLote() {
+		Map<Integer, Integer> deltas = new TreeMap<>();
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		int volcados;
+		try {
+			tx.begin();
+			List<Object[]> movimientos = em
+					.createQuery("SELECT m.id, m.articuloId, m.unidades FROM MovimientoStock m ORDER BY m.id",
+							Object[].class)
+					.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+					.setMaxResults(LOTE_VOLCADO)
+					.getResultList();
+			List<Long> ids = new ArrayList<>(movimientos.size());
+			for (Object[] m : movimientos) {
+				ids.add((Long) m[0]);
+				deltas.merge((Integer) m[1], (Integer) m[2], Integer::sum);
+			}
+			// En orden de id de artículo, como StockBD, para no interbloquearse con otros UPDATE de articulo
+			for (Map.Entry<Integer, Integer> d : deltas.entrySet()) {
+				if (d.getValue() != 0)
+					StockBD.actualizarStock(em, d.getKey(), "UPDATE articulo SET stock = COALESCE(stock, 0) + ?1"
+							+ " WHERE id = ?2", d.getValue(), d.getKey());
+			}
+			if (!ids.isEmpty())
+				nativa(em, "DELETE FROM movimiento_stock WHERE id IN (?1)", MovimientoStock.class, ids);
+			tx.commit();
+			volcados = ids.size();
+		} catch (RuntimeException ex) {
+			if (tx.isActive())
+				tx.rollback();
+			throw ex;
+		} finally {
+			em.close();
+		}
+		return volcados;
+	}
+
+	private void cargarDesdeBD() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			// Una sola consulta: stock y diario se leen de la misma instantánea aunque haya un volcado en marcha
+			List<Object[]> filas = em
+					.createQuery("SELECT a.id, COALESCE(a.stock, 0) + COALESCE((SELECT SUM(m.unidades)"
+							+ " FROM MovimientoStock m WHERE m.articuloId = a.id), 0) FROM Articulo a", Object[].class)
+					.getResultList();
+			for (Object[] fila : filas) {
+				Entrada e = new Entrada();
+				e.disponible.set(Math.max(0, ((Number) fila[1]).intValue()));
+				entradas.put((Integer) fila[0], e);
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	/* Un error no puede escapar del hilo programado: cancelaría los volcados siguientes. */
+	private void volcarProgramado() {
+		try {
+			volcar();
+			errorVolcado.set(null);
+		} catch (RuntimeException ex) {
+			errorVolcado.set(ex);
+		}
+	}
+
+	/* Los artículos creados después de cargar el libro se incorporan la primera vez que se usan. */
+	private Entrada entrada(Integer articuloId) {
+		Entrada e = entradas.get(articuloId);
+		if (e == null) {
+			Integer stock = leerStock(articuloId);
+			if (stock == null)
+				throw new IllegalArgumentException("No existe el artículo con ID: " + articuloId);
+			Entrada nueva = new Entrada();
+			nueva.disponible.set(Math.max(0, stock));
+			e = entradas.putIfAbsent(articuloId, nueva);
+			if (e == null)
+				e = nueva;
+		}
+		return e;
+	}
+
+	/* Stock del artículo más su diario sin volcar, o null si no existe. */
+	private Integer leerStock(Integer articuloId) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT COALESCE(a.stock, 0) + COALESCE((SELECT SUM(m.unidades)"
+					+ " FROM MovimientoStock m WHERE m.articuloId = a.id), 0) FROM Articulo a WHERE a.id = :id",
+					Number.class)
+					.setParameter("id", articuloId)
+					.getResultStream().findFirst().map(Number::intValue).orElse(null);
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Sentencia nativa sincronizada solo con la entidad que modifica: sin esto Hibernate invalidaría todas las
+	 * regiones de la caché de segundo nivel.
+	 */
+	private static int nativa(EntityManager em, String sql, Class<?> entidad, Object... parametros) {
+		NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+		query.addSynchronizedEntityClass(entidad);
+		for (int i = 0; i < parametros.length; i++)
+			query.setParameter(i + 1, parametros[i]);
+		return query.executeUpdate();
+	}
+
+	/* Contadores de un artículo. */
+	private static final class Entrada {
+		private final AtomicInteger disponible = new AtomicInteger();
+		private final AtomicInteger enCurso = new AtomicInteger();
+	}
+}
@@ -0,0 +1,165 @@
+package com.silviarafa.ecommerce.ecommerceProject.stock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.query.NativeQuery;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TransactionRequiredException;
+
+/**
+ * Descuento de stock directamente en la base de datos, sin pasar por el libro en memoria.
+ * <p>
+ * Cada línea es un único UPDATE nativo condicional:
+ * {@code UPDATE articulo SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock >= ?}.
+ * La comprobación y el descuento son atómicos en la BD, así que no hay carrera entre leer el
+ * stock y escribirlo (como ocurriría con {@code find} + {@code merge}) y no se puede vender más de lo que hay.
+ * Si el UPDATE no afecta a ninguna fila, el resultado indica el motivo.
+ * </p>
+ * <h3>Observaciones</h3>
+ * <ul>
+ *   <li>Los métodos se ejecutan dentro de la transacción del llamador; ante un fallo es el llamador
+ *   quien hace rollback para deshacer las líneas ya descontadas.</li>
+ *   <li>Las líneas se descuentan en orden de id de artículo para que dos compras concurrentes
+ *   bloqueen las filas en el mismo orden y no se produzcan interbloqueos.</li>
+ *   <li>Un UPDATE masivo (JPQL, o nativo sincronizado con {@link Articulo}) vaciaría toda la región de caché
+ *   {@code articulo} en cada compra. Los UPDATE de stock se sincronizan con el espacio {@value #ESPACIO_STOCK},
+ *   que no es ninguna tabla, y al terminar la transacción se desaloja solo la entrada de cada artículo tocado.
+ *   El catálogo cacheado no depende del stock, así que no hace falta invalidarlo.</li>
+ *   <li>Los artículos retirados no se pueden vender: el descuento devuelve {@link Resultado#RETIRADO}.</li>
+ * </ul>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class StockBD {
+
+	/**
+	 * Resultado de un descuento de stock.
+	 */
+	public enum Resultado {
+		/** Stock descontado. */
+		DESCONTADO,
+		/** El artículo existe pero no tiene unidades suficientes. */
+		STOCK_INSUFICIENTE,
+		/** El artículo existe pero está retirado del catálogo: no se puede vender. */
+		RETIRADO,
+		/** No existe ningún artículo con ese id. */
+		NO_EXISTE
+	}
+
+	/**
+	 * Resultado del descuento de varias líneas: el primer artículo que falló, o {@code null} si todo fue bien.
+	 */
+	public record ResultadoCompra(Resultado resultado, Integer articuloId) {
+
+		public boolean correcto() {
+			return resultado == Resultado.DESCONTADO;
+		}
+	}
+
+	/** Espacio de consulta de los UPDATE de stock: no coincide con ninguna tabla ni consulta cacheada. */
+	static final String ESPACIO_STOCK = "articulo_stock";
+
+	private StockBD() {
+	}
+
+	/**
+	 * Descuenta {@code unidades} del artículo si hay stock suficiente.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static Resultado descontar(EntityManager em, Integer articuloId, int unidades) {
+		if (unidades <= 0)
+			throw new IllegalArgumentException("Las unidades a descontar deben ser positivas: " + unidades);
+
+		int filas = actualizarStock(em, articuloId, "UPDATE articulo SET stock = stock - ?1, version = version + 1"
+				+ " WHERE id = ?2 AND stock >= ?1 AND retirado = false", unidades, articuloId);
+		if (filas == 1)
+			return Resultado.DESCONTADO;
+
+		// Solo en el camino de fallo: distinguir inexistente, retirado y stock insuficiente. Consulta nativa
+		// porque el filtro de artículos vigentes haría que un artículo retirado contase como inexistente.
+		List<?> retirado = em.createNativeQuery("SELECT retirado FROM articulo WHERE id = ?1")
+				.setParameter(1, articuloId)
+				.getResultList();
+		if (retirado.isEmpty())
+			return Resultado.NO_EXISTE;
+		return Boolean.TRUE.equals(retirado.get(0)) ? Resultado.RETIRADO : Resultado.STOCK_INSUFICIENTE;
+	}
+
+	/**
+	 * Descuenta todas las líneas en orden de id de artículo y se para en la primera que falle.
+	 * Si el resultado no es correcto, el llamador debe hacer rollback de la transacción.
+	 */
+	public static ResultadoCompra descontarTodo(EntityManager em, Map<Integer, Integer> unidadesPorArticulo) {
+		for (Map.Entry<Integer, Integer> linea : new TreeMap<>(unidadesPorArticulo).entrySet()) {
+			Resultado r = descontar(em, linea.getKey(), linea.getValue());
+			if (r != Resultado.DESCONTADO)
+				return new ResultadoCompra(r, linea.getKey());
+		}
+		return new ResultadoCompra(Resultado.DESCONTADO, null);
+	}
+
+	/**
+	 * Como {@link #descontarTodo(EntityManager, Map)}, pero si una línea falla devuelve al stock las líneas
+	 * ya descontadas en la misma transacción, tanto si la línea no tiene stock como si lanza una excepción
+	 * (que se relanza tras reponer). Permite rechazar una compra sin hacer rollback de la transacción, que
+	 * puede contener otras compras (checkout agrupado).
+	 */
+	public static ResultadoCompra descontarTodoOReponer(EntityManager em, Map<Integer, Integer> unidadesPorArticulo) {
+		Map<Integer, Integer> descontadas = new TreeMap<>();
+		try {
+			for (Map.Entry<Integer, Integer> linea : new TreeMap<>(unidadesPorArticulo).entrySet()) {
+				Resultado r = descontar(em, linea.getKey(), linea.getValue());
+				if (r != Resultado.DESCONTADO) {
+					descontadas.forEach((id, n) -> reponer(em, id, n));
+					return new ResultadoCompra(r, linea.getKey());
+				}
+				descontadas.put(linea.getKey(), linea.getValue());
+			}
+		} catch (RuntimeException e) {
+			try {
+				descontadas.forEach((id, n) -> reponer(em, id, n));
+			} catch (RuntimeException re) {
+				e.addSuppressed(re);
+			}
+			throw e;
+		}
+		return new ResultadoCompra(Resultado.DESCONTADO, null);
+	}
+
+	/**
+	 * Devuelve {@code unidades} al stock del artículo.
+	 *
+	 * @throws TransactionRequiredException si no hay una transacción activa.
+	 */
+	public static void reponer(EntityManager em, Integer articuloId, int unidades) {
+		if (unidades <= 0)
+			throw new IllegalArgumentException("Las unidades a reponer deben ser positivas: " + unidades);
+		actualizarStock(em, articuloId, "UPDATE articulo SET stock = stock + ?1, version = version + 1 WHERE id = ?2",
+				unidades, articuloId);
+	}
+
+	/**
+	 * Ejecuta un UPDATE nativo del stock de un artículo sincronizado solo con {@value #ESPACIO_STOCK} y desaloja
+	 * la entrada del artículo de la caché al terminar la transacción (también el libro de stock al volcar).
+	 */
+	static int actualizarStock(EntityManager em, Integer articuloId, String sql, Object... parametros) {
+		NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+		query.addSynchronizedQuerySpace(ESPACIO_STOCK);
+		for (int i = 0; i < parametros.length; i++)
+			query.setParameter(i + 1, parametros[i]);
+		int filas = query.executeUpdate();
+		// Tras el commit: si se desalojase ya, una lectura concurrente podría volver a cachear el stock anterior
+		em.unwrap(SharedSessionContractImplementor.class).registerProcess(
+				(exito, sesion) -> sesion.getFactory().getCache().evict(Articulo.class, articuloId));
+		return filas;
+	}
+}
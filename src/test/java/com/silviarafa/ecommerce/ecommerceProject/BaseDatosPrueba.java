@@ -0,0 +1,197 @@
+package com.silviarafa.ecommerce.ecommerceProject;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+import com.silviarafa.ecommerce.ecommerceProject.model.InformacionFiscal;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Base de datos embebida (H2 en memoria, modo MariaDB) para las pruebas.
+ * <p>
+ * Arranca la unidad de persistencia del proyecto con {@link Arranque#crear(Map)} sobrescribiendo solo la
+ * conexión, el dialecto, el nombre del pool y el esquema ({@code create-drop}), de modo que se prueba el mismo
+ * mapeo, pool, lotes JDBC y caché que en producción. Cada factoría usa una BD nueva con nombre único.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class BaseDatosPrueba {
+
+	/* El persistence.xml fija MariaDB y su versión para arrancar sin metadatos JDBC; aquí se cambian por H2. */
+	private static final String VERSION_H2 = "2.3.232";
+
+	private BaseDatosPrueba() {
+	}
+
+	/**
+	 * Crea la factoría sobre una BD H2 nueva y vacía (solo el esquema).
+	 */
+	public static EntityManagerFactory crear() {
+		return crear(Map.of());
+	}
+
+	/**
+	 * Como {@link #crear()}, añadiendo o sobrescribiendo las propiedades {@code extra}.
+	 */
+	public static EntityManagerFactory crear(Map<String, ?> extra) {
+		Map<String, Object> props = propiedades(url(nombreNuevo()));
+		props.putAll(extra);
+		return Arranque.crear(props);
+	}
+
+	/**
+	 * Propiedades que apuntan la unidad de persistencia a la BD H2 {@code url}, con el esquema en {@code create-drop}.
+	 */
+	public static Map<String, Object> propiedades(String url) {
+		Map<String, Object> props = new HashMap<>();
+		props.put("jakarta.persistence.jdbc.driver", "org.h2.Driver");
+		props.put("jakarta.persistence.jdbc.url", url);
+		props.put("jakarta.persistence.jdbc.user", "sa");
+		props.put("jakarta.persistence.jdbc.password", "");
+		props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		props.put("jakarta.persistence.database-product-name", "H2");
+		props.put("jakarta.persistence.database-product-version", VERSION_H2);
+		props.put("hibernate.hbm2ddl.auto", "create-drop");
+		props.put(Arranque.PROPIEDAD_VALIDACION_DIFERIDA, "false");
+		props.put(ConexionesReplicadas.PROPIEDAD_URLS, "");
+		// Varias factorías por JVM: cada pool con su nombre (y su MBean)
+		props.put("hibernate.hikari.poolName", "prueba-" + UUID.randomUUID());
+		props.put("hibernate.show_sql", "false");
+		props.put("hibernate.format_sql", "false");
+		return props;
+	}
+
+	/**
+	 * URL JDBC de la BD H2 en memoria {@code nombre} (sigue viva mientras la JVM no termine).
+	 */
+	public static String url(String nombre) {
+		return "jdbc:h2:mem:" + nombre + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+	}
+
+	/**
+	 * Nombre nuevo para una BD H2.
+	 */
+	public static String nombreNuevo() {
+		return "prueba" + UUID.randomUUID().toString().replace("-", "");
+	}
+
+	/**
+	 * Ejecuta {@code trabajo} en una transacción propia y devuelve su resultado.
+	 */
+	public static <T> T resultadoEnTransaccion(EntityManagerFactory emf, Function<EntityManager, T> trabajo) {
+		EntityManager em = emf.createEntityManager();
+		EntityTransaction tx = em.getTransaction();
+		try {
+			tx.begin();
+			T resultado = trabajo.apply(em);
+			tx.commit();
+			return resultado;
+		} finally {
+			if (tx.isActive())
+				tx.rollback();
+			em.close();
+		}
+	}
+
+	/**
+	 * Como {@link #resultadoEnTransaccion(EntityManagerFactory, Function)}, sin resultado.
+	 */
+	public static void enTransaccion(EntityManagerFactory emf, Consumer<EntityManager> trabajo) {
+		resultadoEnTransaccion(emf, em -> {
+			trabajo.accept(em);
+			return null;
+		});
+	}
+
+	/**
+	 * Crea un artículo con {@code stock} unidades y precio 10,00 y devuelve su id.
+	 */
+	public static Integer crearArticulo(EntityManagerFactory emf, int stock) {
+		return resultadoEnTransaccion(emf, em -> {
+			Articulo a = new Articulo();
+			a.setNombre("Artículo de prueba");
+			a.setDescripcion("Artículo de prueba");
+			a.setPrecioActual(Dinero.deCentimos(1000));
+			a.setStock(stock);
+			em.persist(a);
+			return a.getId();
+		});
+	}
+
+	/**
+	 * Crea un cliente con información fiscal.
+	 */
+	public static void crearCliente(EntityManagerFactory emf, String nifCif) {
+		enTransaccion(emf, em -> {
+			Cliente cli = new Cliente();
+			cli.setNifCif(nifCif);
+			cli.setNombreCompleto("Cliente " + nifCif);
+			cli.setEmail(nifCif.toLowerCase() + "@example.com");
+			cli.setFechaRegistro(LocalDateTime.now());
+			InformacionFiscal info = new InformacionFiscal();
+			info.setNifCif(nifCif);
+			info.setTelefono("600000000");
+			info.setDireccionFiscal("Calle Prueba 1");
+			cli.setInformacionFiscal(info);
+			em.persist(cli);
+		});
+	}
+
+	/**
+	 * Stock guardado en {@code articulo.stock}, leído con una consulta (sin pasar por la caché).
+	 */
+	public static int stockEnBD(EntityManagerFactory emf, Integer articuloId) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return ((Number) em.createNativeQuery("SELECT stock FROM articulo WHERE id = ?1")
+					.setParameter(1, articuloId).getSingleResult()).intValue();
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Lanza {@code tarea} en {@code hilos} hilos que arrancan a la vez y espera a que terminen, propagando el
+	 * primer error.
+	 */
+	public static void ejecutarALaVez(int hilos, Runnable tarea) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(hilos);
+		CountDownLatch salida = new CountDownLatch(1);
+		try {
+			List<Future<?>> futuros = new ArrayList<>();
+			for (int h = 0; h < hilos; h++) {
+				futuros.add(pool.submit(() -> {
+					salida.await();
+					tarea.run();
+					return null;
+				}));
+			}
+			salida.countDown();
+			for (Future<?> f : futuros)
+				f.get();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
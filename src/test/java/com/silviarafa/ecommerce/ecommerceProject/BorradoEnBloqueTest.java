@@ -0,0 +1,114 @@
+package com.silviarafa.ecommerce.ecommerceProject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas de los borrados en bloque sobre H2: el número de sentencias JDBC no depende de cuántas compras
+ * tenga el cliente o el artículo.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class BorradoEnBloqueTest {
+
+	private static final int MUCHAS_COMPRAS = 50;
+
+	private EntityManagerFactory emf;
+	private Statistics estadisticas;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+		estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void borrarClienteEnBloqueUsaLasMismasSentenciasConUnaCompraQueConMuchas() {
+		Integer articulo = BaseDatosPrueba.crearArticulo(emf, 1000);
+		BaseDatosPrueba.crearCliente(emf, "11111111H");
+		BaseDatosPrueba.crearCliente(emf, "22222222J");
+		comprar("11111111H", articulo, 1);
+		comprar("22222222J", articulo, MUCHAS_COMPRAS);
+
+		long conUna = sentencias(em -> AppEcommerce.borrarClienteEnBloque(em, "11111111H"));
+		long conMuchas = sentencias(em -> AppEcommerce.borrarClienteEnBloque(em, "22222222J"));
+
+		// UPDATE de compras y de compras archivadas; DELETE de agregados, información fiscal y cliente
+		assertEquals(5, conUna);
+		assertEquals(conUna, conMuchas);
+		assertEquals(0, contar("SELECT COUNT(c) FROM Cliente c"));
+		assertEquals(1 + MUCHAS_COMPRAS, contar("SELECT COUNT(c) FROM Compra c WHERE c.cliente IS NULL"));
+	}
+
+	@Test
+	void borrarArticuloEnBloqueUsaLasMismasSentenciasConUnaCompraQueConMuchas() {
+		Integer conUna = BaseDatosPrueba.crearArticulo(emf, 1000);
+		Integer conMuchas = BaseDatosPrueba.crearArticulo(emf, 1000);
+		BaseDatosPrueba.crearCliente(emf, "11111111H");
+		comprar("11111111H", conUna, 1);
+		comprar("11111111H", conMuchas, MUCHAS_COMPRAS);
+
+		long sentenciasConUna = sentencias(em -> AppEcommerce.borrarArticuloEnBloque(em, conUna));
+		long sentenciasConMuchas = sentencias(em -> AppEcommerce.borrarArticuloEnBloque(em, conMuchas));
+
+		assertEquals(1, sentenciasConUna);
+		assertEquals(sentenciasConUna, sentenciasConMuchas);
+		assertEquals(1 + MUCHAS_COMPRAS, contar("SELECT COUNT(l) FROM ArticuloCompra l"));
+	}
+
+	private void comprar(String nif, Integer articuloId, int compras) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			for (int i = 0; i < compras; i++) {
+				Cliente cliente = em.find(Cliente.class, nif);
+				OperacionesCompra.crear(em, cliente, Map.of(em.find(Articulo.class, articuloId), 1));
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	/* Sentencias JDBC preparadas por el borrado, que debe tener éxito. */
+	private long sentencias(Predicate<EntityManager> borrado) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			estadisticas.clear();
+			assertTrue(borrado.test(em));
+			return estadisticas.getPrepareStatementCount();
+		} finally {
+			em.close();
+		}
+	}
+
+	private long contar(String jpql) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery(jpql, Long.class).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.silviarafa.ecommerce.ecommerceProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Guarda el SQL que Hibernate prepara, para comprobar en las pruebas qué consultas lanza cada operación.
+ * <p>
+ * Se registra en la factoría con {@code hibernate.session_factory.statement_inspector}; solo graba mientras
+ * está activo ({@link #grabar()} / {@link #parar()}), así que la preparación de datos de la prueba no cuenta.
+ * </p>
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class RegistroSentencias implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> sentencias = new ArrayList<>();
+	private volatile boolean grabando;
+
+	@Override
+	public String inspect(String sql) {
+		if (grabando) {
+			synchronized (sentencias) {
+				sentencias.add(sql);
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * Descarta lo grabado y empieza a grabar.
+	 */
+	public void grabar() {
+		synchronized (sentencias) {
+			sentencias.clear();
+		}
+		grabando = true;
+	}
+
+	/**
+	 * Deja de grabar y devuelve las sentencias preparadas desde {@link #grabar()}.
+	 */
+	public List<String> parar() {
+		grabando = false;
+		synchronized (sentencias) {
+			return List.copyOf(sentencias);
+		}
+	}
+}
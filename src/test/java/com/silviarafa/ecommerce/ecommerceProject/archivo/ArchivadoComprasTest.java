@@ -0,0 +1,93 @@
+package com.silviarafa.ecommerce.ecommerceProject.archivo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Period;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ConsultasCliente;
+import com.silviarafa.ecommerce.ecommerceProject.consulta.ResumenCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del archivado de compras sobre H2: el resumen del cliente cuenta igual antes y después de mover sus
+ * compras cerradas a las tablas de archivo.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class ArchivadoComprasTest {
+
+	private static final String NIF = "12345678Z";
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+		Integer articulo = BaseDatosPrueba.crearArticulo(emf, 100);
+		BaseDatosPrueba.crearCliente(emf, NIF);
+		EntityManager em = emf.createEntityManager();
+		try {
+			for (int i = 1; i <= 3; i++)
+				OperacionesCompra.crear(em, em.find(Cliente.class, NIF), Map.of(em.find(Articulo.class, articulo), i));
+		} finally {
+			em.close();
+		}
+		// Las dos primeras compras, entregadas hace años; la tercera sigue abierta
+		BaseDatosPrueba.enTransaccion(emf, e -> e.createNativeQuery("UPDATE compra SET estado = CASE WHEN id ="
+				+ " (SELECT MAX(id) FROM compra) THEN 'PENDIENTE' ELSE 'entregado' END,"
+				+ " fecha_compra = TIMESTAMP '2020-01-01 00:00:00'").executeUpdate());
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void elResumenDelClienteCuentaLasComprasArchivadas() {
+		ResumenCliente antes = resumen();
+		assertEquals(3, antes.numCompras());
+		assertEquals(new BigDecimal("60.00"), antes.totalGastado());
+
+		ArchivadoCompras.Informe informe = new ArchivadoCompras(emf, Period.ofYears(1), Set.of("entregado"), 10,
+				Duration.ZERO).archivar();
+
+		assertEquals(2, informe.compras());
+		assertEquals(0, informe.lotesFallidos());
+		assertTrue(informe.errores().isEmpty());
+		assertEquals(antes, resumen());
+		EntityManager em = emf.createEntityManager();
+		try {
+			assertEquals(3, ConsultasCliente.numCompras(em, NIF));
+			assertEquals(antes, ConsultasCliente.resumenes(em).get(0));
+		} finally {
+			em.close();
+		}
+	}
+
+	private ResumenCliente resumen() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return ConsultasCliente.resumen(em, NIF);
+		} finally {
+			em.close();
+		}
+	}
+}
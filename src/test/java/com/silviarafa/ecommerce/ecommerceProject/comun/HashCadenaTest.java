@@ -0,0 +1,29 @@
+package com.silviarafa.ecommerce.ecommerceProject.comun;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link HashCadena}: los valores son los que daba el hash del anillo de fragmentos sobre los bytes
+ * UTF-8, así que ningún cliente cambia de fragmento, recorra la cadena sin codificar (ASCII) o codificada.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class HashCadenaTest {
+
+	@Test
+	void lasCadenasAsciiDanElMismoHashQueSusBytesUtf8() {
+		assertEquals(-1166397803181037274L, HashCadena.hash64(""));
+		assertEquals(485911978346023151L, HashCadena.hash64("12345678Z"));
+		assertEquals(5904087376321739640L, HashCadena.hash64("0#17"));
+	}
+
+	@Test
+	void lasCadenasNoAsciiSeCodificanEnUtf8() {
+		assertEquals(3610745017060645838L, HashCadena.hash64("peña@example.com"));
+		assertEquals(-7564774199016819964L, HashCadena.hash64("€"));
+	}
+}
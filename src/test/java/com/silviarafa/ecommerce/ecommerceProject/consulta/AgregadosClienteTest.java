@@ -0,0 +1,90 @@
+package com.silviarafa.ecommerce.ecommerceProject.consulta;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.AgregadoCliente;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del mantenimiento incremental de los agregados por cliente sobre H2 (modo MariaDB): las primeras
+ * compras concurrentes de un cliente sin fila no chocan por clave duplicada ni pierden sumas.
+ *
+ * @author Silvia Balmaseda
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class AgregadosClienteTest {
+
+	private static final String NIF = "12345678Z";
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+		BaseDatosPrueba.crearCliente(emf, NIF);
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void primerasComprasConcurrentesNoChocanNiPierdenSumas() throws Exception {
+		Cliente cliente = cliente();
+		LocalDateTime fecha = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+		BaseDatosPrueba.ejecutarALaVez(8, () -> {
+			for (int i = 0; i < 10; i++)
+				BaseDatosPrueba.enTransaccion(emf,
+						em -> AgregadosCliente.sumarCompra(em, cliente, new BigDecimal("2.50"), fecha));
+		});
+
+		AgregadoCliente a = leer();
+		assertEquals(80, a.getNumCompras());
+		assertEquals(0, new BigDecimal("200.00").compareTo(a.getGastoTotal()));
+		assertEquals(fecha, a.getFechaUltimaCompra());
+	}
+
+	@Test
+	void sumarCompraConservaLaFechaMasReciente() {
+		Cliente cliente = cliente();
+		LocalDateTime reciente = LocalDateTime.of(2026, 10, 17, 12, 0);
+
+		BaseDatosPrueba.enTransaccion(emf,
+				em -> AgregadosCliente.sumarCompra(em, cliente, BigDecimal.ONE, reciente));
+		BaseDatosPrueba.enTransaccion(emf,
+				em -> AgregadosCliente.sumarCompra(em, cliente, BigDecimal.ONE, reciente.minusDays(1)));
+
+		AgregadoCliente a = leer();
+		assertEquals(2, a.getNumCompras());
+		assertEquals(reciente, a.getFechaUltimaCompra());
+	}
+
+	private Cliente cliente() {
+		Cliente cliente = new Cliente();
+		cliente.setNifCif(NIF);
+		return cliente;
+	}
+
+	private AgregadoCliente leer() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.find(AgregadoCliente.class, NIF);
+		} finally {
+			em.close();
+		}
+	}
+}
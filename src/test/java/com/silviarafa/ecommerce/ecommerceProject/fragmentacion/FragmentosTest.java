@@ -0,0 +1,164 @@
+package com.silviarafa.ecommerce.ecommerceProject.fragmentacion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.Arranque;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del modo fragmentado sobre tres BD H2 en memoria (el fragmento 0 es el de catálogo): la caché de
+ * segundo nivel solo en el catálogo, las compras en dos pasos con compensación y el reparto a un cuarto
+ * fragmento.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class FragmentosTest {
+
+	private static final int STOCK = 100;
+
+	private final Map<Integer, EntityManagerFactory> fabricas = new TreeMap<>();
+	private Fragmentos fragmentos;
+	private Integer articulo;
+
+	@BeforeEach
+	void crearFragmentos() {
+		for (int id = 0; id < 3; id++)
+			fabricas.put(id, crearFragmento(id));
+		fragmentos = new Fragmentos(Map.copyOf(fabricas));
+		articulo = BaseDatosPrueba.crearArticulo(fragmentos.catalogo(), STOCK);
+		fragmentos.replicarCatalogo(List.of(1, 2));
+		fragmentos.catalogo().getCache().evictAll();
+	}
+
+	@AfterEach
+	void cerrarFragmentos() {
+		fragmentos.close();
+		fabricas.values().forEach(EntityManagerFactory::close);
+	}
+
+	@Test
+	void soloElCatalogoUsaLaCacheDeSegundoNivel() {
+		assertTrue(cacheado(0));
+		assertFalse(cacheado(1));
+		// La copia del fragmento 1 tiene otro stock; con una región compartida se leería el del catálogo
+		BaseDatosPrueba.enTransaccion(fragmentos.fabrica(1), em -> em
+				.createNativeQuery("UPDATE articulo SET stock = 7 WHERE id = ?1").setParameter(1, articulo)
+				.executeUpdate());
+
+		assertEquals(STOCK, stock(0));
+		assertEquals(7, stock(1));
+		assertEquals(7, stock(1));
+		assertEquals(STOCK, stock(0));
+	}
+
+	@Test
+	void laCompraVaAlFragmentoDelClienteYElStockAlCatalogo() {
+		String nif = "12345678Z";
+		BaseDatosPrueba.crearCliente(fragmentos.fabrica(fragmentos.fragmento(nif)), nif);
+
+		assertNotNull(ComprasFragmentadas.crear(fragmentos, nif, Map.of(articulo, 2)));
+
+		for (int id : fragmentos.activos())
+			assertEquals(id == fragmentos.fragmento(nif) ? 1 : 0, compras(id), "Compras en el fragmento " + id);
+		assertEquals(STOCK - 2, BaseDatosPrueba.stockEnBD(fragmentos.catalogo(), articulo));
+		assertEquals(1, ConsultasFragmentadas.mejoresClientes(fragmentos, 1).get(0).numCompras());
+	}
+
+	@Test
+	void siFallaLaCompraSeReponeElStock() {
+		assertThrows(IllegalArgumentException.class,
+				() -> ComprasFragmentadas.crear(fragmentos, "87654321X", Map.of(articulo, 2)));
+
+		assertEquals(STOCK, BaseDatosPrueba.stockEnBD(fragmentos.catalogo(), articulo));
+		assertEquals(0, ConsultasFragmentadas.totalCompras(fragmentos));
+	}
+
+	@Test
+	void elRepartoAUnCuartoFragmentoConservaLosTotales() {
+		List<String> nifs = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			String nif = String.format("%08dB", i);
+			nifs.add(nif);
+			BaseDatosPrueba.crearCliente(fragmentos.fabrica(fragmentos.fragmento(nif)), nif);
+			if (i % 3 == 0)
+				ComprasFragmentadas.crear(fragmentos, nif, Map.of(articulo, 1));
+		}
+
+		EntityManagerFactory nuevo = crearFragmento(3);
+		fabricas.put(3, nuevo);
+		fragmentos.iniciarReparto(Map.of(3, nuevo), List.of(0, 1, 2, 3));
+		Reparto.Informe informe = new Reparto(fragmentos, 10).ejecutar();
+
+		assertTrue(informe.clientesMovidos() > 0 && informe.clientesMovidos() < nifs.size(), informe::toString);
+		assertEquals(List.of(0, 1, 2, 3), fragmentos.activos());
+		assertEquals(nifs.size(), ConsultasFragmentadas.totalClientes(fragmentos));
+		assertEquals(20, ConsultasFragmentadas.totalCompras(fragmentos));
+		assertEquals(20, ConsultasFragmentadas.articulosMasVendidos(fragmentos, 1).get(0).unidades());
+		assertEquals(STOCK - 20, BaseDatosPrueba.stockEnBD(fragmentos.catalogo(), articulo));
+		for (String nif : nifs) {
+			int esperado = fragmentos.anillo().fragmento(nif);
+			assertEquals(esperado, fragmentos.fragmento(nif));
+			for (int id : fragmentos.activos())
+				assertEquals(id == esperado, encontrar(id, nif), nif + " en el fragmento " + id);
+		}
+	}
+
+	/* Fragmento H2 con las propiedades de Fragmentos; BaseDatosPrueba le da su propio pool y el esquema. */
+	private static EntityManagerFactory crearFragmento(int id) {
+		Map<String, Object> props = Fragmentos.propiedades(id, id == 0);
+		props.putAll(BaseDatosPrueba.propiedades(BaseDatosPrueba.url(BaseDatosPrueba.nombreNuevo())));
+		return Arranque.crear(props);
+	}
+
+	private boolean cacheado(int id) {
+		stock(id);
+		return fragmentos.fabrica(id).getCache().contains(Articulo.class, articulo);
+	}
+
+	private int stock(int id) {
+		EntityManager em = fragmentos.fabrica(id).createEntityManager();
+		try {
+			return em.find(Articulo.class, articulo).getStock();
+		} finally {
+			em.close();
+		}
+	}
+
+	private long compras(int id) {
+		EntityManager em = fragmentos.fabrica(id).createEntityManager();
+		try {
+			return em.createQuery("SELECT COUNT(c) FROM Compra c", Long.class).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+
+	private boolean encontrar(int id, String nif) {
+		EntityManager em = fragmentos.fabrica(id).createEntityManager();
+		try {
+			return em.find(Cliente.class, nif) != null;
+		} finally {
+			em.close();
+		}
+	}
+}
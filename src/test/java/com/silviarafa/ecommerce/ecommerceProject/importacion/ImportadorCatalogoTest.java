@@ -0,0 +1,107 @@
+package com.silviarafa.ecommerce.ecommerceProject.importacion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Dinero;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del upsert del importador de catálogo sobre H2 (modo MariaDB): el stock de los artículos existentes
+ * no se pisa, los retirados se reactivan y solo se desalojan de la caché los artículos escritos.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class ImportadorCatalogoTest {
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void elUpsertNoPisaElStockYReactivaLosRetirados() throws Exception {
+		Integer existente = crearArticulo("REF-1", 7, true);
+
+		ImportadorCatalogo.Resultado r = new ImportadorCatalogo(emf).importar(new StringReader(
+				"referencia,nombre,descripcion,precio,stock\n"
+						+ "REF-1,Nombre nuevo,Descripción nueva,12.50,100\n"
+						+ "REF-2,Artículo nuevo,Nuevo,3.00,50\n"),
+				ImportadorCatalogo.Formato.CSV);
+		assertEquals(2, r.totales().filasEscritas());
+
+		Articulo actualizado = buscar(existente);
+		assertEquals("Nombre nuevo", actualizado.getNombre());
+		assertEquals(Dinero.de("12.50"), actualizado.getPrecioActual());
+		assertEquals(7, actualizado.getStock());
+		assertFalse(actualizado.isRetirado());
+
+		EntityManager em = emf.createEntityManager();
+		try {
+			Articulo nuevo = em.createQuery("SELECT a FROM Articulo a WHERE a.referenciaProveedor = 'REF-2'",
+					Articulo.class).getSingleResult();
+			assertEquals(50, nuevo.getStock());
+		} finally {
+			em.close();
+		}
+	}
+
+	@Test
+	void soloSeDesalojanLosArticulosEscritos() throws Exception {
+		Integer escrito = crearArticulo("REF-1", 5, false);
+		Integer otro = crearArticulo("REF-9", 5, false);
+		buscar(escrito);
+		buscar(otro);
+
+		new ImportadorCatalogo(emf).importar(new StringReader(
+				"{\"referencia\":\"REF-1\",\"nombre\":\"Renombrado\",\"precio\":1.00}\n"),
+				ImportadorCatalogo.Formato.NDJSON);
+
+		assertFalse(emf.getCache().contains(Articulo.class, escrito));
+		assertTrue(emf.getCache().contains(Articulo.class, otro));
+		assertEquals("Renombrado", buscar(escrito).getNombre());
+	}
+
+	private Integer crearArticulo(String referencia, int stock, boolean retirado) {
+		return BaseDatosPrueba.resultadoEnTransaccion(emf, em -> {
+			Articulo a = new Articulo();
+			a.setReferenciaProveedor(referencia);
+			a.setNombre("Original " + referencia);
+			a.setDescripcion("Original");
+			a.setPrecioActual(Dinero.deCentimos(500));
+			a.setStock(stock);
+			a.setRetirado(retirado);
+			em.persist(a);
+			return a.getId();
+		});
+	}
+
+	private Articulo buscar(Integer id) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.find(Articulo.class, id);
+		} finally {
+			em.close();
+		}
+	}
+}
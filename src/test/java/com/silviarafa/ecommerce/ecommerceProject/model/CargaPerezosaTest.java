@@ -0,0 +1,97 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.RegistroSentencias;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del SQL que lanzan las lecturas frecuentes con las entidades mejoradas en compilación: el listado
+ * del catálogo no lee la columna TEXT {@code descripcion} y {@code find(Cliente)} no consulta
+ * {@code informacion_fiscal} hasta que se usan. Sin la mejora, estas pruebas fallan.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class CargaPerezosaTest {
+
+	private static final String NIF = "12345678Z";
+
+	private final RegistroSentencias sql = new RegistroSentencias();
+	private EntityManagerFactory emf;
+	private EntityManager em;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear(Map.of("hibernate.session_factory.statement_inspector", sql));
+		BaseDatosPrueba.crearArticulo(emf, 10);
+		BaseDatosPrueba.crearArticulo(emf, 10);
+		BaseDatosPrueba.crearCliente(emf, NIF);
+		// Todo sale de la BD, no de la caché de segundo nivel
+		emf.getCache().evictAll();
+		em = emf.createEntityManager();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		em.close();
+		emf.close();
+	}
+
+	@Test
+	void elListadoDelCatalogoNoLeeLaDescripcion() {
+		sql.grabar();
+		List<Articulo> articulos = em.createQuery("SELECT a FROM Articulo a", Articulo.class).getResultList();
+		List<String> listado = sql.parar();
+		assertEquals(2, articulos.size());
+		assertEquals(1, listado.size(), listado::toString);
+		assertFalse(listado.get(0).contains("descripcion"), listado::toString);
+
+		// La descripción se carga sola, con su grupo, al usarla
+		sql.grabar();
+		articulos.get(0).getDescripcion();
+		List<String> descripcion = sql.parar();
+		assertEquals(1, descripcion.size(), descripcion::toString);
+		assertTrue(descripcion.get(0).contains("descripcion"), descripcion::toString);
+		assertFalse(descripcion.get(0).contains("precio_actual"), descripcion::toString);
+	}
+
+	@Test
+	void findClienteNoCargaLaInformacionFiscal() {
+		sql.grabar();
+		Cliente cliente = em.find(Cliente.class, NIF);
+		List<String> carga = sql.parar();
+		assertEquals(1, carga.size(), carga::toString);
+		assertFalse(carga.get(0).contains("informacion_fiscal"), carga::toString);
+
+		sql.grabar();
+		assertEquals("600000000", cliente.getInformacionFiscal().getTelefono());
+		List<String> fiscal = sql.parar();
+		assertEquals(1, fiscal.size(), fiscal::toString);
+	}
+
+	@Test
+	void toStringNoLanzaConsultas() {
+		Articulo articulo = em.createQuery("SELECT a FROM Articulo a", Articulo.class).getResultList().get(0);
+		Cliente cliente = em.find(Cliente.class, NIF);
+
+		sql.grabar();
+		articulo.toString();
+		cliente.toString();
+		List<String> sentencias = sql.parar();
+		assertTrue(sentencias.isEmpty(), sentencias::toString);
+	}
+}
@@ -0,0 +1,70 @@
+package com.silviarafa.ecommerce.ecommerceProject.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de las reglas de {@link Dinero} y {@link DineroConverter} frente a {@code decimal(10,2)}: redondeo
+ * HALF_UP, aritmética exacta, límite de la columna y conversión de ida y vuelta.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class DineroTest {
+
+	private final DineroConverter converter = new DineroConverter();
+
+	@Test
+	void seRedondeaConHalfUpAlejandoseDelCero() {
+		assertEquals(1, Dinero.de(new BigDecimal("0.005")).centimos());
+		assertEquals(-1, Dinero.de(new BigDecimal("-0.005")).centimos());
+		assertEquals(0, Dinero.de(new BigDecimal("0.0049")).centimos());
+		assertEquals(0, Dinero.de(new BigDecimal("-0.0049")).centimos());
+		assertEquals(1999, Dinero.de("19.985").centimos());
+		assertEquals(1998, Dinero.de("19.9849").centimos());
+		assertNull(Dinero.de((BigDecimal) null));
+	}
+
+	@Test
+	void multiplicarYSumarDesbordadosLanzanArithmeticException() {
+		assertEquals(6000, Dinero.multiplicar(2000, 3));
+		assertEquals(Long.MAX_VALUE, Dinero.sumar(Long.MAX_VALUE - 1, 1));
+		assertThrows(ArithmeticException.class, () -> Dinero.multiplicar(Long.MAX_VALUE / 2 + 1, 2));
+		assertThrows(ArithmeticException.class, () -> Dinero.sumar(Long.MAX_VALUE, 1));
+		assertThrows(ArithmeticException.class, () -> Dinero.sumar(Long.MIN_VALUE, -1));
+		assertThrows(ArithmeticException.class, () -> Dinero.deCentimos(Long.MAX_VALUE).mas(Dinero.deCentimos(1)));
+		assertThrows(ArithmeticException.class, () -> Dinero.deCentimos(Long.MAX_VALUE).por(2));
+	}
+
+	@Test
+	void elConverterSoloEscribeLoQueCabeEnLaColumna() {
+		assertEquals(new BigDecimal("99999999.99"),
+				converter.convertToDatabaseColumn(Dinero.deCentimos(Dinero.MAX_CENTIMOS)));
+		assertEquals(new BigDecimal("-99999999.99"),
+				converter.convertToDatabaseColumn(Dinero.deCentimos(-Dinero.MAX_CENTIMOS)));
+		assertThrows(IllegalArgumentException.class,
+				() -> converter.convertToDatabaseColumn(Dinero.deCentimos(Dinero.MAX_CENTIMOS + 1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> converter.convertToDatabaseColumn(Dinero.deCentimos(-Dinero.MAX_CENTIMOS - 1)));
+		assertNull(converter.convertToDatabaseColumn(null));
+	}
+
+	@Test
+	void laConversionConBigDecimalEsDeIdaYVuelta() {
+		for (String importe : new String[] { "0.00", "0.01", "-0.01", "19.99", "-1234.50", "99999999.99" }) {
+			BigDecimal valor = new BigDecimal(importe);
+			Dinero dinero = converter.convertToEntityAttribute(valor);
+			assertEquals(valor, converter.convertToDatabaseColumn(dinero));
+			assertEquals(valor, dinero.aBigDecimal());
+			assertEquals(importe, dinero.toString());
+		}
+		assertEquals(Dinero.CERO, Dinero.de(new BigDecimal("0")));
+		assertEquals(Dinero.de("1.5"), Dinero.de(new BigDecimal("1.50")));
+	}
+}
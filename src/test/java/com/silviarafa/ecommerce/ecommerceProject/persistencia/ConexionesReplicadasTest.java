@@ -0,0 +1,123 @@
+package com.silviarafa.ecommerce.ecommerceProject.persistencia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del enrutado de lecturas a réplica sobre dos BD H2 en memoria, una como primaria y otra como
+ * réplica. Cada una tiene un cliente que la otra no tiene, así que encontrarlo dice a qué BD fue la lectura.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class ConexionesReplicadasTest {
+
+	private static final String NIF_PRIMARIA = "11111111H";
+	private static final String NIF_REPLICA = "22222222J";
+
+	private EntityManagerFactory replica;
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		// La factoría de la réplica solo crea el esquema y su cliente; sigue abierta para no borrarlos
+		String urlReplica = BaseDatosPrueba.url(BaseDatosPrueba.nombreNuevo());
+		replica = Arranque.crear(BaseDatosPrueba.propiedades(urlReplica));
+		BaseDatosPrueba.crearCliente(replica, NIF_REPLICA);
+
+		emf = BaseDatosPrueba.crear(Map.of(ConexionesReplicadas.PROPIEDAD_URLS, urlReplica));
+		BaseDatosPrueba.crearCliente(emf, NIF_PRIMARIA);
+		emf.getCache().evictAll();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+		replica.close();
+	}
+
+	@Test
+	void lasLecturasVanALaReplicaYElRestoALaPrimaria() {
+		assertNotNull(leer(null, NIF_REPLICA));
+		assertNull(leer(null, NIF_PRIMARIA));
+
+		EntityManager em = emf.createEntityManager();
+		try {
+			assertNotNull(em.find(Cliente.class, NIF_PRIMARIA));
+			assertNull(em.find(Cliente.class, NIF_REPLICA));
+		} finally {
+			em.close();
+		}
+
+		ConexionesReplicadas.Estadisticas e = ConexionesReplicadas.de(emf).estadisticas();
+		assertEquals(1, e.replicas());
+		assertEquals(2, e.lecturasReplica());
+		assertEquals(0, e.lecturasPrimaria());
+	}
+
+	@Test
+	void unaEscrituraRecienteSeLeeDeLaPrimaria() {
+		ConexionesReplicadas.anotarEscritura(emf, NIF_PRIMARIA);
+
+		assertNotNull(leer(NIF_PRIMARIA, NIF_PRIMARIA));
+		// Otras claves siguen yendo a la réplica
+		assertNotNull(leer(NIF_REPLICA, NIF_REPLICA));
+
+		ConexionesReplicadas.Estadisticas e = ConexionesReplicadas.de(emf).estadisticas();
+		assertEquals(1, e.lecturasPrimaria());
+		assertEquals(1, e.lecturasReplica());
+	}
+
+	@Test
+	void unaReplicaCaidaSeApartaYLaLecturaVaALaPrimaria() {
+		Map<String, Object> extra = new HashMap<>();
+		extra.put(ConexionesReplicadas.PROPIEDAD_URLS, "jdbc:h2:mem:" + BaseDatosPrueba.nombreNuevo() + ";IFEXISTS=TRUE");
+		// Sin fallo al arrancar el pool de la réplica y sin esperar 30 s a que dé conexión
+		extra.put("hibernate.hikari.initializationFailTimeout", "-1");
+		extra.put("hibernate.hikari.connectionTimeout", "250");
+		EntityManagerFactory conReplicaCaida = BaseDatosPrueba.crear(extra);
+		try {
+			BaseDatosPrueba.crearCliente(conReplicaCaida, NIF_PRIMARIA);
+			conReplicaCaida.getCache().evictAll();
+
+			Cliente c = ConexionesReplicadas.leer(conReplicaCaida, null, em -> em.find(Cliente.class, NIF_PRIMARIA));
+			assertNotNull(c);
+
+			ConexionesReplicadas.Estadisticas e = ConexionesReplicadas.de(conReplicaCaida).estadisticas();
+			assertEquals(1, e.fallosReplica());
+			assertEquals(0, e.disponibles());
+		} finally {
+			conReplicaCaida.close();
+		}
+	}
+
+	@Test
+	void soloSeLeenLasClavesJakartaDeConexion() {
+		ConexionesReplicadas proveedor = new ConexionesReplicadas();
+		Map<String, Object> props = new HashMap<>();
+		props.put("hibernate.connection.url", BaseDatosPrueba.url(BaseDatosPrueba.nombreNuevo()));
+		props.put("hibernate.connection.driver_class", "org.h2.Driver");
+
+		assertThrows(IllegalArgumentException.class, () -> proveedor.configure(props));
+	}
+
+	private Cliente leer(String clave, String nif) {
+		return ConexionesReplicadas.leer(emf, clave, em -> em.find(Cliente.class, nif));
+	}
+}
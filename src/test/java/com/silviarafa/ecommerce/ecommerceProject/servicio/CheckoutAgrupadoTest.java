@@ -0,0 +1,168 @@
+package com.silviarafa.ecommerce.ecommerceProject.servicio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Compra;
+import com.silviarafa.ecommerce.ecommerceProject.persistencia.ConexionesReplicadas;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del checkout agrupado sobre H2: un lote que falla antes del commit se reintenta compra a compra,
+ * y uno cuyo commit falla con resultado desconocido no se reintenta (no duplica compras).
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class CheckoutAgrupadoTest {
+
+	private static final String NIF = "12345678Z";
+
+	/* Lotes de 4 compras; la ventana no vence durante la prueba. */
+	private static final int LOTE = 4;
+	private static final long VENTANA_MS = 10_000;
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		CommitQueFalla.fallarUnaVez = false;
+		emf = BaseDatosPrueba.crear(Map.of("hibernate.connection.provider_class", CommitQueFalla.class.getName()));
+		BaseDatosPrueba.crearCliente(emf, NIF);
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void unFalloAntesDelCommitSeReintentaCompraACompra() throws Exception {
+		Integer articulo = BaseDatosPrueba.crearArticulo(emf, 200_000_000);
+		List<CompletableFuture<Compra>> buenas = new ArrayList<>();
+		CompletableFuture<Compra> mala;
+
+		try (CheckoutAgrupado checkout = new CheckoutAgrupado(emf, LOTE, VENTANA_MS, 100)) {
+			buenas.add(checkout.enviar(NIF, Map.of(articulo, 1)));
+			// Su total no cabe en decimal(10,2): falla en el flush y arrastra al lote entero
+			mala = checkout.enviar(NIF, Map.of(articulo, 100_000_000));
+			buenas.add(checkout.enviar(NIF, Map.of(articulo, 1)));
+			buenas.add(checkout.enviar(NIF, Map.of(articulo, 1)));
+
+			for (CompletableFuture<Compra> f : buenas)
+				assertNotNull(f.get(10, TimeUnit.SECONDS));
+			assertThrows(ExecutionException.class, () -> mala.get(10, TimeUnit.SECONDS));
+
+			CheckoutAgrupado.Estadisticas e = checkout.estadisticas();
+			assertEquals(1, e.lotesReintentados());
+			assertEquals(3, e.confirmadas());
+			assertEquals(1, e.rechazadas());
+		}
+		assertEquals(3, compras());
+		assertEquals(200_000_000 - 3, BaseDatosPrueba.stockEnBD(emf, articulo));
+	}
+
+	@Test
+	void unCommitConResultadoDesconocidoNoSeReintenta() throws Exception {
+		Integer articulo = BaseDatosPrueba.crearArticulo(emf, 100);
+		List<CompletableFuture<Compra>> futuros = new ArrayList<>();
+
+		try (CheckoutAgrupado checkout = new CheckoutAgrupado(emf, LOTE, VENTANA_MS, 100)) {
+			CommitQueFalla.fallarUnaVez = true;
+			for (int i = 0; i < LOTE; i++)
+				futuros.add(checkout.enviar(NIF, Map.of(articulo, 1)));
+
+			for (CompletableFuture<Compra> f : futuros) {
+				ExecutionException ee = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+				assertInstanceOf(IllegalStateException.class, ee.getCause());
+			}
+
+			CheckoutAgrupado.Estadisticas e = checkout.estadisticas();
+			assertEquals(0, e.lotesReintentados());
+			assertEquals(LOTE, e.inciertas());
+		}
+		// El commit llegó a la BD: las compras están una sola vez, sin reintentos que las dupliquen
+		assertEquals(LOTE, compras());
+		assertEquals(100 - LOTE, BaseDatosPrueba.stockEnBD(emf, articulo));
+	}
+
+	@Test
+	void unaCantidadNoPositivaSeRechazaSinTocarElStock() throws Exception {
+		Integer conStock = BaseDatosPrueba.crearArticulo(emf, 10);
+		Integer sinUnidades = BaseDatosPrueba.crearArticulo(emf, 10);
+		Map<Integer, Integer> unidades = new LinkedHashMap<>();
+		unidades.put(conStock, 2);
+		unidades.put(sinUnidades, 0);
+
+		try (CheckoutAgrupado checkout = new CheckoutAgrupado(emf, LOTE, 0, 100)) {
+			CompletableFuture<Compra> mala = checkout.enviar(NIF, unidades);
+			CompletableFuture<Compra> buena = checkout.enviar(NIF, Map.of(conStock, 1));
+
+			ExecutionException ee = assertThrows(ExecutionException.class, () -> mala.get(10, TimeUnit.SECONDS));
+			assertInstanceOf(IllegalArgumentException.class, ee.getCause());
+			assertNotNull(buena.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, compras());
+		assertEquals(9, BaseDatosPrueba.stockEnBD(emf, conStock));
+		assertEquals(10, BaseDatosPrueba.stockEnBD(emf, sinUnidades));
+	}
+
+	private long compras() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT COUNT(c) FROM Compra c", Long.class).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+
+	/**
+	 * Proveedor de conexiones cuyo siguiente commit, tras confirmarse en la BD, lanza un error: el cliente
+	 * no sabe si la transacción quedó confirmada (como si se cortara la conexión durante el commit).
+	 */
+	public static class CommitQueFalla extends ConexionesReplicadas {
+
+		static volatile boolean fallarUnaVez;
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection real = super.getConnection();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, metodo, args) -> {
+						Object r;
+						try {
+							r = metodo.invoke(real, args);
+						} catch (InvocationTargetException ite) {
+							throw ite.getCause();
+						}
+						if (metodo.getName().equals("commit") && fallarUnaVez) {
+							fallarUnaVez = false;
+							throw new SQLException("Conexión cortada durante el commit.");
+						}
+						return r;
+					});
+		}
+	}
+}
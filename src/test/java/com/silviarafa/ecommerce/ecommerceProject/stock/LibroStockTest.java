@@ -0,0 +1,222 @@
+package com.silviarafa.ecommerce.ecommerceProject.stock;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.model.Cliente;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas del libro de stock sobre H2: sin sobreventa con muchos hilos, reservas durables en el diario y
+ * volcado sin tocar la versión del artículo.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class LibroStockTest {
+
+	/* Sin volcados programados durante la prueba: se vuelca a mano. */
+	private static final long SIN_VOLCADO = 3_600_000;
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void reservasConcurrentesNoVendenDeMas() throws Exception {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 500);
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			int hilos = 32;
+			int intentosPorHilo = 200;
+			AtomicInteger reservadas = new AtomicInteger();
+			BaseDatosPrueba.ejecutarALaVez(hilos, () -> {
+				for (int i = 0; i < intentosPorHilo; i++) {
+					if (libro.reservar(id, 1))
+						reservadas.incrementAndGet();
+				}
+			});
+
+			assertEquals(500, reservadas.get());
+			assertEquals(0, libro.disponible(id));
+		}
+	}
+
+	@Test
+	void comprasConcurrentesNoVendenDeMasYSeVuelcanAlStock() throws Exception {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 100);
+		Articulo articulo = buscar(id);
+		AtomicInteger compras = new AtomicInteger();
+		AtomicInteger rechazadas = new AtomicInteger();
+
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			BaseDatosPrueba.ejecutarALaVez(8, () -> {
+				EntityManager em = emf.createEntityManager();
+				try {
+					for (int i = 0; i < 30; i++) {
+						try {
+							OperacionesCompra.crear(em, null, Map.of(articulo, 1), libro);
+							compras.incrementAndGet();
+						} catch (IllegalStateException sinStock) {
+							rechazadas.incrementAndGet();
+						}
+					}
+				} finally {
+					em.close();
+				}
+			});
+
+			assertEquals(100, compras.get());
+			assertEquals(140, rechazadas.get());
+			assertEquals(0, libro.disponible(id));
+			// Hasta el volcado el descuento solo está en el diario
+			assertEquals(100, BaseDatosPrueba.stockEnBD(emf, id));
+			assertEquals(100, movimientos());
+
+			assertEquals(100, libro.volcar());
+		}
+		assertEquals(0, BaseDatosPrueba.stockEnBD(emf, id));
+		assertEquals(0, movimientos());
+		assertEquals(100, lineasDeCompra(id));
+	}
+
+	@Test
+	void lasComprasConfirmadasSobrevivenAUnaCaidaSinVolcado() {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 10);
+		Articulo articulo = buscar(id);
+
+		// Libro que "cae": no se cierra ni se vuelca
+		LibroStock caido = LibroStock.cargar(emf, SIN_VOLCADO);
+		EntityManager em = emf.createEntityManager();
+		try {
+			for (int i = 0; i < 3; i++)
+				OperacionesCompra.crear(em, null, Map.of(articulo, 2), caido);
+		} finally {
+			em.close();
+		}
+		assertEquals(10, BaseDatosPrueba.stockEnBD(emf, id));
+
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			assertEquals(4, libro.disponible(id));
+			libro.volcar();
+		}
+		assertEquals(4, BaseDatosPrueba.stockEnBD(emf, id));
+	}
+
+	@Test
+	void laCompraFallidaDevuelveLaReservaYNoDejaMovimientos() {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 10);
+		Articulo articulo = buscar(id);
+
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			EntityManager em = emf.createEntityManager();
+			try {
+				// Un cliente que no existe en la BD hace fallar la compra en el flush, después de reservar
+				Cliente inexistente = new Cliente();
+				inexistente.setNifCif("99999999R");
+				assertThrows(RuntimeException.class,
+						() -> OperacionesCompra.crear(em, inexistente, Map.of(articulo, 3), libro));
+			} finally {
+				em.close();
+			}
+			assertEquals(10, libro.disponible(id));
+			assertEquals(0, movimientos());
+
+			EntityManager otro = emf.createEntityManager();
+			try {
+				OperacionesCompra.crear(otro, null, Map.of(articulo, 3), libro);
+			} finally {
+				otro.close();
+			}
+			assertEquals(7, libro.disponible(id));
+		}
+	}
+
+	@Test
+	void elVolcadoNoCambiaLaVersionDelArticulo() {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 10);
+		Articulo articulo = buscar(id);
+		Integer version = articulo.getVersion();
+
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			EntityManager em = emf.createEntityManager();
+			try {
+				OperacionesCompra.crear(em, null, Map.of(articulo, 1), libro);
+			} finally {
+				em.close();
+			}
+			libro.volcar();
+		}
+
+		Articulo volcado = buscar(id);
+		assertEquals(9, volcado.getStock());
+		assertEquals(version, volcado.getVersion());
+	}
+
+	@Test
+	void recargarUnArticuloBorradoNoRompeLiberarNiVolcar() {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 10);
+		try (LibroStock libro = LibroStock.cargar(emf, SIN_VOLCADO)) {
+			BaseDatosPrueba.enTransaccion(emf, em -> libro.anotar(em, Map.of(id, 1)));
+			assertTrue(libro.reservar(id, 1));
+			BaseDatosPrueba.enTransaccion(emf,
+					em -> em.createNativeQuery("DELETE FROM articulo WHERE id = ?1").setParameter(1, id).executeUpdate());
+			emf.getCache().evict(Articulo.class, id);
+
+			libro.recargar(id);
+			assertDoesNotThrow(() -> libro.liberar(id, 1));
+			assertEquals(1, libro.volcar());
+		}
+		assertEquals(0, movimientos());
+	}
+
+	private Articulo buscar(Integer id) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.find(Articulo.class, id);
+		} finally {
+			em.close();
+		}
+	}
+
+	private long movimientos() {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT COUNT(m) FROM MovimientoStock m", Long.class).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+
+	private long lineasDeCompra(Integer articuloId) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.createQuery("SELECT COUNT(l) FROM ArticuloCompra l WHERE l.articulo.id = :id", Long.class)
+					.setParameter("id", articuloId).getSingleResult();
+		} finally {
+			em.close();
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.silviarafa.ecommerce.ecommerceProject.stock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.silviarafa.ecommerce.ecommerceProject.AppEcommerce;
+import com.silviarafa.ecommerce.ecommerceProject.BaseDatosPrueba;
+import com.silviarafa.ecommerce.ecommerceProject.model.Articulo;
+import com.silviarafa.ecommerce.ecommerceProject.operacion.OperacionesCompra;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+/**
+ * Pruebas del descuento de stock en la BD sobre H2: sin sobreventa con muchos hilos compitiendo por la misma
+ * fila y desalojo de la caché solo de los artículos tocados.
+ *
+ * @author Rafael Robles
+ * @version 1.0
+ * @since 2026-10-17
+ */
+class StockBDTest {
+
+	private EntityManagerFactory emf;
+
+	@BeforeEach
+	void crearBD() {
+		emf = BaseDatosPrueba.crear();
+	}
+
+	@AfterEach
+	void cerrarBD() {
+		emf.close();
+	}
+
+	@Test
+	void descuentosConcurrentesNoVendenDeMas() throws Exception {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 100);
+		AtomicInteger descontados = new AtomicInteger();
+		AtomicInteger sinStock = new AtomicInteger();
+
+		BaseDatosPrueba.ejecutarALaVez(8, () -> {
+			for (int i = 0; i < 25; i++) {
+				EntityManager em = emf.createEntityManager();
+				EntityTransaction tx = em.getTransaction();
+				try {
+					tx.begin();
+					StockBD.Resultado r = StockBD.descontar(em, id, 1);
+					tx.commit();
+					if (r == StockBD.Resultado.DESCONTADO)
+						descontados.incrementAndGet();
+					else if (r == StockBD.Resultado.STOCK_INSUFICIENTE)
+						sinStock.incrementAndGet();
+				} finally {
+					if (tx.isActive())
+						tx.rollback();
+					em.close();
+				}
+			}
+		});
+
+		assertEquals(100, descontados.get());
+		assertEquals(100, sinStock.get());
+		assertEquals(0, BaseDatosPrueba.stockEnBD(emf, id));
+	}
+
+	@Test
+	void comprasConcurrentesDescontandoStockNoVendenDeMas() throws Exception {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 50);
+		Articulo articulo = buscar(id);
+		AtomicInteger compras = new AtomicInteger();
+
+		BaseDatosPrueba.ejecutarALaVez(8, () -> {
+			EntityManager em = emf.createEntityManager();
+			try {
+				for (int i = 0; i < 10; i++) {
+					try {
+						OperacionesCompra.crearDescontandoStock(em, null, Map.of(articulo, 2));
+						compras.incrementAndGet();
+					} catch (IllegalStateException sinStock) {
+						// rechazada: no quedan unidades
+					}
+				}
+			} finally {
+				em.close();
+			}
+		});
+
+		assertEquals(25, compras.get());
+		assertEquals(0, BaseDatosPrueba.stockEnBD(emf, id));
+	}
+
+	@Test
+	void descontarSoloDesalojaElArticuloTocado() {
+		Integer tocado = BaseDatosPrueba.crearArticulo(emf, 10);
+		Integer otro = BaseDatosPrueba.crearArticulo(emf, 10);
+		buscar(tocado);
+		buscar(otro);
+		assertTrue(emf.getCache().contains(Articulo.class, tocado));
+		assertTrue(emf.getCache().contains(Articulo.class, otro));
+
+		BaseDatosPrueba.enTransaccion(emf, em -> StockBD.descontar(em, tocado, 3));
+
+		assertFalse(emf.getCache().contains(Articulo.class, tocado));
+		assertTrue(emf.getCache().contains(Articulo.class, otro));
+		assertEquals(7, buscar(tocado).getStock());
+	}
+
+	@Test
+	void descontarTodoOReponerDejaElStockIntactoSiFallaUnaLinea() {
+		Integer conStock = BaseDatosPrueba.crearArticulo(emf, 10);
+		Integer agotado = BaseDatosPrueba.crearArticulo(emf, 1);
+
+		StockBD.ResultadoCompra r = BaseDatosPrueba.resultadoEnTransaccion(emf,
+				em -> StockBD.descontarTodoOReponer(em, Map.of(conStock, 4, agotado, 2)));
+
+		assertEquals(StockBD.Resultado.STOCK_INSUFICIENTE, r.resultado());
+		assertEquals(agotado, r.articuloId());
+		assertEquals(10, BaseDatosPrueba.stockEnBD(emf, conStock));
+		assertEquals(1, BaseDatosPrueba.stockEnBD(emf, agotado));
+	}
+
+	@Test
+	void descontarTodoOReponerDevuelveLoDescontadoSiUnaLineaLanza() {
+		Integer conStock = BaseDatosPrueba.crearArticulo(emf, 10);
+		Integer sinUnidades = BaseDatosPrueba.crearArticulo(emf, 10);
+
+		// La transacción se confirma, como en el checkout agrupado cuando se rechaza una sola compra
+		BaseDatosPrueba.enTransaccion(emf, em -> assertThrows(IllegalArgumentException.class,
+				() -> StockBD.descontarTodoOReponer(em, Map.of(conStock, 2, sinUnidades, 0))));
+
+		assertEquals(10, BaseDatosPrueba.stockEnBD(emf, conStock));
+		assertEquals(10, BaseDatosPrueba.stockEnBD(emf, sinUnidades));
+	}
+
+	@Test
+	void descontarDistingueRetiradoDeInexistente() {
+		Integer id = BaseDatosPrueba.crearArticulo(emf, 10);
+		EntityManager em = emf.createEntityManager();
+		try {
+			AppEcommerce.borrarArticuloEnBloque(em, id);
+		} finally {
+			em.close();
+		}
+
+		assertEquals(StockBD.Resultado.RETIRADO,
+				BaseDatosPrueba.resultadoEnTransaccion(emf, e -> StockBD.descontar(e, id, 1)));
+		assertEquals(StockBD.Resultado.NO_EXISTE,
+				BaseDatosPrueba.resultadoEnTransaccion(emf, e -> StockBD.descontar(e, id + 1000, 1)));
+	}
+
+	private Articulo buscar(Integer id) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			return em.find(Articulo.class, id);
+		} finally {
+			em.close();
+		}
+	}
+}